@@ -0,0 +1,38 @@
+package com.ibm.fscc.apigateway.diagnostics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration class wiring the {@link BlockingCallDetector} into the service when
+ * {@code diagnostics.blocking.enabled} is set: requests mark the thread serving them so that reports name their
+ * route.
+ */
+@Configuration
+@ConditionalOnProperty(name = "diagnostics.blocking.enabled", havingValue = "true")
+public class BlockingDiagnosticsConfiguration {
+
+	/**
+     * Creates the {@link WebFilter} marking the thread serving a request while the request is handled on it.
+     *
+     * @param detector the {@link BlockingCallDetector}
+     * @return the {@link WebFilter}, run before any other
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter blockingCallEndpointFilter(BlockingCallDetector detector) {
+        return (exchange, chain) -> Mono.defer(() -> {
+            detector.enter(exchange);
+            try {
+                return chain.filter(exchange);
+            } finally {
+                detector.leave();
+            }
+        });
+    }
+}
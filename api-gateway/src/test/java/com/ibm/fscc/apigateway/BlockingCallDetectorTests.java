@@ -0,0 +1,56 @@
+package com.ibm.fscc.apigateway;
+
+import com.ibm.fscc.apigateway.diagnostics.BlockingCallDetector;
+import com.ibm.fscc.apigateway.diagnostics.BlockingDiagnosticsConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link BlockingCallDetector} of the gateway names the reports by the route served, which the
+ * {@link BlockingDiagnosticsConfiguration} marks the thread with. The detector itself is checked by the employee
+ * service, which carries the same detector.
+ */
+class BlockingCallDetectorTests {
+
+	private final BlockingCallDetector detector = new BlockingCallDetector(new SimpleMeterRegistry(), Duration.ofMillis(5), 10, 20);
+
+	@AfterEach
+	void stop() {
+		detector.stop();
+	}
+
+	@Test
+	void namesReportsByTheRouteServed() {
+		detector.start();
+		WebFilter filter = new BlockingDiagnosticsConfiguration().blockingCallEndpointFilter(detector);
+
+		// The gateway has no blocking resource of its own to check, but logs to the console while routing
+		MockServerWebExchange routed = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/employees/ada@ibm.com"));
+		routed.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("employee-service").uri("lb://employee-service").predicate(exchange -> true).build());
+		MockServerWebExchange unrouted = MockServerWebExchange.from(MockServerHttpRequest.get("/unknown"));
+
+		for (MockServerWebExchange exchange : List.of(routed, unrouted))
+			Mono.defer(() -> filter.filter(exchange, served -> {
+				System.err.println("routing " + served.getRequest().getPath());
+				return Mono.empty();
+			})).subscribeOn(Schedulers.parallel())
+					.block(Duration.ofSeconds(10));
+
+		assertEquals(List.of("GET /unknown", "GET employee-service"), detector.getReports().stream()
+				.filter(report -> report.getOperation().equals("System.err")).map(BlockingCallDetector.Report::getEndpoint).sorted().toList());
+	}
+}
@@ -1,8 +1,12 @@
 package com.ibm.fscc.employeeservice;
 
+import com.ibm.fscc.employeeservice.dto.BulkItemResultDTO;
+import com.ibm.fscc.employeeservice.dto.BulkResponseDTO;
 import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
-import com.ibm.fscc.employeeservice.exception.EmployeeAlreadyExistsException;
-import com.ibm.fscc.employeeservice.service.EmployeeService;
+import com.ibm.fscc.employeeservice.service.EmployeeBulkService;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.springframework.boot.CommandLineRunner;
@@ -17,15 +21,15 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 @SpringBootApplication
 public class EmployeeServiceApplication implements CommandLineRunner{
 
-	private final EmployeeService employeeService;
+	private final EmployeeBulkService employeeBulkService;
 
 	/**
-	 * Constructs a new EmployeeServiceApplication with the specified EmployeeService.
+	 * Constructs a new EmployeeServiceApplication with the specified EmployeeBulkService.
 	 *
-	 * @param employeeService the EmployeeService to be used
+	 * @param employeeBulkService the EmployeeBulkService to be used
 	 */
-	public EmployeeServiceApplication(EmployeeService employeeService) {
-		this.employeeService = employeeService;
+	public EmployeeServiceApplication(EmployeeBulkService employeeBulkService) {
+		this.employeeBulkService = employeeBulkService;
 	}
 
 	/**
@@ -38,16 +42,18 @@ public class EmployeeServiceApplication implements CommandLineRunner{
 	}
 
 	/**
-	 * Runs the Employee Service application.
+	 * Runs the Employee Service application, seeding the database with random employees in a single bulk insert.
 	 *
 	 * @param args the command line arguments
 	 */
 	@Override
 	public void run(String... args) {
+		List<EmployeeDTO> employeeDTOs = new ArrayList<>();
+
 		for (int i = 0; i < 25; i++) {
 			String firstName = generateRandomName().split(" ")[0];
 			String lastName = generateRandomName().split(" ")[1];
-			createEmployee(
+			employeeDTOs.add(createEmployee(
 					generateRandomEmail(firstName, lastName),
 					firstName,
 					lastName,
@@ -56,12 +62,19 @@ public class EmployeeServiceApplication implements CommandLineRunner{
 					generateRandomZip(),
 					generateRandomPhoneNumber(),
 					generateRandomPhoneNumber()
-			);
+			));
+		}
+
+		BulkResponseDTO response = (BulkResponseDTO) employeeBulkService.createEmployees(employeeDTOs).getBody();
+
+		for (BulkItemResultDTO result : response.getResults()) {
+			if (result.getStatus() != 201)
+				System.out.println(result.getBody());
 		}
 	}
 
 	/**
-	 * Creates an employee with the given information.
+	 * Builds an employee with the given information.
 	 *
 	 * @param firstName  the first name of the employee
 	 * @param lastName   the last name of the employee
@@ -71,8 +84,9 @@ public class EmployeeServiceApplication implements CommandLineRunner{
 	 * @param cellPhone  the cell phone number of the employee
 	 * @param homePhone  the home phone number of the employee
 	 * @param email      the email address of the employee
+	 * @return the {@link EmployeeDTO} holding the information
 	 */
-	private void createEmployee(String email, String firstName, String lastName, String address, String state, String zip, String cellPhone, String homePhone) {
+	private EmployeeDTO createEmployee(String email, String firstName, String lastName, String address, String state, String zip, String cellPhone, String homePhone) {
 		EmployeeDTO employeeDTO = new EmployeeDTO();
 		employeeDTO.setEmail(email);
 		employeeDTO.setFirstName(firstName);
@@ -83,11 +97,7 @@ public class EmployeeServiceApplication implements CommandLineRunner{
 		employeeDTO.setCellPhone(cellPhone);
 		employeeDTO.setHomePhone(homePhone);
 
-		try {
-			employeeService.createEmployee(employeeDTO);
-		} catch (EmployeeAlreadyExistsException e) {
-			System.out.println(e.getMessage());
-		}
+		return employeeDTO;
 	}
 	
 	/**
@@ -0,0 +1,102 @@
+package com.ibm.fscc.employeeservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.routing.ReadYourWrites;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process near-cache of employees by email, sitting in front of the database lookups.
+ * Eviction is size based (W-TinyLFU) and time based; employees that were not found are cached too,
+ * for a shorter time. Entries are refreshed or invalidated once employee changes commit.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics tagged {@code cache=employeeByEmail}.
+ * Misses are first looked up in the off-heap {@link MappedEmployeeCache}, which outlives the process, and only
+ * then in the database; employees loaded from the database are written to both tiers.
+ */
+@Component
+public class EmployeeCache {
+
+	private final Cache<String, Optional<Employee>> cache;
+	private final MappedEmployeeCache mappedEmployeeCache;
+
+	/**
+	 * Constructs the cache and registers its metrics.
+	 *
+	 * @param mappedEmployeeCache the second-tier {@link MappedEmployeeCache} consulted on a miss
+	 * @param meterRegistry       the {@link MeterRegistry} to publish the cache statistics to
+	 * @param maximumSize         the maximum number of cached emails
+	 * @param timeToLive          how long a found employee stays cached after it was loaded or written
+	 * @param negativeTimeToLive  how long an email that matched no employee stays cached
+	 */
+	public EmployeeCache(MappedEmployeeCache mappedEmployeeCache, MeterRegistry meterRegistry,
+			@Value("${employee.cache.maximum-size}") long maximumSize,
+			@Value("${employee.cache.time-to-live}") Duration timeToLive,
+			@Value("${employee.cache.negative-time-to-live}") Duration negativeTimeToLive) {
+		this.mappedEmployeeCache = mappedEmployeeCache;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new Expiry<String, Optional<Employee>>() {
+					@Override
+					public long expireAfterCreate(String email, Optional<Employee> employee, long currentTime) {
+						return (employee.isPresent() ? timeToLive : negativeTimeToLive).toNanos();
+					}
+
+					@Override
+					public long expireAfterUpdate(String email, Optional<Employee> employee, long currentTime, long currentDuration) {
+						return expireAfterCreate(email, employee, currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(String email, Optional<Employee> employee, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "employeeByEmail");
+	}
+
+	/**
+	 * Returns the cached lookup result for the given email, loading it on a miss.
+	 * Concurrent misses for the same email share a single load, which tries the second tier before the loader.
+	 * The loader reads from the primary database: a replica lagging behind a write would leave a stale entry
+	 * cached well beyond the replication lag.
+	 *
+	 * @param email  the email address of the employee
+	 * @param loader the database lookup to run on a miss of both tiers
+	 * @return an Optional containing the Employee if found, or an empty Optional if not found
+	 */
+	public Optional<Employee> get(String email, Function<String, Optional<Employee>> loader) {
+		return cache.get(email, key -> mappedEmployeeCache.get(key).or(() -> {
+			Optional<Employee> employee = ReadYourWrites.onPrimary(() -> loader.apply(key));
+			employee.ifPresent(mappedEmployeeCache::put);
+			return employee;
+		}));
+	}
+
+	/**
+	 * Keeps the cache in line with committed employee changes: created and updated employees replace
+	 * their entry, deleted employees are evicted.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		if (event.getType() == EmployeeChangeEvent.Type.DELETED)
+			cache.invalidate(event.getEmail());
+		else
+			cache.put(event.getEmail(), Optional.of(event.getEmployee()));
+	}
+}
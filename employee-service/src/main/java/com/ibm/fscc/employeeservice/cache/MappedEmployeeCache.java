@@ -0,0 +1,465 @@
+package com.ibm.fscc.employeeservice.cache;
+
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Second-tier employee cache behind the {@link EmployeeCache}, holding serialized employees off-heap in a
+ * memory-mapped file, so it neither adds to the garbage collector's work nor is lost when the process restarts.
+ * <p>
+ * The file is an open-addressing hash table of fixed-size slots keyed by email. Each slot holds a state, the
+ * length, checksum, version and write time of its record, the hash of the email and the record itself: every
+ * field as a 2-byte length and its UTF-8 bytes. Employees too large for a slot are not cached, and an email
+ * whose probe sequence is full replaces the employee at its home slot.
+ * <p>
+ * On start the file written by the previous process is reconciled against the database by version: records
+ * whose employee was since changed or deleted, or whose checksum does not match, are dropped, and the others
+ * count as freshly written. Until then the cache answers nothing. Records expire after
+ * {@code employee.cache.l2.time-to-live} like first-tier entries, and follow committed employee changes.
+ * Lookups are counted in the {@code employee.cache.l2.requests} counter tagged {@code result=hit|miss}.
+ * <p>
+ * Only one process can use a file; if it is locked by another, this cache stays disabled.
+ */
+@Slf4j
+@Component
+public class MappedEmployeeCache {
+
+	private static final long MAGIC = 0x454D504C43414348L;
+	private static final int FORMAT = 1;
+	private static final int HEADER_SIZE = 64;
+
+	private static final int SLOT_SIZE = 512;
+	private static final int STATE = 0;
+	private static final int LENGTH = 2;
+	private static final int CHECKSUM = 4;
+	private static final int VERSION = 8;
+	private static final int WRITTEN_AT = 16;
+	private static final int HASH = 24;
+	private static final int RECORD = 28;
+	private static final int MAX_RECORD_SIZE = SLOT_SIZE - RECORD;
+
+	private static final byte EMPTY = 0;
+	private static final byte USED = 1;
+	private static final byte REMOVED = 2;
+
+	private static final int MAX_PROBES = 16;
+	private static final int NULL_LENGTH = 0xFFFF;
+	private static final int RECONCILE_BATCH_SIZE = 1000;
+
+	private final EmployeeBatchRepository employeeBatchRepository;
+	private final long timeToLive;
+	private final Counter hits;
+	private final Counter misses;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private FileChannel channel;
+	private FileLock fileLock;
+	private MappedByteBuffer buffer;
+	private int slots;
+	private volatile boolean ready;
+
+	/**
+	 * Constructs the cache, mapping its file and registering its metrics.
+	 *
+	 * @param employeeBatchRepository the {@link EmployeeBatchRepository} the records are reconciled against
+	 * @param meterRegistry           the {@link MeterRegistry} to publish the cache statistics to
+	 * @param path                    the file holding the cache, created if missing
+	 * @param size                    the size of the file, at most 2GB
+	 * @param timeToLive              how long a record stays valid after it was written or reconciled
+	 */
+	public MappedEmployeeCache(EmployeeBatchRepository employeeBatchRepository, MeterRegistry meterRegistry,
+			@Value("${employee.cache.l2.path}") Path path,
+			@Value("${employee.cache.l2.size}") DataSize size,
+			@Value("${employee.cache.l2.time-to-live}") Duration timeToLive) {
+		this.employeeBatchRepository = employeeBatchRepository;
+		this.timeToLive = timeToLive.toMillis();
+		this.hits = Counter.builder("employee.cache.l2.requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder("employee.cache.l2.requests").tag("result", "miss").register(meterRegistry);
+
+		open(path, Math.min(size.toBytes(), Integer.MAX_VALUE));
+
+		Gauge.builder("employee.cache.l2.slots", this, cache -> cache.slots).register(meterRegistry);
+	}
+
+	/**
+	 * Maps the file, reinitializing it if it was written with another layout, or leaves the cache disabled if the
+	 * file cannot be used.
+	 */
+	private void open(Path path, long size) {
+		try {
+			Files.createDirectories(path.toAbsolutePath().getParent());
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			fileLock = channel.tryLock();
+
+			if (fileLock == null) {
+				log.warn("Employee cache file {} is used by another process, the second-tier cache is disabled", path);
+				channel.close();
+				return;
+			}
+
+			int slotCount = Math.toIntExact((size - HEADER_SIZE) / SLOT_SIZE);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slotCount * SLOT_SIZE);
+
+			if (buffer.getLong(0) != MAGIC || buffer.getInt(8) != FORMAT || buffer.getInt(12) != SLOT_SIZE || buffer.getInt(16) != slotCount) {
+				for (int slot = 0; slot < slotCount; slot++)
+					buffer.put(offsetOf(slot) + STATE, EMPTY);
+				buffer.putLong(0, MAGIC).putInt(8, FORMAT).putInt(12, SLOT_SIZE).putInt(16, slotCount);
+			}
+
+			slots = slotCount;
+		} catch (IOException | OverlappingFileLockException e) {
+			log.warn("Employee cache file {} cannot be used, the second-tier cache is disabled", path, e);
+			buffer = null;
+			try {
+				if (channel != null)
+					channel.close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+		}
+	}
+
+	/**
+	 * Drops the records of employees that were changed or deleted since they were written, so the cache can serve
+	 * the others right away. Runs once the application has started.
+	 */
+	@EventListener(ApplicationStartedEvent.class)
+	public void load() {
+		if (buffer == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			long now = System.currentTimeMillis();
+			Map<String, Integer> batch = new HashMap<>();
+			int kept = 0;
+			int dropped = 0;
+
+			for (int slot = 0; slot < slots; slot++) {
+				int offset = offsetOf(slot);
+				if (buffer.get(offset + STATE) != USED)
+					continue;
+
+				Employee employee = read(offset);
+				if (employee == null) {
+					buffer.put(offset + STATE, REMOVED);
+					dropped++;
+				} else {
+					batch.put(employee.getEmail(), slot);
+				}
+
+				if (batch.size() == RECONCILE_BATCH_SIZE) {
+					int batchKept = reconcile(batch, now);
+					kept += batchKept;
+					dropped += batch.size() - batchKept;
+					batch.clear();
+				}
+			}
+
+			int batchKept = reconcile(batch, now);
+			kept += batchKept;
+			dropped += batch.size() - batchKept;
+
+			log.info("Second-tier employee cache kept {} employees and dropped {} stale ones", kept, dropped);
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Keeps the records of a batch whose version is still the current one, marking them as written now, and drops
+	 * the others.
+	 *
+	 * @return the number of records kept
+	 */
+	private int reconcile(Map<String, Integer> batch, long now) {
+		if (batch.isEmpty())
+			return 0;
+
+		Map<String, Long> versions = employeeBatchRepository.findVersions(batch.keySet());
+		int kept = 0;
+
+		for (Map.Entry<String, Integer> entry : batch.entrySet()) {
+			int offset = offsetOf(entry.getValue());
+
+			if (Long.valueOf(buffer.getLong(offset + VERSION)).equals(versions.get(entry.getKey()))) {
+				buffer.putLong(offset + WRITTEN_AT, now);
+				kept++;
+			} else {
+				buffer.put(offset + STATE, REMOVED);
+			}
+		}
+
+		return kept;
+	}
+
+	/**
+	 * Returns the cached employee with the given email.
+	 *
+	 * @param email the email address of the employee
+	 * @return an Optional containing the Employee if cached and still valid, or an empty Optional otherwise
+	 */
+	public Optional<Employee> get(String email) {
+		if (!ready)
+			return Optional.empty();
+
+		lock.readLock().lock();
+		try {
+			int slot = find(email);
+			if (slot >= 0) {
+				int offset = offsetOf(slot);
+				if (System.currentTimeMillis() - buffer.getLong(offset + WRITTEN_AT) < timeToLive) {
+					Employee employee = read(offset);
+					if (employee != null) {
+						hits.increment();
+						return Optional.of(employee);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		misses.increment();
+		return Optional.empty();
+	}
+
+	/**
+	 * Caches an employee, replacing the record with the same email.
+	 *
+	 * @param employee the employee to cache
+	 */
+	public void put(Employee employee) {
+		if (buffer == null)
+			return;
+
+		byte[] record = encode(employee);
+		if (record == null) {
+			remove(employee.getEmail());
+			return;
+		}
+
+		CRC32C checksum = new CRC32C();
+		checksum.update(record);
+		int hash = employee.getEmail().hashCode();
+
+		lock.writeLock().lock();
+		try {
+			int home = Math.floorMod(hash, slots);
+			int target = -1;
+
+			for (int probe = 0; probe < MAX_PROBES; probe++) {
+				int slot = (home + probe) % slots;
+				byte state = buffer.get(offsetOf(slot) + STATE);
+
+				if (state == USED && matches(slot, hash, employee.getEmail())) {
+					// A lookup racing with a committed change must not bring back the older version
+					if (buffer.getLong(offsetOf(slot) + VERSION) > employee.getVersion())
+						return;
+					target = slot;
+					break;
+				}
+				if (state != USED && target < 0)
+					target = slot;
+				if (state == EMPTY)
+					break;
+			}
+
+			// The probe sequence is full of other emails: replace the employee at the home slot
+			int offset = offsetOf(target < 0 ? home : target);
+
+			// A torn write leaves a checksum mismatch, which reads as a miss
+			buffer.put(offset + STATE, REMOVED);
+			buffer.put(offset + RECORD, record);
+			buffer.putShort(offset + LENGTH, (short) record.length)
+					.putInt(offset + CHECKSUM, (int) checksum.getValue())
+					.putLong(offset + VERSION, employee.getVersion())
+					.putLong(offset + WRITTEN_AT, System.currentTimeMillis())
+					.putInt(offset + HASH, hash);
+			buffer.put(offset + STATE, USED);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the employee with the given email from the cache.
+	 *
+	 * @param email the email address of the employee
+	 */
+	public void remove(String email) {
+		if (buffer == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			int slot = find(email);
+			if (slot >= 0)
+				buffer.put(offsetOf(slot) + STATE, REMOVED);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Keeps the cache in line with committed employee changes.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		if (event.getType() == EmployeeChangeEvent.Type.DELETED)
+			remove(event.getEmail());
+		else
+			put(event.getEmployee());
+	}
+
+	/**
+	 * Flushes the mapped file to disk and releases it.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@PreDestroy
+	public void close() throws IOException {
+		if (buffer == null)
+			return;
+
+		lock.writeLock().lock();
+		try {
+			buffer.force();
+			buffer = null;
+			ready = false;
+			fileLock.release();
+			channel.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the slot holding the given email, or -1 if it is not cached.
+	 */
+	private int find(String email) {
+		if (buffer == null)
+			return -1;
+
+		int hash = email.hashCode();
+		int home = Math.floorMod(hash, slots);
+
+		for (int probe = 0; probe < MAX_PROBES; probe++) {
+			int slot = (home + probe) % slots;
+			byte state = buffer.get(offsetOf(slot) + STATE);
+
+			if (state == EMPTY)
+				return -1;
+			if (state == USED && matches(slot, hash, email))
+				return slot;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Tells whether the slot holds the given email, comparing the hashes before decoding the email.
+	 */
+	private boolean matches(int slot, int hash, String email) {
+		int offset = offsetOf(slot);
+		if (buffer.getInt(offset + HASH) != hash)
+			return false;
+
+		int length = Math.min(Short.toUnsignedInt(buffer.getShort(offset + RECORD)), MAX_RECORD_SIZE - 2);
+		byte[] bytes = new byte[length];
+		buffer.get(offset + RECORD + 2, bytes);
+		return email.equals(new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes the record of a slot, or returns {@code null} if its checksum does not match.
+	 */
+	private Employee read(int offset) {
+		int length = Short.toUnsignedInt(buffer.getShort(offset + LENGTH));
+		if (length > MAX_RECORD_SIZE)
+			return null;
+
+		byte[] record = new byte[length];
+		buffer.get(offset + RECORD, record);
+
+		CRC32C checksum = new CRC32C();
+		checksum.update(record);
+		if ((int) checksum.getValue() != buffer.getInt(offset + CHECKSUM))
+			return null;
+
+		ByteBuffer fields = ByteBuffer.wrap(record);
+		return new Employee(field(fields), field(fields), field(fields), field(fields), field(fields), field(fields),
+				field(fields), field(fields), buffer.getLong(offset + VERSION));
+	}
+
+	private static String field(ByteBuffer fields) {
+		int length = Short.toUnsignedInt(fields.getShort());
+		if (length == NULL_LENGTH)
+			return null;
+
+		String value = new String(fields.array(), fields.position(), length, StandardCharsets.UTF_8);
+		fields.position(fields.position() + length);
+		return value;
+	}
+
+	/**
+	 * Encodes the fields of an employee, or returns {@code null} if they do not fit in a slot.
+	 */
+	private static byte[] encode(Employee employee) {
+		ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+		String[] fields = {employee.getEmail(), employee.getFirstName(), employee.getLastName(), employee.getAddress(),
+				employee.getState(), employee.getZip(), employee.getCellPhone(), employee.getHomePhone()};
+
+		for (String field : fields) {
+			byte[] bytes = field == null ? null : field.getBytes(StandardCharsets.UTF_8);
+			int length = bytes == null ? 0 : bytes.length;
+
+			if (record.remaining() < 2 + length || length >= NULL_LENGTH)
+				return null;
+
+			record.putShort((short) (bytes == null ? NULL_LENGTH : length));
+			if (bytes != null)
+				record.put(bytes);
+		}
+
+		return Arrays.copyOf(record.array(), record.position());
+	}
+
+	private static int offsetOf(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+}
@@ -0,0 +1,245 @@
+package com.ibm.fscc.employeeservice.configuration;
+
+import com.ibm.fscc.employeeservice.export.ExportDataSources;
+import com.ibm.fscc.employeeservice.pool.ConnectionPoolMonitor;
+import com.ibm.fscc.employeeservice.repository.EmployeeRepository;
+import com.ibm.fscc.employeeservice.routing.ReadYourWrites;
+import com.ibm.fscc.employeeservice.routing.ReplicaDataSources;
+import com.ibm.fscc.employeeservice.routing.ReplicaRoutingDataSource;
+import com.ibm.fscc.employeeservice.shard.EmployeeShards;
+import com.ibm.fscc.employeeservice.shard.ShardDataSources;
+import com.ibm.fscc.employeeservice.shard.ShardRebalancer;
+import com.ibm.fscc.employeeservice.shard.ShardRoutingDataSource;
+import com.ibm.fscc.employeeservice.shard.ShardSchemaIntegrator;
+import com.ibm.fscc.employeeservice.shard.ShardingRepositoryInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class for the JDBC {@link DataSource} used by the JPA path.
+ * Spring Boot backs off its own DataSource as soon as an R2DBC connection factory is present,
+ * so it is declared here from the usual {@code spring.datasource} properties.
+ * The primary may be backed by read replicas, listed under {@code employee.datasource.replicas}, which then take the
+ * read-only transactions. Alternatively, employees may be spread over shards: the primary is then the first shard,
+ * followed by those listed under {@code employee.datasource.shards}, and the {@link EmployeeRepository} calls are routed
+ * to the shard of the employee they work on.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfiguration {
+
+	/**
+     * Creates the pool of the primary.
+     *
+     * @param dataSourceProperties  the {@code spring.datasource} properties
+     * @param connectionPoolMonitor the {@link ConnectionPoolMonitor} instrumenting and sizing the pool
+     * @return the {@link HikariDataSource} bean, further configured by the {@code spring.datasource.hikari} properties
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties, ConnectionPoolMonitor connectionPoolMonitor) {
+        return connectionPoolMonitor.monitor(dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+    }
+
+    /**
+     * Creates the {@code employee.datasource} properties bean.
+     *
+     * @return the {@link EmployeeDataSourceProperties} bean
+     */
+    @Bean
+    @ConfigurationProperties("employee.datasource")
+    public EmployeeDataSourceProperties employeeDataSourceProperties() {
+        return new EmployeeDataSourceProperties();
+    }
+
+    /**
+     * Creates the pools of the replicas, configured by the same {@code spring.datasource.hikari} properties as the primary.
+     *
+     * @param employeeDataSourceProperties the {@code employee.datasource} properties
+     * @param connectionPoolMonitor        the {@link ConnectionPoolMonitor} instrumenting and sizing the pools
+     * @param environment                  the {@link Environment} holding the pool properties
+     * @return the {@link ReplicaDataSources} bean, without pools if no replica is configured
+     */
+    @Bean
+    public ReplicaDataSources replicaDataSources(EmployeeDataSourceProperties employeeDataSourceProperties,
+            ConnectionPoolMonitor connectionPoolMonitor, Environment environment) {
+        List<HikariDataSource> dataSources = new ArrayList<>();
+
+        for (DataSourceProperties replica : employeeDataSourceProperties.getReplicas())
+            dataSources.add(pool(replica, "replica-" + dataSources.size(), connectionPoolMonitor, environment));
+        return new ReplicaDataSources(dataSources);
+    }
+
+    /**
+     * Creates the pools of the shards after the first, configured by the same {@code spring.datasource.hikari}
+     * properties as the first.
+     *
+     * @param employeeDataSourceProperties the {@code employee.datasource} properties
+     * @param dataSource                   the pool of the first shard
+     * @param connectionPoolMonitor        the {@link ConnectionPoolMonitor} instrumenting and sizing the pools
+     * @param environment                  the {@link Environment} holding the pool properties and the active profiles
+     * @return the {@link ShardDataSources} bean, holding only the first shard if no other is configured
+     * @throws IllegalStateException if shards are configured along with replicas, or with the R2DBC path, which reads a single database
+     */
+    @Bean
+    public ShardDataSources shardDataSources(EmployeeDataSourceProperties employeeDataSourceProperties,
+            @Qualifier("dataSource") DataSource dataSource, ConnectionPoolMonitor connectionPoolMonitor, Environment environment) {
+        List<DataSourceProperties> shards = employeeDataSourceProperties.getShards();
+
+        if (!shards.isEmpty() && !employeeDataSourceProperties.getReplicas().isEmpty())
+            throw new IllegalStateException("employee.datasource.shards and employee.datasource.replicas cannot be combined.");
+        if (!shards.isEmpty() && environment.acceptsProfiles(Profiles.of("r2dbc")))
+            throw new IllegalStateException("employee.datasource.shards are not supported by the r2dbc profile.");
+
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (DataSourceProperties shard : shards)
+            dataSources.add(pool(shard, "shard-" + (dataSources.size() + 1), connectionPoolMonitor, environment));
+        return new ShardDataSources(dataSource, dataSources);
+    }
+
+    /**
+     * Creates the customizer registering the {@link ShardSchemaIntegrator}, which applies the schema action to the
+     * shards after the first.
+     *
+     * @param shardDataSources the pools of the shards
+     * @return the {@link HibernatePropertiesCustomizer} bean, changing nothing if there is a single shard
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardDataSources shardDataSources) {
+        return properties -> {
+            if (shardDataSources.size() > 1)
+                properties.put("hibernate.integrator_provider",
+                        (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(shardDataSources.size())));
+        };
+    }
+
+    /**
+     * Creates the {@link DataSource} bean used by JPA, routing each transaction to the shard of the employee it works
+     * on if there are several shards, or else to the primary or a replica.
+     *
+     * @param dataSource         the pool of the primary
+     * @param replicaDataSources the pools of the replicas
+     * @param shardDataSources   the pools of the shards
+     * @param readYourWrites     the {@link ReadYourWrites} deciding which reads must see the primary
+     * @param meterRegistry      the {@link MeterRegistry} to count the routed connections in
+     * @return the routing {@link DataSource}, taking its connection at the first statement
+     */
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("dataSource") DataSource dataSource, ReplicaDataSources replicaDataSources,
+            ShardDataSources shardDataSources, ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        if (shardDataSources.size() > 1)
+            return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources.getDataSources(), meterRegistry));
+
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(dataSource,
+                List.copyOf(replicaDataSources.getDataSources()), readYourWrites, meterRegistry));
+    }
+
+    /**
+     * Creates the pools of the export, one per shard, each holding up to {@code employee.export.pool-size} connections
+     * opened with the {@code employee.export.connection-properties}, such as MySQL's {@code useCursorFetch}, which
+     * would otherwise apply to the connections of every other path.
+     *
+     * @param dataSourceProperties         the {@code spring.datasource} properties
+     * @param employeeDataSourceProperties the {@code employee.datasource} properties
+     * @param poolSize                     the maximum number of connections of every pool
+     * @param environment                  the {@link Environment} holding the pool and connection properties
+     * @return the {@link ExportDataSources} bean
+     */
+    @Bean
+    public ExportDataSources exportDataSources(DataSourceProperties dataSourceProperties,
+            EmployeeDataSourceProperties employeeDataSourceProperties, @Value("${employee.export.pool-size}") int poolSize,
+            Environment environment) {
+        Map<String, String> connectionProperties = Binder.get(environment)
+                .bind("employee.export.connection-properties", Bindable.mapOf(String.class, String.class)).orElse(Map.of());
+
+        List<DataSourceProperties> shards = new ArrayList<>();
+        shards.add(dataSourceProperties);
+        shards.addAll(employeeDataSourceProperties.getShards());
+
+        List<HikariDataSource> dataSources = new ArrayList<>();
+        for (DataSourceProperties shard : shards) {
+            HikariDataSource dataSource = shard.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("export-" + dataSources.size());
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(0);
+            connectionProperties.forEach(dataSource::addDataSourceProperty);
+            dataSources.add(dataSource);
+        }
+        return new ExportDataSources(dataSources);
+    }
+
+    /**
+     * Creates the {@link DataSource} the export reads from, routing each connection to the shard of the current thread
+     * if there are several shards.
+     *
+     * @param exportDataSources the pools of the export
+     * @param meterRegistry     the {@link MeterRegistry} to count the routed connections in
+     * @return the export {@link DataSource}
+     */
+    @Bean
+    public DataSource exportDataSource(ExportDataSources exportDataSources, MeterRegistry meterRegistry) {
+        List<DataSource> dataSources = List.copyOf(exportDataSources.getDataSources());
+        return dataSources.size() == 1 ? dataSources.get(0) : new ShardRoutingDataSource(dataSources, meterRegistry);
+    }
+
+    /**
+     * Creates the {@link BeanPostProcessor} spreading the calls of the {@link EmployeeRepository} over the shards.
+     *
+     * @param employeeShards  the {@link EmployeeShards}, looked up at the first call
+     * @param shardRebalancer the {@link ShardRebalancer}, looked up at the first call
+     * @return the {@link BeanPostProcessor} wrapping the {@link EmployeeRepository} bean with a {@link ShardingRepositoryInterceptor}
+     */
+    @Bean
+    public static BeanPostProcessor employeeRepositorySharding(ObjectProvider<EmployeeShards> employeeShards,
+            ObjectProvider<ShardRebalancer> shardRebalancer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof EmployeeRepository))
+                    return bean;
+
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(new ShardingRepositoryInterceptor(SingletonSupplier.of(employeeShards::getObject),
+                        SingletonSupplier.of(shardRebalancer::getObject)));
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    /**
+     * Creates a pool from {@code spring.datasource}-like properties and the {@code spring.datasource.hikari} properties.
+     */
+    private static HikariDataSource pool(DataSourceProperties properties, String name, ConnectionPoolMonitor connectionPoolMonitor,
+            Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return connectionPoolMonitor.monitor(dataSource);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ibm.fscc.employeeservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code employee.datasource} properties: the read replicas and the shards after the first, each configured like
+ * {@code spring.datasource}.
+ */
+@Data
+public class EmployeeDataSourceProperties {
+
+	private List<DataSourceProperties> replicas = new ArrayList<>();
+	private List<DataSourceProperties> shards = new ArrayList<>();
+}
@@ -1,44 +1,188 @@
 package com.ibm.fscc.employeeservice.controller;
 
+import com.ibm.fscc.employeeservice.service.EmployeeBulkService;
+import com.ibm.fscc.employeeservice.service.EmployeeChangeFeedService;
+import com.ibm.fscc.employeeservice.service.EmployeeExportService;
+import com.ibm.fscc.employeeservice.service.EmployeeImportService;
 import com.ibm.fscc.employeeservice.service.EmployeeService;
+import com.ibm.fscc.employeeservice.dto.BulkResponseDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeChangeDTO;
 import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeImportProgressDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchResultDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeStatsDTO;
+import com.ibm.fscc.employeeservice.util.BlockingExecutor;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This class provides endpoints to perform CRUD (Create, Read, Update, Delete) operations on employees.
- * Endpoints are available for retrieving an employee by email, retrieving all employees,
- * creating a new employee, updating an existing employee, and deleting an employee by email.
+ * Endpoints are available for retrieving an employee by email, retrieving all employees, searching employees,
+ * suggesting employees as a name is typed, counting employees by group, creating a new employee,
+ * updating all or some fields of an existing employee, and deleting an employee by email,
+ * as well as for creating, upserting and deleting many employees at once, for exporting and importing the directory,
+ * and for following its changes.
+ * Served from the blocking JPA path, whose calls run on the {@link BlockingExecutor} rather than the event loops,
+ * which answers 503 when too many calls are waiting; the in-memory suggestions and counts are answered in place.
+ * The {@code r2dbc} profile replaces it with {@link ReactiveEmployeeController}.
  */
 @RestController
+@Profile("!r2dbc")
 @AllArgsConstructor
 @RequestMapping("/api/employee")
 public class EmployeeController {
 
 	private EmployeeService employeeService;
+	private EmployeeBulkService employeeBulkService;
+	private EmployeeExportService employeeExportService;
+	private EmployeeImportService employeeImportService;
+	private EmployeeChangeFeedService employeeChangeFeedService;
+	private BlockingExecutor blockingExecutor;
 
 	/**
 	 * Retrieves an employee by email.
+	 * Answers 304 without a body when the {@code If-None-Match} header holds the employee's current ETag.
 	 *
 	 * @param email the email address of the employee
-	 * @return a {@link ResponseEntity} with the {@link EmployeeDTO} object if found,
+	 * @return a {@link ResponseEntity} with the {@link EmployeeDTO} object and its ETag if found,
 	 *         or a {@link ResponseEntity} with a 404 status and a message if not found
 	 */
 	@GetMapping("/find")
-	public ResponseEntity<?> findEmployeeByEmail(@RequestParam("email") String email) {
-		return employeeService.findEmployeeByEmail(email);
+	public Mono<ResponseEntity<?>> findEmployeeByEmail(@RequestParam("email") String email) {
+		return blockingExecutor.respond(() -> employeeService.findEmployeeByEmail(email));
 	}
 
 	/**
-	 * Retrieves all employees from the employee repository.
+	 * Retrieves a page of employees ordered by email.
+	 * Answers 304 without a body when the {@code If-None-Match} header holds the page's current ETag.
 	 *
-	 * @return a {@link ResponseEntity} with a list of {@link EmployeeDTO} objects representing all employees
+	 * @param after  the cursor returned with the previous page, omitted for the first page
+	 * @param limit  the maximum number of employees to return, capped at the configured maximum page size
+	 * @param fields the employee fields to return, such as {@code fields=firstName,lastName}; the email is always returned
+	 *               and all fields are returned when omitted
+	 * @return a {@link ResponseEntity} with an {@link EmployeePageDTO} holding the page and the cursor of the next page,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the page size or a field is invalid,
 	 *         or a ResponseEntity with a 404 status and a message if no employees are found
 	 */
 	@GetMapping("/findAll")
-	public ResponseEntity<?> findAllEmployees() {
-		return employeeService.findAllEmployees();
+	public Mono<ResponseEntity<?>> findAllEmployees(@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "fields", required = false) List<String> fields) {
+		return blockingExecutor.respond(() -> employeeService.findAllEmployees(after, limit, fields));
+	}
+
+	/**
+	 * Streams all employees as newline-delimited JSON, writing each employee as soon as it is read.
+	 *
+	 * @return a {@link Flux} of {@link EmployeeDTO} objects representing all employees, ordered by email
+	 */
+	@GetMapping(value = "/findAll", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<EmployeeDTO> streamAllEmployees() {
+		return employeeService.streamAllEmployees();
+	}
+
+	/**
+	 * Exports every employee, ordered by email, streaming the rows as they are read from the database.
+	 *
+	 * @param format the export format, {@code csv} (the default) or {@code binary}
+	 * @return a {@link ResponseEntity} with the exported employees as an attachment,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the format is unknown
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<?> exportEmployees(@RequestParam(value = "format", required = false) String format) {
+		return employeeExportService.exportEmployees(format);
+	}
+
+	/**
+	 * Streams committed employee changes as Server-Sent Events, so that other services can keep a replica current
+	 * without rescanning the directory.
+	 *
+	 * @param lastEventId the id of the last change applied, sent by the client when it reconnects, optional
+	 * @param after       the id of the last change applied, for clients that cannot set the {@code Last-Event-ID} header, optional
+	 * @return a {@link Flux} of {@code created}, {@code updated} and {@code deleted} events, preceded by a {@code reset}
+	 *         event when the changes since the given id are no longer known and the replica must be rebuilt
+	 */
+	@GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<EmployeeChangeDTO>> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+			@RequestParam(value = "after", required = false) String after) {
+		return employeeChangeFeedService.streamChanges(lastEventId != null ? lastEventId : after);
+	}
+
+	/**
+	 * Searches employees by last name prefix, first name prefix, state and zip code, with sorting and pagination.
+	 *
+	 * @param lastName  matches employees whose last name starts with this value, optional
+	 * @param firstName matches employees whose first name starts with this value, optional
+	 * @param state     matches employees in this state, optional
+	 * @param zip       matches employees with this zip code, optional
+	 * @param sort      the sort orders as {@code property} or {@code property,desc}, defaulting to last name then first name
+	 * @param page      the zero-based page number
+	 * @param size      the maximum number of employees per page, capped at the configured maximum page size
+	 * @return a {@link ResponseEntity} with an {@link EmployeeSearchResultDTO} holding the page of matching employees,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the paging or sort parameters are invalid
+	 */
+	@GetMapping("/search")
+	public Mono<ResponseEntity<?>> searchEmployees(@RequestParam(value = "lastName", required = false) String lastName,
+			@RequestParam(value = "firstName", required = false) String firstName,
+			@RequestParam(value = "state", required = false) String state,
+			@RequestParam(value = "zip", required = false) String zip,
+			@RequestParam(value = "sort", required = false) List<String> sort,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", required = false) Integer size) {
+		return blockingExecutor.respond(() -> employeeService.searchEmployees(new EmployeeSearchCriteria(lastName, firstName, state, zip), sort, page, size));
+	}
+
+	/**
+	 * Suggests employees whose first name, last name or email resemble the given text, tolerating typos.
+	 *
+	 * @param q     the text typed so far
+	 * @param limit the maximum number of suggestions, capped at the configured maximum
+	 * @return a {@link ResponseEntity} with the list of {@link EmployeeDTO} objects, best match first,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the query or limit is invalid
+	 */
+	@GetMapping("/suggest")
+	public ResponseEntity<?> suggestEmployees(@RequestParam(value = "q", required = false) String q,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		return employeeService.suggestEmployees(q, limit);
+	}
+
+	/**
+	 * Counts employees, overall and grouped by state, zip code, email domain or phone area code,
+	 * from an in-memory snapshot of the directory.
+	 *
+	 * @param groupBy the dimensions to group by, such as {@code groupBy=state,domain}, optional
+	 * @param state   counts only employees in this state, optional
+	 * @param zip     counts only employees with this zip code, optional
+	 * @param domain  counts only employees whose email has this domain, optional
+	 * @param limit   the maximum number of groups to return, capped at the configured maximum
+	 * @return a {@link ResponseEntity} with the {@link EmployeeStatsDTO} holding the total and the largest groups first,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if a dimension or the limit is invalid
+	 */
+	@GetMapping("/stats")
+	public ResponseEntity<?> countEmployees(@RequestParam(value = "groupBy", required = false) List<String> groupBy,
+			@RequestParam(value = "state", required = false) String state,
+			@RequestParam(value = "zip", required = false) String zip,
+			@RequestParam(value = "domain", required = false) String domain,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		Map<String, String> filters = new HashMap<>();
+		filters.put("state", state);
+		filters.put("zip", zip);
+		filters.put("domain", domain);
+		return employeeService.countEmployees(groupBy, filters, limit);
 	}
 
 	/**
@@ -50,21 +194,42 @@ public class EmployeeController {
 	 *         or a {@link ResponseEntity} with a 409 status and a message if an employee with the same email already exists
 	 */
 	@PostMapping("/create")
-	public ResponseEntity<?> createEmployee(@RequestBody EmployeeDTO employeeDTO) {
-		return employeeService.createEmployee(employeeDTO);
+	public Mono<ResponseEntity<?>> createEmployee(@RequestBody EmployeeDTO employeeDTO) {
+		return blockingExecutor.respond(() -> employeeService.createEmployee(employeeDTO));
 	}
 
 	/**
-	 * Updates an employee.
+	 * Updates an employee, optionally only if it still matches the ETags of an {@code If-Match} header.
 	 *
 	 * @param employeeDTO the {@link EmployeeDTO} object containing the updated employee details
-	 * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object if successful,
+	 * @param ifMatch     the ETags of the {@code If-Match} header, optional
+	 * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object and its new ETag if successful,
 	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
-	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found,
+	 *         or a {@link ResponseEntity} with a 412 status and a message if the employee was modified since the given ETags
 	 */
 	@PutMapping("/update")
-	public ResponseEntity<?> updateEmployee(@RequestBody EmployeeDTO employeeDTO) {
-		return employeeService.updateEmployee(employeeDTO);
+	public Mono<ResponseEntity<?>> updateEmployee(@RequestBody EmployeeDTO employeeDTO,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) List<String> ifMatch) {
+		return blockingExecutor.respond(() -> employeeService.updateEmployee(employeeDTO, ifMatch));
+	}
+
+	/**
+	 * Updates only the supplied fields of an employee, optionally only if it still matches the ETags of an
+	 * {@code If-Match} header.
+	 *
+	 * @param email   the email address of the employee
+	 * @param fields  the fields to change and their new values, such as {@code {"cellPhone": "212-555-0100"}}
+	 * @param ifMatch the ETags of the {@code If-Match} header, optional
+	 * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object and its new ETag if successful,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if a field is unknown or invalid,
+	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found,
+	 *         or a {@link ResponseEntity} with a 412 status and a message if the employee was modified since the given ETags
+	 */
+	@PatchMapping(value = "/{email}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+	public Mono<ResponseEntity<?>> patchEmployee(@PathVariable("email") String email, @RequestBody Map<String, String> fields,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) List<String> ifMatch) {
+		return blockingExecutor.respond(() -> employeeService.patchEmployee(email, fields, ifMatch));
 	}
 
 	/**
@@ -75,7 +240,56 @@ public class EmployeeController {
 	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
 	 */
 	@DeleteMapping("/delete")
-	public ResponseEntity<?> deleteEmployee(@RequestParam("email") String email) {
-		return employeeService.deleteEmployee(email);
+	public Mono<ResponseEntity<?>> deleteEmployee(@RequestParam("email") String email) {
+		return blockingExecutor.respond(() -> employeeService.deleteEmployee(email));
+	}
+
+	/**
+	 * Creates many employees in one request, written with batched statements in a single transaction.
+	 *
+	 * @param employeeDTOs the {@link EmployeeDTO} objects containing the employee data
+	 * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 201, 400 or 409 result per item,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+	 */
+	@PostMapping("/bulk")
+	public Mono<ResponseEntity<?>> createEmployees(@RequestBody List<EmployeeDTO> employeeDTOs) {
+		return blockingExecutor.respond(() -> employeeBulkService.createEmployees(employeeDTOs));
+	}
+
+	/**
+	 * Creates or overwrites many employees in one request, written with batched statements in a single transaction.
+	 *
+	 * @param employeeDTOs the {@link EmployeeDTO} objects containing the employee data
+	 * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 200, 201, 400 or 409 result per item,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+	 */
+	@PutMapping("/bulk")
+	public Mono<ResponseEntity<?>> upsertEmployees(@RequestBody List<EmployeeDTO> employeeDTOs) {
+		return blockingExecutor.respond(() -> employeeBulkService.upsertEmployees(employeeDTOs));
+	}
+
+	/**
+	 * Deletes many employees by email in one request.
+	 *
+	 * @param emails the email addresses of the employees to be deleted
+	 * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 200, 400 or 404 result per item,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+	 */
+	@DeleteMapping("/bulk")
+	public Mono<ResponseEntity<?>> deleteEmployees(@RequestBody List<String> emails) {
+		return blockingExecutor.respond(() -> employeeBulkService.deleteEmployees(emails));
+	}
+
+	/**
+	 * Imports employees from a CSV upload with a header line, as written by the CSV export.
+	 * The upload is read as it arrives and progress is streamed back as newline-delimited JSON.
+	 *
+	 * @param content the uploaded CSV
+	 * @return a {@link Flux} emitting an {@link EmployeeImportProgressDTO} with the rejected rows after every written batch,
+	 *         and a final one marked complete
+	 */
+	@PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<EmployeeImportProgressDTO> importEmployees(@RequestBody Flux<DataBuffer> content) {
+		return employeeImportService.importEmployees(content);
 	}
 }
@@ -0,0 +1,100 @@
+package com.ibm.fscc.employeeservice.controller;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.service.ReactiveEmployeeService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link EmployeeController}, serving the same CRUD endpoints from the R2DBC path.
+ * Only active with the {@code r2dbc} profile, in which it replaces {@link EmployeeController}.
+ */
+@RestController
+@Profile("r2dbc")
+@AllArgsConstructor
+@RequestMapping("/api/employee")
+public class ReactiveEmployeeController {
+
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	/**
+	 * Retrieves an employee by email.
+	 *
+	 * @param email the email address of the employee
+	 * @return a {@link Mono} emitting a {@link ResponseEntity} with the {@link EmployeeDTO} object if found,
+	 *         or a {@link ResponseEntity} with a 404 status and a message if not found
+	 */
+	@GetMapping("/find")
+	public Mono<ResponseEntity<?>> findEmployeeByEmail(@RequestParam("email") String email) {
+		return reactiveEmployeeService.findEmployeeByEmail(email);
+	}
+
+	/**
+	 * Retrieves a page of employees ordered by email.
+	 *
+	 * @param after the cursor returned with the previous page, omitted for the first page
+	 * @param limit the maximum number of employees to return, capped at the configured maximum page size
+	 * @return a {@link Mono} emitting a {@link ResponseEntity} with an {@link EmployeePageDTO},
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the page size is invalid,
+	 *         or a {@link ResponseEntity} with a 404 status and a message if no employees are found
+	 */
+	@GetMapping("/findAll")
+	public Mono<ResponseEntity<?>> findAllEmployees(@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "limit", required = false) Integer limit) {
+		return reactiveEmployeeService.findAllEmployees(after, limit);
+	}
+
+	/**
+	 * Streams all employees as newline-delimited JSON, writing each employee as soon as it is read.
+	 *
+	 * @return a {@link Flux} of {@link EmployeeDTO} objects representing all employees, ordered by email
+	 */
+	@GetMapping(value = "/findAll", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<EmployeeDTO> streamAllEmployees() {
+		return reactiveEmployeeService.streamAllEmployees();
+	}
+
+	/**
+	 * Creates a new employee.
+	 *
+	 * @param employeeDTO the {@link EmployeeDTO} object containing the employee data
+	 * @return a {@link Mono} emitting a {@link ResponseEntity} with the created {@link EmployeeDTO} object if successful,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
+	 *         or a {@link ResponseEntity} with a 409 status and a message if an employee with the same email already exists
+	 */
+	@PostMapping("/create")
+	public Mono<ResponseEntity<?>> createEmployee(@RequestBody EmployeeDTO employeeDTO) {
+		return reactiveEmployeeService.createEmployee(employeeDTO);
+	}
+
+	/**
+	 * Updates an employee.
+	 *
+	 * @param employeeDTO the {@link EmployeeDTO} object containing the updated employee details
+	 * @return a {@link Mono} emitting a {@link ResponseEntity} with the updated {@link EmployeeDTO} object if successful,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
+	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+	 */
+	@PutMapping("/update")
+	public Mono<ResponseEntity<?>> updateEmployee(@RequestBody EmployeeDTO employeeDTO) {
+		return reactiveEmployeeService.updateEmployee(employeeDTO);
+	}
+
+	/**
+	 * Deletes an employee by email.
+	 *
+	 * @param email the email address of the employee to be deleted
+	 * @return a {@link Mono} emitting a {@link ResponseEntity} with a success message if the employee is deleted successfully,
+	 *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+	 */
+	@DeleteMapping("/delete")
+	public Mono<ResponseEntity<?>> deleteEmployee(@RequestParam("email") String email) {
+		return reactiveEmployeeService.deleteEmployee(email);
+	}
+}
@@ -0,0 +1,370 @@
+package com.ibm.fscc.employeeservice.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.scheduler.NonBlocking;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in diagnostics, in the spirit of BlockHound, reporting blocking calls made on non-blocking threads (the Reactor
+ * Netty event loops and the Reactor parallel scheduler, which implement {@link NonBlocking}).
+ * <p>
+ * Blocking calls are caught in two ways: the known blocking resources (JDBC connections, {@code System.out} and
+ * {@code System.err}) {@link #check(String) check} the calling thread, and a sampler looks at the stacks of the
+ * non-blocking threads every {@code diagnostics.blocking.sample-interval}, reporting those parked, sleeping, waiting
+ * on a monitor or in one of the native I/O methods listed in {@code BLOCKING_NATIVE_FRAMES}. A thread running any
+ * other native method, such as {@code System.identityHashCode} or {@code Inflater.inflateBytesBytes}, is computing
+ * rather than blocking. Each report records the operation, the endpoint being
+ * served and the stack; the reports are served by the {@code blocking} actuator endpoint and counted by the
+ * {@code diagnostics.blocking.calls} counter, tagged by operation.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "diagnostics.blocking.enabled", havingValue = "true")
+public class BlockingCallDetector {
+
+	private static final String APPLICATION_PACKAGE = "com.ibm.fscc.";
+
+	// Frames in which a waiting non-blocking thread waits for work rather than blocks
+	private static final Set<String> IDLE_FRAMES = Set.of(
+			"java.util.concurrent.ThreadPoolExecutor.getTask",
+			"io.netty.util.concurrent.SingleThreadEventExecutor.takeTask");
+
+	// Native methods which block on files, blocking sockets or name resolution; the non-blocking socket reads and
+	// writes of the event loops go through other methods, and stay unreported
+	private static final Set<String> BLOCKING_NATIVE_FRAMES = Set.of(
+			"java.io.FileInputStream.readBytes", "java.io.FileInputStream.read0",
+			"java.io.FileOutputStream.writeBytes", "java.io.FileOutputStream.write",
+			"java.io.RandomAccessFile.readBytes", "java.io.RandomAccessFile.writeBytes",
+			"java.io.RandomAccessFile.read0", "java.io.RandomAccessFile.write0",
+			"sun.nio.ch.FileDispatcherImpl.read0", "sun.nio.ch.FileDispatcherImpl.pread0",
+			"sun.nio.ch.FileDispatcherImpl.readv0", "sun.nio.ch.FileDispatcherImpl.write0",
+			"sun.nio.ch.FileDispatcherImpl.pwrite0", "sun.nio.ch.FileDispatcherImpl.writev0",
+			"sun.nio.ch.FileDispatcherImpl.force0", "sun.nio.ch.FileChannelImpl.transferTo0",
+			"sun.nio.ch.Net.poll", "sun.nio.ch.Net.pollConnect",
+			"java.net.Inet4AddressImpl.lookupAllHostAddr", "java.net.Inet6AddressImpl.lookupAllHostAddr");
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private final MeterRegistry meterRegistry;
+	private final Duration sampleInterval;
+	private final int maxReports;
+	private final int stackDepth;
+
+	private final Map<String, Report> reports = new ConcurrentHashMap<>();
+	private final Map<Thread, ServerWebExchange> exchanges = new ConcurrentHashMap<>();
+	private final Map<Thread, String> sampled = new ConcurrentHashMap<>();
+	private final Queue<Report> unlogged = new ConcurrentLinkedQueue<>();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private ScheduledExecutorService sampler;
+	private PrintStream systemOut;
+	private PrintStream systemErr;
+
+	/**
+	 * Constructs the detector.
+	 *
+	 * @param meterRegistry  the {@link MeterRegistry} to count the blocking calls in
+	 * @param sampleInterval the interval between two samples of the non-blocking thread stacks
+	 * @param maxReports     the maximum number of distinct reports kept, further ones are only counted
+	 * @param stackDepth     the maximum number of frames kept per report
+	 */
+	public BlockingCallDetector(MeterRegistry meterRegistry,
+			@Value("${diagnostics.blocking.sample-interval}") Duration sampleInterval,
+			@Value("${diagnostics.blocking.max-reports}") int maxReports,
+			@Value("${diagnostics.blocking.stack-depth}") int stackDepth) {
+		this.meterRegistry = meterRegistry;
+		this.sampleInterval = sampleInterval;
+		this.maxReports = maxReports;
+		this.stackDepth = stackDepth;
+	}
+
+	/**
+	 * Starts sampling the non-blocking threads and checking writes to {@code System.out} and {@code System.err}.
+	 */
+	@PostConstruct
+	public void start() {
+		systemOut = System.out;
+		systemErr = System.err;
+		System.setOut(checked(systemOut, "System.out"));
+		System.setErr(checked(systemErr, "System.err"));
+
+		sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "blocking-call-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleWithFixedDelay(() -> {
+			sample();
+			logReports();
+		}, sampleInterval.toNanos(), sampleInterval.toNanos(), TimeUnit.NANOSECONDS);
+		log.warn("Blocking call diagnostics enabled, sampling non-blocking threads every {} ms", sampleInterval.toMillis());
+	}
+
+	/**
+	 * Stops sampling and restores {@code System.out} and {@code System.err}.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (sampler != null)
+			sampler.shutdownNow();
+		if (systemOut != null) {
+			System.setOut(systemOut);
+			System.setErr(systemErr);
+		}
+	}
+
+	/**
+	 * Reports a blocking operation if the calling thread is a non-blocking thread.
+	 *
+	 * @param operation the name of the blocking operation, such as {@code jdbc}
+	 */
+	public void check(String operation) {
+		if (!Schedulers.isInNonBlockingThread())
+			return;
+
+		// Leaves out the frames of the check itself
+		StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+		int from = 0;
+		while (from < stack.length && (stack[from].getClassName().equals(Thread.class.getName())
+				|| stack[from].getClassName().startsWith(BlockingCallDetector.class.getPackageName())))
+			from++;
+		report(operation, Thread.currentThread(), Arrays.copyOfRange(stack, from, stack.length));
+	}
+
+	/**
+	 * Marks the calling thread as serving an exchange, until {@link #leave()}, so that reports name its endpoint.
+	 *
+	 * @param exchange the exchange being served
+	 */
+	void enter(ServerWebExchange exchange) {
+		exchanges.put(Thread.currentThread(), exchange);
+	}
+
+	/**
+	 * Ends the mark set by {@link #enter(ServerWebExchange)}.
+	 */
+	void leave() {
+		exchanges.remove(Thread.currentThread());
+	}
+
+	/**
+	 * Returns the reports, most frequent first.
+	 *
+	 * @return the reports
+	 */
+	public List<Report> getReports() {
+		return reports.values().stream().sorted(Comparator.comparingLong(Report::getCount).reversed()).toList();
+	}
+
+	/**
+	 * Returns the number of blocking calls not kept as a report because {@code diagnostics.blocking.max-reports}
+	 * distinct reports were already kept.
+	 *
+	 * @return the number of blocking calls only counted
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Forgets all reports.
+	 */
+	public void reset() {
+		reports.clear();
+		dropped.set(0);
+	}
+
+	/**
+	 * Samples the stacks of the non-blocking threads, reporting those blocked. A thread blocked in the same place
+	 * over several samples is reported once. The state and the stack of a thread are read together, so that a
+	 * thread leaving a wait between the two is not reported with the stack it went on to.
+	 */
+	void sample() {
+		Thread[] live = new Thread[Thread.activeCount() * 2 + 16];
+		int count = Thread.enumerate(live);
+
+		for (int i = 0; i < count; i++) {
+			Thread thread = live[i];
+			if (!(thread instanceof NonBlocking))
+				continue;
+
+			ThreadInfo info = threads.getThreadInfo(thread.getId(), Integer.MAX_VALUE);
+			StackTraceElement[] stack = info == null ? new StackTraceElement[0] : info.getStackTrace();
+
+			if (stack.length == 0 || !isBlocked(info.getThreadState(), stack)) {
+				sampled.remove(thread);
+				continue;
+			}
+
+			String place = Arrays.toString(stack);
+			if (place.equals(sampled.put(thread, place)))
+				continue;
+
+			report(frame(stack[0]), thread, stack);
+		}
+		sampled.keySet().removeIf(thread -> !thread.isAlive());
+	}
+
+	private static boolean isBlocked(Thread.State state, StackTraceElement[] stack) {
+		return switch (state) {
+			case BLOCKED, WAITING, TIMED_WAITING -> !isIdle(stack);
+			case RUNNABLE -> stack[0].isNativeMethod() && BLOCKING_NATIVE_FRAMES.contains(frame(stack[0]));
+			default -> false;
+		};
+	}
+
+	private static boolean isIdle(StackTraceElement[] stack) {
+		for (StackTraceElement element : stack)
+			if (IDLE_FRAMES.contains(frame(element)))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Records a blocking call. New reports are logged later by the sampler: the call may come from a write to
+	 * {@code System.out} holding its lock, which logging to the console would take again.
+	 */
+	private void report(String operation, Thread thread, StackTraceElement[] stack) {
+		Counter.builder("diagnostics.blocking.calls").tag("operation", operation).register(meterRegistry).increment();
+
+		String endpoint = endpoint(thread);
+		String origin = origin(stack);
+		String key = operation + " " + endpoint + " " + origin;
+		Report report = reports.get(key);
+
+		if (report == null) {
+			if (reports.size() >= maxReports) {
+				dropped.incrementAndGet();
+				return;
+			}
+
+			List<String> frames = Arrays.stream(stack).limit(stackDepth).map(StackTraceElement::toString).toList();
+			Report created = new Report(operation, endpoint, origin, thread.getName(), frames, Instant.now());
+			report = reports.putIfAbsent(key, created);
+
+			if (report == null) {
+				report = created;
+				unlogged.add(created);
+			}
+		}
+		report.seen();
+	}
+
+	private void logReports() {
+		for (Report report; (report = unlogged.poll()) != null; )
+			log.warn("Blocking call {} on non-blocking thread {} serving {} at {}", report.getOperation(), report.getThread(),
+					report.getEndpoint(), String.join("\n\tat ", report.getStack()));
+	}
+
+	/**
+	 * Names the endpoint served by the request being handled on the thread, by its route pattern once matched.
+	 * Work resumed on a thread after an asynchronous step, such as reading the request body, is not tied to its
+	 * request; its report still names its application frame.
+	 */
+	private String endpoint(Thread thread) {
+		ServerWebExchange exchange = exchanges.get(thread);
+
+		if (exchange != null) {
+			Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			return exchange.getRequest().getMethod() + " "
+					+ (pattern != null ? pattern : exchange.getRequest().getPath().pathWithinApplication().value());
+		}
+		return "unknown";
+	}
+
+	private static String origin(StackTraceElement[] stack) {
+		for (StackTraceElement element : stack)
+			if (element.getClassName().startsWith(APPLICATION_PACKAGE)
+					&& !element.getClassName().startsWith(BlockingCallDetector.class.getPackageName()))
+				return frame(element);
+		return "unknown";
+	}
+
+	private static String frame(StackTraceElement element) {
+		return element.getClassName() + "." + element.getMethodName();
+	}
+
+	private PrintStream checked(PrintStream stream, String operation) {
+		return new PrintStream(new FilterOutputStream(stream) {
+			@Override
+			public void write(int b) throws IOException {
+				check(operation);
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				check(operation);
+				out.write(b, off, len);
+			}
+		}, true);
+	}
+
+	/**
+	 * A distinct blocking call: an operation, from one application frame, while serving one endpoint.
+	 */
+	@Getter
+	public static class Report {
+
+		private final String operation;
+		private final String endpoint;
+		private final String origin;
+		private final String thread;
+		private final List<String> stack;
+		private final Instant firstSeen;
+		private volatile Instant lastSeen;
+		@Getter(AccessLevel.NONE)
+		private final AtomicLong calls = new AtomicLong();
+
+		Report(String operation, String endpoint, String origin, String thread, List<String> stack, Instant firstSeen) {
+			this.operation = operation;
+			this.endpoint = endpoint;
+			this.origin = origin;
+			this.thread = thread;
+			this.stack = stack;
+			this.firstSeen = firstSeen;
+			this.lastSeen = firstSeen;
+		}
+
+		public long getCount() {
+			return calls.get();
+		}
+
+		void seen() {
+			calls.incrementAndGet();
+			lastSeen = Instant.now();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.ibm.fscc.employeeservice.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint, {@code /actuator/blocking}, serving the blocking calls reported by the
+ * {@link BlockingCallDetector}, most frequent first, with their endpoint and stack.
+ */
+@Component
+@Endpoint(id = "blocking")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "diagnostics.blocking.enabled", havingValue = "true")
+public class BlockingCallsEndpoint {
+
+	private final BlockingCallDetector detector;
+
+	/**
+	 * Serves the reports.
+	 *
+	 * @return the total number of blocking calls, the number not kept as a report and the reports
+	 */
+	@ReadOperation
+	public Map<String, Object> blockingCalls() {
+		List<BlockingCallDetector.Report> reports = detector.getReports();
+
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("total", reports.stream().mapToLong(BlockingCallDetector.Report::getCount).sum() + detector.getDropped());
+		body.put("dropped", detector.getDropped());
+		body.put("calls", reports);
+		return body;
+	}
+
+	/**
+	 * Forgets the reports, for instance before exercising a single endpoint.
+	 */
+	@DeleteOperation
+	public void reset() {
+		detector.reset();
+	}
+}
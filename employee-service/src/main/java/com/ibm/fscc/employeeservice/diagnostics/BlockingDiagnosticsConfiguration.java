@@ -0,0 +1,76 @@
+package com.ibm.fscc.employeeservice.diagnostics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Configuration class wiring the {@link BlockingCallDetector} into the service when
+ * {@code diagnostics.blocking.enabled} is set: JDBC connections are checked as they are taken, and requests mark the
+ * thread serving them so that reports name their endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(name = "diagnostics.blocking.enabled", havingValue = "true")
+public class BlockingDiagnosticsConfiguration {
+
+	/**
+     * Creates the {@link BeanPostProcessor} checking the threads taking JDBC connections.
+     *
+     * @param detector the {@link BlockingCallDetector}, looked up once the data source is used
+     * @return the {@link BeanPostProcessor} wrapping the {@link DataSource} beans
+     */
+    @Bean
+    public static BeanPostProcessor blockingDataSourcePostProcessor(ObjectProvider<BlockingCallDetector> detector) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource))
+                    return bean;
+
+                return new DelegatingDataSource(dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        detector.getObject().check("jdbc");
+                        return super.getConnection();
+                    }
+
+                    @Override
+                    public Connection getConnection(String username, String password) throws SQLException {
+                        detector.getObject().check("jdbc");
+                        return super.getConnection(username, password);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Creates the {@link WebFilter} marking the thread serving a request while the request is handled on it.
+     *
+     * @param detector the {@link BlockingCallDetector}
+     * @return the {@link WebFilter}, run before any other
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter blockingCallEndpointFilter(BlockingCallDetector detector) {
+        return (exchange, chain) -> Mono.defer(() -> {
+            detector.enter(exchange);
+            try {
+                return chain.filter(exchange);
+            } finally {
+                detector.leave();
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) for the outcome of one item of a bulk request.
+ * The status and body match what the equivalent single-employee endpoint would have answered for the item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDTO {
+
+	/**
+	 * The position of the item in the request.
+	 */
+	private int index;
+
+	private String email;
+
+	/**
+	 * The HTTP status code for the item, for example 201, 400, 404 or 409.
+	 */
+	private int status;
+
+	/**
+	 * The {@link EmployeeDTO}, message or error map for the item.
+	 */
+	private Object body;
+}
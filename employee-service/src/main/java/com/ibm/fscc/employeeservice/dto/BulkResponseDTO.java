@@ -0,0 +1,21 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for the response of a bulk request.
+ * Holds the per-item results in request order, along with how many items succeeded and failed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResponseDTO {
+
+	private int succeeded;
+	private int failed;
+	private List<BulkItemResultDTO> results;
+}
@@ -0,0 +1,30 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) describing one committed employee change, as sent by the change feed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeChangeDTO {
+
+	/**
+	 * The kind of change.
+	 */
+	private EmployeeChangeEvent.Type type;
+
+	/**
+	 * The email of the changed employee.
+	 */
+	private String email;
+
+	/**
+	 * The employee as written, or {@code null} for deletions.
+	 */
+	private EmployeeDTO employee;
+}
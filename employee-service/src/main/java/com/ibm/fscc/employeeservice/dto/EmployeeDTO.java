@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 /**
  * Data Transfer Object (DTO) for Employee.
@@ -19,6 +20,7 @@ public class EmployeeDTO {
 	@NotNull(message = "Email cannot be null.")
     @NotBlank(message = "Email is required.")
     @Pattern(regexp = "[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}", message = "Invalid email format")
+    @Size(max = 255, message = "Email must be at most 255 characters")
     private String email;
 	
     @NotNull(message = "First name cannot be null.")
@@ -0,0 +1,42 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) reporting the progress of an employee import.
+ * One is sent after every written batch and a last one, marked complete, once the upload has been read to its end.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeImportProgressDTO {
+
+	/**
+	 * The number of data rows processed so far.
+	 */
+	private long processed;
+
+	/**
+	 * The number of employees imported so far.
+	 */
+	private long imported;
+
+	/**
+	 * The number of rows rejected so far.
+	 */
+	private long rejected;
+
+	/**
+	 * The rows rejected since the previous progress report.
+	 */
+	private List<EmployeeImportRejectionDTO> rejections;
+
+	/**
+	 * Whether the whole upload has been processed.
+	 */
+	private boolean complete;
+}
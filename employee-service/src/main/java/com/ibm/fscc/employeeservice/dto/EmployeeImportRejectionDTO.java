@@ -0,0 +1,28 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) for a row of an employee import that was not imported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeImportRejectionDTO {
+
+	/**
+	 * The number of the record in the uploaded file, the header being record 1.
+	 */
+	private long row;
+
+	private String email;
+
+	/**
+	 * The reasons the row was rejected, keyed by field like the error map of a rejected single-employee request.
+	 */
+	private Map<String, String> errors;
+}
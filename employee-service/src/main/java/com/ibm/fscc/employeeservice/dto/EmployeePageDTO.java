@@ -0,0 +1,25 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for a page of employees.
+ * Holds the employees of the page and the cursor to pass as {@code after} to fetch the next page.
+ * Employees are {@link EmployeeDTO} objects, or maps holding only the requested fields for sparse fieldsets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeePageDTO {
+
+	private List<?> employees;
+
+	/**
+	 * The email of the last employee of this page, or {@code null} if this is the last page.
+	 */
+	private String nextCursor;
+}
@@ -0,0 +1,34 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Holds the filters of an employee search. Every filter is optional; the given ones are combined with AND.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeSearchCriteria {
+
+	/**
+	 * Matches employees whose last name starts with this value.
+	 */
+	private String lastName;
+
+	/**
+	 * Matches employees whose first name starts with this value.
+	 */
+	private String firstName;
+
+	/**
+	 * Matches employees in exactly this state.
+	 */
+	private String state;
+
+	/**
+	 * Matches employees with exactly this zip code.
+	 */
+	private String zip;
+}
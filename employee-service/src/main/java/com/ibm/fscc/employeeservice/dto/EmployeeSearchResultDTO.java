@@ -0,0 +1,22 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for one page of employee search results.
+ * No total count is computed; {@code hasNext} tells whether a further page exists.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeSearchResultDTO {
+
+	private List<EmployeeDTO> employees;
+	private int page;
+	private int size;
+	private boolean hasNext;
+}
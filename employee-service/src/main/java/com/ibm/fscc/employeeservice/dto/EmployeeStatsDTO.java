@@ -0,0 +1,27 @@
+package com.ibm.fscc.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) for the answer to a group-by and count question about the employee directory.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeStatsDTO {
+
+	/**
+	 * The number of employees matching the filters.
+	 */
+	private long total;
+
+	/**
+	 * The largest groups first, each holding the values of the grouped dimensions and its {@code count}.
+	 */
+	private List<Map<String, Object>> groups;
+}
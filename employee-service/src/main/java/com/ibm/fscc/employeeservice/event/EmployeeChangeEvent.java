@@ -0,0 +1,59 @@
+package com.ibm.fscc.employeeservice.event;
+
+import com.ibm.fscc.employeeservice.model.Employee;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event published by the employee service for every employee it creates, updates or deletes.
+ * Listeners that mirror employee data should use a transactional event listener so they only observe committed changes.
+ */
+@Getter
+@AllArgsConstructor
+public class EmployeeChangeEvent {
+
+	/**
+	 * The kind of change made to an employee.
+	 */
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	private final Type type;
+	private final String email;
+
+	/**
+	 * The employee as written, or {@code null} for {@link Type#DELETED} events.
+	 */
+	private final Employee employee;
+
+	/**
+	 * Creates a {@link Type#CREATED} event for the given employee.
+	 *
+	 * @param employee the created employee
+	 * @return the event
+	 */
+	public static EmployeeChangeEvent created(Employee employee) {
+		return new EmployeeChangeEvent(Type.CREATED, employee.getEmail(), employee);
+	}
+
+	/**
+	 * Creates a {@link Type#UPDATED} event for the given employee.
+	 *
+	 * @param employee the updated employee
+	 * @return the event
+	 */
+	public static EmployeeChangeEvent updated(Employee employee) {
+		return new EmployeeChangeEvent(Type.UPDATED, employee.getEmail(), employee);
+	}
+
+	/**
+	 * Creates a {@link Type#DELETED} event for the employee with the given email.
+	 *
+	 * @param email the email of the deleted employee
+	 * @return the event
+	 */
+	public static EmployeeChangeEvent deleted(String email) {
+		return new EmployeeChangeEvent(Type.DELETED, email, null);
+	}
+}
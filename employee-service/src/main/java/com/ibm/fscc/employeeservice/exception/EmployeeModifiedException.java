@@ -0,0 +1,32 @@
+package com.ibm.fscc.employeeservice.exception;
+
+/**
+ * Custom exception class to indicate that an employee was changed since the version a conditional request was based on.
+ */
+public class EmployeeModifiedException extends RuntimeException{
+
+	/**
+     * The version the employee has now.
+     */
+    private final long currentVersion;
+
+    /**
+     * Constructs a new {@link EmployeeModifiedException} with the specified detail message and current version.
+     *
+     * @param eMessage       the detail message of the exception
+     * @param currentVersion the version the employee has now
+     */
+    public EmployeeModifiedException(String eMessage, long currentVersion) {
+        super(eMessage);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * Retrieves the version the employee has now.
+     *
+     * @return the current version of the employee
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ibm.fscc.employeeservice.export;
+
+import com.ibm.fscc.employeeservice.model.Employee;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Wire formats of the employee export. Both write the eight {@link com.ibm.fscc.employeeservice.dto.EmployeeDTO}
+ * fields in the order email, first name, last name, address, state, zip, cell phone, home phone.
+ */
+public enum EmployeeExportFormat {
+
+	/**
+	 * RFC 4180 CSV with a header line; values holding a comma, quote or line break are quoted.
+	 */
+	CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)) {
+		private static final byte[] HEADER = "email,firstName,lastName,address,state,zip,cellPhone,homePhone\r\n"
+				.getBytes(StandardCharsets.UTF_8);
+
+		@Override
+		public void writeHeader(DataBuffer buffer) {
+			buffer.write(HEADER);
+		}
+
+		@Override
+		public void writeRow(Employee employee, DataBuffer buffer) {
+			String[] values = valuesOf(employee);
+			StringBuilder row = new StringBuilder(128);
+
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					row.append(',');
+				appendCsvValue(row, values[i]);
+			}
+
+			buffer.write(row.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+		}
+	},
+
+	/**
+	 * Length-prefixed binary records. Every record is a 4-byte big-endian body length followed by the body, which
+	 * holds each field as a 2-byte big-endian length and that many UTF-8 bytes; a length of {@code 0xFFFF} marks a null field.
+	 */
+	BINARY("binary", MediaType.APPLICATION_OCTET_STREAM) {
+		@Override
+		public void writeHeader(DataBuffer buffer) {
+			// Records are self-delimiting, no header needed
+		}
+
+		@Override
+		public void writeRow(Employee employee, DataBuffer buffer) {
+			String[] values = valuesOf(employee);
+			byte[][] fields = new byte[values.length][];
+			int length = 0;
+
+			for (int i = 0; i < values.length; i++) {
+				fields[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+				length += 2 + (fields[i] == null ? 0 : fields[i].length);
+			}
+
+			writeInt(buffer, length);
+			for (byte[] field : fields) {
+				if (field == null) {
+					writeShort(buffer, NULL_LENGTH);
+				} else {
+					writeShort(buffer, field.length);
+					buffer.write(field);
+				}
+			}
+		}
+	};
+
+	/**
+	 * Field length marking a null value in the binary format.
+	 */
+	public static final int NULL_LENGTH = 0xFFFF;
+
+	private final String parameter;
+	private final MediaType mediaType;
+
+	EmployeeExportFormat(String parameter, MediaType mediaType) {
+		this.parameter = parameter;
+		this.mediaType = mediaType;
+	}
+
+	/**
+	 * Writes what precedes the first row.
+	 *
+	 * @param buffer the {@link DataBuffer} to write to
+	 */
+	public abstract void writeHeader(DataBuffer buffer);
+
+	/**
+	 * Writes one employee.
+	 *
+	 * @param employee the employee to write
+	 * @param buffer   the {@link DataBuffer} to write to
+	 */
+	public abstract void writeRow(Employee employee, DataBuffer buffer);
+
+	/**
+	 * Returns the media type of the exported content.
+	 *
+	 * @return the {@link MediaType}
+	 */
+	public MediaType getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * Finds the format selected by a {@code format} request parameter.
+	 *
+	 * @param parameter the parameter value, {@code csv} or {@code binary}, case-insensitive
+	 * @return the format, or an empty Optional if the value names no format
+	 */
+	public static Optional<EmployeeExportFormat> fromParameter(String parameter) {
+		return Arrays.stream(values()).filter(format -> format.parameter.equalsIgnoreCase(parameter)).findFirst();
+	}
+
+	private static String[] valuesOf(Employee employee) {
+		return new String[] { employee.getEmail(), employee.getFirstName(), employee.getLastName(), employee.getAddress(),
+				employee.getState(), employee.getZip(), employee.getCellPhone(), employee.getHomePhone() };
+	}
+
+	private static void appendCsvValue(StringBuilder row, String value) {
+		if (value == null)
+			return;
+
+		boolean quoted = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0;
+		if (!quoted) {
+			row.append(value);
+			return;
+		}
+
+		row.append('"').append(value.replace("\"", "\"\"")).append('"');
+	}
+
+	private static void writeInt(DataBuffer buffer, int value) {
+		buffer.write(new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value });
+	}
+
+	private static void writeShort(DataBuffer buffer, int value) {
+		buffer.write(new byte[] { (byte) (value >>> 8), (byte) value });
+	}
+}
@@ -0,0 +1,26 @@
+package com.ibm.fscc.employeeservice.export;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The connection pools of the export, one per shard, closed with the application context. They are kept apart from
+ * the pools of the other paths because their connections carry the {@code employee.export.connection-properties}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ExportDataSources implements AutoCloseable {
+
+	private final List<HikariDataSource> dataSources;
+
+	/**
+	 * Closes the pools.
+	 */
+	@Override
+	public void close() {
+		dataSources.forEach(HikariDataSource::close);
+	}
+}
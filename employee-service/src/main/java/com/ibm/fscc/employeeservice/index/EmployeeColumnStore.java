@@ -0,0 +1,418 @@
+package com.ibm.fscc.employeeservice.index;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeStatsDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory columnar snapshot of the employee directory, answering group-by and count questions without
+ * touching the database.
+ * <p>
+ * Each employee is a row id; every {@link Dimension} is a column of {@code int} codes indexed by row id.
+ * The low-cardinality text columns (state, zip, email domain) are dictionary-encoded, and phones are kept as
+ * {@code long} digits with their area codes as derived columns. Counting a group-by is therefore a scan over
+ * a few primitive arrays into a counts array, with no object per row.
+ * <p>
+ * The snapshot is loaded from the database once the application has started and then follows committed
+ * employee changes. Rows stay dense: a deleted employee's row is filled with the last row, so scans need no
+ * liveness check. Queries run concurrently under a read lock; writes take the write lock.
+ */
+@Component
+public class EmployeeColumnStore {
+
+	/**
+	 * The columns employees can be grouped and filtered by.
+	 */
+	public enum Dimension {
+		STATE("state"), ZIP("zip"), DOMAIN("domain"), CELL_AREA_CODE("cellAreaCode"), HOME_AREA_CODE("homeAreaCode");
+
+		private final String property;
+
+		Dimension(String property) {
+			this.property = property;
+		}
+
+		/**
+		 * Returns the name of the dimension in requests and responses.
+		 *
+		 * @return the property name
+		 */
+		public String getProperty() {
+			return property;
+		}
+
+		/**
+		 * Finds the dimension with the given property name.
+		 *
+		 * @param property the property name
+		 * @return an Optional containing the Dimension, or an empty Optional if there is none by that name
+		 */
+		public static Optional<Dimension> fromProperty(String property) {
+			return Arrays.stream(values()).filter(dimension -> dimension.property.equals(property)).findFirst();
+		}
+	}
+
+	/**
+	 * The code of a missing value.
+	 */
+	private static final int ABSENT = -1;
+
+	/**
+	 * The code of a filter value no row has.
+	 */
+	private static final int UNKNOWN = -2;
+
+	private static final int AREA_CODES = 1000;
+	private static final long SUBSCRIBER_NUMBERS = 10_000_000L;
+	private static final int MAX_DENSE_GROUPS = 1 << 16;
+
+	private final EmployeeRepository employeeRepository;
+	private final int fetchSize;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Integer> rowsByEmail = new HashMap<>();
+	private final Dictionary states = new Dictionary();
+	private final Dictionary zips = new Dictionary();
+	private final Dictionary domains = new Dictionary();
+	private final int[][] columns = new int[Dimension.values().length][];
+	private String[] emails;
+	private long[] cellPhones;
+	private long[] homePhones;
+	private int rows;
+
+	/**
+	 * Constructs an empty snapshot.
+	 *
+	 * @param employeeRepository the {@link EmployeeRepository} the snapshot is loaded from
+	 * @param fetchSize          the number of employees read per page while loading
+	 */
+	public EmployeeColumnStore(EmployeeRepository employeeRepository,
+			@Value("${employee.pagination.stream-fetch-size}") int fetchSize) {
+		this.employeeRepository = employeeRepository;
+		this.fetchSize = fetchSize;
+		clear();
+	}
+
+	/**
+	 * Loads every employee into the snapshot, reading the table in keyset pages ordered by email.
+	 */
+	@EventListener(ApplicationStartedEvent.class)
+	public void load() {
+		lock.writeLock().lock();
+		try {
+			clear();
+
+			List<Employee> page = employeeRepository.findPageAfter("", fetchSize);
+			while (!page.isEmpty()) {
+				page.forEach(this::write);
+				page = employeeRepository.findPageAfter(page.get(page.size() - 1).getEmail(), fetchSize);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the employees matching the filters, overall and per combination of the grouped dimensions.
+	 *
+	 * @param groupBy the dimensions to group by, possibly none
+	 * @param filters the value each filtered dimension must have
+	 * @param limit   the maximum number of groups to return
+	 * @return the {@link EmployeeStatsDTO} holding the number of matching employees and the largest groups first,
+	 *         each as the values of the grouped dimensions, {@code null} for a missing value, and a {@code count}
+	 */
+	public EmployeeStatsDTO count(List<Dimension> groupBy, Map<Dimension, String> filters, int limit) {
+		lock.readLock().lock();
+		try {
+			int[][] filterColumns = new int[filters.size()][];
+			int[] filterCodes = new int[filters.size()];
+			int f = 0;
+			for (Map.Entry<Dimension, String> filter : filters.entrySet()) {
+				filterColumns[f] = columns[filter.getKey().ordinal()];
+				filterCodes[f++] = codeOf(filter.getKey(), filter.getValue());
+			}
+
+			// Group keys are mixed-radix numbers with one digit per grouped dimension, shifted so ABSENT is 0
+			int[][] groupColumns = new int[groupBy.size()][];
+			long[] radixes = new long[groupBy.size()];
+			long groups = 1;
+			for (int g = 0; g < groupBy.size(); g++) {
+				groupColumns[g] = columns[groupBy.get(g).ordinal()];
+				radixes[g] = cardinalityOf(groupBy.get(g)) + 1L;
+				groups = Math.multiplyExact(groups, radixes[g]);
+			}
+
+			int[] dense = groups <= MAX_DENSE_GROUPS ? new int[(int) groups] : null;
+			Map<Long, Integer> sparse = dense == null ? new HashMap<>() : null;
+			long total = 0;
+
+			if (filterColumns.length == 0 && groupColumns.length == 1 && dense != null) {
+				// The common question, one dimension over everyone, is a single pass over one column
+				int[] column = groupColumns[0];
+				for (int row = 0; row < rows; row++)
+					dense[column[row] + 1]++;
+				total = rows;
+			} else {
+				total = scan(filterColumns, filterCodes, groupColumns, radixes, dense, sparse);
+			}
+
+			List<Map<String, Object>> result = new ArrayList<>();
+			if (!groupBy.isEmpty()) {
+				if (dense != null) {
+					for (int key = 0; key < dense.length; key++)
+						if (dense[key] > 0)
+							result.add(groupOf(groupBy, radixes, key, dense[key]));
+				} else {
+					sparse.forEach((key, count) -> result.add(groupOf(groupBy, radixes, key, count)));
+				}
+
+				result.sort(Comparator.<Map<String, Object>>comparingLong(group -> -(Long) group.get("count"))
+						.thenComparing(group -> group.values().toString()));
+			}
+
+			return new EmployeeStatsDTO(total, new ArrayList<>(result.subList(0, Math.min(limit, result.size()))));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the rows matching the filters into the dense or sparse group counts.
+	 *
+	 * @return the number of matching rows
+	 */
+	private long scan(int[][] filterColumns, int[] filterCodes, int[][] groupColumns, long[] radixes, int[] dense, Map<Long, Integer> sparse) {
+		long total = 0;
+
+		rows:
+		for (int row = 0; row < rows; row++) {
+			for (int i = 0; i < filterColumns.length; i++)
+				if (filterColumns[i][row] != filterCodes[i])
+					continue rows;
+
+			total++;
+
+			long key = 0;
+			for (int g = 0; g < groupColumns.length; g++)
+				key = key * radixes[g] + groupColumns[g][row] + 1;
+
+			if (dense != null)
+				dense[(int) key]++;
+			else
+				sparse.merge(key, 1, Integer::sum);
+		}
+
+		return total;
+	}
+
+	/**
+	 * Adds an employee to the snapshot or overwrites its row.
+	 *
+	 * @param employee the employee to add
+	 */
+	public void put(Employee employee) {
+		lock.writeLock().lock();
+		try {
+			write(employee);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the employee with the given email from the snapshot.
+	 *
+	 * @param email the email of the employee to remove
+	 */
+	public void remove(String email) {
+		lock.writeLock().lock();
+		try {
+			Integer row = rowsByEmail.remove(email);
+			if (row == null)
+				return;
+
+			// Move the last row into the hole
+			int last = --rows;
+			if (row != last) {
+				for (int[] column : columns)
+					column[row] = column[last];
+				emails[row] = emails[last];
+				cellPhones[row] = cellPhones[last];
+				homePhones[row] = homePhones[last];
+				rowsByEmail.put(emails[row], row);
+			}
+			emails[last] = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Keeps the snapshot in line with committed employee changes.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		if (event.getType() == EmployeeChangeEvent.Type.DELETED)
+			remove(event.getEmail());
+		else
+			put(event.getEmployee());
+	}
+
+	private void clear() {
+		rowsByEmail.clear();
+		states.clear();
+		zips.clear();
+		domains.clear();
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = new int[1024];
+		emails = new String[1024];
+		cellPhones = new long[1024];
+		homePhones = new long[1024];
+		rows = 0;
+	}
+
+	private void write(Employee employee) {
+		Integer row = rowsByEmail.get(employee.getEmail());
+
+		if (row == null) {
+			row = rows++;
+			if (row == emails.length) {
+				for (int i = 0; i < columns.length; i++)
+					columns[i] = Arrays.copyOf(columns[i], row * 2);
+				emails = Arrays.copyOf(emails, row * 2);
+				cellPhones = Arrays.copyOf(cellPhones, row * 2);
+				homePhones = Arrays.copyOf(homePhones, row * 2);
+			}
+			rowsByEmail.put(employee.getEmail(), row);
+			emails[row] = employee.getEmail();
+		}
+
+		String email = employee.getEmail();
+		int at = email.lastIndexOf('@');
+
+		cellPhones[row] = phoneOf(employee.getCellPhone());
+		homePhones[row] = phoneOf(employee.getHomePhone());
+		columns[Dimension.STATE.ordinal()][row] = states.encode(employee.getState());
+		columns[Dimension.ZIP.ordinal()][row] = zips.encode(employee.getZip());
+		columns[Dimension.DOMAIN.ordinal()][row] = domains.encode(at < 0 ? null : email.substring(at + 1).toLowerCase());
+		columns[Dimension.CELL_AREA_CODE.ordinal()][row] = areaCodeOf(cellPhones[row]);
+		columns[Dimension.HOME_AREA_CODE.ordinal()][row] = areaCodeOf(homePhones[row]);
+	}
+
+	/**
+	 * Returns the ten digits of a {@code XXX-XXX-XXXX} phone number, or -1 if there is none.
+	 */
+	private static long phoneOf(String phone) {
+		if (phone == null)
+			return ABSENT;
+
+		long digits = 0;
+		int count = 0;
+		for (int i = 0; i < phone.length(); i++) {
+			char c = phone.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = digits * 10 + (c - '0');
+				count++;
+			}
+		}
+
+		return count == 10 ? digits : ABSENT;
+	}
+
+	private static int areaCodeOf(long phone) {
+		return phone < 0 ? ABSENT : (int) (phone / SUBSCRIBER_NUMBERS);
+	}
+
+	private int cardinalityOf(Dimension dimension) {
+		return switch (dimension) {
+			case STATE -> states.size();
+			case ZIP -> zips.size();
+			case DOMAIN -> domains.size();
+			case CELL_AREA_CODE, HOME_AREA_CODE -> AREA_CODES;
+		};
+	}
+
+	private int codeOf(Dimension dimension, String value) {
+		return switch (dimension) {
+			case STATE -> states.lookup(value);
+			case ZIP -> zips.lookup(value);
+			case DOMAIN -> domains.lookup(value.toLowerCase());
+			case CELL_AREA_CODE, HOME_AREA_CODE -> value.matches("\\d{3}") ? Integer.parseInt(value) : UNKNOWN;
+		};
+	}
+
+	private String valueOf(Dimension dimension, int code) {
+		if (code == ABSENT)
+			return null;
+
+		return switch (dimension) {
+			case STATE -> states.decode(code);
+			case ZIP -> zips.decode(code);
+			case DOMAIN -> domains.decode(code);
+			case CELL_AREA_CODE, HOME_AREA_CODE -> String.format("%03d", code);
+		};
+	}
+
+	private Map<String, Object> groupOf(List<Dimension> groupBy, long[] radixes, long key, long count) {
+		String[] values = new String[groupBy.size()];
+		for (int g = groupBy.size() - 1; g >= 0; g--) {
+			values[g] = valueOf(groupBy.get(g), (int) (key % radixes[g]) - 1);
+			key /= radixes[g];
+		}
+
+		Map<String, Object> group = new LinkedHashMap<>();
+		for (int g = 0; g < groupBy.size(); g++)
+			group.put(groupBy.get(g).getProperty(), values[g]);
+		group.put("count", count);
+		return group;
+	}
+
+	/**
+	 * Dictionary encoding of a text column: each distinct value gets the next code, and codes are never reused,
+	 * so rows never need re-encoding.
+	 */
+	private static final class Dictionary {
+
+		private final Map<String, Integer> codes = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		int encode(String value) {
+			if (value == null)
+				return ABSENT;
+
+			return codes.computeIfAbsent(value, v -> {
+				values.add(v);
+				return values.size() - 1;
+			});
+		}
+
+		int lookup(String value) {
+			return codes.getOrDefault(value, UNKNOWN);
+		}
+
+		String decode(int code) {
+			return values.get(code);
+		}
+
+		int size() {
+			return values.size();
+		}
+
+		void clear() {
+			codes.clear();
+			values.clear();
+		}
+	}
+}
@@ -0,0 +1,500 @@
+package com.ibm.fscc.employeeservice.index;
+
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over the first name, last name and email of every employee,
+ * serving typo-tolerant type-ahead suggestions without touching the database.
+ * <p>
+ * Every word is lower-cased, padded with two leading blanks and one trailing blank, and split into
+ * overlapping three-character trigrams; each trigram maps to the ids of the employees containing it.
+ * Query words are not padded at the end, so a partially typed word matches every word it starts.
+ * Candidates are ranked by the number of query trigrams they share, then by how short their own
+ * trigram set is, then by email. Posting lists admit candidates from the rarest trigram on, each candidate being
+ * scored against its own trigrams, and the lists of the common trigrams are only read when the best candidates found
+ * so far could still be displaced by an employee appearing in them.
+ * <p>
+ * The index is loaded from the database once the application has started and then follows committed
+ * employee changes. Searches run concurrently under a read lock; writes take the write lock. Every employee keeps
+ * its position in each of its posting lists, so a deletion or rename unlinks it without scanning the lists, whose
+ * common trigrams hold nearly every employee.
+ */
+@Component
+public class EmployeeNameIndex {
+
+	private static final Comparator<Candidate> RANKING = Comparator.comparingInt(Candidate::matches).reversed()
+			.thenComparingInt(Candidate::size)
+			.thenComparing(Candidate::email);
+
+	private final EmployeeRepository employeeRepository;
+	private final int fetchSize;
+	private final double minSimilarity;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Integer> idsByEmail = new HashMap<>();
+	private final Map<Long, PostingList> postings = new HashMap<>();
+	private final PostingList freeIds = new PostingList();
+	private Employee[] employees = new Employee[1024];
+	private long[][] trigramsById = new long[1024][];
+	private int[][] slotsById = new int[1024][];
+	private int[] sizes = new int[1024];
+	private long[] signatures = new long[1024];
+	private int nextId;
+
+	private final ThreadLocal<MatchCounts> counts = ThreadLocal.withInitial(MatchCounts::new);
+
+	/**
+	 * Constructs an empty index.
+	 *
+	 * @param employeeRepository the {@link EmployeeRepository} the index is loaded from
+	 * @param fetchSize          the number of employees read per page while loading
+	 * @param minSimilarity      the fraction of the query trigrams an employee must share to be suggested
+	 */
+	public EmployeeNameIndex(EmployeeRepository employeeRepository,
+			@Value("${employee.pagination.stream-fetch-size}") int fetchSize,
+			@Value("${employee.suggest.min-similarity}") double minSimilarity) {
+		this.employeeRepository = employeeRepository;
+		this.fetchSize = fetchSize;
+		this.minSimilarity = minSimilarity;
+	}
+
+	/**
+	 * Loads every employee into the index, reading the table in keyset pages ordered by email.
+	 * Runs once the context is refreshed and before any command line runner writes employees.
+	 */
+	@EventListener(ApplicationStartedEvent.class)
+	public void load() {
+		lock.writeLock().lock();
+		try {
+			idsByEmail.clear();
+			postings.clear();
+			freeIds.clear();
+			employees = new Employee[1024];
+			trigramsById = new long[1024][];
+			slotsById = new int[1024][];
+			sizes = new int[1024];
+			signatures = new long[1024];
+			nextId = 0;
+
+			List<Employee> page = employeeRepository.findPageAfter("", fetchSize);
+			while (!page.isEmpty()) {
+				page.forEach(this::index);
+				page = employeeRepository.findPageAfter(page.get(page.size() - 1).getEmail(), fetchSize);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the employees best matching the given query.
+	 *
+	 * @param query the text typed so far, one or more words matched against first name, last name and email
+	 * @param limit the maximum number of employees to return
+	 * @return the matching employees, best match first
+	 */
+	public List<Employee> search(String query, int limit) {
+		long[] queryTrigrams = trigrams(query, false);
+		if (queryTrigrams.length == 0)
+			return List.of();
+
+		int minMatches = Math.max(1, (int) Math.ceil(minSimilarity * queryTrigrams.length));
+
+		lock.readLock().lock();
+		try {
+			// Visit the posting lists from the shortest, i.e. the rarest trigram, to the longest
+			PostingList[] lists = new PostingList[queryTrigrams.length];
+			int count = 0;
+			for (long trigram : queryTrigrams) {
+				PostingList ids = postings.get(trigram);
+				if (ids != null)
+					lists[count++] = ids;
+			}
+			Arrays.sort(lists, 0, count, Comparator.comparingInt(ids -> ids.size));
+
+			// An employee outside the shortest k lists shares at most count - k trigrams. Lists are admitted one at a
+			// time and every new candidate is scored against its own trigrams; once the best candidates all share more
+			// trigrams than that, no employee outside the admitted lists can displace them, even with fewer trigrams
+			MatchCounts counts = this.counts.get();
+			counts.ensureCapacity(nextId);
+			PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+			for (int admitted = 0, threshold = count; admitted < count && threshold >= minMatches; admitted++, threshold--) {
+				if (best.size() == limit && best.peek().matches() > threshold)
+					break;
+				// When the worst of the best shares as many trigrams, this list is the last read and needs no marks
+				boolean last = best.size() == limit && best.peek().matches() == threshold;
+
+				// Employees first met in this list share none of the trigrams of the lists before it
+				long[] remaining = new long[threshold];
+				for (int i = admitted; i < count; i++)
+					remaining[i - admitted] = lists[i].trigram;
+				Arrays.sort(remaining);
+				long[] remainingBits = new long[threshold];
+				for (int i = 0; i < threshold; i++)
+					remainingBits[i] = bit(remaining[i]);
+
+				PostingList ids = lists[admitted];
+				for (int j = 0; j < ids.size; j++) {
+					int id = ids.values[j];
+					if (last ? counts.seen(id) : !counts.mark(id))
+						continue;
+
+					// Once the best candidates are found, an employee must share as many trigrams as the worst of them
+					// with no more trigrams of its own, or more trigrams; scoring stops as soon as it cannot, and is
+					// skipped when it shares at most as many as the worst and has more trigrams of its own
+					int size = sizes[id];
+					int required = minMatches;
+					if (best.size() == limit) {
+						Candidate worst = best.peek();
+						required = Math.max(required, size > worst.size() ? worst.matches() + 1 : worst.matches());
+						if (required > threshold)
+							continue;
+					}
+					if (upperBound(signatures[id], remainingBits) < required)
+						continue;
+					int matches = shared(trigramsById[id], remaining, required);
+					if (matches < required)
+						continue;
+
+					Candidate candidate = new Candidate(employees[id], matches, size);
+					if (best.size() < limit) {
+						best.offer(candidate);
+					} else if (RANKING.compare(candidate, best.peek()) < 0) {
+						best.poll();
+						best.offer(candidate);
+					}
+				}
+			}
+
+			counts.clear();
+
+			List<Candidate> ranked = new ArrayList<>(best);
+			ranked.sort(RANKING);
+
+			List<Employee> result = new ArrayList<>(ranked.size());
+			ranked.forEach(candidate -> result.add(candidate.employee()));
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the given employee to the index, replacing the entry with the same email if there is one.
+	 *
+	 * @param employee the employee to index
+	 */
+	public void put(Employee employee) {
+		lock.writeLock().lock();
+		try {
+			index(employee);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the employee with the given email from the index.
+	 *
+	 * @param email the email of the employee to remove
+	 */
+	public void remove(String email) {
+		lock.writeLock().lock();
+		try {
+			Integer id = idsByEmail.remove(email);
+			if (id == null)
+				return;
+
+			unlinkPostings(id);
+			employees[id] = null;
+			trigramsById[id] = null;
+			slotsById[id] = null;
+			sizes[id] = 0;
+			signatures[id] = 0;
+			freeIds.add(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Keeps the index in line with committed employee changes.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		if (event.getType() == EmployeeChangeEvent.Type.DELETED)
+			remove(event.getEmail());
+		else
+			put(event.getEmployee());
+	}
+
+	private void index(Employee employee) {
+		long[] trigrams = trigrams(String.join(" ", Objects.toString(employee.getFirstName(), ""),
+				Objects.toString(employee.getLastName(), ""), employee.getEmail()), true);
+		Integer existing = idsByEmail.get(employee.getEmail());
+
+		if (existing != null) {
+			employees[existing] = employee;
+
+			// Updates that leave the names and email alone, the common case, keep their postings
+			if (Arrays.equals(trigramsById[existing], trigrams))
+				return;
+
+			unlinkPostings(existing);
+			trigramsById[existing] = trigrams;
+			sizes[existing] = trigrams.length;
+			signatures[existing] = signature(trigrams);
+			linkPostings(existing);
+			return;
+		}
+
+		int id = freeIds.size > 0 ? freeIds.values[--freeIds.size] : nextId++;
+		if (id == employees.length) {
+			employees = Arrays.copyOf(employees, id * 2);
+			trigramsById = Arrays.copyOf(trigramsById, id * 2);
+			slotsById = Arrays.copyOf(slotsById, id * 2);
+			sizes = Arrays.copyOf(sizes, id * 2);
+			signatures = Arrays.copyOf(signatures, id * 2);
+		}
+
+		idsByEmail.put(employee.getEmail(), id);
+		employees[id] = employee;
+		trigramsById[id] = trigrams;
+		sizes[id] = trigrams.length;
+		signatures[id] = signature(trigrams);
+		linkPostings(id);
+	}
+
+	private void linkPostings(int id) {
+		long[] trigrams = trigramsById[id];
+		int[] slots = new int[trigrams.length];
+		for (int i = 0; i < trigrams.length; i++)
+			slots[i] = postings.computeIfAbsent(trigrams[i], PostingList::new).add(id);
+		slotsById[id] = slots;
+	}
+
+	private void unlinkPostings(int id) {
+		long[] trigrams = trigramsById[id];
+		int[] slots = slotsById[id];
+		for (int i = 0; i < trigrams.length; i++) {
+			PostingList ids = postings.get(trigrams[i]);
+			// The last employee of the list takes the freed slot, and its own slot for this trigram follows
+			int moved = ids.removeAt(slots[i]);
+			if (moved >= 0)
+				slotsById[moved][Arrays.binarySearch(trigramsById[moved], trigrams[i])] = slots[i];
+			if (ids.size == 0)
+				postings.remove(trigrams[i]);
+		}
+	}
+
+	/**
+	 * Splits the text into lower-case words and returns the distinct trigrams of all of them, sorted,
+	 * each packed into a long as three 16-bit characters.
+	 *
+	 * @param text   the text to split
+	 * @param padEnd whether to pad the end of every word, which is done for indexed words but not for query words
+	 * @return the distinct trigrams
+	 */
+	static long[] trigrams(String text, boolean padEnd) {
+		if (text == null)
+			return new long[0];
+
+		TrigramBuffer trigrams = new TrigramBuffer();
+		String normalized = text.toLowerCase(Locale.ROOT);
+		int start = -1;
+
+		for (int i = 0; i <= normalized.length(); i++) {
+			boolean wordCharacter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+
+			if (wordCharacter && start < 0) {
+				start = i;
+			} else if (!wordCharacter && start >= 0) {
+				String word = "  " + normalized.substring(start, i) + (padEnd ? " " : "");
+				for (int j = 0; j + 3 <= word.length(); j++)
+					trigrams.add((long) word.charAt(j) << 32 | (long) word.charAt(j + 1) << 16 | word.charAt(j + 2));
+				start = -1;
+			}
+		}
+
+		return trigrams.distinct();
+	}
+
+	/**
+	 * Returns the bit standing for a trigram in the signatures of employees.
+	 */
+	private static long bit(long trigram) {
+		return 1L << (trigram * 0x9E3779B97F4A7C15L >>> 58);
+	}
+
+	/**
+	 * Returns the signature of a set of trigrams, the bits of all of them, which tells without reading the set which
+	 * trigrams it certainly does not contain.
+	 */
+	private static long signature(long[] trigrams) {
+		long signature = 0;
+		for (long trigram : trigrams)
+			signature |= bit(trigram);
+		return signature;
+	}
+
+	/**
+	 * Counts the query trigrams whose bit is in a signature, at least as many as the set shares with them.
+	 */
+	private static int upperBound(long signature, long[] queryBits) {
+		int bound = 0;
+		for (long bit : queryBits) {
+			if ((signature & bit) != 0)
+				bound++;
+		}
+		return bound;
+	}
+
+	/**
+	 * Counts the trigrams two sorted sets share, giving up as soon as fewer than the required number can be.
+	 */
+	private static int shared(long[] trigrams, long[] queryTrigrams, int required) {
+		int shared = 0;
+		for (int i = 0, j = 0; i < trigrams.length && j < queryTrigrams.length; ) {
+			if (trigrams[i] < queryTrigrams[j]) {
+				i++;
+			} else if (trigrams[i] > queryTrigrams[j]) {
+				j++;
+				if (shared + queryTrigrams.length - j < required)
+					return shared;
+			} else {
+				shared++;
+				i++;
+				j++;
+			}
+		}
+		return shared;
+	}
+
+	private record Candidate(Employee employee, int matches, int size) {
+
+		String email() {
+			return employee.getEmail();
+		}
+	}
+
+	/**
+	 * Growable list of trigrams collected from a text.
+	 */
+	private static final class TrigramBuffer {
+
+		private long[] values = new long[32];
+		private int size;
+
+		void add(long trigram) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = trigram;
+		}
+
+		long[] distinct() {
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			return Arrays.stream(sorted).distinct().toArray();
+		}
+	}
+
+	/**
+	 * Unordered growable list of employee ids, of the employees containing a trigram.
+	 */
+	private static final class PostingList {
+
+		private final long trigram;
+		private int[] values = new int[4];
+		private int size;
+
+		PostingList() {
+			this(0);
+		}
+
+		PostingList(long trigram) {
+			this.trigram = trigram;
+		}
+
+		/**
+		 * Appends an id.
+		 *
+		 * @return the slot the id was put in
+		 */
+		int add(int id) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size] = id;
+			return size++;
+		}
+
+		/**
+		 * Removes the id in a slot, moving the last id into it.
+		 *
+		 * @return the id moved into the slot, or -1 if the slot was the last one
+		 */
+		int removeAt(int slot) {
+			if (slot == --size)
+				return -1;
+			values[slot] = values[size];
+			return values[slot];
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+
+	/**
+	 * Per-thread marks of the employees already scored by a search, reused across searches and cleared after each.
+	 */
+	private static final class MatchCounts {
+
+		// One bit per employee, small enough to stay in cache over a million employees
+		private long[] seen = new long[0];
+		private final PostingList touched = new PostingList();
+
+		void ensureCapacity(int capacity) {
+			int words = (capacity + 63) >>> 6;
+			if (seen.length < words)
+				seen = new long[Math.max(words, seen.length * 2)];
+		}
+
+		boolean seen(int id) {
+			return (seen[id >>> 6] & 1L << id) != 0;
+		}
+
+		/**
+		 * Marks an employee as scored.
+		 *
+		 * @return {@code false} if it already was
+		 */
+		boolean mark(int id) {
+			long bit = 1L << id;
+			if ((seen[id >>> 6] & bit) != 0)
+				return false;
+			seen[id >>> 6] |= bit;
+			touched.add(id);
+			return true;
+		}
+
+		void clear() {
+			for (int i = 0; i < touched.size; i++)
+				seen[touched.values[i] >>> 6] = 0;
+			touched.clear();
+		}
+	}
+}
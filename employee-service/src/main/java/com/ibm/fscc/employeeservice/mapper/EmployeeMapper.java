@@ -2,9 +2,10 @@ package com.ibm.fscc.employeeservice.mapper;
 
 import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
 import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.model.EmployeeRecord;
 
 /**
- * Mapper class for converting between {@link Employee} and {@link EmployeeDTO}.
+ * Mapper class for converting between {@link Employee}, {@link EmployeeRecord} and {@link EmployeeDTO}.
  */
 public class EmployeeMapper {
 
@@ -44,9 +45,49 @@ public class EmployeeMapper {
 					employeeDto.getState(),
 					employeeDto.getZip(),
 					employeeDto.getCellPhone(),
-					employeeDto.getHomePhone()
+					employeeDto.getHomePhone(),
+					0L
 				);
 		
 		return employee;
 	}
+
+	/**
+     * Converts an {@link EmployeeRecord} to an {@link EmployeeDTO} object.
+     *
+     * @param employeeRecord the {@link EmployeeRecord} to be converted
+     * @return the corresponding {@link EmployeeDTO} object
+     */
+	public static EmployeeDTO employeeRecordToEmployeeDTO(EmployeeRecord employeeRecord) {
+		return new EmployeeDTO(
+					employeeRecord.getEmail(),
+					employeeRecord.getFirstName(),
+					employeeRecord.getLastName(),
+					employeeRecord.getAddress(),
+					employeeRecord.getState(),
+					employeeRecord.getZip(),
+					employeeRecord.getCellPhone(),
+					employeeRecord.getHomePhone()
+				);
+	}
+
+	/**
+     * Converts an {@link EmployeeDTO} object to an {@link EmployeeRecord}.
+     *
+     * @param employeeDto the {@link EmployeeDTO} object to be converted
+     * @return the corresponding {@link EmployeeRecord}
+     */
+	public static EmployeeRecord employeeDtoToEmployeeRecord(EmployeeDTO employeeDto) {
+		return new EmployeeRecord(
+					employeeDto.getEmail(),
+					employeeDto.getFirstName(),
+					employeeDto.getLastName(),
+					employeeDto.getAddress(),
+					employeeDto.getState(),
+					employeeDto.getZip(),
+					employeeDto.getCellPhone(),
+					employeeDto.getHomePhone(),
+					0L
+				);
+	}
 }
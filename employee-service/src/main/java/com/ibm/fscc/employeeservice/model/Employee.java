@@ -7,16 +7,24 @@ import lombok.NoArgsConstructor;
 
 /**
  * Represents an employee entity.
+ * The indexes back the search filters, so that every filter combination is served by an index range scan
+ * that also yields rows in the default last name, first name order.
+ * The native write statements maintain the {@code version} column themselves.
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "Employee")
+@Table(name = "Employee", indexes = {
+		@Index(name = "idx_employee_lastName_firstName", columnList = "lastName, firstName"),
+		@Index(name = "idx_employee_firstName_lastName", columnList = "firstName, lastName"),
+		@Index(name = "idx_employee_state_zip_lastName", columnList = "state, zip, lastName"),
+		@Index(name = "idx_employee_zip_lastName", columnList = "zip, lastName")
+})
 public class Employee {
 
 	@Id
-	@Column(unique = true)
+	@Column(unique = true, length = 255)
 	private String email;
 	
 	private String firstName;
@@ -26,5 +34,12 @@ public class Employee {
 	private String zip;
 	private String cellPhone;
 	private String homePhone;
+
+	/**
+	 * Incremented by every write to the employee; it is the employee's strong ETag and the token of
+	 * {@code If-Match} conditional updates.
+	 */
+	@Version
+	private long version;
 }
 
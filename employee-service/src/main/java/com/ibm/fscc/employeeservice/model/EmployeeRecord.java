@@ -0,0 +1,47 @@
+package com.ibm.fscc.employeeservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Represents an employee row as read and written by the reactive (R2DBC) persistence path.
+ * It maps the same table and columns as the JPA {@link Employee} entity.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("Employee")
+public class EmployeeRecord {
+
+	@Id
+	@Column("email")
+	private String email;
+
+	@Column("firstName")
+	private String firstName;
+
+	@Column("lastName")
+	private String lastName;
+
+	@Column("address")
+	private String address;
+
+	@Column("state")
+	private String state;
+
+	@Column("zip")
+	private String zip;
+
+	@Column("cellPhone")
+	private String cellPhone;
+
+	@Column("homePhone")
+	private String homePhone;
+
+	@Column("version")
+	private long version;
+}
@@ -0,0 +1,30 @@
+package com.ibm.fscc.employeeservice.pool;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint, {@code /actuator/pool}, summarising the connection pools: their size, their connections, the
+ * last sizing window and the recent sizing decisions.
+ */
+@Component
+@Endpoint(id = "pool")
+@RequiredArgsConstructor
+public class ConnectionPoolEndpoint {
+
+	private final ConnectionPoolMonitor connectionPoolMonitor;
+
+	/**
+	 * Serves the summary.
+	 *
+	 * @return a summary per pool name
+	 */
+	@ReadOperation
+	public Map<String, Map<String, Object>> pools() {
+		return connectionPoolMonitor.describe();
+	}
+}
@@ -0,0 +1,334 @@
+package com.ibm.fscc.employeeservice.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments the Hikari connection pools and, in adaptive mode, resizes them.
+ * <p>
+ * Every pool {@link #monitor(HikariDataSource) monitored} publishes the usual {@code hikaricp.connections.*}
+ * metrics (active, idle, pending, acquire, usage and creation times, timeouts), with the histograms configured under
+ * {@code management.metrics.distribution}, and is summarised by the {@code pool} actuator endpoint.
+ * <p>
+ * When {@code employee.pool.adaptive.enabled} is set, the maximum size of each pool is reconsidered every
+ * {@code employee.pool.adaptive.interval}, within {@code min-size} and {@code max-size}, from the mean time to acquire
+ * a connection and the mean time connections are held, which stands for the database response time:
+ * <ul>
+ *     <li>the pool shrinks by a step when the response time rose beyond {@code response-tolerance} times its
+ *     baseline, as more connections only add contention to a saturated database;</li>
+ *     <li>otherwise it grows by a step when requests queue for connections, that is threads are pending, acquiring
+ *     took longer than {@code acquire-target} on average or timed out; requests timing out at {@code min-size} grow
+ *     the pool whatever the response time;</li>
+ *     <li>otherwise it shrinks by one when acquiring is immediate and most connections are idle.</li>
+ * </ul>
+ * The baseline follows the response time of the windows in which the pool neither grew nor was saturated, and drifts
+ * more slowly towards that of saturated windows, so that a lasting slowdown of the database becomes the new baseline
+ * instead of holding the pool at {@code min-size} for good. Lowering the maximum does not close the connections
+ * already open, so a shrink also evicts them: idle connections are closed at once and connections in use once
+ * returned, never while in use, and the pool opens new ones up to its smaller maximum as needed.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolMonitor {
+
+	private static final int DECISIONS = 20;
+	private static final double BASELINE_WEIGHT = 0.2;
+	private static final double SATURATED_BASELINE_WEIGHT = 0.1;
+
+	private final MetricsTrackerFactory micrometer;
+	private final MeterRegistry meterRegistry;
+	private final boolean adaptive;
+	private final int minSize;
+	private final int maxSize;
+	private final Duration interval;
+	private final long acquireTargetNanos;
+	private final double responseTolerance;
+
+	private final List<HikariDataSource> dataSources = new CopyOnWriteArrayList<>();
+	private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService sizer;
+
+	/**
+	 * Constructs the monitor.
+	 *
+	 * @param meterRegistry     the {@link MeterRegistry} to publish the pool metrics to
+	 * @param adaptive          whether to resize the pools
+	 * @param minSize           the smallest maximum pool size adaptive mode sets
+	 * @param maxSize           the largest maximum pool size adaptive mode sets
+	 * @param interval          the interval between two sizing decisions
+	 * @param acquireTarget     the mean time to acquire a connection above which the pool grows
+	 * @param responseTolerance the factor by which the mean time connections are held may exceed its baseline before
+	 *                          the pool shrinks
+	 */
+	public ConnectionPoolMonitor(MeterRegistry meterRegistry,
+			@Value("${employee.pool.adaptive.enabled}") boolean adaptive,
+			@Value("${employee.pool.adaptive.min-size}") int minSize,
+			@Value("${employee.pool.adaptive.max-size}") int maxSize,
+			@Value("${employee.pool.adaptive.interval}") Duration interval,
+			@Value("${employee.pool.adaptive.acquire-target}") Duration acquireTarget,
+			@Value("${employee.pool.adaptive.response-tolerance}") double responseTolerance) {
+		this.micrometer = new MicrometerMetricsTrackerFactory(meterRegistry);
+		this.meterRegistry = meterRegistry;
+		this.adaptive = adaptive;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.interval = interval;
+		this.acquireTargetNanos = acquireTarget.toNanos();
+		this.responseTolerance = responseTolerance;
+	}
+
+	/**
+	 * Instruments a pool, and resizes it in adaptive mode. Must be called before the pool starts.
+	 *
+	 * @param dataSource the pool
+	 * @return the same pool
+	 */
+	public HikariDataSource monitor(HikariDataSource dataSource) {
+		dataSource.setMetricsTrackerFactory((poolName, poolStats) -> {
+			Pool pool = new Pool(poolName, poolStats, micrometer.create(poolName, poolStats));
+			pools.put(poolName, pool);
+			return pool;
+		});
+		dataSources.add(dataSource);
+		return dataSource;
+	}
+
+	/**
+	 * Starts resizing the pools in adaptive mode.
+	 */
+	@PostConstruct
+	public void start() {
+		if (!adaptive)
+			return;
+
+		sizer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-sizer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sizer.scheduleWithFixedDelay(this::adjust, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+		log.info("Adaptive connection pool sizing between {} and {} connections", minSize, maxSize);
+	}
+
+	/**
+	 * Stops resizing the pools.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (sizer != null)
+			sizer.shutdownNow();
+	}
+
+	/**
+	 * Reconsiders the size of every started pool from the window since the previous call.
+	 */
+	public void adjust() {
+		for (HikariDataSource dataSource : dataSources) {
+			Pool pool = pools.get(String.valueOf(dataSource.getPoolName()));
+
+			if (pool != null) {
+				try {
+					pool.adjust(dataSource);
+				} catch (RuntimeException e) {
+					log.warn("Could not resize connection pool {}", pool.name, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Summarises the pools.
+	 *
+	 * @return a summary per pool name
+	 */
+	public Map<String, Map<String, Object>> describe() {
+		Map<String, Map<String, Object>> description = new LinkedHashMap<>();
+
+		for (HikariDataSource dataSource : dataSources) {
+			Pool pool = pools.get(String.valueOf(dataSource.getPoolName()));
+			if (pool != null)
+				description.put(pool.name, pool.describe(dataSource));
+		}
+		return description;
+	}
+
+	/**
+	 * The metrics of one pool: forwarded to Micrometer, and summed over the current sizing window.
+	 */
+	private class Pool implements IMetricsTracker {
+
+		private final String name;
+		private final PoolStats stats;
+		private final IMetricsTracker delegate;
+
+		private final LongAdder acquired = new LongAdder();
+		private final LongAdder acquireNanos = new LongAdder();
+		private final LongAdder released = new LongAdder();
+		private final LongAdder usageMillis = new LongAdder();
+		private final LongAdder timeouts = new LongAdder();
+
+		private final Deque<Decision> decisions = new ArrayDeque<>();
+		private double baselineUsageMillis;
+		private Window last;
+
+		Pool(String name, PoolStats stats, IMetricsTracker delegate) {
+			this.name = name;
+			this.stats = stats;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+			delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+			acquired.increment();
+			acquireNanos.add(elapsedAcquiredNanos);
+		}
+
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+			released.increment();
+			usageMillis.add(elapsedBorrowedMillis);
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			delegate.recordConnectionTimeout();
+			timeouts.increment();
+		}
+
+		@Override
+		public void close() {
+			delegate.close();
+		}
+
+		synchronized void adjust(HikariDataSource dataSource) {
+			long acquiredCount = acquired.sumThenReset();
+			long acquiredNanos = acquireNanos.sumThenReset();
+			long releasedCount = released.sumThenReset();
+			long releasedMillis = usageMillis.sumThenReset();
+			Window window = new Window(acquiredCount, acquiredCount == 0 ? 0 : acquiredNanos / acquiredCount, releasedCount,
+					releasedCount == 0 ? 0 : (double) releasedMillis / releasedCount, timeouts.sumThenReset(),
+					stats.getPendingThreads(), stats.getIdleConnections());
+			last = window;
+
+			int size = dataSource.getMaximumPoolSize();
+			int step = Math.max(1, size / 4);
+			boolean saturated = baselineUsageMillis > 0 && window.usageMillis() > baselineUsageMillis * responseTolerance;
+			boolean starved = size <= minSize && window.timeouts() > 0;
+
+			if (saturated && size > minSize)
+				resize(dataSource, size, Math.max(minSize, size - step), "database response time rose to "
+						+ Math.round(window.usageMillis()) + " ms from " + Math.round(baselineUsageMillis) + " ms");
+			else if ((!saturated || starved) && size < maxSize
+					&& (window.pending() > 0 || window.timeouts() > 0 || window.acquireNanos() > acquireTargetNanos)) {
+				if (baselineUsageMillis == 0)
+					baselineUsageMillis = window.usageMillis();
+				resize(dataSource, size, Math.min(maxSize, size + step), saturated
+						? window.timeouts() + " connection requests timed out at the minimum size"
+						: "requests queued for connections, " + window.pending() + " pending, "
+								+ window.acquireNanos() / 1_000 + " us mean acquire");
+			} else {
+				if (!saturated && window.released() > 0)
+					baselineUsageMillis = baselineUsageMillis == 0 ? window.usageMillis()
+							: (1 - BASELINE_WEIGHT) * baselineUsageMillis + BASELINE_WEIGHT * window.usageMillis();
+
+				if (size > minSize && window.pending() == 0 && window.acquireNanos() < acquireTargetNanos / 4
+						&& window.idle() > size / 2)
+					resize(dataSource, size, size - 1, window.idle() + " of " + size + " connections idle");
+			}
+
+			if (saturated && window.released() > 0)
+				baselineUsageMillis = (1 - SATURATED_BASELINE_WEIGHT) * baselineUsageMillis
+						+ SATURATED_BASELINE_WEIGHT * window.usageMillis();
+		}
+
+		private void resize(HikariDataSource dataSource, int from, int to, String reason) {
+			dataSource.setMaximumPoolSize(to);
+			if (dataSource.getMinimumIdle() > to)
+				dataSource.setMinimumIdle(to);
+			if (to < from && dataSource.getHikariPoolMXBean() != null)
+				dataSource.getHikariPoolMXBean().softEvictConnections();
+
+			Counter.builder("hikaricp.connections.resizes").tag("pool", name).tag("direction", to > from ? "grow" : "shrink")
+					.register(meterRegistry).increment();
+			decisions.addFirst(new Decision(Instant.now(), from, to, reason));
+			if (decisions.size() > DECISIONS)
+				decisions.removeLast();
+			log.info("Connection pool {} resized from {} to {}: {}", name, from, to, reason);
+		}
+
+		synchronized Map<String, Object> describe(HikariDataSource dataSource) {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+			description.put("minimumIdle", dataSource.getMinimumIdle());
+			description.put("total", stats.getTotalConnections());
+			description.put("active", stats.getActiveConnections());
+			description.put("idle", stats.getIdleConnections());
+			description.put("pending", stats.getPendingThreads());
+			description.put("adaptive", adaptive);
+			if (last != null)
+				description.put("lastWindow", last);
+			if (baselineUsageMillis > 0)
+				description.put("baselineUsageMillis", baselineUsageMillis);
+			description.put("decisions", List.copyOf(decisions));
+			return description;
+		}
+	}
+
+	/**
+	 * The pool activity over one sizing window.
+	 *
+	 * @param acquired     the number of connections acquired
+	 * @param acquireNanos the mean time to acquire a connection
+	 * @param released     the number of connections released
+	 * @param usageMillis  the mean time connections were held
+	 * @param timeouts     the number of connection requests that timed out
+	 * @param pending      the number of threads waiting for a connection at the end of the window
+	 * @param idle         the number of idle connections at the end of the window
+	 */
+	public record Window(long acquired, long acquireNanos, long released, double usageMillis, long timeouts, int pending,
+			int idle) {
+	}
+
+	/**
+	 * A change of the maximum size of a pool, and why.
+	 *
+	 * @param at     when the pool was resized
+	 * @param from   the previous maximum size
+	 * @param to     the new maximum size
+	 * @param reason why the pool was resized
+	 */
+	public record Decision(Instant at, int from, int to, String reason) {
+	}
+}
@@ -0,0 +1,196 @@
+package com.ibm.fscc.employeeservice.repository;
+
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.shard.EmployeeShards;
+import com.ibm.fscc.employeeservice.shard.ShardRebalancer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Repository for writing many employees at once with JDBC batch statements.
+ * Statements are sent in batches of {@code employee.bulk.batch-size} and join the caller's transaction.
+ * With several shards, the employees are split by shard and the part of every shard is written in parallel, in a
+ * transaction of its own, so that a batch is only atomic per shard.
+ * <p>
+ * Emails are matched as the database compares them, ignoring case: the sets and maps returned are keyed
+ * case-insensitively, and hold the emails as stored.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmployeeBatchRepository {
+
+	// IGNORE skips duplicate emails, but would also truncate values too long for their columns: employees are validated first
+	private static final String INSERT_IGNORE =
+			"INSERT IGNORE INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+			+ "VALUES (:email, :firstName, :lastName, :address, :state, :zip, :cellPhone, :homePhone, 0)";
+
+	private static final String UPSERT =
+			"INSERT INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+			+ "VALUES (:email, :firstName, :lastName, :address, :state, :zip, :cellPhone, :homePhone, 0) "
+			+ "ON DUPLICATE KEY UPDATE firstName = VALUES(firstName), lastName = VALUES(lastName), address = VALUES(address), "
+			+ "state = VALUES(state), zip = VALUES(zip), cellPhone = VALUES(cellPhone), homePhone = VALUES(homePhone), "
+			+ "version = version + 1";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final EmployeeShards employeeShards;
+	private final ShardRebalancer shardRebalancer;
+	private final PlatformTransactionManager transactionManager;
+
+	@Value("${employee.bulk.batch-size}")
+	private int batchSize;
+
+	/**
+	 * Finds which of the given emails belong to an existing employee.
+	 *
+	 * @param emails the emails to look up
+	 * @return the email of every existing employee among {@code emails} as stored, keyed case-insensitively
+	 */
+	public Map<String, String> findExistingEmails(Collection<String> emails) {
+		Map<String, String> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		onOwners(emails, email -> email, true, this::selectEmails)
+				.forEach(found -> found.forEach(email -> existing.put(email, email)));
+
+		return existing;
+	}
+
+	/**
+	 * Finds the current versions of the given employees.
+	 *
+	 * @param emails the emails to look up
+	 * @return the version of every existing employee among {@code emails}, keyed case-insensitively by email
+	 */
+	public Map<String, Long> findVersions(Collection<String> emails) {
+		Map<String, Long> versions = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		onOwners(emails, email -> email, true, part -> {
+			Map<String, Long> found = new HashMap<>();
+			for (List<String> chunk : chunks(part)) {
+				jdbcTemplate.query("SELECT email, version FROM Employee WHERE email IN (:emails)", Map.of("emails", chunk),
+						(RowCallbackHandler) row -> found.put(row.getString("email"), row.getLong("version")));
+			}
+			return found;
+		}).forEach(versions::putAll);
+
+		return versions;
+	}
+
+	/**
+	 * Inserts the given employees, skipping any whose email already exists.
+	 * <p>
+	 * The batch counts cannot tell which employees were inserted, as the driver reports
+	 * {@link java.sql.Statement#SUCCESS_NO_INFO} for batches it rewrites. The emails are read instead, before and
+	 * after the inserts, in the transaction writing them: with the repeatable read isolation of the database, rows
+	 * committed by others meanwhile stay out of its snapshot, so the emails read after only are those it inserted.
+	 *
+	 * @param employees the employees to insert
+	 * @return the emails of the inserted employees
+	 */
+	public Set<String> insertIgnoringExisting(List<Employee> employees) {
+		Set<String> inserted = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+		onOwners(employees, Employee::getEmail, false, part -> {
+			List<String> emails = part.stream().map(Employee::getEmail).toList();
+			Set<String> before = selectEmails(emails);
+			batchUpdate(INSERT_IGNORE, part);
+			Set<String> after = selectEmails(emails);
+			after.removeAll(before);
+			return after;
+		}).forEach(inserted::addAll);
+
+		return inserted;
+	}
+
+	/**
+	 * Inserts the given employees, or overwrites every column of those whose email already exists and increments their version.
+	 *
+	 * @param employees the employees to insert or update
+	 */
+	public void upsert(List<Employee> employees) {
+		onOwners(employees, Employee::getEmail, false, part -> batchUpdate(UPSERT, part));
+	}
+
+	/**
+	 * Deletes the employees with the given emails.
+	 *
+	 * @param emails the emails of the employees to delete
+	 * @return the number of deleted employees
+	 */
+	public int deleteByEmails(Collection<String> emails) {
+		int deleted = 0;
+
+		for (int partDeleted : onOwners(emails, email -> email, false, part -> {
+			int count = 0;
+			for (List<String> chunk : chunks(part))
+				count += jdbcTemplate.update("DELETE FROM Employee WHERE email IN (:emails)", Map.of("emails", chunk));
+			return count;
+		}))
+			deleted += partDeleted;
+
+		return deleted;
+	}
+
+	/**
+	 * Runs an operation on the items of every shard. With a single shard, it runs once on the caller's thread, in the
+	 * caller's transaction. Otherwise, once any employee caught on a former shard by a rebalancing pass has been moved,
+	 * the items are split by shard and the part of every shard runs in parallel, in a transaction of its own.
+	 *
+	 * @return the result of every part
+	 */
+	private <I, T> Collection<T> onOwners(Collection<I> items, Function<I, String> emailOf, boolean readOnly, Function<List<I>, T> operation) {
+		if (employeeShards.size() == 1)
+			return Collections.singletonList(operation.apply(new ArrayList<>(items)));
+
+		if (shardRebalancer.isRunning())
+			shardRebalancer.moveToOwners(items.stream().map(emailOf).toList());
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(readOnly);
+		return employeeShards.forEachOwner(items, emailOf, (shard, part) -> transaction.execute(status -> operation.apply(part))).values();
+	}
+
+	private Set<String> selectEmails(List<String> emails) {
+		Set<String> found = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		for (List<String> chunk : chunks(emails)) {
+			found.addAll(jdbcTemplate.queryForList("SELECT email FROM Employee WHERE email IN (:emails)",
+					Map.of("emails", chunk), String.class));
+		}
+		return found;
+	}
+
+	private int[] batchUpdate(String sql, List<Employee> employees) {
+		int[] counts = new int[employees.size()];
+		int offset = 0;
+
+		for (List<Employee> chunk : chunks(employees)) {
+			SqlParameterSource[] batch = chunk.stream()
+					.map(BeanPropertySqlParameterSource::new)
+					.toArray(SqlParameterSource[]::new);
+
+			int[] chunkCounts = jdbcTemplate.batchUpdate(sql, batch);
+			System.arraycopy(chunkCounts, 0, counts, offset, chunkCounts.length);
+			offset += chunkCounts.length;
+		}
+
+		return counts;
+	}
+
+	private <T> List<List<T>> chunks(List<T> items) {
+		List<List<T>> chunks = new ArrayList<>();
+
+		for (int from = 0; from < items.size(); from += batchSize)
+			chunks.add(items.subList(from, Math.min(from + batchSize, items.size())));
+
+		return chunks;
+	}
+}
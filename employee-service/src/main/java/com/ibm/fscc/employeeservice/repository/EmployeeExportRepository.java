@@ -0,0 +1,76 @@
+package com.ibm.fscc.employeeservice.repository;
+
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.shard.EmployeeShards;
+import com.ibm.fscc.employeeservice.shard.ShardMerge;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Repository reading the whole employee table through a single forward-only, read-only JDBC cursor.
+ * Rows are fetched from the database {@code employee.export.fetch-size} at a time, which with MySQL
+ * requires {@code useCursorFetch=true}; without it the driver buffers the whole result. The property is set on the
+ * connections of the export pools only, so the other paths keep reading their results in one go.
+ */
+@Repository
+public class EmployeeExportRepository {
+
+	private static final RowMapper<Employee> EMPLOYEE_ROW_MAPPER = (row, rowNumber) -> new Employee(
+			row.getString(1), row.getString(2), row.getString(3), row.getString(4),
+			row.getString(5), row.getString(6), row.getString(7), row.getString(8), row.getLong(9));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final EmployeeShards employeeShards;
+
+	/**
+	 * Constructs the repository with its own {@link JdbcTemplate}, so that the export fetch size does not apply elsewhere.
+	 *
+	 * @param dataSource     the export {@link DataSource} to read from
+	 * @param employeeShards the {@link EmployeeShards} to read from every shard of
+	 * @param fetchSize      the number of rows fetched per round trip
+	 */
+	public EmployeeExportRepository(@Qualifier("exportDataSource") DataSource dataSource, EmployeeShards employeeShards, @Value("${employee.export.fetch-size}") int fetchSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		this.employeeShards = employeeShards;
+	}
+
+	/**
+	 * Opens a cursor over every employee, ordered by email.
+	 * The returned stream holds a connection until it is closed, so it must be closed, e.g. with try-with-resources.
+	 * With several shards, a cursor is opened on every shard in parallel and the cursors are merged by email as the
+	 * stream is read, so the stream holds a connection per shard.
+	 *
+	 * @return a lazily populated {@link Stream} of all employees
+	 */
+	public Stream<Employee> streamAll() {
+		if (employeeShards.size() == 1)
+			return query();
+
+		List<Stream<Employee>> cursors = new ArrayList<>(Collections.nCopies(employeeShards.size(), null));
+		try {
+			employeeShards.fanOut(shard -> cursors.set(shard, query()));
+		} catch (RuntimeException e) {
+			cursors.stream().filter(Objects::nonNull).forEach(Stream::close);
+			throw e;
+		}
+
+		Iterator<Employee> merged = ShardMerge.merge(cursors.stream().map(Stream::iterator).toList(),
+				Comparator.comparing(Employee::getEmail, employeeShards.collation().comparator()), Employee::getEmail);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> cursors.forEach(Stream::close));
+	}
+
+	private Stream<Employee> query() {
+		return jdbcTemplate.queryForStream("SELECT email, firstName, lastName, address, state, zip, cellPhone, homePhone, version "
+				+ "FROM Employee ORDER BY email", EMPLOYEE_ROW_MAPPER);
+	}
+}
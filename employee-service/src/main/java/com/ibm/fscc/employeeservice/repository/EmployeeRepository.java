@@ -1,19 +1,25 @@
 package com.ibm.fscc.employeeservice.repository;
 
 import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.shard.ShardKey;
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for managing employee entities.
+ * With several shards, calls naming an employee through their {@link ShardKey} parameter run on the shard of that
+ * employee, and the others on every shard, see {@link com.ibm.fscc.employeeservice.shard.ShardingRepositoryInterceptor}.
  */
 @Repository
-public interface EmployeeRepository extends CrudRepository<Employee, Long>{
+public interface EmployeeRepository extends CrudRepository<Employee, Long>, EmployeeSearchRepository {
 
 	/**
      * Finds an employee by their email.
@@ -22,7 +28,94 @@ public interface EmployeeRepository extends CrudRepository<Employee, Long>{
      * @return an Optional containing the Employee if found, or an empty Optional if not found
      */
     @Query(value = "SELECT * FROM Employee WHERE email = :email", nativeQuery = true)
-    Optional<Employee> findByEmail(@Param("email") String email);
+    Optional<Employee> findByEmail(@ShardKey @Param("email") String email);
+
+    /**
+     * Retrieves a page of employees ordered by email, starting strictly after the given email.
+     * Seeking on the primary key keeps every page an index range scan, regardless of how deep the caller pages.
+     *
+     * @param after the email of the last employee of the previous page, or an empty string for the first page
+     * @param limit the maximum number of employees to return
+     * @return the employees whose email sorts after {@code after}, in ascending email order
+     */
+    @Query(value = "SELECT * FROM Employee WHERE email > :after ORDER BY email LIMIT :limit", nativeQuery = true)
+    List<Employee> findPageAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * Inserts an employee unless an employee with the same email already exists, in a single statement. IGNORE would
+     * also turn a value too long for its column into a warning, so the employee must have passed the {@code EmployeeDTO}
+     * constraints, which keep every value within its column.
+     *
+     * @param employee the Employee object to be inserted
+     * @return 1 if the employee was inserted, 0 if the email was already taken
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+            + "VALUES (:#{#employee.email}, :#{#employee.firstName}, :#{#employee.lastName}, :#{#employee.address}, "
+            + ":#{#employee.state}, :#{#employee.zip}, :#{#employee.cellPhone}, :#{#employee.homePhone}, 0)", nativeQuery = true)
+    int insertIfAbsent(@ShardKey @Param("employee") Employee employee);
+
+    /**
+     * Overwrites every column of the employee with the same email and increments its version, in a single statement.
+     * The new version is left for {@link #findWrittenVersion(String)}.
+     *
+     * @param employee the Employee object holding the new values
+     * @return the number of matched employees, 0 if no employee has that email
+     */
+    @Modifying
+    @Query(value = "UPDATE Employee SET firstName = :#{#employee.firstName}, lastName = :#{#employee.lastName}, "
+            + "address = :#{#employee.address}, state = :#{#employee.state}, zip = :#{#employee.zip}, "
+            + "cellPhone = :#{#employee.cellPhone}, homePhone = :#{#employee.homePhone}, "
+            + "version = LAST_INSERT_ID(version + 1) "
+            + "WHERE email = :#{#employee.email}", nativeQuery = true)
+    int updateByEmail(@ShardKey @Param("employee") Employee employee);
+
+    /**
+     * Overwrites every column of the employee with the same email and increments its version, in a single statement,
+     * provided the employee is still at one of the expected versions. The version check replaces a row lock held
+     * between the caller's read and this write. The new version is left for {@link #findWrittenVersion(String)}.
+     *
+     * @param employee the Employee object holding the new values
+     * @param versions the versions the caller expects the employee to be at
+     * @return the number of matched employees, 0 if no employee has that email or it is at another version
+     */
+    @Modifying
+    @Query(value = "UPDATE Employee SET firstName = :#{#employee.firstName}, lastName = :#{#employee.lastName}, "
+            + "address = :#{#employee.address}, state = :#{#employee.state}, zip = :#{#employee.zip}, "
+            + "cellPhone = :#{#employee.cellPhone}, homePhone = :#{#employee.homePhone}, "
+            + "version = LAST_INSERT_ID(version + 1) "
+            + "WHERE email = :#{#employee.email} AND version IN (:versions)", nativeQuery = true)
+    int updateByEmailAndVersion(@ShardKey @Param("employee") Employee employee, @Param("versions") Collection<Long> versions);
+
+    /**
+     * Finds the current version of an employee.
+     *
+     * @param email the email address of the employee
+     * @return an Optional containing the version if the employee exists, or an empty Optional if not found
+     */
+    @Query(value = "SELECT version FROM Employee WHERE email = :email", nativeQuery = true)
+    Optional<Long> findVersionByEmail(@ShardKey @Param("email") String email);
+
+    /**
+     * Returns the version the last update of the transaction left, kept by the connection through
+     * {@code LAST_INSERT_ID(expr)} rather than read back from the row.
+     * The email only routes the call to the shard, and so the connection, of that update.
+     *
+     * @param email the email address of the updated employee
+     * @return the version the update left
+     */
+    @Query(value = "SELECT LAST_INSERT_ID() FROM DUAL WHERE :email IS NOT NULL", nativeQuery = true)
+    long findWrittenVersion(@ShardKey @Param("email") String email);
+
+    /**
+     * Deletes the employee with the given email, in a single statement.
+     *
+     * @param email the email address of the employee
+     * @return the number of deleted employees, 0 if no employee has that email
+     */
+    @Modifying
+    @Query(value = "DELETE FROM Employee WHERE email = :email", nativeQuery = true)
+    int deleteByEmail(@ShardKey @Param("email") String email);
 
     /**
      * Saves an employee to the repository.
@@ -31,6 +124,6 @@ public interface EmployeeRepository extends CrudRepository<Employee, Long>{
      * @param <S>      the type of the Employee object
      * @return the saved Employee object
      */
-    <S extends Employee> @NotNull S save(@NotNull S employee);
+    <S extends Employee> @NotNull S save(@ShardKey @NotNull S employee);
 
 }
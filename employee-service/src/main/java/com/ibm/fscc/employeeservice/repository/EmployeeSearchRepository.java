@@ -0,0 +1,49 @@
+package com.ibm.fscc.employeeservice.repository;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.shard.ShardKey;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository fragment for searching employees by optional filters and for reading or writing selected columns only.
+ */
+public interface EmployeeSearchRepository {
+
+	/**
+	 * Finds the employees matching the given criteria.
+	 *
+	 * @param criteria the {@link EmployeeSearchCriteria} holding the filters
+	 * @param sort     the order of the results
+	 * @param offset   the number of matching employees to skip
+	 * @param limit    the maximum number of employees to return
+	 * @return the matching employees in the requested order
+	 */
+	List<Employee> search(EmployeeSearchCriteria criteria, Sort sort, long offset, int limit);
+
+	/**
+	 * Retrieves a page of employees ordered by email, starting strictly after the given email,
+	 * selecting only the given properties.
+	 *
+	 * @param after      the email of the last employee of the previous page, or an empty string for the first page
+	 * @param limit      the maximum number of employees to return
+	 * @param properties the {@link Employee} properties to select
+	 * @return one map per employee from property name to value, holding the properties in the given order
+	 */
+	List<Map<String, Object>> findPageAfter(String after, int limit, Collection<String> properties);
+
+	/**
+	 * Overwrites only the given columns of the employee with the given email and increments its version, in a single
+	 * statement, optionally provided the employee is still at one of the expected versions.
+	 *
+	 * @param email    the email address of the employee
+	 * @param values   the new values by {@link Employee} property, which must not include the email or the version
+	 * @param versions the versions the caller expects the employee to be at, or {@code null} to update unconditionally
+	 * @return the number of matched employees, 0 if no employee has that email or it is at another version
+	 */
+	int updateByEmail(@ShardKey String email, Map<String, ?> values, Collection<Long> versions);
+}
@@ -0,0 +1,109 @@
+package com.ibm.fscc.employeeservice.repository;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.model.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Criteria API implementation of {@link EmployeeSearchRepository}.
+ * Name filters become {@code LIKE 'prefix%'} predicates, which the name indexes serve as range scans.
+ * Projected pages are tuple queries, so only the selected columns are read and no entity is materialized;
+ * partial updates likewise set only the supplied columns, leaving the others and their indexes untouched.
+ */
+public class EmployeeSearchRepositoryImpl implements EmployeeSearchRepository {
+
+	private static final char LIKE_ESCAPE = '\\';
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Employee> search(EmployeeSearchCriteria criteria, Sort sort, long offset, int limit) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Employee> query = builder.createQuery(Employee.class);
+		Root<Employee> employee = query.from(Employee.class);
+
+		List<Predicate> predicates = new ArrayList<>();
+
+		if (StringUtils.hasText(criteria.getLastName()))
+			predicates.add(builder.like(employee.get("lastName"), prefixPattern(criteria.getLastName()), LIKE_ESCAPE));
+		if (StringUtils.hasText(criteria.getFirstName()))
+			predicates.add(builder.like(employee.get("firstName"), prefixPattern(criteria.getFirstName()), LIKE_ESCAPE));
+		if (StringUtils.hasText(criteria.getState()))
+			predicates.add(builder.equal(employee.get("state"), criteria.getState()));
+		if (StringUtils.hasText(criteria.getZip()))
+			predicates.add(builder.equal(employee.get("zip"), criteria.getZip()));
+
+		query.select(employee)
+				.where(predicates.toArray(Predicate[]::new))
+				.orderBy(QueryUtils.toOrders(sort, employee, builder));
+
+		return entityManager.createQuery(query)
+				.setFirstResult(Math.toIntExact(offset))
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	@Override
+	public List<Map<String, Object>> findPageAfter(String after, int limit, Collection<String> properties) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<Employee> employee = query.from(Employee.class);
+
+		List<Selection<?>> selections = new ArrayList<>(properties.size());
+		properties.forEach(property -> selections.add(employee.get(property).alias(property)));
+
+		query.multiselect(selections)
+				.where(builder.greaterThan(employee.get("email"), after))
+				.orderBy(builder.asc(employee.get("email")));
+
+		List<Tuple> tuples = entityManager.createQuery(query)
+				.setMaxResults(limit)
+				.getResultList();
+
+		List<Map<String, Object>> page = new ArrayList<>(tuples.size());
+		for (Tuple tuple : tuples) {
+			Map<String, Object> values = new LinkedHashMap<>();
+			properties.forEach(property -> values.put(property, tuple.get(property)));
+			page.add(values);
+		}
+
+		return page;
+	}
+
+	@Override
+	public int updateByEmail(String email, Map<String, ?> values, Collection<Long> versions) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Employee> update = builder.createCriteriaUpdate(Employee.class);
+		Root<Employee> employee = update.from(Employee.class);
+
+		values.forEach((property, value) -> update.set(employee.get(property), value));
+		update.set(employee.<Long>get("version"), builder.sum(employee.get("version"), 1L));
+
+		Predicate byEmail = builder.equal(employee.get("email"), email);
+		update.where(versions == null ? byEmail : builder.and(byEmail, employee.get("version").in(versions)));
+
+		return entityManager.createQuery(update).executeUpdate();
+	}
+
+	/**
+	 * Builds a {@code LIKE} pattern matching values starting with the given prefix, escaping any wildcard it contains.
+	 */
+	private static String prefixPattern(String prefix) {
+		String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+		return escaped + "%";
+	}
+}
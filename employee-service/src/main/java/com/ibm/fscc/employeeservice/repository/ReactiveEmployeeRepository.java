@@ -0,0 +1,71 @@
+package com.ibm.fscc.employeeservice.repository;
+
+import com.ibm.fscc.employeeservice.model.EmployeeRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository interface for managing employee records over R2DBC.
+ */
+@Repository
+public interface ReactiveEmployeeRepository extends ReactiveCrudRepository<EmployeeRecord, String> {
+
+	/**
+     * Finds an employee by their email.
+     *
+     * @param email the email address of the employee
+     * @return a {@link Mono} emitting the employee if found, or completing empty if not found
+     */
+    @Query("SELECT * FROM Employee WHERE email = :email")
+    Mono<EmployeeRecord> findByEmail(@Param("email") String email);
+
+    /**
+     * Retrieves a page of employees ordered by email, starting strictly after the given email.
+     *
+     * @param after the email of the last employee of the previous page, or an empty string for the first page
+     * @param limit the maximum number of employees to return
+     * @return a {@link Flux} emitting the employees whose email sorts after {@code after}, in ascending email order
+     */
+    @Query("SELECT * FROM Employee WHERE email > :after ORDER BY email LIMIT :limit")
+    Flux<EmployeeRecord> findPageAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * Inserts a new employee. Fails with a duplicate key error if the email is already taken.
+     *
+     * @param employee the employee to insert
+     * @return a {@link Mono} emitting the number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+            + "VALUES (:#{#employee.email}, :#{#employee.firstName}, :#{#employee.lastName}, :#{#employee.address}, "
+            + ":#{#employee.state}, :#{#employee.zip}, :#{#employee.cellPhone}, :#{#employee.homePhone}, 0)")
+    Mono<Integer> insert(@Param("employee") EmployeeRecord employee);
+
+    /**
+     * Updates every column of the employee with the same email and increments its version.
+     *
+     * @param employee the employee holding the new values
+     * @return a {@link Mono} emitting the number of updated rows, 0 if no employee has that email
+     */
+    @Modifying
+    @Query("UPDATE Employee SET firstName = :#{#employee.firstName}, lastName = :#{#employee.lastName}, "
+            + "address = :#{#employee.address}, state = :#{#employee.state}, zip = :#{#employee.zip}, "
+            + "cellPhone = :#{#employee.cellPhone}, homePhone = :#{#employee.homePhone}, version = version + 1 "
+            + "WHERE email = :#{#employee.email}")
+    Mono<Integer> update(@Param("employee") EmployeeRecord employee);
+
+    /**
+     * Deletes the employee with the given email.
+     *
+     * @param email the email address of the employee
+     * @return a {@link Mono} emitting the number of deleted rows, 0 if no employee has that email
+     */
+    @Modifying
+    @Query("DELETE FROM Employee WHERE email = :email")
+    Mono<Integer> deleteByEmail(@Param("email") String email);
+}
@@ -0,0 +1,27 @@
+package com.ibm.fscc.employeeservice.routing;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.security.Principal;
+
+/**
+ * {@link WebFilter} carrying the authenticated principal of a request in its Reactor context, as the caller whose
+ * writes {@link ReadYourWrites} tracks. It runs after the security filters, which resolve the principal.
+ */
+@Component
+public class CallerWebFilter implements WebFilter {
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		return exchange.getPrincipal()
+				.map(Principal::getName)
+				.map(caller -> Context.of(ReadYourWrites.CALLER, caller))
+				.defaultIfEmpty(Context.empty())
+				.flatMap(context -> chain.filter(exchange).contextWrite(context));
+	}
+}
@@ -0,0 +1,104 @@
+package com.ibm.fscc.employeeservice.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Decides which reads must see the primary database rather than a replica, which may lag behind it.
+ * <p>
+ * A caller, the authenticated principal of a request, whose write committed less than
+ * {@code employee.datasource.read-your-writes} ago reads from the primary, so that it sees its own writes. The caller
+ * of the current thread is set by {@link #withCaller(String, Callable)}; requests carry it in their Reactor context
+ * under {@link #CALLER} until their blocking work runs. Code may also ask for the primary explicitly with
+ * {@link #onPrimary(Supplier)}, for instance to fill a cache that outlives the replication lag.
+ */
+@Component
+public class ReadYourWrites {
+
+	/**
+	 * The Reactor context key holding the caller of a request.
+	 */
+	public static final String CALLER = ReadYourWrites.class.getName() + ".CALLER";
+
+	private static final ThreadLocal<String> caller = new ThreadLocal<>();
+	private static final ThreadLocal<Boolean> primary = ThreadLocal.withInitial(() -> false);
+
+	private final Cache<String, Boolean> writers;
+
+	/**
+	 * Constructs the tracker of recent writers.
+	 *
+	 * @param window     how long a caller reads from the primary after its last write committed
+	 * @param maxWriters the maximum number of recent writers tracked
+	 */
+	public ReadYourWrites(@Value("${employee.datasource.read-your-writes}") Duration window,
+			@Value("${employee.datasource.max-writers}") long maxWriters) {
+		this.writers = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maxWriters).build();
+	}
+
+	/**
+	 * Runs a call on behalf of a caller.
+	 *
+	 * @param name the name of the caller, or {@code null} if unknown
+	 * @param call the call
+	 * @param <T>  the type of the result
+	 * @return the result of the call
+	 * @throws Exception if the call throws
+	 */
+	public static <T> T withCaller(String name, Callable<T> call) throws Exception {
+		String previous = caller.get();
+		caller.set(name);
+		try {
+			return call.call();
+		} finally {
+			caller.set(previous);
+		}
+	}
+
+	/**
+	 * Runs a lookup whose connection, if it takes one, is taken from the primary.
+	 *
+	 * @param lookup the lookup
+	 * @param <T>    the type of the result
+	 * @return the result of the lookup
+	 */
+	public static <T> T onPrimary(Supplier<T> lookup) {
+		boolean previous = primary.get();
+		primary.set(true);
+		try {
+			return lookup.get();
+		} finally {
+			primary.set(previous);
+		}
+	}
+
+	/**
+	 * Tells whether reads of the current thread must see the primary.
+	 *
+	 * @return {@code true} if the primary was asked for, or the caller wrote within the window
+	 */
+	public boolean requiresPrimary() {
+		String name = caller.get();
+		return primary.get() || name != null && writers.getIfPresent(name) != null;
+	}
+
+	/**
+	 * Opens the read-your-writes window of the caller of a committed change.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		String name = caller.get();
+		if (name != null)
+			writers.put(name, true);
+	}
+}
@@ -0,0 +1,25 @@
+package com.ibm.fscc.employeeservice.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The connection pools of the read replicas, closed with the application context.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReplicaDataSources implements AutoCloseable {
+
+	private final List<HikariDataSource> dataSources;
+
+	/**
+	 * Closes the pools.
+	 */
+	@Override
+	public void close() {
+		dataSources.forEach(HikariDataSource::close);
+	}
+}
@@ -0,0 +1,70 @@
+package com.ibm.fscc.employeeservice.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link DataSource} sending read-only transactions to the replicas, in turn, and everything else to the primary.
+ * Reads that {@link ReadYourWrites} wants on the primary stay there.
+ * <p>
+ * The target is chosen when a connection is taken, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the connection is then only taken at the
+ * first statement, once the transaction is known to be read-only. Connections taken are counted by
+ * {@code employee.datasource.connections}, tagged {@code target=primary} or {@code target=replica}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final String PRIMARY = "primary";
+
+	private final int replicas;
+	private final ReadYourWrites readYourWrites;
+	private final AtomicInteger next = new AtomicInteger();
+	private final Counter primaryConnections;
+	private final Counter replicaConnections;
+
+	/**
+	 * Constructs the routing data source.
+	 *
+	 * @param primary        the primary, which takes the writes
+	 * @param replicas       the replicas, which take the read-only transactions
+	 * @param readYourWrites the {@link ReadYourWrites} deciding which reads must see the primary
+	 * @param meterRegistry  the {@link MeterRegistry} to count the connections taken in
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWrites readYourWrites,
+			MeterRegistry meterRegistry) {
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++)
+			targets.put(i, replicas.get(i));
+
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+		afterPropertiesSet();
+
+		this.replicas = replicas.size();
+		this.readYourWrites = readYourWrites;
+		this.primaryConnections = Counter.builder("employee.datasource.connections").tag("target", PRIMARY).register(meterRegistry);
+		this.replicaConnections = Counter.builder("employee.datasource.connections").tag("target", "replica").register(meterRegistry);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (replicas == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				|| readYourWrites.requiresPrimary()) {
+			primaryConnections.increment();
+			return PRIMARY;
+		}
+
+		replicaConnections.increment();
+		return Math.floorMod(next.getAndIncrement(), replicas);
+	}
+}
@@ -0,0 +1,206 @@
+package com.ibm.fscc.employeeservice.service;
+
+import com.ibm.fscc.employeeservice.dto.BulkItemResultDTO;
+import com.ibm.fscc.employeeservice.dto.BulkResponseDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import com.ibm.fscc.employeeservice.util.DtoValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Service class for creating, upserting and deleting many employees in one request.
+ * Every item is validated up front, then the valid ones are written with batched statements in a single
+ * transaction. Invalid or conflicting items are reported in the per-item results without failing the others.
+ * Emails are matched ignoring case, as the database compares them, and the results and change events of existing
+ * employees carry their email as stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class EmployeeBulkService {
+
+	private final EmployeeBatchRepository employeeBatchRepository;
+	private final DtoValidator dtoValidator;
+	private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${employee.bulk.max-items}")
+    private int maxItems;
+
+    /**
+     * Creates the given employees. Items whose email already exists, or appears earlier in the request, are rejected with 409.
+     *
+     * @param employeeDTOs the {@link EmployeeDTO} objects containing the employee data
+     * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 201, 400 or 409 result per item,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+     */
+    public ResponseEntity<?> createEmployees(List<EmployeeDTO> employeeDTOs) {
+        if (employeeDTOs.size() > maxItems)
+            return tooManyItems();
+
+        BulkItemResultDTO[] results = new BulkItemResultDTO[employeeDTOs.size()];
+        Map<Integer, Employee> valid = validate(employeeDTOs, results);
+        Map<String, String> existing = employeeBatchRepository.findExistingEmails(emailsOf(valid.values()));
+
+        List<Integer> toInsert = new ArrayList<>();
+        valid.forEach((index, employee) -> {
+            if (existing.containsKey(employee.getEmail()))
+                results[index] = alreadyExists(index, employee.getEmail());
+            else
+                toInsert.add(index);
+        });
+
+        Set<String> inserted = employeeBatchRepository.insertIgnoringExisting(toInsert.stream().map(valid::get).toList());
+
+        for (int index : toInsert) {
+            Employee employee = valid.get(index);
+
+            // An email left out was inserted concurrently since it was looked up
+            if (!inserted.contains(employee.getEmail())) {
+                results[index] = alreadyExists(index, employee.getEmail());
+            } else {
+                results[index] = new BulkItemResultDTO(index, employee.getEmail(), HttpStatus.CREATED.value(), EmployeeMapper.employeeToEmployeeDTO(employee));
+                eventPublisher.publishEvent(EmployeeChangeEvent.created(employee));
+            }
+        }
+
+        return multiStatus(results);
+    }
+
+    /**
+     * Creates the given employees, or overwrites the existing employees with the same email.
+     *
+     * @param employeeDTOs the {@link EmployeeDTO} objects containing the employee data
+     * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 200, 201, 400 or 409 result per item,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+     */
+    public ResponseEntity<?> upsertEmployees(List<EmployeeDTO> employeeDTOs) {
+        if (employeeDTOs.size() > maxItems)
+            return tooManyItems();
+
+        BulkItemResultDTO[] results = new BulkItemResultDTO[employeeDTOs.size()];
+        Map<Integer, Employee> valid = validate(employeeDTOs, results);
+        Map<String, String> existing = employeeBatchRepository.findExistingEmails(emailsOf(valid.values()));
+
+        employeeBatchRepository.upsert(new ArrayList<>(valid.values()));
+
+        // Overwritten employees moved to a version that only the database knows, inserted ones are at version 0
+        Map<String, Long> versions = employeeBatchRepository.findVersions(emailsOf(valid.values()));
+
+        valid.forEach((index, employee) -> {
+            employee.setEmail(existing.getOrDefault(employee.getEmail(), employee.getEmail()));
+            employee.setVersion(versions.getOrDefault(employee.getEmail(), 0L));
+            boolean updated = employee.getVersion() > 0;
+            HttpStatus status = updated ? HttpStatus.OK : HttpStatus.CREATED;
+
+            results[index] = new BulkItemResultDTO(index, employee.getEmail(), status.value(), EmployeeMapper.employeeToEmployeeDTO(employee));
+            eventPublisher.publishEvent(updated ? EmployeeChangeEvent.updated(employee) : EmployeeChangeEvent.created(employee));
+        });
+
+        return multiStatus(results);
+    }
+
+    /**
+     * Deletes the employees with the given emails.
+     *
+     * @param emails the email addresses of the employees to be deleted
+     * @return a {@link ResponseEntity} with a 207 status and a {@link BulkResponseDTO} holding a 200, 400 or 404 result per item,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the request holds too many items
+     */
+    public ResponseEntity<?> deleteEmployees(List<String> emails) {
+        if (emails.size() > maxItems)
+            return tooManyItems();
+
+        Set<String> requested = new HashSet<>(emails);
+        requested.remove(null);
+        Map<String, String> existing = employeeBatchRepository.findExistingEmails(requested);
+        employeeBatchRepository.deleteByEmails(existing.values());
+
+        BulkItemResultDTO[] results = new BulkItemResultDTO[emails.size()];
+        Set<String> deleted = new HashSet<>();
+
+        for (int index = 0; index < emails.size(); index++) {
+            String email = emails.get(index);
+            String stored = email == null ? null : existing.get(email);
+
+            if (email == null) {
+                results[index] = new BulkItemResultDTO(index, null, HttpStatus.BAD_REQUEST.value(), Map.of("email", "Email cannot be null."));
+            } else if (stored != null && deleted.add(stored)) {
+                results[index] = new BulkItemResultDTO(index, email, HttpStatus.OK.value(), "Employee deleted successfully.");
+                eventPublisher.publishEvent(EmployeeChangeEvent.deleted(stored));
+            } else {
+                results[index] = new BulkItemResultDTO(index, email, HttpStatus.NOT_FOUND.value(), "Employee with email " + email + " could not be found.");
+            }
+        }
+
+        return multiStatus(results);
+    }
+
+    /**
+     * Validates every item in one pass, recording a 400 result for invalid or null items and a 409 result for
+     * items repeating the email of an earlier item.
+     *
+     * @return the valid items mapped to entities, keyed by their position in the request
+     */
+    private Map<Integer, Employee> validate(List<EmployeeDTO> employeeDTOs, BulkItemResultDTO[] results) {
+        Map<Integer, Employee> valid = new LinkedHashMap<>();
+        Set<String> seen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+        for (int index = 0; index < employeeDTOs.size(); index++) {
+            EmployeeDTO employeeDTO = employeeDTOs.get(index);
+
+            if (employeeDTO == null) {
+                results[index] = new BulkItemResultDTO(index, null, HttpStatus.BAD_REQUEST.value(), Map.of("employee", "Employee cannot be null."));
+                continue;
+            }
+
+            try {
+                dtoValidator.validate(employeeDTO);
+            } catch (InvalidDataException e) {
+                results[index] = new BulkItemResultDTO(index, employeeDTO.getEmail(), HttpStatus.BAD_REQUEST.value(), e.getErrorResponse().getErrors());
+                continue;
+            }
+
+            if (!seen.add(employeeDTO.getEmail())) {
+                results[index] = new BulkItemResultDTO(index, employeeDTO.getEmail(), HttpStatus.CONFLICT.value(),
+                        "Employee with email " + employeeDTO.getEmail() + " appears more than once in the request.");
+                continue;
+            }
+
+            valid.put(index, EmployeeMapper.employeeDtoToEmployee(employeeDTO));
+        }
+
+        return valid;
+    }
+
+    private static List<String> emailsOf(Collection<Employee> employees) {
+        return employees.stream().map(Employee::getEmail).toList();
+    }
+
+    private static BulkItemResultDTO alreadyExists(int index, String email) {
+        return new BulkItemResultDTO(index, email, HttpStatus.CONFLICT.value(), "Employee with email " + email + " already exists.");
+    }
+
+    private ResponseEntity<?> tooManyItems() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("employees", "A bulk request can hold at most " + maxItems + " items."));
+    }
+
+    private static ResponseEntity<?> multiStatus(BulkItemResultDTO[] results) {
+        int succeeded = (int) Arrays.stream(results).filter(result -> result.getStatus() < 300).count();
+
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS)
+                .body(new BulkResponseDTO(succeeded, results.length - succeeded, Arrays.asList(results)));
+    }
+}
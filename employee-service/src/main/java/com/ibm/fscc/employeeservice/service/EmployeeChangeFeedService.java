@@ -0,0 +1,184 @@
+package com.ibm.fscc.employeeservice.service;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeChangeDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Service class feeding committed employee changes to the consumers mirroring employee data, as Server-Sent Events.
+ * <p>
+ * Every change committed through this instance gets the next sequence number and is kept in a replay buffer of the
+ * last {@code employee.changes.replay-size} changes. Event ids have the form {@code <epoch>-<sequence>}, where the
+ * epoch identifies the running instance, so a consumer that reconnects with the id of the last event it applied
+ * receives the changes it missed and then the live ones, without a gap. When those changes are no longer buffered,
+ * or the id was issued by another instance, the consumer first receives a {@code reset} event: it must rescan
+ * {@code /findAll} and then keep applying the changes that follow.
+ * <p>
+ * Missed changes are replayed as fast as the consumer reads them, whatever their number. A consumer falling more than
+ * {@code employee.changes.max-pending} live changes behind, counted from its connection, is disconnected and resumes
+ * from its last id. The number of connected consumers is published as the {@code employee.changes.subscribers} gauge.
+ */
+@Service
+public class EmployeeChangeFeedService {
+
+	/**
+	 * The name of the event telling a consumer to rebuild its replica.
+	 */
+	public static final String RESET = "reset";
+
+	private final Object lock = new Object();
+	private final Deque<Change> replay = new ArrayDeque<>();
+	private final Sinks.Many<Change> live = Sinks.many().multicast().directBestEffort();
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+	private long sequence;
+
+	private final int replaySize;
+	private final int maxPending;
+	private final Duration heartbeat;
+
+	/**
+	 * Constructs the service and registers its metrics.
+	 *
+	 * @param meterRegistry the {@link MeterRegistry} to publish the subscriber count to
+	 * @param replaySize    the number of recent changes kept for consumers that reconnect
+	 * @param maxPending    the number of live changes a consumer may fall behind before it is disconnected
+	 * @param heartbeat     the interval of the comments keeping idle connections open
+	 */
+	public EmployeeChangeFeedService(MeterRegistry meterRegistry,
+			@Value("${employee.changes.replay-size}") int replaySize,
+			@Value("${employee.changes.max-pending}") int maxPending,
+			@Value("${employee.changes.heartbeat}") Duration heartbeat) {
+		this.replaySize = replaySize;
+		this.maxPending = maxPending;
+		this.heartbeat = heartbeat;
+
+		Gauge.builder("employee.changes.subscribers", live, Sinks.Many::currentSubscriberCount).register(meterRegistry);
+	}
+
+	/**
+	 * Streams employee changes as Server-Sent Events named {@code created}, {@code updated} or {@code deleted}.
+	 *
+	 * @param lastEventId the id of the last event the consumer applied, or {@code null} to start with the next change
+	 * @return a {@link Flux} of the missed changes followed by the live ones, preceded by a {@code reset} event if the
+	 *         missed changes are no longer known, and interleaved with heartbeat comments
+	 */
+	public Flux<ServerSentEvent<EmployeeChangeDTO>> streamChanges(String lastEventId) {
+		Flux<ServerSentEvent<EmployeeChangeDTO>> changes = Flux.defer(() -> {
+			List<ServerSentEvent<EmployeeChangeDTO>> missed = new ArrayList<>();
+			// Live changes wait here while the missed ones are read; only they count towards max-pending
+			Sinks.Many<Change> pending = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(maxPending));
+			Disposable subscription;
+
+			// Copying the missed changes and subscribing under the lock keeps changes committed meanwhile from being
+			// missed or repeated
+			synchronized (lock) {
+				long after = lastEventId == null ? sequence : sequenceOf(lastEventId);
+				long oldest = replay.isEmpty() ? sequence + 1 : replay.getFirst().sequence;
+
+				if (after < oldest - 1 || after > sequence) {
+					missed.add(ServerSentEvent.<EmployeeChangeDTO>builder().id(idOf(sequence)).event(RESET).build());
+					after = sequence;
+				}
+
+				for (Change change : replay)
+					if (change.sequence > after)
+						missed.add(eventOf(change));
+
+				subscription = live.asFlux().subscribe(change -> {
+					if (pending.tryEmitNext(change) == Sinks.EmitResult.FAIL_OVERFLOW)
+						pending.tryEmitError(Exceptions.failWithOverflow());
+				});
+			}
+
+			// The missed changes are sent as the consumer reads them, however many there are
+			return Flux.concat(Flux.fromIterable(missed), pending.asFlux().map(this::eventOf))
+					.doFinally(signal -> subscription.dispose());
+		});
+
+		Flux<ServerSentEvent<EmployeeChangeDTO>> heartbeats = Flux.interval(heartbeat)
+				.onBackpressureDrop()
+				.map(tick -> ServerSentEvent.<EmployeeChangeDTO>builder().comment("heartbeat").build());
+
+		return Flux.merge(changes, heartbeats);
+	}
+
+	/**
+	 * Numbers a committed employee change, buffers it for replay and sends it to the connected consumers.
+	 *
+	 * @param event the {@link EmployeeChangeEvent} describing the change
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onEmployeeChange(EmployeeChangeEvent event) {
+		EmployeeChangeDTO employeeChangeDTO = new EmployeeChangeDTO(event.getType(), event.getEmail(),
+				event.getEmployee() == null ? null : EmployeeMapper.employeeToEmployeeDTO(event.getEmployee()));
+
+		synchronized (lock) {
+			Change change = new Change(++sequence, employeeChangeDTO);
+
+			if (replay.size() == replaySize)
+				replay.removeFirst();
+			replay.addLast(change);
+
+			live.tryEmitNext(change);
+		}
+	}
+
+	/**
+	 * Returns the sequence number of an event id of this instance, or -1 if the id is malformed or was issued by
+	 * another instance.
+	 */
+	private long sequenceOf(String id) {
+		int separator = id.lastIndexOf('-');
+
+		if (separator < 0 || !epoch.equals(id.substring(0, separator)))
+			return -1;
+
+		try {
+			return Long.parseLong(id.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private String idOf(long sequence) {
+		return epoch + "-" + sequence;
+	}
+
+	private ServerSentEvent<EmployeeChangeDTO> eventOf(Change change) {
+		return ServerSentEvent.builder(change.employeeChange)
+				.id(idOf(change.sequence))
+				.event(change.employeeChange.getType().name().toLowerCase())
+				.build();
+	}
+
+	/**
+	 * A committed change and its sequence number.
+	 */
+	private static final class Change {
+
+		private final long sequence;
+		private final EmployeeChangeDTO employeeChange;
+
+		Change(long sequence, EmployeeChangeDTO employeeChange) {
+			this.sequence = sequence;
+			this.employeeChange = employeeChange;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.ibm.fscc.employeeservice.service;
+
+import com.ibm.fscc.employeeservice.export.EmployeeExportFormat;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeExportRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting the whole employee directory.
+ * Rows are read from a single database cursor and encoded straight into {@link DataBuffer} chunks of about
+ * {@code employee.export.chunk-size}; the next chunk is only read once the client has consumed the previous ones,
+ * so heap use stays constant whatever the number of employees.
+ * Every export is timed and counted in the {@code employee.export} timer and {@code employee.export.rows} counter,
+ * and its throughput in rows per second is logged.
+ */
+@Slf4j
+@Service
+public class EmployeeExportService {
+
+	private final EmployeeExportRepository employeeExportRepository;
+	private final MeterRegistry meterRegistry;
+	private static final int ROW_HEAD_ROOM = 8 * 1024;
+
+	private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+	private final int chunkSize;
+
+	/**
+	 * Constructs the service.
+	 *
+	 * @param employeeExportRepository the {@link EmployeeExportRepository} to read employees from
+	 * @param meterRegistry            the {@link MeterRegistry} to publish export metrics to
+	 * @param chunkSize                the size past which an encoded chunk is handed to the client
+	 */
+	public EmployeeExportService(EmployeeExportRepository employeeExportRepository, MeterRegistry meterRegistry,
+			@Value("${employee.export.chunk-size}") DataSize chunkSize) {
+		this.employeeExportRepository = employeeExportRepository;
+		this.meterRegistry = meterRegistry;
+		this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+	}
+
+	/**
+	 * Exports every employee, ordered by email, in the requested format.
+	 *
+	 * @param format the format parameter, {@code csv} or {@code binary}, or {@code null} for CSV
+	 * @return a {@link ResponseEntity} with the content type of the format and a {@link Flux} of the encoded chunks,
+	 *         or a {@link ResponseEntity} with a 400 status and an error response body if the format is unknown
+	 */
+	public ResponseEntity<?> exportEmployees(String format) {
+		Optional<EmployeeExportFormat> exportFormat = format == null ? Optional.of(EmployeeExportFormat.CSV) : EmployeeExportFormat.fromParameter(format);
+
+		if (exportFormat.isEmpty())
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("format", "Unknown export format " + format + "."));
+
+		return ResponseEntity.status(HttpStatus.OK)
+				.contentType(exportFormat.get().getMediaType())
+				.header("Content-Disposition", ContentDisposition.attachment()
+						.filename("employees." + exportFormat.get().name().toLowerCase()).build().toString())
+				.body(export(exportFormat.get()));
+	}
+
+	/**
+	 * Streams every employee encoded in the given format.
+	 *
+	 * @param format the {@link EmployeeExportFormat} to encode the employees in
+	 * @return a {@link Flux} of encoded chunks, reading the cursor on a bounded elastic thread
+	 */
+	public Flux<DataBuffer> export(EmployeeExportFormat format) {
+		return Flux.defer(() -> {
+					ExportProgress progress = new ExportProgress(System.nanoTime());
+
+					return Flux.using(employeeExportRepository::streamAll,
+									employees -> Flux.<DataBuffer, Iterator<Employee>>generate(employees::iterator,
+											(iterator, sink) -> nextChunk(iterator, sink, format, progress)),
+									Stream::close)
+							.doOnComplete(() -> report(format, progress));
+				})
+				.doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Encodes employees into a new chunk until it reaches the chunk size, or completes once no employee is left.
+	 */
+	private Iterator<Employee> nextChunk(Iterator<Employee> employees, SynchronousSink<DataBuffer> sink,
+			EmployeeExportFormat format, ExportProgress progress) {
+		// The head room saves growing the buffer for the row that crosses the chunk size
+		DataBuffer chunk = bufferFactory.allocateBuffer(chunkSize + ROW_HEAD_ROOM);
+
+		try {
+			if (!progress.started) {
+				format.writeHeader(chunk);
+				progress.started = true;
+			}
+
+			while (chunk.readableByteCount() < chunkSize && employees.hasNext()) {
+				format.writeRow(employees.next(), chunk);
+				progress.rows++;
+			}
+		} catch (RuntimeException e) {
+			DataBufferUtils.release(chunk);
+			throw e;
+		}
+
+		if (chunk.readableByteCount() == 0) {
+			DataBufferUtils.release(chunk);
+			sink.complete();
+		} else {
+			sink.next(chunk);
+		}
+
+		return employees;
+	}
+
+	private void report(EmployeeExportFormat format, ExportProgress progress) {
+		long nanos = System.nanoTime() - progress.start;
+		String tag = format.name().toLowerCase();
+
+		meterRegistry.counter("employee.export.rows", "format", tag).increment(progress.rows);
+		meterRegistry.timer("employee.export", "format", tag).record(nanos, TimeUnit.NANOSECONDS);
+
+		log.info("Exported {} employees as {} in {} ms ({} rows/s)", progress.rows, format, nanos / 1_000_000,
+				nanos == 0 ? 0 : progress.rows * 1_000_000_000L / nanos);
+	}
+
+	/**
+	 * Running state of one export.
+	 */
+	private static final class ExportProgress {
+
+		private final long start;
+		private boolean started;
+		private long rows;
+
+		ExportProgress(long start) {
+			this.start = start;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package com.ibm.fscc.employeeservice.service;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeImportProgressDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeImportRejectionDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.exception.ErrorResponse;
+import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import com.ibm.fscc.employeeservice.util.CsvRecordReader;
+import com.ibm.fscc.employeeservice.util.DtoValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+/**
+ * Service class for importing employees from a CSV upload.
+ * <p>
+ * The upload is parsed as it arrives, rows are validated in parallel on the CPU-bound scheduler while keeping
+ * their order, and valid rows are inserted in batches of {@code employee.import.batch-size}, each in its own
+ * transaction. Only one batch is written at a time and the pipeline only requests more of the upload as batches
+ * complete, so memory use is bounded by a few batches whatever the size of the file.
+ * <p>
+ * The first record must be a header naming the eight employee fields, in any order, as written by the CSV export.
+ * Rows that are malformed, invalid, repeated or already present are rejected with an error map per row, like the one
+ * a rejected single-employee request answers, without failing the rest of the import.
+ */
+@Service
+public class EmployeeImportService {
+
+	private static final List<String> FIELDS = List.of("email", "firstName", "lastName", "address", "state", "zip", "cellPhone", "homePhone");
+
+	private final EmployeeBatchRepository employeeBatchRepository;
+	private final DtoValidator dtoValidator;
+	private final ApplicationEventPublisher eventPublisher;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final int parallelism = Schedulers.DEFAULT_POOL_SIZE;
+
+	/**
+	 * Constructs the service.
+	 *
+	 * @param employeeBatchRepository the {@link EmployeeBatchRepository} writing the batches
+	 * @param dtoValidator            the {@link DtoValidator} validating each row
+	 * @param eventPublisher          the {@link ApplicationEventPublisher} announcing the created employees
+	 * @param transactionManager      the {@link PlatformTransactionManager} running one transaction per batch
+	 * @param batchSize               the number of rows written per batch
+	 */
+	public EmployeeImportService(EmployeeBatchRepository employeeBatchRepository, DtoValidator dtoValidator,
+			ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+			@Value("${employee.import.batch-size}") int batchSize) {
+		this.employeeBatchRepository = employeeBatchRepository;
+		this.dtoValidator = dtoValidator;
+		this.eventPublisher = eventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Imports the employees of a CSV upload.
+	 *
+	 * @param content the uploaded CSV, as it is received
+	 * @return a {@link Flux} emitting an {@link EmployeeImportProgressDTO} after every written batch and a final one
+	 *         marked complete; a missing or incomplete header ends the import with a single complete report
+	 *         rejecting row 1
+	 */
+	public Flux<EmployeeImportProgressDTO> importEmployees(Flux<DataBuffer> content) {
+		return Flux.defer(() -> {
+			CsvRecordReader reader = new CsvRecordReader();
+			ImportProgress progress = new ImportProgress();
+
+			Flux<List<String>> records = content
+					.concatMapIterable(buffer -> {
+						byte[] bytes = new byte[buffer.readableByteCount()];
+						buffer.read(bytes);
+						DataBufferUtils.release(buffer);
+						return reader.read(bytes);
+					})
+					.concatWith(Flux.defer(() -> Flux.fromIterable(reader.finish())));
+
+			return records.index()
+					.<ImportRow>handle((record, sink) -> {
+						if (record.getT1() == 0)
+							progress.columns = columnsOf(record.getT2());
+						else
+							sink.next(new ImportRow(record.getT1() + 1, record.getT2()));
+					})
+					.flatMapSequential(row -> Mono.fromCallable(() -> validate(row, progress.columns)).subscribeOn(Schedulers.parallel()),
+							parallelism)
+					.buffer(batchSize)
+					.concatMap(batch -> Mono.fromCallable(() -> write(batch, progress)).subscribeOn(Schedulers.boundedElastic()), 1)
+					.concatWith(Mono.fromCallable(() -> {
+						if (progress.columns == null)
+							throw new InvalidDataException(new ErrorResponse(Map.of("header", "The upload has no header.")));
+						return progress.report(List.of(), true);
+					}))
+					.onErrorResume(InvalidDataException.class, e -> Mono.just(new EmployeeImportProgressDTO(0, 0, 0,
+							List.of(new EmployeeImportRejectionDTO(1, null, e.getErrorResponse().getErrors())), true)));
+		});
+	}
+
+	/**
+	 * Maps every employee field to its position in the header.
+	 *
+	 * @throws InvalidDataException if the header lacks a field
+	 */
+	private static int[] columnsOf(List<String> header) {
+		int[] columns = new int[FIELDS.size()];
+		Map<String, String> missing = new LinkedHashMap<>();
+
+		for (int i = 0; i < FIELDS.size(); i++) {
+			columns[i] = header.indexOf(FIELDS.get(i));
+			if (columns[i] < 0)
+				missing.put(FIELDS.get(i), "Header has no " + FIELDS.get(i) + " column.");
+		}
+
+		if (!missing.isEmpty())
+			throw new InvalidDataException(new ErrorResponse(missing));
+
+		return columns;
+	}
+
+	/**
+	 * Maps a row to an employee and validates it, recording why it is rejected if it is.
+	 */
+	private ImportRow validate(ImportRow row, int[] columns) {
+		int width = Arrays.stream(columns).max().orElse(0) + 1;
+
+		if (row.values.size() < width) {
+			row.errors = Map.of("row", "Expected at least " + width + " fields but found " + row.values.size() + ".");
+			return row;
+		}
+
+		EmployeeDTO employeeDTO = new EmployeeDTO(row.values.get(columns[0]), row.values.get(columns[1]), row.values.get(columns[2]),
+				row.values.get(columns[3]), row.values.get(columns[4]), row.values.get(columns[5]), row.values.get(columns[6]),
+				row.values.get(columns[7]));
+		row.email = employeeDTO.getEmail();
+
+		try {
+			dtoValidator.validate(employeeDTO);
+			row.employee = EmployeeMapper.employeeDtoToEmployee(employeeDTO);
+		} catch (InvalidDataException e) {
+			row.errors = e.getErrorResponse().getErrors();
+		}
+
+		return row;
+	}
+
+	/**
+	 * Inserts the valid rows of a batch in one transaction, rejecting those whose email is taken or repeated.
+	 *
+	 * @return the progress after the batch, listing the rows it rejected
+	 */
+	private EmployeeImportProgressDTO write(List<ImportRow> batch, ImportProgress progress) {
+		List<EmployeeImportRejectionDTO> rejections = new ArrayList<>();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			List<ImportRow> valid = batch.stream().filter(row -> row.employee != null).toList();
+			Map<String, String> existing = employeeBatchRepository.findExistingEmails(valid.stream().map(row -> row.email).toList());
+			Set<String> seen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+			List<ImportRow> toInsert = new ArrayList<>();
+			for (ImportRow row : valid) {
+				if (existing.containsKey(row.email) || !seen.add(row.email))
+					row.errors = Map.of("email", "Employee with email " + row.email + " already exists.");
+				else
+					toInsert.add(row);
+			}
+
+			Set<String> inserted = employeeBatchRepository.insertIgnoringExisting(toInsert.stream().map(row -> row.employee).toList());
+
+			for (ImportRow row : toInsert) {
+				// An email left out was inserted concurrently since it was looked up
+				if (!inserted.contains(row.email))
+					row.errors = Map.of("email", "Employee with email " + row.email + " already exists.");
+				else
+					eventPublisher.publishEvent(EmployeeChangeEvent.created(row.employee));
+			}
+		});
+
+		for (ImportRow row : batch) {
+			progress.processed++;
+			if (row.errors == null) {
+				progress.imported++;
+			} else {
+				progress.rejected++;
+				rejections.add(new EmployeeImportRejectionDTO(row.number, row.email, row.errors));
+			}
+		}
+
+		return progress.report(rejections, false);
+	}
+
+	/**
+	 * A data row of the upload and what became of it.
+	 */
+	private static final class ImportRow {
+
+		private final long number;
+		private final List<String> values;
+		private String email;
+		private Employee employee;
+		private Map<String, String> errors;
+
+		ImportRow(long number, List<String> values) {
+			this.number = number;
+			this.values = values;
+		}
+	}
+
+	/**
+	 * Running totals of one import. Only touched by one thread at a time, as the pipeline runs its stages in order.
+	 */
+	private static final class ImportProgress {
+
+		private volatile int[] columns;
+		private long processed;
+		private long imported;
+		private long rejected;
+
+		EmployeeImportProgressDTO report(List<EmployeeImportRejectionDTO> rejections, boolean complete) {
+			return new EmployeeImportProgressDTO(processed, imported, rejected, rejections, complete);
+		}
+	}
+}
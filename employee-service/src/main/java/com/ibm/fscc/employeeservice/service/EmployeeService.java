@@ -1,52 +1,98 @@
 package com.ibm.fscc.employeeservice.service;
 
+import com.ibm.fscc.employeeservice.cache.EmployeeCache;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
 import com.ibm.fscc.employeeservice.exception.ErrorResponse;
 import com.ibm.fscc.employeeservice.exception.EmployeeAlreadyExistsException;
+import com.ibm.fscc.employeeservice.exception.EmployeeModifiedException;
 import com.ibm.fscc.employeeservice.exception.EmployeeNotFoundException;
 import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import com.ibm.fscc.employeeservice.index.EmployeeColumnStore;
+import com.ibm.fscc.employeeservice.index.EmployeeNameIndex;
 import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
 import com.ibm.fscc.employeeservice.model.Employee;
 import com.ibm.fscc.employeeservice.repository.EmployeeRepository;
 import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
-import lombok.AllArgsConstructor;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchResultDTO;
+import com.ibm.fscc.employeeservice.util.DtoValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service class for managing employee-related operations.
  */
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Transactional
 public class EmployeeService {
 
+	private static final Set<String> SORTABLE_PROPERTIES = Set.of("email", "firstName", "lastName", "state", "zip");
+	private static final Set<String> PROJECTABLE_PROPERTIES = Set.of("email", "firstName", "lastName", "address", "state", "zip", "cellPhone", "homePhone");
+	private static final Set<String> PATCHABLE_PROPERTIES = Set.of("firstName", "lastName", "address", "state", "zip", "cellPhone", "homePhone");
+	private static final Sort DEFAULT_SEARCH_SORT = Sort.by("lastName", "firstName", "email");
+
 	private final EmployeeRepository employeeRepository;
+	private final EmployeeCache employeeCache;
+	private final EmployeeNameIndex employeeNameIndex;
+	private final EmployeeColumnStore employeeColumnStore;
+	private final DtoValidator dtoValidator;
+	private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${employee.pagination.default-page-size}")
+    private int defaultPageSize;
+
+    @Value("${employee.pagination.max-page-size}")
+    private int maxPageSize;
+
+    @Value("${employee.pagination.stream-fetch-size}")
+    private int streamFetchSize;
+
+    @Value("${employee.suggest.default-results}")
+    private int defaultSuggestions;
+
+    @Value("${employee.suggest.max-results}")
+    private int maxSuggestions;
+
+    @Value("${employee.stats.default-groups}")
+    private int defaultGroups;
+
+    @Value("${employee.stats.max-groups}")
+    private int maxGroups;
 
     /**
      * Retrieves an employee by email.
+     * Lookups are served from the {@link EmployeeCache} and only reach the database on a miss,
+     * so no transaction is started here.
      *
      * @param email the email address of the employee
-     * @return a {@link ResponseEntity} with the {@link EmployeeDTO} object if found,
+     * @return a {@link ResponseEntity} with the {@link EmployeeDTO} object and the employee version as ETag if found,
      *         or a {@link ResponseEntity} with a 404 status and a message if not found
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ResponseEntity<?> findEmployeeByEmail(String email) {
         try {
-            Optional<Employee> employeeOptional = employeeRepository.findByEmail(email);
+            Optional<Employee> employeeOptional = employeeCache.get(email, employeeRepository::findByEmail);
 
             if (employeeOptional.isEmpty())
                 throw new EmployeeNotFoundException("Employee with email " + email + " not found.");
 
             Employee employee = employeeOptional.get();
-            return ResponseEntity.status(HttpStatus.OK).body(EmployeeMapper.employeeToEmployeeDTO(employee));
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTagOf(employee)).body(EmployeeMapper.employeeToEmployeeDTO(employee));
         } catch (EmployeeNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -54,107 +100,380 @@ public class EmployeeService {
 
 
     /**
-     * Retrieves all employees from the employee repository.
+     * Retrieves a page of employees ordered by email, with every field.
+     *
+     * @param after the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size, or {@code null} for the default page size
+     * @return see {@link #findAllEmployees(String, Integer, List)}
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> findAllEmployees(String after, Integer limit) {
+        return findAllEmployees(after, limit, null);
+    }
+
+    /**
+     * Retrieves a page of employees ordered by email.
+     * When fields are requested only those columns are selected, and each employee is returned as a map holding
+     * just those fields; the email is always included since it is the cursor.
      *
-     * @return a {@link ResponseEntity} with a list of {@link EmployeeDTO} objects representing all employees
-     *         or a ResponseEntity with a 404 status and a message if no employees are found
+     * @param after  the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  the requested page size, or {@code null} for the default page size;
+     *               values above the configured maximum are capped
+     * @param fields the {@link EmployeeDTO} properties to return, or {@code null} or empty for all of them
+     * @return a {@link ResponseEntity} with an {@link EmployeePageDTO} holding the page and the next cursor,
+     *         and an ETag derived from the emails and versions on the page and the requested fields,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the page size or a field is invalid,
+     *         or a {@link ResponseEntity} with a 404 status and a message if no employees are found
      */
-    public ResponseEntity<?> findAllEmployees() {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> findAllEmployees(String after, Integer limit, List<String> fields) {
         try {
-            Iterable<Employee> employeeIterable = employeeRepository.findAll();
-            List<EmployeeDTO> employeeDTOList = new ArrayList<>();
+            if (limit != null && limit < 1)
+                throw new InvalidDataException(new ErrorResponse(Map.of("limit", "Page size must be at least 1.")));
+
+            int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+            if (fields != null && !fields.isEmpty())
+                return findProjectedEmployees(after, pageSize, fields);
 
-            if (!employeeIterable.iterator().hasNext())
+            List<Employee> employees = employeeRepository.findPageAfter(after == null ? "" : after, pageSize);
+
+            if (employees.isEmpty() && after == null)
                 throw new EmployeeNotFoundException("No employees found.");
 
-            employeeIterable.forEach(employee -> {
-                EmployeeDTO employeeDTO = EmployeeMapper.employeeToEmployeeDTO(employee);
-                employeeDTOList.add(employeeDTO);
-            });
+            List<EmployeeDTO> employeeDTOList = new ArrayList<>(employees.size());
+            employees.forEach(employee -> employeeDTOList.add(EmployeeMapper.employeeToEmployeeDTO(employee)));
 
-            return ResponseEntity.status(HttpStatus.OK).body(employeeDTOList);
+            String nextCursor = employees.size() < pageSize ? null : employees.get(employees.size() - 1).getEmail();
+
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTagOf(employees)).body(new EmployeePageDTO(employeeDTOList, nextCursor));
+        } catch (InvalidDataException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
         } catch (EmployeeNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     /**
-     * Creates a new employee.
+     * Retrieves a page of employees holding only the given fields, selecting only their columns plus the version.
+     *
+     * @throws InvalidDataException     if a field is not an employee property
+     * @throws EmployeeNotFoundException if the first page is empty
+     */
+    private ResponseEntity<?> findProjectedEmployees(String after, int pageSize, List<String> fields) {
+        Set<String> properties = new LinkedHashSet<>();
+        properties.add("email");
+
+        for (String field : fields) {
+            if (!PROJECTABLE_PROPERTIES.contains(field.trim()))
+                throw new InvalidDataException(new ErrorResponse(Map.of("fields", "Unknown field " + field + ".")));
+            properties.add(field.trim());
+        }
+
+        // The version is only read for the ETag
+        List<String> columns = new ArrayList<>(properties);
+        columns.add("version");
+
+        List<Map<String, Object>> employees = employeeRepository.findPageAfter(after == null ? "" : after, pageSize, columns);
+
+        if (employees.isEmpty() && after == null)
+            throw new EmployeeNotFoundException("No employees found.");
+
+        StringBuilder versions = new StringBuilder(String.join(",", properties)).append('\n');
+        employees.forEach(employee -> versions.append(employee.get("email")).append(':').append(employee.remove("version")).append('\n'));
+
+        String nextCursor = employees.size() < pageSize ? null : (String) employees.get(employees.size() - 1).get("email");
+
+        return ResponseEntity.status(HttpStatus.OK).eTag(digestOf(versions)).body(new EmployeePageDTO(employees, nextCursor));
+    }
+
+    /**
+     * Streams all employees ordered by email.
+     * Rows are read in keyset pages of the configured fetch size, and the next page is only read once
+     * the subscriber has requested it, so memory use is bounded by one page whatever the table size.
+     *
+     * @return a {@link Flux} emitting an {@link EmployeeDTO} for every employee
+     */
+    public Flux<EmployeeDTO> streamAllEmployees() {
+        return Flux.<List<Employee>, String>generate(() -> "", (after, sink) -> {
+                    List<Employee> page = employeeRepository.findPageAfter(after, streamFetchSize);
+
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return after;
+                    }
+
+                    sink.next(page);
+                    return page.get(page.size() - 1).getEmail();
+                })
+                // Ask for one page at a time, not the default 256 pages ahead
+                .flatMapIterable(page -> page, 1)
+                .map(EmployeeMapper::employeeToEmployeeDTO)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Searches employees by last name prefix, first name prefix, state and zip code.
+     *
+     * @param criteria the {@link EmployeeSearchCriteria} holding the filters, all optional
+     * @param sort     the sort orders as {@code property} or {@code property,desc}, or {@code null} to sort by last name and first name
+     * @param page     the zero-based page number
+     * @param size     the requested page size, or {@code null} for the default page size;
+     *                 values above the configured maximum are capped
+     * @return a {@link ResponseEntity} with an {@link EmployeeSearchResultDTO} holding the page of matching employees,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the paging or sort parameters are invalid
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> searchEmployees(EmployeeSearchCriteria criteria, List<String> sort, int page, Integer size) {
+        try {
+            if (page < 0)
+                throw new InvalidDataException(new ErrorResponse(Map.of("page", "Page number cannot be negative.")));
+            if (size != null && size < 1)
+                throw new InvalidDataException(new ErrorResponse(Map.of("size", "Page size must be at least 1.")));
+
+            int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+
+            // Read one extra row to know whether a next page exists without counting every match
+            List<Employee> employees = employeeRepository.search(criteria, toSort(sort), (long) page * pageSize, pageSize + 1);
+            boolean hasNext = employees.size() > pageSize;
+
+            List<EmployeeDTO> employeeDTOList = new ArrayList<>(pageSize);
+            employees.stream().limit(pageSize).forEach(employee -> employeeDTOList.add(EmployeeMapper.employeeToEmployeeDTO(employee)));
+
+            return ResponseEntity.status(HttpStatus.OK).body(new EmployeeSearchResultDTO(employeeDTOList, page, pageSize, hasNext));
+        } catch (InvalidDataException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
+        }
+    }
+
+    /**
+     * Suggests employees whose first name, last name or email resemble the given text, tolerating typos.
+     * Served from the in-memory {@link EmployeeNameIndex}, so no transaction is started here.
+     *
+     * @param query the text typed so far
+     * @param limit the requested number of suggestions, or {@code null} for the default;
+     *              values above the configured maximum are capped
+     * @return a {@link ResponseEntity} with the list of {@link EmployeeDTO} objects, best match first,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the query or limit is invalid
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<?> suggestEmployees(String query, Integer limit) {
+        try {
+            if (query == null || query.isBlank())
+                throw new InvalidDataException(new ErrorResponse(Map.of("q", "Query cannot be blank.")));
+            if (limit != null && limit < 1)
+                throw new InvalidDataException(new ErrorResponse(Map.of("limit", "Number of suggestions must be at least 1.")));
+
+            List<Employee> employees = employeeNameIndex.search(query, limit == null ? defaultSuggestions : Math.min(limit, maxSuggestions));
+
+            List<EmployeeDTO> employeeDTOList = new ArrayList<>(employees.size());
+            employees.forEach(employee -> employeeDTOList.add(EmployeeMapper.employeeToEmployeeDTO(employee)));
+
+            return ResponseEntity.status(HttpStatus.OK).body(employeeDTOList);
+        } catch (InvalidDataException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
+        }
+    }
+
+    /**
+     * Counts the employees matching the filters, overall and per combination of the grouped dimensions.
+     * Served from the in-memory {@link EmployeeColumnStore}, so no transaction is started here.
+     *
+     * @param groupBy the dimensions to group by, such as {@code state} or {@code domain}, or {@code null} for the total only
+     * @param filters the value each filtered dimension must have, by dimension name
+     * @param limit   the requested number of groups, or {@code null} for the default;
+     *                values above the configured maximum are capped
+     * @return a {@link ResponseEntity} with the {@link EmployeeStatsDTO} holding the total and the largest groups first,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if a dimension or the limit is invalid
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ResponseEntity<?> countEmployees(List<String> groupBy, Map<String, String> filters, Integer limit) {
+        try {
+            Map<String, String> errors = new LinkedHashMap<>();
+
+            List<EmployeeColumnStore.Dimension> dimensions = new ArrayList<>();
+            for (String property : groupBy == null ? List.<String>of() : groupBy) {
+                Optional<EmployeeColumnStore.Dimension> dimension = EmployeeColumnStore.Dimension.fromProperty(property.trim());
+                if (dimension.isEmpty() || dimensions.contains(dimension.get()))
+                    errors.put("groupBy", "Cannot group by " + property + ".");
+                else
+                    dimensions.add(dimension.get());
+            }
+
+            Map<EmployeeColumnStore.Dimension, String> values = new EnumMap<>(EmployeeColumnStore.Dimension.class);
+            filters.forEach((property, value) -> {
+                if (value != null)
+                    values.put(EmployeeColumnStore.Dimension.fromProperty(property).orElseThrow(), value);
+            });
+
+            if (limit != null && limit < 1)
+                errors.put("limit", "Number of groups must be at least 1.");
+            if (!errors.isEmpty())
+                throw new InvalidDataException(new ErrorResponse(errors));
+
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(employeeColumnStore.count(dimensions, values, limit == null ? defaultGroups : Math.min(limit, maxGroups)));
+        } catch (InvalidDataException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
+        }
+    }
+
+    /**
+     * Creates a new employee with a single insert-if-absent statement; no row inserted means the email is taken.
      *
      * @param employeeDTO the {@link EmployeeDTO} object containing the employee data
-     * @return a {@link ResponseEntity} with the created {@link EmployeeDTO} object if successful,
+     * @return a {@link ResponseEntity} with the created {@link EmployeeDTO} object and its ETag if successful,
      *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
      *         or a {@link ResponseEntity} with a 409 status and a message if an employee with the same email already exists
      */
     public ResponseEntity<?> createEmployee(EmployeeDTO employeeDTO) {
         try {
             // Validate employee object
-            validate(employeeDTO);
+            dtoValidator.validate(employeeDTO);
+
+            Employee newEmployee = EmployeeMapper.employeeDtoToEmployee(employeeDTO);
 
-            // Check if an employee with the same email address exists
-            Optional<Employee> employeeOptional = employeeRepository.findByEmail(employeeDTO.getEmail());
+            // Insert the employee unless an employee with the same email address exists
+            if (employeeRepository.insertIfAbsent(newEmployee) == 0)
+                throw new EmployeeAlreadyExistsException("Employee with email " + employeeDTO.getEmail() + " already exists.");
 
-            if (employeeOptional.isEmpty())
-                throw new EmployeeNotFoundException("Employee with email " + employeeDTO.getEmail() + " not found.");
+            eventPublisher.publishEvent(EmployeeChangeEvent.created(newEmployee));
 
-            throw new EmployeeAlreadyExistsException("Employee with email " + employeeDTO.getEmail() + " already exists.");
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(eTagOf(newEmployee)).body(EmployeeMapper.employeeToEmployeeDTO(newEmployee));
         } catch (InvalidDataException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
         } catch (EmployeeAlreadyExistsException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
-        } catch (EmployeeNotFoundException e) {
-            // Employee not found, proceed with creating a new employee
-            Employee newEmployee = EmployeeMapper.employeeDtoToEmployee(employeeDTO);
-            Employee savedEmployee = employeeRepository.save(newEmployee);
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(EmployeeMapper.employeeToEmployeeDTO(savedEmployee));
         }
     }
 
     /**
-     * Updates an employee.
+     * Updates an employee unconditionally.
      *
      * @param employeeDTO the {@link EmployeeDTO} object containing the updated employee details
-     * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object if successful,
-     *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
-     *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+     * @return see {@link #updateEmployee(EmployeeDTO, List)}
      */
     public ResponseEntity<?> updateEmployee(EmployeeDTO employeeDTO) {
+        return updateEmployee(employeeDTO, null);
+    }
+
+    /**
+     * Updates an employee with a single update-by-email statement; no row matched means the employee does not exist
+     * or, for a conditional update, is no longer at a version the caller expects.
+     * Conditional updates compare versions in the statement itself, so concurrent writers need no row lock between
+     * reading an employee and writing it back.
+     *
+     * @param employeeDTO the {@link EmployeeDTO} object containing the updated employee details
+     * @param ifMatch     the {@code If-Match} ETags the employee must currently match, {@code *} for any version,
+     *                    or {@code null} or empty to update unconditionally
+     * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object and its new ETag if successful,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
+     *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found,
+     *         or a {@link ResponseEntity} with a 412 status, the current ETag and a message if the employee matches none of the ETags
+     */
+    public ResponseEntity<?> updateEmployee(EmployeeDTO employeeDTO, List<String> ifMatch) {
         try {
             // Validate employee object
-            validate(employeeDTO);
+            dtoValidator.validate(employeeDTO);
 
-            // Retrieve the existing employee by email
-            Optional<Employee> existingEmployeeOptional = employeeRepository.findByEmail(employeeDTO.getEmail());
-            if (existingEmployeeOptional.isEmpty())
-                throw new EmployeeNotFoundException("Employee with email " + employeeDTO.getEmail() + " not found.");
+            // Update the employee details with the values from the provided EmployeeDTO
+            Employee updatedEmployee = EmployeeMapper.employeeDtoToEmployee(employeeDTO);
 
-            // Map the existing EmployeeDTO to an Employee entity
-            Employee existingEmployee = existingEmployeeOptional.get();
+            int updated;
+            if (ifMatch == null || ifMatch.isEmpty() || ifMatch.contains("*")) {
+                updated = employeeRepository.updateByEmail(updatedEmployee);
+            } else {
+                List<Long> versions = versionsOf(ifMatch);
+                updated = versions.isEmpty() ? 0 : employeeRepository.updateByEmailAndVersion(updatedEmployee, versions);
+            }
 
-            // Update the employee details with the values from the provided EmployeeDTO
-            existingEmployee.setFirstName(employeeDTO.getFirstName());
-            existingEmployee.setLastName(employeeDTO.getLastName());
-            existingEmployee.setAddress(employeeDTO.getAddress());
-            existingEmployee.setState(employeeDTO.getState());
-            existingEmployee.setZip(employeeDTO.getZip());
-            existingEmployee.setCellPhone(employeeDTO.getCellPhone());
-            existingEmployee.setHomePhone(employeeDTO.getHomePhone());
-
-            // Save the updated employee
-            Employee updatedEmployee = employeeRepository.save(existingEmployee);
-
-            // Map the updated Employee entity back to an EmployeeDTO
-            return ResponseEntity.status(HttpStatus.OK).body(EmployeeMapper.employeeToEmployeeDTO(updatedEmployee));
+            // No row matched: the employee is either missing or at another version, which only a read can tell
+            if (updated == 0) {
+                long current = employeeRepository.findVersionByEmail(employeeDTO.getEmail())
+                        .orElseThrow(() -> new EmployeeNotFoundException("Employee with email " + employeeDTO.getEmail() + " not found."));
+                throw new EmployeeModifiedException("Employee with email " + employeeDTO.getEmail() + " has been modified.", current);
+            }
+
+            updatedEmployee.setVersion(employeeRepository.findWrittenVersion(employeeDTO.getEmail()));
+            eventPublisher.publishEvent(EmployeeChangeEvent.updated(updatedEmployee));
+
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTagOf(updatedEmployee)).body(EmployeeMapper.employeeToEmployeeDTO(updatedEmployee));
         } catch (InvalidDataException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
         } catch (EmployeeNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Employee with email " + employeeDTO.getEmail() + " could not be found.");
+        } catch (EmployeeModifiedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(String.valueOf(e.getCurrentVersion())).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Updates only the supplied fields of an employee. Only those fields are validated, and the update statement sets
+     * only their columns, so the other columns and their indexes are not rewritten.
+     * The email identifies the employee and cannot be changed; it may only be repeated unchanged in the fields.
+     *
+     * @param email   the email address of the employee
+     * @param fields  the new values by {@link EmployeeDTO} field name
+     * @param ifMatch the {@code If-Match} ETags the employee must currently match, {@code *} for any version,
+     *                or {@code null} or empty to update unconditionally
+     * @return a {@link ResponseEntity} with the updated {@link EmployeeDTO} object and its new ETag if successful,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if no field is supplied or a field is unknown or invalid,
+     *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found,
+     *         or a {@link ResponseEntity} with a 412 status, the current ETag and a message if the employee matches none of the ETags
+     */
+    public ResponseEntity<?> patchEmployee(String email, Map<String, String> fields, List<String> ifMatch) {
+        try {
+            Map<String, String> changes = new LinkedHashMap<>(fields);
+            Map<String, String> errors = new LinkedHashMap<>();
+
+            if (email.equals(changes.get("email")))
+                changes.remove("email");
+
+            for (String field : changes.keySet()) {
+                if (field.equals("email"))
+                    errors.put(field, "The email of an employee cannot be changed.");
+                else if (!PATCHABLE_PROPERTIES.contains(field))
+                    errors.put(field, "Unknown field " + field + ".");
+            }
+
+            if (changes.isEmpty())
+                errors.put("fields", "At least one field to update is required.");
+            if (!errors.isEmpty())
+                throw new InvalidDataException(new ErrorResponse(errors));
+
+            // Validate the supplied fields only
+            dtoValidator.validateValues(EmployeeDTO.class, changes);
+
+            int updated;
+            if (ifMatch == null || ifMatch.isEmpty() || ifMatch.contains("*")) {
+                updated = employeeRepository.updateByEmail(email, changes, null);
+            } else {
+                List<Long> versions = versionsOf(ifMatch);
+                updated = versions.isEmpty() ? 0 : employeeRepository.updateByEmail(email, changes, versions);
+            }
+
+            // Read back the whole employee the write left, which also tells a missing employee from a modified one
+            Optional<Employee> employee = employeeRepository.findByEmail(email);
+
+            if (employee.isEmpty())
+                throw new EmployeeNotFoundException("Employee with email " + email + " not found.");
+            if (updated == 0)
+                throw new EmployeeModifiedException("Employee with email " + email + " has been modified.", employee.get().getVersion());
+
+            eventPublisher.publishEvent(EmployeeChangeEvent.updated(employee.get()));
+
+            return ResponseEntity.status(HttpStatus.OK).eTag(eTagOf(employee.get())).body(EmployeeMapper.employeeToEmployeeDTO(employee.get()));
+        } catch (InvalidDataException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getErrorResponse().getErrors());
+        } catch (EmployeeNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Employee with email " + email + " could not be found.");
+        } catch (EmployeeModifiedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(String.valueOf(e.getCurrentVersion())).body(e.getMessage());
         }
     }
 
     /**
-     * Deletes an employee by email.
+     * Deletes an employee by email with a single delete-by-email statement.
      *
      * @param email the email address of the employee to be deleted
      * @return a {@link ResponseEntity} with a success message if the employee is deleted successfully,
@@ -162,44 +481,90 @@ public class EmployeeService {
      */
     public ResponseEntity<?> deleteEmployee(String email) {
         try {
-            // Retrieve the employee to be deleted. If the employee is not found, throw an exception.
-            Optional<Employee> employeeOptional = employeeRepository.findByEmail(email);
-
-            if (employeeOptional.isPresent()) {
-                Employee employee = employeeOptional.get();
-                employeeRepository.delete(employee);
-                return ResponseEntity.ok("Employee deleted successfully.");
-            } else {
+            // Delete the employee. If no employee was deleted, it was not found.
+            if (employeeRepository.deleteByEmail(email) == 0)
                 throw new EmployeeNotFoundException("Employee with email " + email + " could not be found.");
-            }
+
+            eventPublisher.publishEvent(EmployeeChangeEvent.deleted(email));
+            return ResponseEntity.ok("Employee deleted successfully.");
         } catch (EmployeeNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     /**
-     * Validates an object for any invalid data using Bean Validation annotations.
-     *
-     * @param object the {@link Object} to be validated
-     * @param <T>    the type of the object
-     * @throws InvalidDataException if there are any validation errors in the object
+     * Returns the strong ETag of an employee, which is its version.
      */
-    public static <T> void validate(T object) {
-        try(ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
-            Validator validator = factory.getValidator();
+    private static String eTagOf(Employee employee) {
+        return String.valueOf(employee.getVersion());
+    }
 
-            Set<ConstraintViolation<T>> violations = validator.validate(object);
+    /**
+     * Returns the strong ETag of a page of employees, a digest of the email and version of every employee on it.
+     */
+    private static String eTagOf(List<Employee> employees) {
+        StringBuilder versions = new StringBuilder();
+        employees.forEach(employee -> versions.append(employee.getEmail()).append(':').append(employee.getVersion()).append('\n'));
 
-            if (!violations.isEmpty()) {
-                Map<String, String> errorMap = violations.stream()
-                        .collect(Collectors.toMap(
-                                violation -> violation.getPropertyPath().toString(),
-                                ConstraintViolation::getMessage
-                        ));
+        return digestOf(versions);
+    }
 
-                throw new InvalidDataException(new ErrorResponse(errorMap));
+    private static String digestOf(CharSequence versions) {
+        return DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Extracts the versions named by strong {@code If-Match} ETags; weak and malformed ETags never match.
+     */
+    private static List<Long> versionsOf(List<String> eTags) {
+        List<Long> versions = new ArrayList<>();
+
+        for (String eTag : eTags) {
+            String tag = eTag.trim();
+            if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\""))
+                continue;
+
+            try {
+                versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not an ETag this service issued
             }
         }
+
+        return versions;
+    }
+
+    /**
+     * Parses sort parameters of the form {@code property} or {@code property,asc|desc}.
+     * The email is always appended as the final order so that pages are stable.
+     *
+     * @param sort the sort parameters, or {@code null} for the default order
+     * @return the {@link Sort}
+     * @throws InvalidDataException if a sort property or direction is not supported
+     */
+    private static Sort toSort(List<String> sort) {
+        if (sort == null || sort.isEmpty())
+            return DEFAULT_SEARCH_SORT;
+
+        List<Sort.Order> orders = new ArrayList<>();
+
+        for (String parameter : sort) {
+            String[] parts = parameter.split(",");
+            String property = parts[0].trim();
+
+            if (!SORTABLE_PROPERTIES.contains(property) || parts.length > 2)
+                throw new InvalidDataException(new ErrorResponse(Map.of("sort", "Cannot sort by " + parameter + ".")));
+
+            Optional<Sort.Direction> direction = parts.length == 2 ? Sort.Direction.fromOptionalString(parts[1].trim()) : Optional.of(Sort.Direction.ASC);
+
+            if (direction.isEmpty())
+                throw new InvalidDataException(new ErrorResponse(Map.of("sort", "Cannot sort by " + parameter + ".")));
+
+            orders.add(new Sort.Order(direction.get(), property));
+        }
+
+        Sort requested = Sort.by(orders);
+        return requested.getOrderFor("email") == null ? requested.and(Sort.by("email")) : requested;
     }
 
 }
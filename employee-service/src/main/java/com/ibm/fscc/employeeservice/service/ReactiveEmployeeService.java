@@ -0,0 +1,165 @@
+package com.ibm.fscc.employeeservice.service;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.exception.ErrorResponse;
+import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
+import com.ibm.fscc.employeeservice.model.EmployeeRecord;
+import com.ibm.fscc.employeeservice.repository.ReactiveEmployeeRepository;
+import com.ibm.fscc.employeeservice.util.DtoValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link EmployeeService}, backed by R2DBC.
+ * Only active with the {@code r2dbc} profile, so the two persistence paths can be benchmarked under the same load.
+ */
+@Service
+@Profile("r2dbc")
+@RequiredArgsConstructor
+public class ReactiveEmployeeService {
+
+	private final ReactiveEmployeeRepository reactiveEmployeeRepository;
+	private final DtoValidator dtoValidator;
+
+    @Value("${employee.pagination.default-page-size}")
+    private int defaultPageSize;
+
+    @Value("${employee.pagination.max-page-size}")
+    private int maxPageSize;
+
+    @Value("${employee.pagination.stream-fetch-size}")
+    private int streamFetchSize;
+
+    /**
+     * Retrieves an employee by email.
+     *
+     * @param email the email address of the employee
+     * @return a {@link Mono} emitting a {@link ResponseEntity} with the {@link EmployeeDTO} object if found,
+     *         or a {@link ResponseEntity} with a 404 status and a message if not found
+     */
+    public Mono<ResponseEntity<?>> findEmployeeByEmail(String email) {
+        return reactiveEmployeeRepository.findByEmail(email)
+                .<ResponseEntity<?>>map(employee -> ResponseEntity.status(HttpStatus.OK)
+                        .body(EmployeeMapper.employeeRecordToEmployeeDTO(employee)))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Employee with email " + email + " not found."));
+    }
+
+    /**
+     * Retrieves a page of employees ordered by email.
+     *
+     * @param after the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit the requested page size, or {@code null} for the default page size;
+     *              values above the configured maximum are capped
+     * @return a {@link Mono} emitting a {@link ResponseEntity} with an {@link EmployeePageDTO},
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the page size is invalid,
+     *         or a {@link ResponseEntity} with a 404 status and a message if no employees are found
+     */
+    public Mono<ResponseEntity<?>> findAllEmployees(String after, Integer limit) {
+        if (limit != null && limit < 1)
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("limit", "Page size must be at least 1.")));
+
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        return reactiveEmployeeRepository.findPageAfter(after == null ? "" : after, pageSize)
+                .map(EmployeeMapper::employeeRecordToEmployeeDTO)
+                .collectList()
+                .<ResponseEntity<?>>map(employees -> {
+                    if (employees.isEmpty() && after == null)
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No employees found.");
+
+                    String nextCursor = employees.size() < pageSize ? null : employees.get(employees.size() - 1).getEmail();
+                    return ResponseEntity.status(HttpStatus.OK).body(new EmployeePageDTO(employees, nextCursor));
+                });
+    }
+
+    /**
+     * Streams all employees ordered by email, reading the table in keyset pages of the configured fetch size.
+     * A page is read once the subscriber starts on the previous one, so at most two pages are held whatever the table size.
+     *
+     * @return a {@link Flux} emitting an {@link EmployeeDTO} for every employee
+     */
+    public Flux<EmployeeDTO> streamAllEmployees() {
+        return reactiveEmployeeRepository.findPageAfter("", streamFetchSize).collectList()
+                .expand(page -> page.size() < streamFetchSize
+                        ? Mono.empty()
+                        : reactiveEmployeeRepository.findPageAfter(page.get(page.size() - 1).getEmail(), streamFetchSize).collectList())
+                // Read at most one page ahead of the subscriber, not the default 256 pages
+                .flatMapIterable(page -> page, 1)
+                .map(EmployeeMapper::employeeRecordToEmployeeDTO);
+    }
+
+    /**
+     * Creates a new employee with a single insert, relying on the primary key to detect duplicates.
+     *
+     * @param employeeDTO the {@link EmployeeDTO} object containing the employee data
+     * @return a {@link Mono} emitting a {@link ResponseEntity} with the created {@link EmployeeDTO} object if successful,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
+     *         or a {@link ResponseEntity} with a 409 status and a message if an employee with the same email already exists
+     */
+    public Mono<ResponseEntity<?>> createEmployee(EmployeeDTO employeeDTO) {
+        try {
+            dtoValidator.validate(employeeDTO);
+        } catch (InvalidDataException e) {
+            return Mono.just(badRequest(e.getErrorResponse()));
+        }
+
+        EmployeeRecord employee = EmployeeMapper.employeeDtoToEmployeeRecord(employeeDTO);
+
+        return reactiveEmployeeRepository.insert(employee)
+                .<ResponseEntity<?>>map(inserted -> ResponseEntity.status(HttpStatus.CREATED).body(employeeDTO))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Employee with email " + employeeDTO.getEmail() + " already exists.")));
+    }
+
+    /**
+     * Updates an employee.
+     *
+     * @param employeeDTO the {@link EmployeeDTO} object containing the updated employee details
+     * @return a {@link Mono} emitting a {@link ResponseEntity} with the updated {@link EmployeeDTO} object if successful,
+     *         or a {@link ResponseEntity} with a 400 status and an error response body if the provided data is invalid,
+     *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+     */
+    public Mono<ResponseEntity<?>> updateEmployee(EmployeeDTO employeeDTO) {
+        try {
+            dtoValidator.validate(employeeDTO);
+        } catch (InvalidDataException e) {
+            return Mono.just(badRequest(e.getErrorResponse()));
+        }
+
+        return reactiveEmployeeRepository.update(EmployeeMapper.employeeDtoToEmployeeRecord(employeeDTO))
+                .<ResponseEntity<?>>map(updated -> updated == 0
+                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("Employee with email " + employeeDTO.getEmail() + " could not be found.")
+                        : ResponseEntity.status(HttpStatus.OK).body(employeeDTO));
+    }
+
+    /**
+     * Deletes an employee by email.
+     *
+     * @param email the email address of the employee to be deleted
+     * @return a {@link Mono} emitting a {@link ResponseEntity} with a success message if the employee is deleted successfully,
+     *         or a {@link ResponseEntity} with a 404 status and a message if the employee with the specified email is not found
+     */
+    public Mono<ResponseEntity<?>> deleteEmployee(String email) {
+        return reactiveEmployeeRepository.deleteByEmail(email)
+                .<ResponseEntity<?>>map(deleted -> deleted == 0
+                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body("Employee with email " + email + " could not be found.")
+                        : ResponseEntity.ok("Employee deleted successfully."));
+    }
+
+    private static ResponseEntity<?> badRequest(ErrorResponse errorResponse) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse.getErrors());
+    }
+}
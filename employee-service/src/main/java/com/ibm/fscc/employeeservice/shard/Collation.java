@@ -0,0 +1,65 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import java.util.Comparator;
+
+/**
+ * The collation of the text columns of the shards, which orders the rows every shard returns and which the merge of
+ * their results must therefore follow. Strings a collation holds equal, such as an email in another case, are ordered
+ * by code point, so that the merge order is total.
+ */
+public enum Collation {
+
+	/**
+	 * The default collation of MySQL 8 for the characters employees may hold: whitespace and punctuation first, in the
+	 * order of the Unicode collation algorithm, then digits, then letters ignoring case. Other characters follow, by
+	 * code point.
+	 */
+	UTF8MB4_0900_AI_CI(Collation::compareUnicode),
+
+	/**
+	 * Characters compared ignoring case, as {@link String#compareToIgnoreCase(String)} does, the order of embedded
+	 * databases created with {@code IGNORECASE=TRUE}.
+	 */
+	IGNORE_CASE(String.CASE_INSENSITIVE_ORDER);
+
+	// The whitespace and punctuation employees may hold, by weight
+	private static final String PUNCTUATION = " _-.@+";
+
+	private final Comparator<String> comparator;
+
+	Collation(Comparator<String> collated) {
+		this.comparator = collated.thenComparing(Comparator.naturalOrder());
+	}
+
+	/**
+	 * Returns the order of the collation.
+	 *
+	 * @return the {@link Comparator} of strings
+	 */
+	public Comparator<String> comparator() {
+		return comparator;
+	}
+
+	private static int compareUnicode(String left, String right) {
+		for (int i = 0; i < left.length() && i < right.length(); i++) {
+			int difference = Integer.compare(weightOf(left.charAt(i)), weightOf(right.charAt(i)));
+			if (difference != 0)
+				return difference;
+		}
+		// Trailing spaces count, as the collation does not pad
+		return Integer.compare(left.length(), right.length());
+	}
+
+	private static int weightOf(char c) {
+		int punctuation = PUNCTUATION.indexOf(c);
+		if (punctuation >= 0)
+			return punctuation;
+		if (c >= '0' && c <= '9')
+			return PUNCTUATION.length() + c - '0';
+		if (c >= 'a' && c <= 'z')
+			return PUNCTUATION.length() + 10 + c - 'a';
+		if (c >= 'A' && c <= 'Z')
+			return PUNCTUATION.length() + 10 + c - 'A';
+		return PUNCTUATION.length() + 36 + c;
+	}
+}
@@ -0,0 +1,223 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The shards of the employee store: the database of {@code spring.datasource}, shard 0, followed by those listed under
+ * {@code employee.datasource.shards}. Every employee lives on the shard its email hashes to on a {@link ShardRing}.
+ * <p>
+ * Connections taken by the routing data source go to the shard of the current thread, set by
+ * {@link #on(int, Supplier)}, or to shard 0 outside of any. Work spanning the shards is spread by
+ * {@link #fanOut(IntFunction)} and {@link #forEachOwner(Collection, Function, BiFunction)}, which run the part of every
+ * shard in parallel, one thread per shard, and inline when there is a single shard. Results read from several shards
+ * are merged in the order of their {@link #collation()}, {@code employee.datasource.collation}.
+ */
+@Component
+public class EmployeeShards {
+
+	private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+	private final ShardRing ring;
+	private final Collation collation;
+	private final ExecutorService executor;
+
+	/**
+	 * Builds the ring over the configured shards and, if there are several, the threads querying them.
+	 *
+	 * @param shardDataSources the pools of the shards
+	 * @param virtualNodes     the number of points of every shard on the ring
+	 * @param threadCap        the maximum number of blocking calls running at once, each using at most one thread per shard
+	 * @param collation        the collation of the text columns of the shards
+	 */
+	public EmployeeShards(ShardDataSources shardDataSources,
+			@Value("${employee.datasource.virtual-nodes}") int virtualNodes,
+			@Value("${employee.blocking.thread-cap}") int threadCap,
+			@Value("${employee.datasource.collation}") Collation collation) {
+		this.ring = new ShardRing(shardDataSources.size(), virtualNodes);
+		this.collation = collation;
+		this.executor = ring.size() == 1 ? null : fanOutExecutor(ring.size() * threadCap);
+	}
+
+	/**
+	 * Runs a call whose connections, if it takes any, are taken from a shard.
+	 *
+	 * @param shard the index of the shard
+	 * @param call  the call
+	 * @param <T>   the type of the result
+	 * @return the result of the call
+	 */
+	public static <T> T on(int shard, Supplier<T> call) {
+		Integer previous = enter(shard);
+		try {
+			return call.get();
+		} finally {
+			leave(previous);
+		}
+	}
+
+	/**
+	 * Returns the shard of the current thread.
+	 *
+	 * @return the index of the shard set by {@link #on(int, Supplier)}, or 0 outside of any
+	 */
+	public static int current() {
+		Integer shard = current.get();
+		return shard == null ? 0 : shard;
+	}
+
+	static Integer enter(int shard) {
+		Integer previous = current.get();
+		current.set(shard);
+		return previous;
+	}
+
+	static void leave(Integer previous) {
+		if (previous == null)
+			current.remove();
+		else
+			current.set(previous);
+	}
+
+	/**
+	 * Returns the number of shards.
+	 */
+	public int size() {
+		return ring.size();
+	}
+
+	/**
+	 * Returns the collation the shards order text by.
+	 */
+	public Collation collation() {
+		return collation;
+	}
+
+	/**
+	 * Finds the shard an employee belongs to.
+	 *
+	 * @param email the email of the employee
+	 * @return the index of the owning shard
+	 */
+	public int ownerOf(String email) {
+		return ring.ownerOf(email);
+	}
+
+	/**
+	 * Runs a call once on every shard, in parallel.
+	 *
+	 * @param call the call, given the index of the shard it runs on
+	 * @param <T>  the type of the results
+	 * @return the result of every shard, in shard order
+	 * @throws RuntimeException the exception of the first failed shard, once every shard has finished
+	 */
+	public <T> List<T> fanOut(IntFunction<T> call) {
+		if (ring.size() == 1)
+			return Collections.singletonList(on(0, () -> call.apply(0)));
+
+		List<Future<T>> futures = new ArrayList<>(ring.size());
+		for (int shard = 0; shard < ring.size(); shard++) {
+			int index = shard;
+			futures.add(executor.submit(() -> on(index, () -> call.apply(index))));
+		}
+
+		return join(futures);
+	}
+
+	/**
+	 * Splits items by the shard they belong to and runs a call once on every shard owning some, in parallel.
+	 *
+	 * @param items   the items
+	 * @param emailOf the function giving the email an item belongs to
+	 * @param call    the call, given the index of the shard it runs on and the items of that shard, in their original order
+	 * @param <I>     the type of the items
+	 * @param <T>     the type of the results
+	 * @return the result of every shard owning items, keyed by shard index
+	 * @throws RuntimeException the exception of the first failed shard, once every shard has finished
+	 */
+	public <I, T> Map<Integer, T> forEachOwner(Collection<I> items, Function<I, String> emailOf, BiFunction<Integer, List<I>, T> call) {
+		Map<Integer, List<I>> parts = new TreeMap<>();
+		items.forEach(item -> parts.computeIfAbsent(ring.ownerOf(emailOf.apply(item)), shard -> new ArrayList<>()).add(item));
+
+		Map<Integer, T> results = new HashMap<>();
+		if (ring.size() == 1) {
+			parts.forEach((shard, part) -> results.put(shard, on(shard, () -> call.apply(shard, part))));
+			return results;
+		}
+
+		List<Future<T>> futures = new ArrayList<>(parts.size());
+		parts.forEach((shard, part) -> futures.add(executor.submit(() -> on(shard, () -> call.apply(shard, part)))));
+
+		Iterator<T> values = join(futures).iterator();
+		parts.keySet().forEach(shard -> results.put(shard, values.next()));
+		return results;
+	}
+
+	/**
+	 * Stops the fan-out threads.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	/**
+	 * Waits for every future and returns their results, or throws the exception of the first failed one.
+	 */
+	private static <T> List<T> join(List<Future<T>> futures) {
+		List<T> results = new ArrayList<>(futures.size());
+		Throwable failure = null;
+
+		for (Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				if (failure == null)
+					failure = e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (failure == null)
+					failure = e;
+			}
+		}
+
+		if (failure instanceof RuntimeException runtimeException)
+			throw runtimeException;
+		if (failure instanceof Error error)
+			throw error;
+		if (failure != null)
+			throw new IllegalStateException("A shard could not be queried.", failure);
+		return results;
+	}
+
+	/**
+	 * Creates the pool of daemon threads querying the shards. Every caller holds its own thread while it waits for the
+	 * shards, so the queue is unbounded: callers are already bounded by the blocking executor.
+	 */
+	private static ExecutorService fanOutExecutor(int threads) {
+		AtomicInteger count = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+			Thread thread = new Thread(task, "shard-fan-out-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
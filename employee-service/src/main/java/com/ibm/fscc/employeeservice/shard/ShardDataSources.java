@@ -0,0 +1,55 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The connection pools of the shards: the pool of {@code spring.datasource}, shard 0, followed by the pools of the
+ * shards listed under {@code employee.datasource.shards}, which are closed with the application context.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+	private final DataSource first;
+	private final List<HikariDataSource> others;
+
+	/**
+	 * Holds the pools.
+	 *
+	 * @param first  the pool of shard 0, a bean of its own
+	 * @param others the pools of the other shards, in shard order
+	 */
+	public ShardDataSources(DataSource first, List<HikariDataSource> others) {
+		this.first = first;
+		this.others = List.copyOf(others);
+	}
+
+	/**
+	 * Returns the pool of every shard.
+	 *
+	 * @return the pools, in shard order
+	 */
+	public List<DataSource> getDataSources() {
+		List<DataSource> dataSources = new ArrayList<>(size());
+		dataSources.add(first);
+		dataSources.addAll(others);
+		return dataSources;
+	}
+
+	/**
+	 * Returns the number of shards.
+	 */
+	public int size() {
+		return others.size() + 1;
+	}
+
+	/**
+	 * Closes the pools of the shards after the first.
+	 */
+	@Override
+	public void close() {
+		others.forEach(HikariDataSource::close);
+	}
+}
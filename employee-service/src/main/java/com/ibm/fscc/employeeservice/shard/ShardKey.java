@@ -0,0 +1,18 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the repository method parameter naming the employee a call works on, an email or an
+ * {@link com.ibm.fscc.employeeservice.model.Employee}: the call then runs on the shard of that employee only.
+ * Calls of methods without one run on every shard, see {@link ShardingRepositoryInterceptor}.
+ */
+@Documented
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
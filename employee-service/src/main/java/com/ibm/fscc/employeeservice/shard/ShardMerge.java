@@ -0,0 +1,134 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Merges the sorted results of the shards into one sorted result.
+ * <p>
+ * Every shard returns its rows in the requested order, so the merge only compares the head rows of the shards and
+ * reads each shard as far as needed. Text is compared in the {@link Collation} of the shards, which their order
+ * follows. A row caught moving between shards by the {@link ShardRebalancer} may be returned by both; only its first
+ * copy is kept.
+ */
+public final class ShardMerge {
+
+	private ShardMerge() {
+	}
+
+	/**
+	 * Merges sorted pages, skipping and limiting the merged rows as the query of a single database would.
+	 *
+	 * @param pages   the rows of every shard, each sorted and holding at least {@code offset + limit} rows unless exhausted
+	 * @param order   the order of the rows
+	 * @param emailOf the function giving the email of a row
+	 * @param offset  the number of merged rows to skip
+	 * @param limit   the maximum number of rows to return
+	 * @param <T>     the type of the rows
+	 * @return the merged rows
+	 */
+	public static <T> List<T> merge(List<? extends List<T>> pages, Comparator<? super T> order, Function<T, String> emailOf,
+			long offset, int limit) {
+		List<Iterator<T>> sources = new ArrayList<>(pages.size());
+		pages.forEach(page -> sources.add(page.iterator()));
+
+		Iterator<T> merged = merge(sources, order, emailOf);
+		List<T> rows = new ArrayList<>(Math.min(limit, pages.stream().mapToInt(List::size).sum()));
+
+		for (long skipped = 0; skipped < offset && merged.hasNext(); skipped++)
+			merged.next();
+		while (rows.size() < limit && merged.hasNext())
+			rows.add(merged.next());
+
+		return rows;
+	}
+
+	/**
+	 * Merges sorted sources lazily, reading the next row of a source only once its previous row was returned.
+	 *
+	 * @param sources the rows of every shard, each sorted
+	 * @param order   the order of the rows
+	 * @param emailOf the function giving the email of a row
+	 * @param <T>     the type of the rows
+	 * @return an {@link Iterator} over the merged rows
+	 */
+	public static <T> Iterator<T> merge(List<? extends Iterator<T>> sources, Comparator<? super T> order, Function<T, String> emailOf) {
+		return new Iterator<>() {
+
+			private final PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+					Comparator.<Head<T>, T>comparing(head -> head.row, order).thenComparingInt(head -> head.source));
+			private String lastEmail;
+			private T next;
+
+			{
+				for (int i = 0; i < sources.size(); i++)
+					advance(i);
+			}
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && !heads.isEmpty()) {
+					Head<T> head = heads.poll();
+					advance(head.source);
+
+					String email = emailOf.apply(head.row);
+					if (!email.equals(lastEmail)) {
+						lastEmail = email;
+						next = head.row;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				T row = next;
+				next = null;
+				return row;
+			}
+
+			private void advance(int source) {
+				if (sources.get(source).hasNext())
+					heads.add(new Head<>(sources.get(source).next(), source));
+			}
+		};
+	}
+
+	/**
+	 * Builds the comparator of a {@link Sort} over bean properties, comparing text in the given collation and placing
+	 * {@code null} first in ascending order and last in descending order, as MySQL does.
+	 *
+	 * @param sort      the {@link Sort}
+	 * @param collation the {@link Collation} of the text properties
+	 * @param <T>       the type of the beans
+	 * @return the {@link Comparator}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Comparator<T> comparatorOf(Sort sort, Collation collation) {
+		Comparator<T> comparator = (left, right) -> 0;
+		Comparator<Object> values = (left, right) -> left instanceof String text && right instanceof String other
+				? collation.comparator().compare(text, other) : ((Comparable<Object>) left).compareTo(right);
+
+		for (Sort.Order order : sort) {
+			Comparator<T> byProperty = Comparator.comparing(bean -> propertyOf(bean, order.getProperty()),
+					Comparator.nullsFirst(values));
+			comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+		}
+
+		return comparator;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Comparable<Object> propertyOf(Object bean, String property) {
+		return (Comparable<Object>) new BeanWrapperImpl(bean).getPropertyValue(property);
+	}
+
+	private record Head<T>(T row, int source) {
+	}
+}
@@ -0,0 +1,243 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ibm.fscc.employeeservice.model.Employee;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves employees onto the shard their email hashes to, online, after shards were added.
+ * <p>
+ * A new shard takes over part of the emails of the existing shards, whose employees are still stored on their former
+ * shard. A rebalancing pass scans every shard in email order, in batches of {@code employee.datasource.rebalance.batch-size},
+ * and moves the employees it does not own to their owner: each is copied, unless the owner already holds a newer copy,
+ * then deleted from the former shard, so that it is never missing from both. While a pass runs, every call naming
+ * employees first moves them onto their shard, so that reads find them and writes are not overwritten by a later move;
+ * an employee found in place is not looked for again during the pass. Moves of one employee are serialized within
+ * this instance, so every instance must run with the new shard list before a pass starts.
+ * <p>
+ * A pass runs on startup when {@code employee.datasource.rebalance.on-startup} is set, or on demand from
+ * {@code /actuator/shards}. Moved employees are counted by {@code employee.datasource.rebalance.moved}.
+ */
+@Slf4j
+@Component
+public class ShardRebalancer {
+
+	private static final String SELECT = "SELECT email, firstName, lastName, address, state, zip, cellPhone, homePhone, version FROM Employee ";
+	private static final String INSERT_IGNORE = "INSERT IGNORE INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final RowMapper<Employee> EMPLOYEE_ROW_MAPPER = (row, rowNumber) -> new Employee(
+			row.getString(1), row.getString(2), row.getString(3), row.getString(4),
+			row.getString(5), row.getString(6), row.getString(7), row.getString(8), row.getLong(9));
+
+	private final EmployeeShards employeeShards;
+	private final List<NamedParameterJdbcTemplate> shards = new ArrayList<>();
+	private final int batchSize;
+	private final boolean onStartup;
+	private final Object[] locks = new Object[256];
+	private final Cache<String, Boolean> settled = Caffeine.newBuilder().maximumSize(100_000).build();
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final AtomicLong scanned = new AtomicLong();
+	private final AtomicLong movedInPass = new AtomicLong();
+	private final Counter moved;
+
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile String failure;
+
+	/**
+	 * Constructs the rebalancer. With {@code onStartup}, calls naming employees move them from the start, before the
+	 * pass itself starts with the application.
+	 *
+	 * @param employeeShards   the {@link EmployeeShards} placing the employees
+	 * @param shardDataSources the pools of the shards
+	 * @param meterRegistry    the {@link MeterRegistry} to count the moved employees in
+	 * @param batchSize        the number of employees scanned per query
+	 * @param onStartup        whether a pass runs once the application has started
+	 */
+	public ShardRebalancer(EmployeeShards employeeShards, ShardDataSources shardDataSources, MeterRegistry meterRegistry,
+			@Value("${employee.datasource.rebalance.batch-size}") int batchSize,
+			@Value("${employee.datasource.rebalance.on-startup}") boolean onStartup) {
+		this.employeeShards = employeeShards;
+		shardDataSources.getDataSources().forEach(dataSource -> shards.add(new NamedParameterJdbcTemplate(dataSource)));
+		this.batchSize = batchSize;
+		this.onStartup = onStartup && employeeShards.size() > 1;
+		this.moved = Counter.builder("employee.datasource.rebalance.moved").register(meterRegistry);
+
+		for (int i = 0; i < locks.length; i++)
+			locks[i] = new Object();
+		running.set(this.onStartup);
+	}
+
+	/**
+	 * Starts the pass requested by {@code employee.datasource.rebalance.on-startup}.
+	 */
+	@EventListener(ApplicationStartedEvent.class)
+	public void startOnStartup() {
+		if (onStartup)
+			launch();
+	}
+
+	/**
+	 * Starts a pass in the background, unless one is running.
+	 *
+	 * @return {@code true} if a pass was started
+	 */
+	public boolean start() {
+		if (employeeShards.size() == 1 || !running.compareAndSet(false, true))
+			return false;
+
+		launch();
+		return true;
+	}
+
+	/**
+	 * Tells whether a pass is running, during which calls naming employees must first move them onto their shard.
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	/**
+	 * Moves an employee onto its shard if it is stored on another one.
+	 *
+	 * @param email the email of the employee
+	 */
+	public void moveToOwner(String email) {
+		moveToOwners(List.of(email));
+	}
+
+	/**
+	 * Moves employees onto their shard if they are stored on another one, looking for them on every shard in parallel.
+	 *
+	 * @param emails the emails of the employees
+	 */
+	public void moveToOwners(Collection<String> emails) {
+		List<String> unsettled = emails.stream().distinct().filter(email -> settled.getIfPresent(email) == null).toList();
+		if (unsettled.isEmpty())
+			return;
+
+		employeeShards.fanOut(shard -> {
+			List<String> elsewhere = unsettled.stream().filter(email -> employeeShards.ownerOf(email) != shard).toList();
+
+			for (int from = 0; from < elsewhere.size(); from += batchSize) {
+				List<String> chunk = elsewhere.subList(from, Math.min(from + batchSize, elsewhere.size()));
+				shards.get(shard).queryForList("SELECT email FROM Employee WHERE email IN (:emails)", Map.of("emails", chunk), String.class)
+						.forEach(email -> move(email, shard));
+			}
+			return null;
+		});
+
+		unsettled.forEach(email -> settled.put(email, true));
+	}
+
+	/**
+	 * Describes the shards and the last pass.
+	 *
+	 * @return the number of shards, the number of employees stored on every shard and the progress of the last pass
+	 */
+	public Map<String, Object> describe() {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("shards", employeeShards.size());
+		description.put("employees", employeeShards.fanOut(shard -> shards.get(shard).getJdbcTemplate()
+				.queryForObject("SELECT COUNT(*) FROM Employee", Long.class)));
+		description.put("rebalancing", running.get());
+		description.put("startedAt", startedAt);
+		description.put("finishedAt", finishedAt);
+		description.put("scanned", scanned.get());
+		description.put("moved", movedInPass.get());
+		description.put("failure", failure);
+		return description;
+	}
+
+	private void launch() {
+		Thread thread = new Thread(this::rebalance, "shard-rebalancer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Runs a pass, scanning the shards in parallel.
+	 */
+	private void rebalance() {
+		startedAt = Instant.now();
+		finishedAt = null;
+		settled.invalidateAll();
+		failure = null;
+		scanned.set(0);
+		movedInPass.set(0);
+		log.info("Rebalancing {} shards", employeeShards.size());
+
+		try {
+			employeeShards.fanOut(shard -> {
+				scan(shard);
+				return null;
+			});
+			log.info("Rebalanced {} shards: scanned {} employees and moved {}", employeeShards.size(), scanned.get(), movedInPass.get());
+		} catch (RuntimeException e) {
+			failure = e.toString();
+			log.error("Rebalancing stopped after scanning {} employees and moving {}", scanned.get(), movedInPass.get(), e);
+		} finally {
+			finishedAt = Instant.now();
+			settled.invalidateAll();
+			running.set(false);
+		}
+	}
+
+	/**
+	 * Moves every employee a shard does not own to its owner, scanning the shard in keyset batches ordered by email.
+	 */
+	private void scan(int shard) {
+		String after = "";
+		List<String> emails;
+
+		do {
+			emails = shards.get(shard).getJdbcTemplate().queryForList("SELECT email FROM Employee WHERE email > ? ORDER BY email LIMIT ?",
+					String.class, after, batchSize);
+			scanned.addAndGet(emails.size());
+
+			for (String email : emails)
+				if (employeeShards.ownerOf(email) != shard)
+					move(email, shard);
+
+			if (!emails.isEmpty())
+				after = emails.get(emails.size() - 1);
+		} while (emails.size() == batchSize);
+	}
+
+	/**
+	 * Copies an employee to its owner, unless the owner already holds it, then deletes it from the shard it was found on.
+	 */
+	private void move(String email, int from) {
+		int to = employeeShards.ownerOf(email);
+
+		synchronized (locks[Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), locks.length)]) {
+			List<Employee> found = shards.get(from).getJdbcTemplate().query(SELECT + "WHERE email = ?", EMPLOYEE_ROW_MAPPER, email);
+			if (found.isEmpty())
+				return;
+
+			Employee employee = found.get(0);
+			shards.get(to).getJdbcTemplate().update(INSERT_IGNORE, employee.getEmail(), employee.getFirstName(), employee.getLastName(),
+					employee.getAddress(), employee.getState(), employee.getZip(), employee.getCellPhone(), employee.getHomePhone(),
+					employee.getVersion());
+			shards.get(from).getJdbcTemplate().update("DELETE FROM Employee WHERE email = ?", email);
+		}
+
+		moved.increment();
+		movedInPass.incrementAndGet();
+	}
+}
@@ -0,0 +1,74 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring placing emails on shards.
+ * <p>
+ * Every shard owns {@code virtualNodes} points of the ring, hashed from its stable name, {@code shard-<index>}, and an
+ * email belongs to the shard owning the first point at or after the hash of the email. Adding a shard therefore only
+ * takes emails over from the existing shards, about {@code 1 / shards} of them, and never moves an email between two
+ * existing shards.
+ */
+public class ShardRing {
+
+	private final TreeMap<Long, Integer> points = new TreeMap<>();
+	private final int shards;
+
+	/**
+	 * Builds the ring.
+	 *
+	 * @param shards       the number of shards
+	 * @param virtualNodes the number of points of every shard; more points spread the emails more evenly
+	 */
+	public ShardRing(int shards, int virtualNodes) {
+		if (shards < 1 || virtualNodes < 1)
+			throw new IllegalArgumentException("A shard ring needs at least one shard and one virtual node per shard.");
+
+		for (int shard = 0; shard < shards; shard++)
+			for (int node = 0; node < virtualNodes; node++)
+				points.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+
+		this.shards = shards;
+	}
+
+	/**
+	 * Returns the number of shards on the ring.
+	 */
+	public int size() {
+		return shards;
+	}
+
+	/**
+	 * Finds the shard an email belongs to. Emails are placed regardless of case, as the database compares them.
+	 *
+	 * @param email the email
+	 * @return the index of the owning shard
+	 */
+	public int ownerOf(String email) {
+		if (shards == 1)
+			return 0;
+
+		Map.Entry<Long, Integer> point = points.ceilingEntry(hash(email.toLowerCase(Locale.ROOT)));
+		return (point == null ? points.firstEntry() : point).getValue();
+	}
+
+	/**
+	 * Hashes a key onto the ring with the first 64 bits of its MD5 digest, which are evenly spread and stable across
+	 * JVMs and releases, unlike {@link String#hashCode()}.
+	 */
+	private static long hash(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+			return ByteBuffer.wrap(digest).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 is not available.", e);
+		}
+	}
+}
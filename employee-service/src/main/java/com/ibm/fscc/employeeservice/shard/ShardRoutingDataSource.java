@@ -0,0 +1,49 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DataSource} sending every connection to the shard of the current thread, see {@link EmployeeShards#on}.
+ * <p>
+ * The shard is chosen when a connection is taken, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: a transaction then takes its connection at
+ * its first statement, once the email it works on has picked the shard. Connections taken are counted by
+ * {@code employee.datasource.connections}, tagged {@code target=shard-<index>}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	private final List<Counter> connections = new ArrayList<>();
+
+	/**
+	 * Constructs the routing data source.
+	 *
+	 * @param shards        the pools of the shards, in shard order
+	 * @param meterRegistry the {@link MeterRegistry} to count the connections taken in
+	 */
+	public ShardRoutingDataSource(List<DataSource> shards, MeterRegistry meterRegistry) {
+		Map<Object, Object> targets = new HashMap<>();
+		for (int i = 0; i < shards.size(); i++) {
+			targets.put(i, shards.get(i));
+			connections.add(Counter.builder("employee.datasource.connections").tag("target", "shard-" + i).register(meterRegistry));
+		}
+
+		setTargetDataSources(targets);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		int shard = EmployeeShards.current();
+		connections.get(shard).increment();
+		return shard;
+	}
+}
@@ -0,0 +1,43 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+/**
+ * Hibernate {@link Integrator} applying the schema action of {@code spring.jpa.hibernate.ddl-auto} to every shard after
+ * the first, which Hibernate itself manages through the routing data source. Schemas dropped on shutdown by
+ * {@code create-drop} are only dropped on the first shard.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+
+	private final int shards;
+
+	/**
+	 * Constructs the integrator.
+	 *
+	 * @param shards the number of shards
+	 */
+	public ShardSchemaIntegrator(int shards) {
+		this.shards = shards;
+	}
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+		for (int shard = 1; shard < shards; shard++)
+			EmployeeShards.on(shard, () -> {
+				SchemaManagementToolCoordinator.process(metadata, bootstrapContext.getServiceRegistry(),
+						bootstrapContext.getServiceRegistry().requireService(ConfigurationService.class).getSettings(), action -> {
+						});
+				return null;
+			});
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+	}
+}
@@ -0,0 +1,203 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import com.ibm.fscc.employeeservice.model.Employee;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Spreads the calls of {@link com.ibm.fscc.employeeservice.repository.EmployeeRepository} over the shards.
+ * <p>
+ * A call naming an employee, through its {@link ShardKey} parameter or an {@link Employee} argument, runs on the shard
+ * of that employee, in the caller's transaction; a transaction therefore works on a single shard, and a call for an
+ * employee of another shard than the one the transaction already uses fails. Any other call is a query of the whole
+ * store: it runs on every shard in parallel, each on a thread and connection of its own, and the results are merged.
+ * Pages ordered by email ({@code findPageAfter}) and searches ({@code search}) are merged in their order, comparing
+ * text in the {@link Collation} of the shards, every shard returning the rows up to the end of the requested page;
+ * other queries have their lists concatenated, their counts summed and their optional results reduced to the first
+ * one found. Writes naming no employee are refused.
+ * <p>
+ * With a single shard, calls go straight through.
+ */
+public class ShardingRepositoryInterceptor implements MethodInterceptor {
+
+	private static final Object TRANSACTION_SHARD = new Object();
+
+	private final Supplier<EmployeeShards> employeeShards;
+	private final Supplier<ShardRebalancer> shardRebalancer;
+	private final Map<Method, Integer> keyParameters = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs the interceptor.
+	 *
+	 * @param employeeShards  the {@link EmployeeShards}, looked up at the first call
+	 * @param shardRebalancer the {@link ShardRebalancer} moving employees onto their shard, looked up at the first call
+	 */
+	public ShardingRepositoryInterceptor(Supplier<EmployeeShards> employeeShards, Supplier<ShardRebalancer> shardRebalancer) {
+		this.employeeShards = employeeShards;
+		this.shardRebalancer = shardRebalancer;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		EmployeeShards shards = employeeShards.get();
+		if (shards.size() == 1)
+			return invocation.proceed();
+
+		String email = keyOf(invocation.getMethod(), invocation.getArguments());
+		return email != null ? onOwner(shards, email, invocation) : onEveryShard(shards, invocation);
+	}
+
+	/**
+	 * Runs a call on the shard of the employee it names, once the {@link ShardRebalancer} made sure the employee is there.
+	 */
+	private Object onOwner(EmployeeShards shards, String email, MethodInvocation invocation) throws Throwable {
+		ShardRebalancer rebalancer = shardRebalancer.get();
+		if (rebalancer.isRunning())
+			rebalancer.moveToOwner(email);
+
+		int shard = shards.ownerOf(email);
+		joinTransaction(shard, email);
+
+		Integer previous = EmployeeShards.enter(shard);
+		try {
+			return invocation.proceed();
+		} finally {
+			EmployeeShards.leave(previous);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object onEveryShard(EmployeeShards shards, MethodInvocation invocation) {
+		Method method = invocation.getMethod();
+		Object target = invocation.getThis();
+		Object[] arguments = invocation.getArguments();
+
+		switch (method.getName()) {
+			case "findPageAfter" -> {
+				List<List<Object>> pages = shards.fanOut(shard -> (List<Object>) call(method, target, arguments));
+				Comparator<Object> byEmail = Comparator.comparing(ShardingRepositoryInterceptor::emailOf, shards.collation().comparator());
+				return ShardMerge.merge(pages, byEmail, ShardingRepositoryInterceptor::emailOf, 0, (Integer) arguments[1]);
+			}
+			case "search" -> {
+				Sort sort = (Sort) arguments[1];
+				long offset = (Long) arguments[2];
+				int limit = (Integer) arguments[3];
+
+				// The page may start anywhere in the rows of every shard, so each returns all of its rows up to the page end
+				Object[] upToPageEnd = {arguments[0], sort, 0L, Math.toIntExact(offset + limit)};
+				List<List<Object>> pages = shards.fanOut(shard -> (List<Object>) call(method, target, upToPageEnd));
+				return ShardMerge.merge(pages, ShardMerge.comparatorOf(sort, shards.collation()), ShardingRepositoryInterceptor::emailOf,
+						offset, limit);
+			}
+			default -> {
+				if (!method.getName().startsWith("find") && !method.getName().startsWith("count") && !method.getName().startsWith("exists"))
+					throw new UnsupportedOperationException(method.getName() + " names no employee and cannot run on every shard.");
+
+				return combine(method.getReturnType(), shards.fanOut(shard -> call(method, target, arguments)));
+			}
+		}
+	}
+
+	/**
+	 * Finds the email a call works on.
+	 *
+	 * @return the email of the {@link ShardKey} parameter or first {@link Employee} argument, or {@code null} if there is none
+	 */
+	private String keyOf(Method method, Object[] arguments) {
+		int index = keyParameters.computeIfAbsent(method, ShardingRepositoryInterceptor::keyParameterOf);
+
+		if (index >= 0)
+			return arguments[index] instanceof Employee employee ? employee.getEmail() : (String) arguments[index];
+
+		for (Object argument : arguments)
+			if (argument instanceof Employee employee)
+				return employee.getEmail();
+		return null;
+	}
+
+	private static int keyParameterOf(Method method) {
+		for (int i = 0; i < method.getParameterCount(); i++)
+			if (method.getParameters()[i].isAnnotationPresent(ShardKey.class))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Ties the transaction of the current thread, if any, to the shard it first works on, and refuses calls for another.
+	 * Within a transaction, or a transactional scope without one, the connection taken for the first call is reused
+	 * by the next, so a call for an employee of another shard would otherwise read or write the wrong database.
+	 */
+	private static void joinTransaction(int shard, String email) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			return;
+
+		Integer bound = (Integer) TransactionSynchronizationManager.getResource(TRANSACTION_SHARD);
+		if (bound == null) {
+			TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void suspend() {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+				}
+
+				@Override
+				public void resume() {
+					TransactionSynchronizationManager.bindResource(TRANSACTION_SHARD, shard);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_SHARD);
+				}
+			});
+		} else if (bound != shard) {
+			throw new IllegalStateException("Employee " + email + " lives on shard " + shard
+					+ " but the transaction already works on shard " + bound + "; a transaction cannot span shards.");
+		}
+	}
+
+	private static Object call(Method method, Object target, Object[] arguments) {
+		try {
+			return AopUtils.invokeJoinpointUsingReflection(target, method, arguments);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new UndeclaredThrowableException(e);
+		}
+	}
+
+	/**
+	 * Combines the results of a query run on every shard according to its return type.
+	 */
+	private static Object combine(Class<?> type, List<Object> results) {
+		if (type == Optional.class)
+			return results.stream().map(Optional.class::cast).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+
+		if (Iterable.class.isAssignableFrom(type)) {
+			List<Object> rows = new ArrayList<>();
+			results.forEach(result -> ((Iterable<?>) result).forEach(rows::add));
+			return rows;
+		}
+
+		if (type == long.class || type == Long.class)
+			return results.stream().mapToLong(result -> (Long) result).sum();
+		if (type == boolean.class || type == Boolean.class)
+			return results.contains(true);
+
+		throw new UnsupportedOperationException("Results of type " + type.getName() + " cannot be combined across shards.");
+	}
+
+	private static String emailOf(Object row) {
+		return row instanceof Employee employee ? employee.getEmail() : (String) ((Map<?, ?>) row).get("email");
+	}
+}
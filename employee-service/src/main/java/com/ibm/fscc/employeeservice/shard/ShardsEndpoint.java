@@ -0,0 +1,42 @@
+package com.ibm.fscc.employeeservice.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint, {@code /actuator/shards}, describing the shards and starting rebalancing passes: a {@code POST}
+ * starts a pass unless one is running.
+ */
+@Component
+@Endpoint(id = "shards")
+@RequiredArgsConstructor
+public class ShardsEndpoint {
+
+	private final ShardRebalancer shardRebalancer;
+
+	/**
+	 * Serves the description of the shards.
+	 *
+	 * @return the description, see {@link ShardRebalancer#describe()}
+	 */
+	@ReadOperation
+	public Map<String, Object> shards() {
+		return shardRebalancer.describe();
+	}
+
+	/**
+	 * Starts a rebalancing pass.
+	 *
+	 * @return the description of the shards, telling whether the pass is running
+	 */
+	@WriteOperation
+	public Map<String, Object> rebalance() {
+		shardRebalancer.start();
+		return shardRebalancer.describe();
+	}
+}
@@ -0,0 +1,123 @@
+package com.ibm.fscc.employeeservice.util;
+
+import com.ibm.fscc.employeeservice.routing.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking calls, such as JPA backed service calls, off the Netty event loops, so that the event loops only
+ * multiplex I/O. Calls run on a bounded scheduler of at most {@code employee.blocking.thread-cap} threads, which
+ * should not exceed the connection pool, and at most {@code employee.blocking.queue-cap} calls wait for a thread;
+ * calls beyond that are rejected rather than queued without bound.
+ * <p>
+ * Published metrics, tagged {@code executor=blocking}:
+ * {@code blocking.queue.depth} (calls waiting for a thread), {@code blocking.active} (calls running),
+ * {@code blocking.wait} (time from submission to start), {@code blocking.execution} (time running) and
+ * {@code blocking.rejected} (calls rejected because the queue was full).
+ */
+@Component
+public class BlockingExecutor {
+
+	private final Scheduler scheduler;
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+	private final Timer waitTimer;
+	private final Timer executionTimer;
+	private final Counter rejected;
+
+	/**
+	 * Constructs the executor and registers its metrics.
+	 *
+	 * @param meterRegistry the {@link MeterRegistry} to publish the executor metrics to
+	 * @param threadCap     the maximum number of threads running blocking calls
+	 * @param queueCap      the maximum number of calls waiting for a thread
+	 */
+	public BlockingExecutor(MeterRegistry meterRegistry,
+			@Value("${employee.blocking.thread-cap}") int threadCap,
+			@Value("${employee.blocking.queue-cap}") int queueCap) {
+		this.scheduler = Schedulers.newBoundedElastic(threadCap, queueCap, "blocking");
+
+		Gauge.builder("blocking.queue.depth", queued, AtomicInteger::get).tag("executor", "blocking").register(meterRegistry);
+		Gauge.builder("blocking.active", active, AtomicInteger::get).tag("executor", "blocking").register(meterRegistry);
+		this.waitTimer = Timer.builder("blocking.wait").tag("executor", "blocking").publishPercentiles(0.5, 0.99).register(meterRegistry);
+		this.executionTimer = Timer.builder("blocking.execution").tag("executor", "blocking").publishPercentiles(0.5, 0.99).register(meterRegistry);
+		this.rejected = Counter.builder("blocking.rejected").tag("executor", "blocking").register(meterRegistry);
+	}
+
+	/**
+	 * Runs a blocking call on the bounded scheduler, on behalf of the caller held in the Reactor context under
+	 * {@link ReadYourWrites#CALLER}, if any.
+	 *
+	 * @param call the blocking call
+	 * @param <T>  the type of the result
+	 * @return a {@link Mono} emitting the result of the call on a scheduler thread, or failing with a
+	 *         {@link RejectedExecutionException} if too many calls are waiting
+	 */
+	public <T> Mono<T> call(Callable<T> call) {
+		return Mono.deferContextual(context -> {
+			String caller = context.getOrDefault(ReadYourWrites.CALLER, null);
+			long submitted = System.nanoTime();
+			AtomicBoolean started = new AtomicBoolean();
+			queued.incrementAndGet();
+
+			return Mono.fromCallable(() -> {
+						if (started.compareAndSet(false, true))
+							queued.decrementAndGet();
+						long start = System.nanoTime();
+						waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+
+						active.incrementAndGet();
+						try {
+							return ReadYourWrites.withCaller(caller, call);
+						} finally {
+							active.decrementAndGet();
+							executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+						}
+					})
+					.subscribeOn(scheduler)
+					.doOnError(RejectedExecutionException.class, e -> rejected.increment())
+					// Calls cancelled or rejected before they started leave the queue here
+					.doFinally(signal -> {
+						if (started.compareAndSet(false, true))
+							queued.decrementAndGet();
+					});
+		});
+	}
+
+	/**
+	 * Runs a blocking call answering a request on the bounded scheduler, answering 503 with a {@code Retry-After}
+	 * header instead when too many calls are waiting.
+	 *
+	 * @param call the blocking call
+	 * @return a {@link Mono} emitting the response of the call, or a 503 response without a body
+	 */
+	public Mono<ResponseEntity<?>> respond(Callable<ResponseEntity<?>> call) {
+		return call(call).onErrorResume(RejectedExecutionException.class,
+				e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build()));
+	}
+
+	/**
+	 * Stops the scheduler threads.
+	 */
+	@PreDestroy
+	public void dispose() {
+		scheduler.dispose();
+	}
+}
@@ -0,0 +1,131 @@
+package com.ibm.fscc.employeeservice.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 CSV parser for UTF-8 input that arrives in arbitrary chunks.
+ * Each call to {@link #read(byte[])} returns the records completed by that chunk; characters split across
+ * chunks and quoted fields spanning chunks or lines are carried over to the next call. Blank lines are skipped.
+ * Instances are stateful and not thread-safe: use one per input.
+ */
+public class CsvRecordReader {
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private ByteBuffer pending = ByteBuffer.allocate(0);
+	private List<String> record = new ArrayList<>();
+	private final StringBuilder field = new StringBuilder();
+	private boolean quoted;
+	private boolean quoteInQuoted;
+	private boolean fieldStarted;
+
+	/**
+	 * Parses the next chunk of input.
+	 *
+	 * @param chunk the bytes following those of the previous call
+	 * @return the records completed within this chunk, each as its list of field values
+	 */
+	public List<List<String>> read(byte[] chunk) {
+		ByteBuffer input = ByteBuffer.allocate(pending.remaining() + chunk.length);
+		input.put(pending).put(chunk).flip();
+
+		CharBuffer chars = CharBuffer.allocate((int) (input.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+		decoder.decode(input, chars, false);
+
+		// Keep the bytes of a character cut off at the end of the chunk
+		pending = input.slice();
+
+		return parse(chars.flip());
+	}
+
+	/**
+	 * Ends the input, completing the last record if it was not terminated by a line break.
+	 *
+	 * @return the last record, or no record if the input ended with a line break
+	 */
+	public List<List<String>> finish() {
+		CharBuffer chars = CharBuffer.allocate(pending.remaining() + 1);
+		decoder.decode(pending, chars, true);
+		decoder.flush(chars);
+		pending = ByteBuffer.allocate(0);
+
+		List<List<String>> records = parse(chars.flip());
+		if (fieldStarted || !record.isEmpty())
+			records.add(endRecord());
+
+		return records;
+	}
+
+	private List<List<String>> parse(CharBuffer chars) {
+		List<List<String>> records = new ArrayList<>();
+
+		while (chars.hasRemaining()) {
+			char c = chars.get();
+
+			if (quoted) {
+				if (quoteInQuoted) {
+					quoteInQuoted = false;
+					if (c == '"') {
+						field.append('"');
+						continue;
+					}
+					// The quote closed the field, the character belongs to what follows it
+					quoted = false;
+				} else if (c == '"') {
+					quoteInQuoted = true;
+					continue;
+				} else {
+					field.append(c);
+					continue;
+				}
+			}
+
+			switch (c) {
+				case ',' -> endField();
+				case '\n' -> {
+					if (fieldStarted || !record.isEmpty())
+						records.add(endRecord());
+				}
+				case '\r' -> {
+					// Line breaks are \r\n or \n; a bare \r outside quotes is dropped
+				}
+				case '"' -> {
+					quoted = field.isEmpty();
+					fieldStarted = true;
+					if (!quoted)
+						field.append(c);
+				}
+				default -> {
+					field.append(c);
+					fieldStarted = true;
+				}
+			}
+		}
+
+		return records;
+	}
+
+	private void endField() {
+		record.add(field.toString());
+		field.setLength(0);
+		fieldStarted = false;
+	}
+
+	private List<String> endRecord() {
+		endField();
+		quoted = false;
+		quoteInQuoted = false;
+
+		List<String> completed = record;
+		record = new ArrayList<>(completed.size());
+		return completed;
+	}
+}
@@ -0,0 +1,84 @@
+package com.ibm.fscc.employeeservice.util;
+
+import com.ibm.fscc.employeeservice.exception.ErrorResponse;
+import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validates DTOs against their Bean Validation annotations.
+ * It delegates to the application's shared {@link Validator}, which is built once at startup, so constraint
+ * metadata and the compiled {@code @Pattern} expressions are reused by every call instead of being rebuilt per request.
+ */
+@Component
+@RequiredArgsConstructor
+public class DtoValidator {
+
+	private static final Comparator<ConstraintViolation<?>> VIOLATION_ORDER = Comparator
+			.<ConstraintViolation<?>, String>comparing(violation -> violation.getPropertyPath().toString())
+			.thenComparing(violation -> violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName())
+			.thenComparing(ConstraintViolation::getMessage);
+
+	private final Validator validator;
+
+    /**
+     * Validates an object for any invalid data using Bean Validation annotations.
+     *
+     * @param object the {@link Object} to be validated
+     * @param <T>    the type of the object
+     * @throws InvalidDataException if there are any validation errors in the object
+     */
+    public <T> void validate(T object) {
+        Set<ConstraintViolation<T>> violations = validator.validate(object);
+
+        if (!violations.isEmpty())
+            throw new InvalidDataException(new ErrorResponse(toErrorMap(violations)));
+    }
+
+    /**
+     * Validates some properties of a DTO against the constraints the DTO declares on them, without a DTO instance,
+     * so that partial updates only pay for the properties they change.
+     *
+     * @param type   the DTO class declaring the constraints
+     * @param values the values to validate by property name, which must all be properties of the DTO
+     * @param <T>    the type of the DTO
+     * @throws InvalidDataException if there are any validation errors in the values
+     */
+    public <T> void validateValues(Class<T> type, Map<String, ?> values) {
+        Set<ConstraintViolation<T>> violations = new HashSet<>();
+        values.forEach((property, value) -> violations.addAll(validator.validateValue(type, property, value)));
+
+        if (!violations.isEmpty())
+            throw new InvalidDataException(new ErrorResponse(toErrorMap(violations)));
+    }
+
+    /**
+     * Maps constraint violations to an error map keyed by property path, in the order of the paths.
+     * A property breaking several constraints (for example {@code @NotNull} and {@code @NotBlank}) keeps the message of
+     * the constraint whose annotation name sorts first, here {@code @NotBlank}, so the same input always gets the same
+     * message whatever the order the validator reports the violations in.
+     *
+     * @param violations the {@link ConstraintViolation}s to map
+     * @param <T>        the type of the validated object
+     * @return the {@link Map} of property paths to error messages
+     */
+    private static <T> Map<String, String> toErrorMap(Set<ConstraintViolation<T>> violations) {
+        return violations.stream()
+                .sorted(VIOLATION_ORDER)
+                .collect(Collectors.toMap(
+                        violation -> violation.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (first, second) -> first,
+                        LinkedHashMap::new
+                ));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.diagnostics.BlockingCallDetector;
+import com.ibm.fscc.employeeservice.diagnostics.BlockingDiagnosticsConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link BlockingCallDetector} reports blocking calls on non-blocking threads, and only there, starting
+ * with the JDBC connections the {@link BlockingDiagnosticsConfiguration} checks. The other services carry the same
+ * detector, and only check what they wire into it differently.
+ */
+class BlockingCallDetectorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final BlockingCallDetector detector = new BlockingCallDetector(meterRegistry, Duration.ofMillis(5), 10, 20);
+
+	@AfterEach
+	void stop() {
+		detector.stop();
+	}
+
+	@Test
+	void reportsConnectionsTakenOnNonBlockingThreads() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:blocking");
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("blockingCallDetector", detector);
+		DataSource dataSource = (DataSource) BlockingDiagnosticsConfiguration
+				.blockingDataSourcePostProcessor(beanFactory.getBeanProvider(BlockingCallDetector.class))
+				.postProcessAfterInitialization(h2, "dataSource");
+
+		Mono.fromCallable(() -> connect(dataSource)).subscribeOn(Schedulers.boundedElastic()).block(Duration.ofSeconds(10));
+		assertTrue(detector.getReports().isEmpty());
+
+		for (int i = 0; i < 3; i++)
+			Mono.fromCallable(() -> connect(dataSource)).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+
+		List<BlockingCallDetector.Report> reports = detector.getReports();
+		assertEquals(1, reports.size());
+		assertEquals("jdbc", reports.get(0).getOperation());
+		assertEquals(3, reports.get(0).getCount());
+		assertTrue(reports.get(0).getOrigin().startsWith(BlockingCallDetectorTests.class.getName()));
+		assertEquals(3.0, meterRegistry.get("diagnostics.blocking.calls").tag("operation", "jdbc").counter().count());
+	}
+
+	@Test
+	void reportsWritesToSystemOut() {
+		detector.start();
+
+		Mono.fromRunnable(() -> System.out.println("on the event loop")).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+
+		assertTrue(detector.getReports().stream().anyMatch(report -> report.getOperation().equals("System.out")));
+	}
+
+	@Test
+	void samplesThreadsBlockedOnNonBlockingThreads() throws InterruptedException {
+		detector.start();
+
+		Mono.fromCallable(() -> {
+			Thread.sleep(200);
+			return true;
+		}).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+
+		BlockingCallDetector.Report report = detector.getReports().stream()
+				.filter(candidate -> candidate.getOperation().equals("java.lang.Thread.sleep")).findFirst().orElseThrow();
+		// A sleep spanning many samples is a single call
+		assertEquals(1, report.getCount());
+		assertTrue(report.getStack().stream().anyMatch(frame -> frame.contains(BlockingCallDetectorTests.class.getName())));
+	}
+
+	@Test
+	void leavesThreadsComputingInNativeMethodsUnreported() {
+		detector.start();
+
+		Map<Object, Object> map = new ConcurrentHashMap<>(Map.of("key", "value"));
+		long hashes = Mono.fromCallable(() -> {
+			long sum = 0;
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+			while (System.nanoTime() < deadline) {
+				Object object = new Object();
+				sum += System.identityHashCode(object) + map.get("key").hashCode() + new int[] { 1, 2, 3 }.clone().length;
+			}
+			return sum;
+		}).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+
+		assertTrue(hashes != 0);
+		assertTrue(detector.getReports().isEmpty());
+	}
+
+	private static boolean connect(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			return connection.isValid(1);
+		}
+	}
+}
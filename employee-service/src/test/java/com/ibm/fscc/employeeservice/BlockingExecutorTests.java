@@ -0,0 +1,65 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.util.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link BlockingExecutor} runs calls off the caller's thread, bounds its queue and reports it.
+ */
+class BlockingExecutorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final BlockingExecutor blockingExecutor = new BlockingExecutor(meterRegistry, 1, 1);
+
+	@AfterEach
+	void dispose() {
+		blockingExecutor.dispose();
+	}
+
+	@Test
+	void runsCallsOnSchedulerThreads() {
+		String thread = blockingExecutor.call(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(10));
+
+		assertTrue(thread.startsWith("blocking"));
+		assertEquals(1, meterRegistry.get("blocking.execution").timer().count());
+		assertEquals(1, meterRegistry.get("blocking.wait").timer().count());
+	}
+
+	@Test
+	void rejectsCallsBeyondTheQueueWithServiceUnavailable() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<ResponseEntity<?>> first = blockingExecutor.respond(() -> {
+			running.countDown();
+			release.await();
+			return ResponseEntity.ok("first");
+		}).toFuture();
+		assertTrue(running.await(10, TimeUnit.SECONDS));
+
+		CompletableFuture<ResponseEntity<?>> queued = blockingExecutor.respond(() -> ResponseEntity.ok("queued")).toFuture();
+		assertEquals(1.0, meterRegistry.get("blocking.queue.depth").gauge().value());
+		assertEquals(1.0, meterRegistry.get("blocking.active").gauge().value());
+
+		ResponseEntity<?> rejected = blockingExecutor.respond(() -> ResponseEntity.ok("rejected")).block(Duration.ofSeconds(10));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+		assertEquals(1.0, meterRegistry.get("blocking.rejected").counter().count());
+
+		release.countDown();
+		assertEquals("first", first.get(10, TimeUnit.SECONDS).getBody());
+		assertEquals("queued", queued.get(10, TimeUnit.SECONDS).getBody());
+		assertEquals(0.0, meterRegistry.get("blocking.queue.depth").gauge().value());
+	}
+}
@@ -0,0 +1,44 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.shard.Collation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link Collation}s order strings as their databases do.
+ */
+class CollationTests {
+
+	@Test
+	void ordersAsTheMySqlDefaultCollation() {
+		// Punctuation before digits before letters, whatever their codes, and case only breaking ties
+		List<String> expected = List.of("ada lovelace@ibm.com", "ada_lovelace@ibm.com", "ada-lovelace@ibm.com",
+				"ada.lovelace@ibm.com", "ada@ibm.com", "ada+work@ibm.com", "ada1@ibm.com", "ada10@ibm.com", "ADA2@ibm.com",
+				"Adam@ibm.com", "adam@ibm.com", "ADAMS@ibm.com", "grace@ibm.com");
+
+		assertEquals(expected, shuffledAndSorted(expected, Collation.UTF8MB4_0900_AI_CI));
+	}
+
+	@Test
+	void ordersAsAnEmbeddedDatabaseIgnoringCase() {
+		// Characters by code, letters in lower case, so that "_" sorts after "@" but before letters
+		List<String> expected = List.of("ada lovelace@ibm.com", "ada+work@ibm.com", "ada-lovelace@ibm.com",
+				"ada.lovelace@ibm.com", "ada10@ibm.com", "ada1@ibm.com", "ADA2@ibm.com", "ada@ibm.com", "ada_lovelace@ibm.com",
+				"Adam@ibm.com", "adam@ibm.com", "ADAMS@ibm.com", "grace@ibm.com");
+
+		assertEquals(expected, shuffledAndSorted(expected, Collation.IGNORE_CASE));
+	}
+
+	private static List<String> shuffledAndSorted(List<String> strings, Collation collation) {
+		List<String> sorted = new ArrayList<>(strings);
+		Collections.shuffle(sorted, new Random(3));
+		sorted.sort(collation.comparator());
+		return sorted;
+	}
+}
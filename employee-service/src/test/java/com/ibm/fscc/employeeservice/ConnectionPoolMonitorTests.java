@@ -0,0 +1,155 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.pool.ConnectionPoolMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a small pool through bursts and checks the metrics and sizing decisions of the {@link ConnectionPoolMonitor}.
+ * The login service carries the same monitor, and only checks how it is configured there.
+ */
+class ConnectionPoolMonitorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(meterRegistry, true, 1, 4,
+			Duration.ofSeconds(10), Duration.ofMillis(1), 1.5);
+	private final ExecutorService executor = Executors.newFixedThreadPool(6);
+
+	private HikariDataSource dataSource;
+
+	@BeforeEach
+	void createPool() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+		dataSource.setPoolName("pooltest");
+		dataSource.setMaximumPoolSize(2);
+		dataSource.setMinimumIdle(1);
+		monitor.monitor(dataSource);
+	}
+
+	@AfterEach
+	void closePool() {
+		executor.shutdownNow();
+		dataSource.close();
+	}
+
+	@Test
+	void growsWhenRequestsQueueAndShrinksWhenTheDatabaseSlowsDown() throws Exception {
+		// Six threads share two connections, each holding one for 20 ms
+		burst(20);
+		monitor.adjust();
+		assertEquals(3, dataSource.getMaximumPoolSize());
+
+		// The database now answers three times slower: more connections would only add contention
+		burst(60);
+		monitor.adjust();
+		assertEquals(2, dataSource.getMaximumPoolSize());
+
+		// Once quiet, idle connections are given back down to the minimum, and closed rather than kept over it
+		monitor.adjust();
+		monitor.adjust();
+		assertEquals(1, dataSource.getMaximumPoolSize());
+		for (int wait = 0; dataSource.getHikariPoolMXBean().getTotalConnections() > 1 && wait < 50; wait++)
+			Thread.sleep(100);
+		assertTrue(dataSource.getHikariPoolMXBean().getTotalConnections() <= 1);
+
+		@SuppressWarnings("unchecked")
+		List<ConnectionPoolMonitor.Decision> decisions = (List<ConnectionPoolMonitor.Decision>) monitor.describe()
+				.get("pooltest").get("decisions");
+		assertTrue(decisions.get(decisions.size() - 1).reason().startsWith("requests queued for connections"));
+		assertTrue(decisions.get(decisions.size() - 2).reason().startsWith("database response time rose"));
+		assertEquals(2.0, meterRegistry.get("hikaricp.connections.resizes").tag("direction", "shrink").counter().count());
+	}
+
+	@Test
+	void growsAgainAfterALastingSlowdown() throws Exception {
+		dataSource.setConnectionTimeout(250);
+		burst(20);
+		monitor.adjust();
+		assertEquals(3, dataSource.getMaximumPoolSize());
+
+		// The database answers three times slower for good, and the pool shrinks to its minimum
+		burst(60);
+		monitor.adjust();
+		burst(60);
+		monitor.adjust();
+		assertEquals(1, dataSource.getMaximumPoolSize());
+
+		// Requests time out at the minimum size, which grows the pool although the response time is still high
+		assertTrue(burst(60) > 0);
+		monitor.adjust();
+		assertEquals(2, dataSource.getMaximumPoolSize());
+		assertTrue(decisions().get(0).reason().contains("timed out at the minimum size"));
+
+		// The baseline catches up with the new response time, after which queued requests grow the pool further
+		int largest = 0;
+		for (int i = 0; i < 10 && largest < 3; i++) {
+			burst(60);
+			monitor.adjust();
+			largest = Math.max(largest, dataSource.getMaximumPoolSize());
+		}
+		assertEquals(3, largest);
+		assertTrue(decisions().get(0).reason().startsWith("requests queued for connections"));
+	}
+
+	@Test
+	void publishesPoolMetrics() throws Exception {
+		burst(5);
+
+		assertTrue(meterRegistry.get("hikaricp.connections.acquire").tag("pool", "pooltest").timer().count() > 0);
+		assertTrue(meterRegistry.get("hikaricp.connections.usage").tag("pool", "pooltest").timer().count() > 0);
+		assertEquals(2.0, meterRegistry.get("hikaricp.connections.max").tag("pool", "pooltest").gauge().value());
+
+		Map<String, Object> description = monitor.describe().get("pooltest");
+		assertEquals(2, description.get("maximumPoolSize"));
+		assertEquals(0, description.get("active"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ConnectionPoolMonitor.Decision> decisions() {
+		return (List<ConnectionPoolMonitor.Decision>) monitor.describe().get("pooltest").get("decisions");
+	}
+
+	/**
+	 * Has six threads use the pool five times each, holding a connection for the given time.
+	 *
+	 * @return the number of connection requests that timed out
+	 */
+	private int burst(long holdMillis) throws Exception {
+		List<Future<Integer>> futures = new ArrayList<>();
+
+		for (int i = 0; i < 6; i++)
+			futures.add(executor.submit(() -> {
+				int timeouts = 0;
+				for (int j = 0; j < 5; j++)
+					try (Connection connection = dataSource.getConnection()) {
+						connection.createStatement().execute("select 1");
+						Thread.sleep(holdMillis);
+					} catch (SQLTransientConnectionException e) {
+						timeouts++;
+					}
+				return timeouts;
+			}));
+
+		int timeouts = 0;
+		for (Future<Integer> future : futures)
+			timeouts += future.get();
+		return timeouts;
+	}
+}
@@ -0,0 +1,92 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.exception.InvalidDataException;
+import com.ibm.fscc.employeeservice.util.DtoValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the per-call cost of building a validator factory for every validation, as
+ * {@code EmployeeService.validate} used to, with the shared {@link DtoValidator}. Timings depend on the machine, so
+ * the comparison only runs with {@code mvn test -Pbenchmark}; the error map checks run with every build.
+ */
+class DtoValidatorBenchmarkTests {
+
+	private static final int FACTORY_CALLS = 200;
+	private static final int SHARED_VALIDATOR_CALLS = 20_000;
+
+	private final EmployeeDTO employee = new EmployeeDTO("ada.lovelace@ibm.com", "Ada", "Lovelace",
+			"12 Analytical Street", "NY", "10001", "212-555-0100", "212-555-0101");
+
+	@Test
+	@Tag("benchmark")
+	void sharedValidatorIsCheaperPerCall() {
+		try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+			DtoValidator dtoValidator = new DtoValidator(factory.getValidator());
+
+			double perRequestFactoryNanos = nanosPerCall(this::validateWithNewFactory, FACTORY_CALLS);
+			double sharedValidatorNanos = nanosPerCall(() -> dtoValidator.validate(employee), SHARED_VALIDATOR_CALLS);
+
+			System.out.printf("Validation per call: new factory %.1f us, shared validator %.1f us (%.0fx)%n",
+					perRequestFactoryNanos / 1_000, sharedValidatorNanos / 1_000, perRequestFactoryNanos / sharedValidatorNanos);
+
+			assertTrue(sharedValidatorNanos < perRequestFactoryNanos);
+		}
+	}
+
+	@Test
+	void reportsEveryInvalidField() {
+		try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+			DtoValidator dtoValidator = new DtoValidator(factory.getValidator());
+
+			InvalidDataException e = assertThrows(InvalidDataException.class, () -> dtoValidator.validate(new EmployeeDTO()));
+			assertEquals(8, e.getErrorResponse().getErrors().size());
+		}
+	}
+
+	@Test
+	void keepsTheSameMessageForEveryValidation() {
+		try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+			DtoValidator dtoValidator = new DtoValidator(factory.getValidator());
+
+			// A null email breaks both @NotNull and @NotBlank, and always gets the @NotBlank message
+			for (int i = 0; i < 20; i++) {
+				EmployeeDTO noEmail = new EmployeeDTO(null, "Ada", "Lovelace", "12 Analytical Street", "NY", "10001",
+						"212-555-0100", "212-555-0101" + "0".repeat(i % 2));
+				Map<String, String> errors = assertThrows(InvalidDataException.class, () -> dtoValidator.validate(noEmail))
+						.getErrorResponse().getErrors();
+
+				assertEquals("Email is required.", errors.get("email"));
+				assertEquals(i % 2 == 0 ? List.of("email") : List.of("email", "homePhone"), List.copyOf(errors.keySet()));
+			}
+		}
+	}
+
+	private void validateWithNewFactory() {
+		try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+			factory.getValidator().validate(employee);
+		}
+	}
+
+	private static double nanosPerCall(Runnable call, int calls) {
+		// Warm up with as many calls as are measured
+		for (int i = 0; i < calls; i++)
+			call.run();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < calls; i++)
+			call.run();
+
+		return (System.nanoTime() - start) / (double) calls;
+	}
+}
@@ -0,0 +1,162 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.BulkItemResultDTO;
+import com.ibm.fscc.employeeservice.dto.BulkResponseDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.mapper.EmployeeMapper;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import com.ibm.fscc.employeeservice.service.EmployeeBulkService;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class EmployeeBulkServiceTests {
+
+	@Autowired
+	private EmployeeBulkService employeeBulkService;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeBatchRepository employeeBatchRepository;
+
+	@Test
+	void createsTheValidItemsAndReportsTheOthers() {
+		employeeService.createEmployee(employee("bulk.existing@ibm.com", "Existing"));
+
+		EmployeeDTO invalid = employee("bulk.invalid@ibm.com", "Invalid");
+		invalid.setState("New York");
+
+		BulkResponseDTO response = multiStatus(employeeBulkService.createEmployees(Arrays.asList(
+				employee("bulk.created@ibm.com", "Created"), invalid, null,
+				employee("bulk.created@ibm.com", "Again"), employee("bulk.existing@ibm.com", "Existing"))));
+
+		assertEquals(List.of(201, 400, 400, 409, 409), statuses(response));
+		assertEquals(1, response.getSucceeded());
+		assertEquals(4, response.getFailed());
+		assertEquals(Map.of("state", "Use 2-letter uppercase state codes"), response.getResults().get(1).getBody());
+		assertNull(response.getResults().get(2).getEmail());
+		assertEquals(Map.of("employee", "Employee cannot be null."), response.getResults().get(2).getBody());
+		assertEquals(HttpStatus.OK, employeeService.findEmployeeByEmail("bulk.created@ibm.com").getStatusCode());
+
+		employeeBulkService.deleteEmployees(List.of("bulk.existing@ibm.com", "bulk.created@ibm.com"));
+	}
+
+	@Test
+	void upsertsTheValidItemsAndReportsTheOthers() {
+		employeeService.createEmployee(employee("bulk.updated@ibm.com", "Before"));
+
+		EmployeeDTO invalid = employee("bulk.invalid@ibm.com", "Invalid");
+		invalid.setZip("1000");
+
+		BulkResponseDTO response = multiStatus(employeeBulkService.upsertEmployees(Arrays.asList(
+				employee("bulk.updated@ibm.com", "After"), employee("bulk.inserted@ibm.com", "Inserted"), invalid, null,
+				employee("bulk.inserted@ibm.com", "Again"))));
+
+		assertEquals(List.of(200, 201, 400, 400, 409), statuses(response));
+		assertEquals(2, response.getSucceeded());
+		assertEquals("After", ((EmployeeDTO) employeeService.findEmployeeByEmail("bulk.updated@ibm.com").getBody()).getLastName());
+		assertEquals("Inserted", ((EmployeeDTO) employeeService.findEmployeeByEmail("bulk.inserted@ibm.com").getBody()).getLastName());
+
+		employeeBulkService.deleteEmployees(List.of("bulk.updated@ibm.com", "bulk.inserted@ibm.com"));
+	}
+
+	@Test
+	void deletesTheExistingItemsAndReportsTheOthers() {
+		employeeService.createEmployee(employee("bulk.deleted@ibm.com", "Deleted"));
+
+		BulkResponseDTO response = multiStatus(employeeBulkService.deleteEmployees(Arrays.asList(
+				"bulk.deleted@ibm.com", "bulk.missing@ibm.com", "bulk.deleted@ibm.com", null)));
+
+		// An email repeated in the request is only deleted once
+		assertEquals(List.of(200, 404, 404, 400), statuses(response));
+		assertEquals(1, response.getSucceeded());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail("bulk.deleted@ibm.com").getStatusCode());
+	}
+
+	@Test
+	void matchesEmailsIgnoringCase() {
+		employeeService.createEmployee(employee("bulk.case@ibm.com", "Case"));
+
+		assertEquals(List.of(409, 201, 409), statuses(multiStatus(employeeBulkService.createEmployees(List.of(
+				employee("Bulk.Case@ibm.com", "Again"), employee("bulk.other@ibm.com", "Other"), employee("BULK.OTHER@ibm.com", "Other"))))));
+
+		// An upsert overwrites the employee stored under another case, which keeps its email
+		BulkResponseDTO upserted = multiStatus(employeeBulkService.upsertEmployees(List.of(employee("BULK.CASE@IBM.COM", "Upserted"))));
+		assertEquals(List.of(200), statuses(upserted));
+		assertEquals("bulk.case@ibm.com", ((EmployeeDTO) upserted.getResults().get(0).getBody()).getEmail());
+		assertEquals("Upserted", ((EmployeeDTO) employeeService.findEmployeeByEmail("bulk.case@ibm.com").getBody()).getLastName());
+
+		// The deletions reach the cache under the stored emails
+		assertEquals(List.of(200, 200), statuses(multiStatus(employeeBulkService.deleteEmployees(
+				List.of("Bulk.Case@IBM.com", "bulk.OTHER@ibm.com")))));
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail("bulk.case@ibm.com").getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail("bulk.other@ibm.com").getStatusCode());
+	}
+
+	@Test
+	void reportsOnlyTheEmployeesItInserted() {
+		employeeService.createEmployee(employee("bulk.taken@ibm.com", "Taken"));
+
+		Set<String> inserted = employeeBatchRepository.insertIgnoringExisting(List.of(
+				EmployeeMapper.employeeDtoToEmployee(employee("Bulk.Taken@ibm.com", "Again")),
+				EmployeeMapper.employeeDtoToEmployee(employee("bulk.free@ibm.com", "Free"))));
+
+		assertEquals(Set.of("bulk.free@ibm.com"), Set.copyOf(inserted));
+		assertEquals("Taken", ((EmployeeDTO) employeeService.findEmployeeByEmail("bulk.taken@ibm.com").getBody()).getLastName());
+
+		employeeBulkService.deleteEmployees(List.of("bulk.taken@ibm.com", "bulk.free@ibm.com"));
+	}
+
+	@Test
+	void refusesRequestsOverTheItemLimit() {
+		Object maxItems = ReflectionTestUtils.getField(employeeBulkService, "maxItems");
+		ReflectionTestUtils.setField(employeeBulkService, "maxItems", 2);
+		try {
+			List<EmployeeDTO> employees = List.of(employee("bulk.limit0@ibm.com", "Limit"),
+					employee("bulk.limit1@ibm.com", "Limit"), employee("bulk.limit2@ibm.com", "Limit"));
+
+			assertEquals(HttpStatus.BAD_REQUEST, employeeBulkService.createEmployees(employees).getStatusCode());
+			assertEquals(HttpStatus.BAD_REQUEST, employeeBulkService.upsertEmployees(employees).getStatusCode());
+			assertEquals(HttpStatus.BAD_REQUEST, employeeBulkService.deleteEmployees(employees.stream().map(EmployeeDTO::getEmail).toList())
+					.getStatusCode());
+			assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail("bulk.limit0@ibm.com").getStatusCode());
+
+			// A request at the limit goes through
+			assertEquals(HttpStatus.MULTI_STATUS, employeeBulkService.createEmployees(employees.subList(0, 2)).getStatusCode());
+			assertEquals(List.of(200, 200), statuses(multiStatus(employeeBulkService.deleteEmployees(
+					List.of("bulk.limit0@ibm.com", "bulk.limit1@ibm.com")))));
+		} finally {
+			ReflectionTestUtils.setField(employeeBulkService, "maxItems", maxItems);
+		}
+	}
+
+	private static BulkResponseDTO multiStatus(ResponseEntity<?> response) {
+		assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+		assertTrue(response.getBody() instanceof BulkResponseDTO);
+		return (BulkResponseDTO) response.getBody();
+	}
+
+	private static List<Integer> statuses(BulkResponseDTO response) {
+		return response.getResults().stream().map(BulkItemResultDTO::getStatus).toList();
+	}
+
+	private static EmployeeDTO employee(String email, String lastName) {
+		return new EmployeeDTO(email, "Bulk", lastName, "4 Batch Boulevard", "NY", "10001", "212-555-0100", "212-555-0101");
+	}
+}
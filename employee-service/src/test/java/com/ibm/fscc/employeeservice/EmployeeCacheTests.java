@@ -0,0 +1,136 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.cache.EmployeeCache;
+import com.ibm.fscc.employeeservice.cache.MappedEmployeeCache;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the {@link EmployeeCache} follows employee changes, how long it remembers emails that matched no
+ * employee, and the metrics it publishes. The second tier is a mock knowing no employee unless told otherwise.
+ */
+class EmployeeCacheTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final MappedEmployeeCache mappedEmployeeCache = mock(MappedEmployeeCache.class);
+	private final Map<String, Employee> database = new HashMap<>();
+	private final Map<String, Integer> loads = new HashMap<>();
+	private final Function<String, Optional<Employee>> loader = email -> {
+		loads.merge(email, 1, Integer::sum);
+		return Optional.ofNullable(database.get(email));
+	};
+
+	@Test
+	void followsCommittedChanges() {
+		EmployeeCache cache = cache(100, Duration.ofMinutes(1));
+		Employee ada = employee("ada@ibm.com", "Lovelace");
+		database.put(ada.getEmail(), ada);
+
+		assertEquals(ada, cache.get("ada@ibm.com", loader).orElseThrow());
+		verify(mappedEmployeeCache).put(ada);
+
+		// An update replaces the entry, without going back to the database
+		Employee renamed = employee("ada@ibm.com", "King");
+		cache.onEmployeeChange(EmployeeChangeEvent.updated(renamed));
+		assertEquals("King", cache.get("ada@ibm.com", loader).orElseThrow().getLastName());
+
+		// A creation replaces the negative entry of its email
+		assertTrue(cache.get("grace@ibm.com", loader).isEmpty());
+		cache.onEmployeeChange(EmployeeChangeEvent.created(employee("grace@ibm.com", "Hopper")));
+		assertEquals("Hopper", cache.get("grace@ibm.com", loader).orElseThrow().getLastName());
+
+		// A deletion evicts the entry, so the next lookup sees the database again
+		database.remove("ada@ibm.com");
+		cache.onEmployeeChange(EmployeeChangeEvent.deleted("ada@ibm.com"));
+		assertTrue(cache.get("ada@ibm.com", loader).isEmpty());
+
+		assertEquals(Map.of("ada@ibm.com", 2, "grace@ibm.com", 1), loads);
+	}
+
+	@Test
+	void forgetsMissingEmployeesAfterTheirShorterTimeToLive() throws InterruptedException {
+		EmployeeCache cache = cache(100, Duration.ofMillis(200));
+		Employee ada = employee("ada@ibm.com", "Lovelace");
+		database.put(ada.getEmail(), ada);
+
+		assertTrue(cache.get("grace@ibm.com", loader).isEmpty());
+		cache.get("ada@ibm.com", loader);
+
+		// Within its time to live, a missing employee is answered from the cache, even once created behind its back
+		database.put("grace@ibm.com", employee("grace@ibm.com", "Hopper"));
+		assertTrue(cache.get("grace@ibm.com", loader).isEmpty());
+		assertEquals(1, loads.get("grace@ibm.com"));
+
+		TimeUnit.MILLISECONDS.sleep(400);
+
+		assertEquals("Hopper", cache.get("grace@ibm.com", loader).orElseThrow().getLastName());
+		assertEquals(2, loads.get("grace@ibm.com"));
+		// A found employee stays cached for the longer time to live
+		cache.get("ada@ibm.com", loader);
+		assertEquals(1, loads.get("ada@ibm.com"));
+	}
+
+	@Test
+	void looksUpTheSecondTierBeforeTheDatabase() {
+		EmployeeCache cache = cache(100, Duration.ofMinutes(1));
+		Employee ada = employee("ada@ibm.com", "Lovelace");
+		when(mappedEmployeeCache.get("ada@ibm.com")).thenReturn(Optional.of(ada));
+
+		assertEquals(ada, cache.get("ada@ibm.com", loader).orElseThrow());
+		assertTrue(loads.isEmpty());
+		verify(mappedEmployeeCache, never()).put(ada);
+	}
+
+	@Test
+	void publishesHitsMissesAndEvictions() throws InterruptedException {
+		EmployeeCache cache = cache(2, Duration.ofMinutes(1));
+
+		cache.get("ada@ibm.com", loader);
+		cache.get("ada@ibm.com", loader);
+		cache.get("ada@ibm.com", loader);
+		cache.get("grace@ibm.com", loader);
+
+		assertEquals(2.0, gets("hit"));
+		assertEquals(2.0, gets("miss"));
+
+		// Eviction runs asynchronously once the cache outgrows its maximum size
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		for (int i = 0; evictions() == 0 && System.nanoTime() < deadline; i++) {
+			cache.get("employee" + i + "@ibm.com", loader);
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertTrue(evictions() > 0);
+	}
+
+	private EmployeeCache cache(long maximumSize, Duration negativeTimeToLive) {
+		return new EmployeeCache(mappedEmployeeCache, meterRegistry, maximumSize, Duration.ofMinutes(10), negativeTimeToLive);
+	}
+
+	private double gets(String result) {
+		return meterRegistry.get("cache.gets").tag("cache", "employeeByEmail").tag("result", result).functionCounter().count();
+	}
+
+	private double evictions() {
+		return meterRegistry.get("cache.evictions").tag("cache", "employeeByEmail").functionCounter().count();
+	}
+
+	private static Employee employee(String email, String lastName) {
+		return new Employee(email, "Test", lastName, "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101", 0L);
+	}
+}
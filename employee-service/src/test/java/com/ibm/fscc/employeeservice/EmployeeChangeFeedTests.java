@@ -0,0 +1,148 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeChangeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.service.EmployeeChangeFeedService;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Follows the change feed live and resumes it from event ids.
+ */
+@SpringBootTest
+class EmployeeChangeFeedTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeChangeFeedService employeeChangeFeedService;
+
+	private final EmployeeChangeFeedService smallFeed = new EmployeeChangeFeedService(new SimpleMeterRegistry(), 3, 100, Duration.ofMinutes(1));
+
+	@Test
+	void streamsCommittedChanges() throws Exception {
+		EmployeeDTO employee = new EmployeeDTO("dorothy.vaughan@ibm.com", "Dorothy", "Vaughan", "5 Fortran Street",
+				"VA", "23666", "757-555-0100", "757-555-0101");
+
+		CompletableFuture<List<ServerSentEvent<EmployeeChangeDTO>>> changes = employeeChangeFeedService.streamChanges(null)
+				.filter(event -> event.data() != null && employee.getEmail().equals(event.data().getEmail()))
+				.take(3)
+				.collectList()
+				.toFuture();
+
+		employeeService.createEmployee(employee);
+		employee.setZip("23665");
+		employeeService.updateEmployee(employee);
+		employeeService.deleteEmployee(employee.getEmail());
+
+		List<ServerSentEvent<EmployeeChangeDTO>> events = changes.get(10, TimeUnit.SECONDS);
+		assertEquals(List.of("created", "updated", "deleted"), events.stream().map(ServerSentEvent::event).toList());
+		assertEquals("23665", events.get(1).data().getEmployee().getZip());
+		assertNull(events.get(2).data().getEmployee());
+
+		// Resuming after the creation replays the update and the deletion
+		List<ServerSentEvent<EmployeeChangeDTO>> replayed = employeeChangeFeedService.streamChanges(events.get(0).id())
+				.filter(event -> event.data() != null && employee.getEmail().equals(event.data().getEmail()))
+				.take(2)
+				.collectList()
+				.block(Duration.ofSeconds(10));
+		assertEquals(List.of(events.get(1).id(), events.get(2).id()), replayed.stream().map(ServerSentEvent::id).toList());
+	}
+
+	@Test
+	void resetsConsumersThatFellOutOfTheReplayBuffer() {
+		for (int i = 0; i < 5; i++)
+			smallFeed.onEmployeeChange(EmployeeChangeEvent.deleted("employee" + i + "@ibm.com"));
+
+		smallFeed.onEmployeeChange(EmployeeChangeEvent.created(
+				new Employee("employee5@ibm.com", "Ada", "Lovelace", "1 Main Street", "NY", "10001", null, null, 0L)));
+
+		// An id of another instance means nothing here, the consumer starts over from the latest change
+		ServerSentEvent<EmployeeChangeDTO> reset = smallFeed.streamChanges("other-3").blockFirst(Duration.ofSeconds(10));
+		assertEquals(EmployeeChangeFeedService.RESET, reset.event());
+		String epoch = reset.id().substring(0, reset.id().lastIndexOf('-'));
+		assertEquals(epoch + "-6", reset.id());
+
+		// Changes 4 to 6 are still buffered
+		List<ServerSentEvent<EmployeeChangeDTO>> resumed = smallFeed.streamChanges(epoch + "-3").take(3).collectList().block(Duration.ofSeconds(10));
+		assertEquals(List.of("employee3@ibm.com", "employee4@ibm.com", "employee5@ibm.com"),
+				resumed.stream().map(event -> event.data().getEmail()).toList());
+		assertEquals("employee5@ibm.com", resumed.get(2).data().getEmployee().getEmail());
+
+		// Change 3 was dropped, so are ids that are malformed or not issued yet
+		for (String lastEventId : List.of(epoch + "-2", epoch + "-7", "garbage"))
+			assertEquals(EmployeeChangeFeedService.RESET, smallFeed.streamChanges(lastEventId).blockFirst(Duration.ofSeconds(10)).event());
+	}
+
+	@Test
+	void replaysMoreChangesThanALiveConsumerMayFallBehind() throws Exception {
+		EmployeeChangeFeedService feed = new EmployeeChangeFeedService(new SimpleMeterRegistry(), 100, 2, Duration.ofMinutes(1));
+		for (int i = 0; i < 50; i++)
+			feed.onEmployeeChange(EmployeeChangeEvent.deleted("employee" + i + "@ibm.com"));
+		String reset = feed.streamChanges("garbage").blockFirst(Duration.ofSeconds(10)).id();
+		String epoch = reset.substring(0, reset.lastIndexOf('-'));
+
+		// Fifty missed changes wait for a consumer allowed two pending live changes, until it reads them
+		StalledConsumer resumed = new StalledConsumer();
+		feed.streamChanges(epoch + "-0").subscribe(resumed);
+		resumed.requestUnbounded();
+		assertEquals(50, resumed.events.size());
+		assertEquals(epoch + "-50", resumed.events.get(49).id());
+		assertFalse(resumed.error.isDone());
+		resumed.dispose();
+
+		// Live changes still disconnect a consumer that stops reading, once more are pending than the merge with the
+		// heartbeats prefetches
+		StalledConsumer stalled = new StalledConsumer();
+		feed.streamChanges(null).subscribe(stalled);
+		for (int i = 0; i < 50; i++)
+			feed.onEmployeeChange(EmployeeChangeEvent.deleted("live" + i + "@ibm.com"));
+		stalled.requestUnbounded();
+
+		assertTrue(Exceptions.isOverflow(stalled.error.get(10, TimeUnit.SECONDS)));
+	}
+
+	/**
+	 * Consumer reading nothing until asked to.
+	 */
+	private static final class StalledConsumer extends BaseSubscriber<ServerSentEvent<EmployeeChangeDTO>> {
+
+		private final List<ServerSentEvent<EmployeeChangeDTO>> events = new CopyOnWriteArrayList<>();
+		private final CompletableFuture<Throwable> error = new CompletableFuture<>();
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+		}
+
+		@Override
+		protected void hookOnNext(ServerSentEvent<EmployeeChangeDTO> event) {
+			events.add(event);
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			error.complete(throwable);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeStatsDTO;
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.index.EmployeeColumnStore;
+import com.ibm.fscc.employeeservice.index.EmployeeColumnStore.Dimension;
+import com.ibm.fscc.employeeservice.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the counts, maintenance and latency of the {@link EmployeeColumnStore} without a database.
+ */
+class EmployeeColumnStoreTests {
+
+	private static final String[] STATES = {"NY", "CA", "TX", "VA", "NJ", "WA", "IL", "MA"};
+
+	private final EmployeeColumnStore store = new EmployeeColumnStore(null, 500);
+
+	@Test
+	void countsByGroups() {
+		store.put(employee("ada@ibm.com", "NY", "10001", "212-555-0100", "212-555-0101"));
+		store.put(employee("grace@ibm.com", "NY", "10002", "212-555-0100", null));
+		store.put(employee("alan@example.com", "NJ", "08540", "609-555-0100", "609-555-0101"));
+
+		EmployeeStatsDTO byState = store.count(List.of(Dimension.STATE), Map.of(), 10);
+		assertEquals(3, byState.getTotal());
+		assertEquals(List.of(Map.of("state", "NY", "count", 2L), Map.of("state", "NJ", "count", 1L)), byState.getGroups());
+
+		EmployeeStatsDTO byDomainInNy = store.count(List.of(Dimension.DOMAIN, Dimension.ZIP), Map.of(Dimension.STATE, "NY"), 10);
+		assertEquals(2, byDomainInNy.getTotal());
+		assertEquals(List.of(Map.of("domain", "ibm.com", "zip", "10001", "count", 1L), Map.of("domain", "ibm.com", "zip", "10002", "count", 1L)),
+				byDomainInNy.getGroups());
+
+		EmployeeStatsDTO byHomeAreaCode = store.count(List.of(Dimension.HOME_AREA_CODE), Map.of(), 10);
+		assertTrue(byHomeAreaCode.getGroups().contains(Map.of("homeAreaCode", "609", "count", 1L)));
+		assertEquals(null, byHomeAreaCode.getGroups().stream().filter(group -> group.get("homeAreaCode") == null).findFirst()
+				.orElseThrow().get("homeAreaCode"));
+
+		assertEquals(0, store.count(List.of(), Map.of(Dimension.STATE, "ZZ"), 10).getTotal());
+		assertEquals(2, store.count(List.of(), Map.of(Dimension.CELL_AREA_CODE, "212"), 10).getTotal());
+	}
+
+	@Test
+	void followsEmployeeChanges() {
+		store.onEmployeeChange(EmployeeChangeEvent.created(employee("ada@ibm.com", "NY", "10001", "212-555-0100", null)));
+		store.onEmployeeChange(EmployeeChangeEvent.updated(employee("ada@ibm.com", "CA", "94105", "415-555-0100", null)));
+		store.onEmployeeChange(EmployeeChangeEvent.created(employee("grace@ibm.com", "NY", "10001", "212-555-0100", null)));
+
+		assertEquals(List.of(Map.of("state", "CA", "count", 1L), Map.of("state", "NY", "count", 1L)),
+				store.count(List.of(Dimension.STATE), Map.of(), 10).getGroups());
+
+		store.onEmployeeChange(EmployeeChangeEvent.deleted("ada@ibm.com"));
+		store.onEmployeeChange(EmployeeChangeEvent.created(employee("alan@ibm.com", "NY", "10001", "212-555-0100", null)));
+
+		assertEquals(List.of(Map.of("state", "NY", "count", 2L)), store.count(List.of(Dimension.STATE), Map.of(), 10).getGroups());
+	}
+
+	@Test
+	void answersWithinAMillisecond() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 200_000; i++)
+			store.put(employee("employee" + i + "@domain" + random.nextInt(20) + ".com", STATES[random.nextInt(STATES.length)],
+					String.format("%05d", random.nextInt(2_000)), (200 + random.nextInt(800)) + "-555-0100", null));
+
+		// Warm up, then keep the fastest of a few rounds to leave out GC pauses
+		for (int i = 0; i < 200; i++)
+			store.count(List.of(Dimension.STATE), Map.of(), 100);
+
+		double micros = Double.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < 100; i++)
+				assertEquals(200_000, store.count(List.of(Dimension.STATE), Map.of(), 100).getTotal());
+			micros = Math.min(micros, (System.nanoTime() - start) / 1_000.0 / 100);
+		}
+
+		System.out.printf("Count by state over 200000 employees: %.1f us per query%n", micros);
+
+		assertTrue(micros < 1_000);
+		assertEquals(100, store.count(List.of(Dimension.DOMAIN, Dimension.ZIP), Map.of(Dimension.STATE, "NY"), 100).getGroups().size());
+	}
+
+	private static Employee employee(String email, String state, String zip, String cellPhone, String homePhone) {
+		return new Employee(email, "Ada", "Lovelace", "1 Main Street", state, zip, cellPhone, homePhone, 0L);
+	}
+}
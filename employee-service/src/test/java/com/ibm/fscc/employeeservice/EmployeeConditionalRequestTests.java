@@ -0,0 +1,139 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.controller.EmployeeController;
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Exercises the ETag, {@code If-None-Match} and {@code If-Match} handling of the employee endpoints over HTTP,
+ * including partial updates.
+ */
+@SpringBootTest
+class EmployeeConditionalRequestTests {
+
+	@Autowired
+	private EmployeeController employeeController;
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	private WebTestClient client;
+
+	private final EmployeeDTO employee = new EmployeeDTO("katherine.johnson@ibm.com", "Katherine", "Johnson",
+			"3 Orbit Road", "VA", "23666", "757-555-0100", "757-555-0101");
+
+	@BeforeEach
+	void setUp() {
+		client = WebTestClient.bindToController(employeeController).build();
+		employeeService.deleteEmployee(employee.getEmail());
+		employeeService.createEmployee(employee);
+	}
+
+	@Test
+	void findAnswersNotModifiedForCurrentETag() {
+		String eTag = find().expectStatus().isOk().expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+				.returnResult(EmployeeDTO.class).getResponseHeaders().getETag();
+
+		client.get().uri("/api/employee/find?email={email}", employee.getEmail())
+				.ifNoneMatch(eTag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void conditionalUpdateRejectsStaleETag() {
+		employee.setAddress("4 Orbit Road");
+
+		update("\"0\"").expectStatus().isOk().expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+		update("\"0\"").expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED).expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+		update("W/\"1\"").expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+		update("*").expectStatus().isOk().expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+
+		client.get().uri("/api/employee/find?email={email}", employee.getEmail())
+				.ifNoneMatch("\"1\"")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+	}
+
+	@Test
+	void pageETagChangesWithItsEmployees() {
+		String eTag = client.get().uri("/api/employee/findAll?limit=1000").exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class).getResponseHeaders().getETag();
+
+		client.get().uri("/api/employee/findAll?limit=1000").ifNoneMatch(eTag).exchange()
+				.expectStatus().isNotModified();
+
+		employee.setZip("23665");
+		assertEquals(HttpStatus.OK, employeeService.updateEmployee(employee).getStatusCode());
+
+		String changedETag = client.get().uri("/api/employee/findAll?limit=1000").ifNoneMatch(eTag).exchange()
+				.expectStatus().isOk()
+				.returnResult(String.class).getResponseHeaders().getETag();
+
+		assertNotEquals(eTag, changedETag);
+	}
+
+	@Test
+	void patchWritesOnlySuppliedFields() {
+		patch(Map.of("cellPhone", "757-555-0199"), null)
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+				.expectBody(EmployeeDTO.class).value(patched -> {
+					assertEquals("757-555-0199", patched.getCellPhone());
+					assertEquals(employee.getAddress(), patched.getAddress());
+					assertEquals(employee.getHomePhone(), patched.getHomePhone());
+				});
+
+		// Only the supplied fields are validated and reported
+		patch(Map.of("zip", "ABCDE"), null).expectStatus().isBadRequest()
+				.expectBody(Map.class).value(errors -> assertEquals(Set.of("zip"), errors.keySet()));
+		patch(Map.of("email", "katherine@ibm.com", "salary", "1"), null).expectStatus().isBadRequest()
+				.expectBody(Map.class).value(errors -> assertEquals(Set.of("email", "salary"), errors.keySet()));
+		patch(Map.of(), null).expectStatus().isBadRequest();
+
+		patch(Map.of("email", employee.getEmail(), "state", "MD"), "\"0\"").expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+		patch(Map.of("email", employee.getEmail(), "state", "MD"), "\"1\"").expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+
+		find().expectStatus().isOk().expectBody(EmployeeDTO.class).value(found -> {
+			assertEquals("MD", found.getState());
+			assertEquals("757-555-0199", found.getCellPhone());
+			assertEquals(employee.getZip(), found.getZip());
+		});
+
+		client.patch().uri("/api/employee/{email}", "nobody@ibm.com").bodyValue(Map.of("state", "MD")).exchange()
+				.expectStatus().isNotFound();
+	}
+
+	private WebTestClient.ResponseSpec find() {
+		return client.get().uri("/api/employee/find?email={email}", employee.getEmail()).exchange();
+	}
+
+	private WebTestClient.ResponseSpec patch(Map<String, String> fields, String ifMatch) {
+		WebTestClient.RequestBodySpec request = client.patch().uri("/api/employee/{email}", employee.getEmail());
+		if (ifMatch != null)
+			request.header(HttpHeaders.IF_MATCH, ifMatch);
+		return request.bodyValue(fields).exchange();
+	}
+
+	private WebTestClient.ResponseSpec update(String ifMatch) {
+		return client.put().uri("/api/employee/update").header(HttpHeaders.IF_MATCH, ifMatch).bodyValue(employee).exchange();
+	}
+}
@@ -0,0 +1,107 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.export.EmployeeExportFormat;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import com.ibm.fscc.employeeservice.service.EmployeeExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports the directory in both formats and decodes the output again.
+ */
+@SpringBootTest
+class EmployeeExportTests {
+
+	private static final int EMPLOYEES = 5_000;
+
+	@Autowired
+	private EmployeeExportService employeeExportService;
+
+	@Autowired
+	private EmployeeBatchRepository employeeBatchRepository;
+
+	private final List<Employee> employees = new ArrayList<>();
+
+	@BeforeEach
+	void createEmployees() {
+		// Written below the DTO validation, which would reject the comma and quotes CSV has to escape
+		for (int i = 0; i < EMPLOYEES; i++)
+			employees.add(new Employee("export" + i + "@ibm.com", "Export", "Employee", i + " Main Street, Suite \"B\"",
+					"NY", "10001", "212-555-0100", null, 0L));
+
+		employeeBatchRepository.insertIgnoringExisting(employees);
+	}
+
+	@AfterEach
+	void deleteEmployees() {
+		employeeBatchRepository.deleteByEmails(employees.stream().map(Employee::getEmail).toList());
+	}
+
+	@Test
+	void exportsCsv() {
+		String[] lines = new String(export(EmployeeExportFormat.CSV), StandardCharsets.UTF_8).split("\r\n");
+
+		assertEquals("email,firstName,lastName,address,state,zip,cellPhone,homePhone", lines[0]);
+		assertTrue(lines.length > EMPLOYEES);
+		assertTrue(List.of(lines).contains("export7@ibm.com,Export,Employee,\"7 Main Street, Suite \"\"B\"\"\",NY,10001,212-555-0100,"));
+	}
+
+	@Test
+	void exportsLengthPrefixedBinary() {
+		int csvRows = new String(export(EmployeeExportFormat.CSV), StandardCharsets.UTF_8).split("\r\n").length - 1;
+		ByteBuffer binary = ByteBuffer.wrap(export(EmployeeExportFormat.BINARY));
+
+		int rows = 0;
+		boolean found = false;
+		while (binary.hasRemaining()) {
+			int end = binary.getInt() + binary.position();
+			String[] fields = new String[8];
+
+			for (int i = 0; i < fields.length; i++) {
+				int length = Short.toUnsignedInt(binary.getShort());
+				if (length == EmployeeExportFormat.NULL_LENGTH)
+					continue;
+
+				byte[] field = new byte[length];
+				binary.get(field);
+				fields[i] = new String(field, StandardCharsets.UTF_8);
+			}
+
+			assertEquals(end, binary.position());
+			found |= "export7@ibm.com".equals(fields[0]) && "7 Main Street, Suite \"B\"".equals(fields[3]) && fields[7] == null;
+			rows++;
+		}
+
+		assertEquals(csvRows, rows);
+		assertTrue(found);
+	}
+
+	@Test
+	void rejectsUnknownFormat() {
+		assertEquals(HttpStatus.BAD_REQUEST, employeeExportService.exportEmployees("xml").getStatusCode());
+		assertEquals(HttpStatus.OK, employeeExportService.exportEmployees("BINARY").getStatusCode());
+	}
+
+	private byte[] export(EmployeeExportFormat format) {
+		DataBuffer joined = DataBufferUtils.join(employeeExportService.export(format)).block();
+		byte[] bytes = new byte[joined.readableByteCount()];
+		joined.read(bytes);
+		DataBufferUtils.release(joined);
+		return bytes;
+	}
+}
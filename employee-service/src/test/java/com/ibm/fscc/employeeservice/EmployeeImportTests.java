@@ -0,0 +1,111 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeImportProgressDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeImportRejectionDTO;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import com.ibm.fscc.employeeservice.service.EmployeeImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Imports CSV uploads cut into small chunks, so that records, quoted fields and characters span chunk boundaries.
+ */
+@SpringBootTest
+class EmployeeImportTests {
+
+	private static final int EMPLOYEES = 2_500;
+
+	@Autowired
+	private EmployeeImportService employeeImportService;
+
+	@Autowired
+	private EmployeeBatchRepository employeeBatchRepository;
+
+	@AfterEach
+	void deleteEmployees() {
+		employeeBatchRepository.deleteByEmails(IntStream.range(0, EMPLOYEES).mapToObj(i -> "import" + i + "@ibm.com").toList());
+	}
+
+	@Test
+	void importsValidRowsAndRejectsTheOthers() {
+		StringBuilder csv = new StringBuilder("homePhone,cellPhone,zip,state,address,lastName,firstName,email\r\n");
+		for (int i = 0; i < EMPLOYEES; i++)
+			csv.append("212-555-0101,212-555-0100,10001,NY,\"").append(i).append(" Main Street\",Lovelace,Ada,import").append(i).append("@ibm.com\r\n");
+
+		// An invalid zip, a repeated email, a short row and a name outside the allowed letters split across chunks
+		csv.append("212-555-0101,212-555-0100,ABCDE,NY,1 Main Street,Smith,John,import.zip@ibm.com\r\n");
+		csv.append("212-555-0101,212-555-0100,10001,NY,1 Main Street,Smith,John,import7@ibm.com\r\n");
+		csv.append("212-555-0101,212-555-0100\r\n");
+		csv.append("212-555-0101,212-555-0100,10001,NY,1 Main Street,Müller,José,import.name@ibm.com\r\n");
+
+		List<EmployeeImportProgressDTO> reports = employeeImportService.importEmployees(chunks(csv.toString(), 7)).collectList().block();
+
+		EmployeeImportProgressDTO summary = reports.get(reports.size() - 1);
+		assertTrue(summary.isComplete());
+		assertTrue(reports.size() > 2);
+		assertEquals(EMPLOYEES + 4, summary.getProcessed());
+		assertEquals(EMPLOYEES, summary.getImported());
+		assertEquals(4, summary.getRejected());
+
+		Map<Long, EmployeeImportRejectionDTO> rejections = reports.stream().flatMap(report -> report.getRejections().stream())
+				.collect(Collectors.toMap(EmployeeImportRejectionDTO::getRow, rejection -> rejection));
+
+		assertEquals(4, rejections.size());
+		assertTrue(rejections.get(EMPLOYEES + 2L).getErrors().containsKey("zip"));
+		assertTrue(rejections.get(EMPLOYEES + 3L).getErrors().containsKey("email"));
+		assertTrue(rejections.get(EMPLOYEES + 4L).getErrors().containsKey("row"));
+		assertTrue(rejections.get(EMPLOYEES + 5L).getErrors().containsKey("firstName"));
+		assertEquals("import.name@ibm.com", rejections.get(EMPLOYEES + 5L).getEmail());
+	}
+
+	@Test
+	void importsQuotedFieldsAcrossChunks() {
+		StringBuilder csv = new StringBuilder("email,firstName,lastName,address,state,zip,cellPhone,homePhone\n");
+		for (int i = 0; i < EMPLOYEES; i++)
+			csv.append("import").append(i).append("@ibm.com,\"Ada\",Lovelace,\"").append(i).append(" Analytical Street\",NY,10001,212-555-0100,212-555-0101\n");
+		csv.append("import0@ibm.com,Ada,Lovelace,1 Analytical Street,NY,ABCDE,212-555-0100,212-555-0101");
+
+		List<EmployeeImportProgressDTO> reports = employeeImportService.importEmployees(chunks(csv.toString(), 5)).collectList().block();
+		EmployeeImportProgressDTO summary = reports.get(reports.size() - 1);
+
+		assertEquals(EMPLOYEES, summary.getImported());
+		assertEquals(1, summary.getRejected());
+
+		EmployeeImportRejectionDTO rejection = reports.stream().flatMap(report -> report.getRejections().stream()).findFirst().orElseThrow();
+		assertEquals(EMPLOYEES + 2, rejection.getRow());
+		assertEquals("import0@ibm.com", rejection.getEmail());
+		assertTrue(rejection.getErrors().containsKey("zip"));
+	}
+
+	@Test
+	void rejectsIncompleteHeader() {
+		List<EmployeeImportProgressDTO> reports = employeeImportService.importEmployees(chunks("email,firstName\nimport0@ibm.com,Ada\n", 4))
+				.collectList().block();
+
+		assertEquals(1, reports.size());
+		assertTrue(reports.get(0).isComplete());
+		assertTrue(reports.get(0).getRejections().get(0).getErrors().containsKey("lastName"));
+	}
+
+	private static Flux<DataBuffer> chunks(String csv, int size) {
+		byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+
+		return Flux.range(0, (bytes.length + size - 1) / size)
+				.map(i -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, i * size, Math.min(bytes.length, (i + 1) * size))));
+	}
+}
@@ -0,0 +1,82 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.index.EmployeeNameIndex;
+import com.ibm.fscc.employeeservice.model.Employee;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the suggestion latency of the {@link EmployeeNameIndex} over a directory of a million employees, the size
+ * it is specified for. Timings depend on the machine, so this only runs with {@code mvn test -Pbenchmark}, in a JVM
+ * of its own.
+ */
+@Tag("benchmark")
+class EmployeeNameIndexBenchmarkTests {
+
+	private static final int EMPLOYEES = 1_000_000;
+	private static final int ROUNDS = 5;
+	private static final String CONSONANTS = "bcdfghjklmnprstvwz";
+	private static final String VOWELS = "aeiouy";
+
+	private final EmployeeNameIndex index = new EmployeeNameIndex(null, 500, 0.3);
+
+	@Test
+	void answersWithinAMillisecondOverAMillionEmployees() {
+		Random random = new Random(42);
+
+		Employee[] employees = new Employee[EMPLOYEES];
+		for (int i = 0; i < employees.length; i++) {
+			String firstName = name(random, 2 + random.nextInt(2));
+			String lastName = name(random, 2 + random.nextInt(3));
+			employees[i] = employee(firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@ibm.com", firstName, lastName);
+			index.put(employees[i]);
+		}
+
+		// Type-ahead queries: part of a first name and a last name with two letters swapped
+		String[] queries = new String[1_000];
+		for (int i = 0; i < queries.length; i++) {
+			Employee employee = employees[random.nextInt(employees.length)];
+			char[] lastName = employee.getLastName().toCharArray();
+			char swapped = lastName[2];
+			lastName[2] = lastName[3];
+			lastName[3] = swapped;
+			queries[i] = employee.getFirstName().substring(0, 3) + " " + new String(lastName);
+		}
+
+		// Warm up with as many searches as a round measures, then keep the median round, which a collection or a
+		// noisy neighbour does not skew
+		for (String query : queries)
+			index.search(query, 10);
+
+		double[] rounds = new double[ROUNDS];
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (String query : queries)
+				assertTrue(index.search(query, 10).size() <= 10);
+			rounds[round] = (System.nanoTime() - start) / 1_000.0 / queries.length;
+		}
+		Arrays.sort(rounds);
+		double micros = rounds[ROUNDS / 2];
+
+		System.out.printf("Suggestions over %d employees: %.1f us per search (median of %d rounds, %.1f to %.1f)%n",
+				EMPLOYEES, micros, ROUNDS, rounds[0], rounds[ROUNDS - 1]);
+
+		assertTrue(micros < 1_000);
+	}
+
+	private static String name(Random random, int syllables) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < syllables; i++)
+			name.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length()))).append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static Employee employee(String email, String firstName, String lastName) {
+		return new Employee(email, firstName, lastName, "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101", 0L);
+	}
+}
@@ -0,0 +1,151 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.event.EmployeeChangeEvent;
+import com.ibm.fscc.employeeservice.index.EmployeeNameIndex;
+import com.ibm.fscc.employeeservice.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the ranking and maintenance of the {@link EmployeeNameIndex} without a database; its latency is measured by
+ * {@link EmployeeNameIndexBenchmarkTests}.
+ */
+class EmployeeNameIndexTests {
+
+	private final EmployeeNameIndex index = new EmployeeNameIndex(null, 500, 0.3);
+
+	@Test
+	void suggestsDespiteTypos() {
+		index.put(employee("john.smith@ibm.com", "John", "Smith"));
+		index.put(employee("jane.smythe@ibm.com", "Jane", "Smythe"));
+		index.put(employee("ada.lovelace@ibm.com", "Ada", "Lovelace"));
+
+		assertEquals("john.smith@ibm.com", index.search("jon smiht", 10).get(0).getEmail());
+		assertEquals("ada.lovelace@ibm.com", index.search("lovlace", 10).get(0).getEmail());
+		assertTrue(index.search("lovlace", 10).stream().noneMatch(employee -> employee.getLastName().startsWith("Sm")));
+	}
+
+	@Test
+	void suggestsWhileTyping() {
+		index.put(employee("john.smith@ibm.com", "John", "Smith"));
+		index.put(employee("ada.lovelace@ibm.com", "Ada", "Lovelace"));
+
+		List<Employee> suggestions = index.search("Smi", 10);
+
+		assertEquals(1, suggestions.size());
+		assertEquals("john.smith@ibm.com", suggestions.get(0).getEmail());
+	}
+
+	@Test
+	void followsEmployeeChanges() {
+		index.onEmployeeChange(EmployeeChangeEvent.created(employee("john.smith@ibm.com", "John", "Smith")));
+		index.onEmployeeChange(EmployeeChangeEvent.updated(employee("john.smith@ibm.com", "John", "Carpenter")));
+
+		assertEquals("Carpenter", index.search("carpenter", 10).get(0).getLastName());
+
+		index.onEmployeeChange(EmployeeChangeEvent.deleted("john.smith@ibm.com"));
+
+		assertTrue(index.search("carpenter", 10).isEmpty());
+	}
+
+	@Test
+	void ranksAsAFullScanWould() {
+		Map<String, Employee> byEmail = new HashMap<>();
+		randomEmployees(new Random(7), 2_000).forEach(employee -> {
+			index.put(employee);
+			byEmail.put(employee.getEmail(), employee);
+		});
+
+		assertRanksAsAFullScan(byEmail);
+	}
+
+	@Test
+	void ranksAsAFullScanWouldAfterDeletionsAndRenames() {
+		Random random = new Random(11);
+		Map<String, Employee> byEmail = new HashMap<>();
+		randomEmployees(random, 2_000).forEach(employee -> {
+			index.put(employee);
+			byEmail.put(employee.getEmail(), employee);
+		});
+
+		// Deletions and renames move employees around the posting lists, and new employees reuse the freed ids
+		List<String> emails = new ArrayList<>(byEmail.keySet());
+		Collections.shuffle(emails, random);
+		int third = emails.size() / 3;
+		for (String email : emails.subList(0, third)) {
+			index.remove(email);
+			byEmail.remove(email);
+		}
+		for (String email : emails.subList(third, 2 * third)) {
+			Employee renamed = employee(email, "Turing", "Hope");
+			index.put(renamed);
+			byEmail.put(email, renamed);
+		}
+		randomEmployees(random, 300).forEach(employee -> {
+			Employee added = employee("new." + employee.getEmail(), employee.getFirstName(), employee.getLastName());
+			index.put(added);
+			byEmail.put(added.getEmail(), added);
+		});
+
+		assertRanksAsAFullScan(byEmail);
+	}
+
+	private void assertRanksAsAFullScan(Map<String, Employee> byEmail) {
+		for (String query : List.of("ada", "gra hop", "lovlace ad", "alan turing", "hope lov")) {
+			Set<String> queryTrigrams = trigrams(query, false);
+			List<String> expected = byEmail.values().stream()
+					.filter(employee -> shared(employee, queryTrigrams) >= Math.ceil(0.3 * queryTrigrams.size()))
+					.sorted(Comparator.comparingInt((Employee employee) -> shared(employee, queryTrigrams)).reversed()
+							.thenComparingInt(employee -> trigrams(text(employee), true).size())
+							.thenComparing(Employee::getEmail))
+					.limit(10)
+					.map(Employee::getEmail)
+					.toList();
+
+			assertEquals(expected, index.search(query, 10).stream().map(Employee::getEmail).toList(), query);
+		}
+	}
+
+	private static List<Employee> randomEmployees(Random random, int count) {
+		String[] names = { "Ada", "Adam", "Adele", "Alan", "Alana", "Grace", "Gracia", "Hopper", "Hope", "Lovelace", "Love", "Turing" };
+		List<Employee> employees = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String firstName = names[random.nextInt(names.length)], lastName = names[random.nextInt(names.length)];
+			employees.add(employee(firstName.toLowerCase() + i % 50 + "@ibm.com", firstName, lastName));
+		}
+		return employees;
+	}
+
+	private static int shared(Employee employee, Set<String> queryTrigrams) {
+		Set<String> trigrams = trigrams(text(employee), true);
+		trigrams.retainAll(queryTrigrams);
+		return trigrams.size();
+	}
+
+	private static String text(Employee employee) {
+		return employee.getFirstName() + " " + employee.getLastName() + " " + employee.getEmail();
+	}
+
+	/**
+	 * The trigrams of a text as the index documents them, computed independently of it.
+	 */
+	private static Set<String> trigrams(String text, boolean padEnd) {
+		Set<String> trigrams = new HashSet<>();
+		for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+			if (word.isEmpty())
+				continue;
+			String padded = "  " + word + (padEnd ? " " : "");
+			for (int i = 0; i + 3 <= padded.length(); i++)
+				trigrams.add(padded.substring(i, i + 3));
+		}
+		return trigrams;
+	}
+
+	private static Employee employee(String email, String firstName, String lastName) {
+		return new Employee(email, firstName, lastName, "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101", 0L);
+	}
+}
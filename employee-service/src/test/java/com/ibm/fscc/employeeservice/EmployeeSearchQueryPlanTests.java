@@ -0,0 +1,111 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchResultDTO;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs searches through {@link EmployeeService}, captures the SQL Hibernate generates for them,
+ * and checks with {@code EXPLAIN} that the database answers each one with the matching index.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.ibm.fscc.employeeservice.EmployeeSearchQueryPlanTests$CapturingStatementInspector")
+class EmployeeSearchQueryPlanTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void clearCapturedStatements() {
+		CapturingStatementInspector.STATEMENTS.clear();
+	}
+
+	@Test
+	void lastNamePrefixUsesLastNameIndex() {
+		assertSearchUsesIndex(new EmployeeSearchCriteria("Sm", null, null, null), "IDX_EMPLOYEE_LASTNAME_FIRSTNAME");
+	}
+
+	@Test
+	void firstNamePrefixUsesFirstNameIndex() {
+		assertSearchUsesIndex(new EmployeeSearchCriteria(null, "Jo", null, null), "IDX_EMPLOYEE_FIRSTNAME_LASTNAME");
+	}
+
+	@Test
+	void stateAndZipUseStateIndex() {
+		assertSearchUsesIndex(new EmployeeSearchCriteria(null, null, "NY", "71280"), "IDX_EMPLOYEE_STATE_ZIP_LASTNAME");
+	}
+
+	@Test
+	void zipUsesZipIndex() {
+		assertSearchUsesIndex(new EmployeeSearchCriteria(null, null, null, "71280"), "IDX_EMPLOYEE_ZIP_LASTNAME");
+	}
+
+	private void assertSearchUsesIndex(EmployeeSearchCriteria criteria, String index) {
+		ResponseEntity<?> response = employeeService.searchEmployees(criteria, null, 0, 10);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertTrue(response.getBody() instanceof EmployeeSearchResultDTO);
+
+		String sql = CapturingStatementInspector.STATEMENTS.stream()
+				.filter(statement -> statement.startsWith("select"))
+				.reduce((first, second) -> second)
+				.orElseThrow();
+
+		String plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters(sql, criteria).toArray())
+				.stream().collect(Collectors.joining("\n"));
+
+		assertTrue(plan.contains("PUBLIC." + index + ":"), () -> "Expected " + index + " in plan:\n" + plan);
+	}
+
+	/**
+	 * Rebuilds the bind parameters in the order the search binds them: the filter values, then the offset if present, then the limit.
+	 */
+	private static List<Object> parameters(String sql, EmployeeSearchCriteria criteria) {
+		List<Object> parameters = new ArrayList<>();
+
+		if (criteria.getLastName() != null)
+			parameters.add(criteria.getLastName() + "%");
+		if (criteria.getFirstName() != null)
+			parameters.add(criteria.getFirstName() + "%");
+		if (criteria.getState() != null)
+			parameters.add(criteria.getState());
+		if (criteria.getZip() != null)
+			parameters.add(criteria.getZip());
+
+		long placeholders = sql.chars().filter(c -> c == '?').count();
+		if (placeholders == parameters.size() + 2)
+			parameters.add(0);
+		parameters.add(11);
+
+		return parameters;
+	}
+
+	public static class CapturingStatementInspector implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeStatsDTO;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeRepository;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class EmployeeServiceTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Test
+	void createFindUpdateDelete() {
+		EmployeeDTO employee = new EmployeeDTO("grace.hopper@ibm.com", "Grace", "Hopper", "1 Compiler Avenue",
+				"VA", "22201", "703-555-0100", "703-555-0101");
+
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail(employee.getEmail()).getStatusCode());
+		assertEquals(HttpStatus.CREATED, employeeService.createEmployee(employee).getStatusCode());
+		assertEquals(HttpStatus.CONFLICT, employeeService.createEmployee(employee).getStatusCode());
+
+		employee.setLastName("Murray");
+		assertEquals(HttpStatus.OK, employeeService.updateEmployee(employee).getStatusCode());
+
+		ResponseEntity<?> found = employeeService.findEmployeeByEmail(employee.getEmail());
+		assertEquals(HttpStatus.OK, found.getStatusCode());
+		assertEquals("Murray", ((EmployeeDTO) found.getBody()).getLastName());
+
+		assertEquals(HttpStatus.OK, employeeService.deleteEmployee(employee.getEmail()).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail(employee.getEmail()).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.deleteEmployee(employee.getEmail()).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.updateEmployee(employee).getStatusCode());
+	}
+
+	@Test
+	void refusesEmailsLongerThanTheirColumn() {
+		// Inserted with IGNORE, an email over 255 characters would be truncated rather than refused
+		EmployeeDTO employee = new EmployeeDTO("a".repeat(247) + "@ibm.com", "Grace", "Hopper", "1 Compiler Avenue",
+				"VA", "22201", "703-555-0100", "703-555-0101");
+		assertEquals(HttpStatus.CREATED, employeeService.createEmployee(employee).getStatusCode());
+		employeeService.deleteEmployee(employee.getEmail());
+
+		employee.setEmail("a" + employee.getEmail());
+		ResponseEntity<?> refused = employeeService.createEmployee(employee);
+		assertEquals(HttpStatus.BAD_REQUEST, refused.getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail(employee.getEmail()).getStatusCode());
+	}
+
+	@Test
+	void pagesByEmailWithACursor() {
+		for (int i = 0; i < 5; i++)
+			employeeService.createEmployee(new EmployeeDTO("zz.page" + i + "@ibm.com", "Page", "Turner", "3 Cursor Court",
+					"NY", "10001", "212-555-0100", "212-555-0101"));
+
+		List<String> emails = new ArrayList<>();
+		String cursor = "zz.page";
+		List<String> cursors = new ArrayList<>();
+		do {
+			ResponseEntity<?> page = employeeService.findAllEmployees(cursor, 2);
+			assertEquals(HttpStatus.OK, page.getStatusCode());
+
+			EmployeePageDTO body = (EmployeePageDTO) page.getBody();
+			body.getEmployees().forEach(employee -> emails.add(((EmployeeDTO) employee).getEmail()));
+			cursor = body.getNextCursor();
+			cursors.add(cursor);
+		} while (cursor != null);
+
+		assertEquals(List.of("zz.page0@ibm.com", "zz.page1@ibm.com", "zz.page2@ibm.com", "zz.page3@ibm.com", "zz.page4@ibm.com"), emails);
+		// A full page points at its last email, a short page ends the listing
+		assertEquals(Arrays.asList("zz.page1@ibm.com", "zz.page3@ibm.com", null), cursors);
+
+		emails.forEach(employeeService::deleteEmployee);
+	}
+
+	@Test
+	void streamsOnlyThePagesRequested() throws InterruptedException {
+		EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+		when(employeeRepository.findPageAfter(anyString(), anyInt())).thenAnswer(invocation -> {
+			String after = invocation.getArgument(0);
+			int next = after.isEmpty() ? 0 : Integer.parseInt(after.substring(1, after.indexOf('@'))) + 1;
+			return List.of(employee(next), employee(next + 1));
+		});
+		EmployeeService streamingService = new EmployeeService(employeeRepository, null, null, null, null, null);
+		ReflectionTestUtils.setField(streamingService, "streamFetchSize", 2);
+
+		// A subscriber asking for three employees of an endless table, and not cancelling, takes two pages of two
+		CountDownLatch received = new CountDownLatch(3);
+		BaseSubscriber<EmployeeDTO> subscription = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription upstream) {
+				upstream.request(3);
+			}
+
+			@Override
+			protected void hookOnNext(EmployeeDTO employee) {
+				received.countDown();
+			}
+		};
+		streamingService.streamAllEmployees().subscribe(subscription);
+		try {
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			verify(employeeRepository, after(200).times(2)).findPageAfter(anyString(), anyInt());
+		} finally {
+			subscription.dispose();
+		}
+	}
+
+	@Test
+	void findAllReturnsOnlyRequestedFields() {
+		EmployeeDTO employee = new EmployeeDTO("alan.turing@ibm.com", "Alan", "Turing", "2 Enigma Lane",
+				"NJ", "08540", "609-555-0100", "609-555-0101");
+		employeeService.createEmployee(employee);
+
+		ResponseEntity<?> page = employeeService.findAllEmployees(null, 1000, List.of("lastName", "firstName"));
+		assertEquals(HttpStatus.OK, page.getStatusCode());
+
+		List<?> employees = ((EmployeePageDTO) page.getBody()).getEmployees();
+		assertFalse(employees.isEmpty());
+		employees.forEach(projected -> assertEquals(List.of("email", "lastName", "firstName"), List.copyOf(((Map<?, ?>) projected).keySet())));
+		assertTrue(employees.contains(Map.of("email", "alan.turing@ibm.com", "lastName", "Turing", "firstName", "Alan")));
+
+		assertEquals(HttpStatus.BAD_REQUEST, employeeService.findAllEmployees(null, 1000, List.of("salary")).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, employeeService.findAllEmployees(null, 1000, List.of("version")).getStatusCode());
+
+		employeeService.deleteEmployee(employee.getEmail());
+	}
+
+	@Test
+	void countsEmployeesByGroup() {
+		EmployeeDTO employee = new EmployeeDTO("mary.jackson@ibm.com", "Mary", "Jackson", "6 Wind Tunnel Road",
+				"VA", "23681", "757-555-0100", "757-555-0101");
+		employeeService.createEmployee(employee);
+
+		Map<String, String> filters = new HashMap<>(Map.of("zip", "23681"));
+		ResponseEntity<?> stats = employeeService.countEmployees(List.of("state", "homeAreaCode"), filters, null);
+		assertEquals(HttpStatus.OK, stats.getStatusCode());
+		assertTrue(((EmployeeStatsDTO) stats.getBody()).getGroups().contains(Map.of("state", "VA", "homeAreaCode", "757", "count", 1L)));
+
+		assertEquals(HttpStatus.BAD_REQUEST, employeeService.countEmployees(List.of("salary"), Map.of(), null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, employeeService.countEmployees(List.of("state", "state"), Map.of(), null).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, employeeService.countEmployees(null, Map.of(), 0).getStatusCode());
+
+		employeeService.deleteEmployee(employee.getEmail());
+	}
+
+	private static Employee employee(int number) {
+		return new Employee("e" + number + "@ibm.com", "First", "Last", "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101", 0L);
+	}
+}
@@ -0,0 +1,103 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.cache.MappedEmployeeCache;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes the second-tier cache, restarts it on the same file and checks what survives reconciliation.
+ */
+@SpringBootTest
+class MappedEmployeeCacheTests {
+
+	private static final int EMPLOYEES = 3_000;
+
+	@Autowired
+	private EmployeeBatchRepository employeeBatchRepository;
+
+	@TempDir
+	private Path directory;
+
+	private final List<Employee> employees = new ArrayList<>();
+
+	@AfterEach
+	void deleteEmployees() {
+		employeeBatchRepository.deleteByEmails(employees.stream().map(Employee::getEmail).toList());
+	}
+
+	@Test
+	void warmsFromThePreviousProcessAfterReconciling() throws IOException {
+		for (int i = 0; i < EMPLOYEES; i++)
+			employees.add(new Employee("mapped" + i + "@ibm.com", "Mapped", "Employee", i + " Main Street", "NY", "10001",
+					"212-555-0100", i % 2 == 0 ? null : "212-555-0101", 0L));
+		employeeBatchRepository.insertIgnoringExisting(employees);
+
+		MappedEmployeeCache cache = open();
+		employees.forEach(cache::put);
+		assertEquals(employees.get(1), cache.get("mapped1@ibm.com").orElseThrow());
+		cache.close();
+
+		// While no process runs, one employee is updated and another deleted
+		Employee updated = employees.get(7);
+		updated.setZip("10002");
+		employeeBatchRepository.upsert(List.of(updated));
+		employeeBatchRepository.deleteByEmails(List.of("mapped8@ibm.com"));
+
+		MappedEmployeeCache restarted = open();
+		for (int i = 0; i < EMPLOYEES; i++) {
+			Optional<Employee> cached = restarted.get("mapped" + i + "@ibm.com");
+
+			if (i == 7 || i == 8)
+				assertTrue(cached.isEmpty());
+			else
+				assertEquals(employees.get(i), cached.orElseThrow());
+		}
+		restarted.close();
+	}
+
+	@Test
+	void followsWritesAndKeepsNewerVersions() throws IOException {
+		MappedEmployeeCache cache = open();
+		Employee employee = new Employee("mapped.writes@ibm.com", "Mapped", "Employee", "1 Main Street", "NY", "10001",
+				"212-555-0100", null, 3L);
+
+		cache.put(employee);
+		cache.put(new Employee("mapped.writes@ibm.com", "Stale", "Employee", "1 Main Street", "NY", "10001",
+				"212-555-0100", null, 2L));
+		assertEquals("Mapped", cache.get(employee.getEmail()).orElseThrow().getFirstName());
+
+		// An employee too large for a slot is dropped rather than left stale
+		cache.put(new Employee(employee.getEmail(), "x".repeat(600), "Employee", "1 Main Street", "NY", "10001",
+				"212-555-0100", null, 4L));
+		assertTrue(cache.get(employee.getEmail()).isEmpty());
+
+		cache.put(employee);
+		cache.remove(employee.getEmail());
+		assertTrue(cache.get(employee.getEmail()).isEmpty());
+		cache.close();
+	}
+
+	private MappedEmployeeCache open() {
+		MappedEmployeeCache cache = new MappedEmployeeCache(employeeBatchRepository, new SimpleMeterRegistry(),
+				directory.resolve("employee-cache.dat"), DataSize.ofMegabytes(4), Duration.ofMinutes(10));
+		cache.load();
+		return cache;
+	}
+}
@@ -0,0 +1,113 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.model.EmployeeRecord;
+import com.ibm.fscc.employeeservice.repository.ReactiveEmployeeRepository;
+import com.ibm.fscc.employeeservice.service.ReactiveEmployeeService;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("r2dbc")
+class ReactiveEmployeeServiceTests {
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Test
+	void createFindUpdateDelete() {
+		EmployeeDTO employee = new EmployeeDTO("ada.lovelace@ibm.com", "Ada", "Lovelace", "12 Analytical Street",
+				"NY", "10001", "212-555-0100", "212-555-0101");
+
+		assertEquals(HttpStatus.CREATED, reactiveEmployeeService.createEmployee(employee).block().getStatusCode());
+		assertEquals(HttpStatus.CONFLICT, reactiveEmployeeService.createEmployee(employee).block().getStatusCode());
+
+		employee.setLastName("King");
+		assertEquals(HttpStatus.OK, reactiveEmployeeService.updateEmployee(employee).block().getStatusCode());
+
+		ResponseEntity<?> found = reactiveEmployeeService.findEmployeeByEmail(employee.getEmail()).block();
+		assertEquals(HttpStatus.OK, found.getStatusCode());
+		assertEquals("King", ((EmployeeDTO) found.getBody()).getLastName());
+
+		assertEquals(HttpStatus.OK, reactiveEmployeeService.deleteEmployee(employee.getEmail()).block().getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, reactiveEmployeeService.findEmployeeByEmail(employee.getEmail()).block().getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, reactiveEmployeeService.deleteEmployee(employee.getEmail()).block().getStatusCode());
+	}
+
+	@Test
+	void rejectsInvalidEmployee() {
+		EmployeeDTO employee = new EmployeeDTO("not-an-email", "A", "Lovelace", "12 Analytical Street",
+				"ny", "10001", "212-555-0100", "212-555-0101");
+
+		assertEquals(HttpStatus.BAD_REQUEST, reactiveEmployeeService.createEmployee(employee).block().getStatusCode());
+	}
+
+	@Test
+	void streamsEveryEmployee() {
+		long count = reactiveEmployeeService.streamAllEmployees().count().block();
+		ResponseEntity<?> firstPage = reactiveEmployeeService.findAllEmployees(null, 1000).block();
+
+		assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+		assertEquals(count, ((EmployeePageDTO) firstPage.getBody()).getEmployees().size());
+	}
+
+	@Test
+	void streamsOnlyThePagesRequested() throws InterruptedException {
+		ReactiveEmployeeRepository repository = mock(ReactiveEmployeeRepository.class);
+		when(repository.findPageAfter(anyString(), anyInt())).thenAnswer(invocation -> {
+			String after = invocation.getArgument(0);
+			int next = after.isEmpty() ? 0 : Integer.parseInt(after.substring(1, after.indexOf('@'))) + 1;
+			return Flux.just(employee(next), employee(next + 1));
+		});
+		ReactiveEmployeeService streamingService = new ReactiveEmployeeService(repository, null);
+		ReflectionTestUtils.setField(streamingService, "streamFetchSize", 2);
+
+		// A subscriber asking for three employees of an endless table, and not cancelling, takes two pages of two and
+		// the page after them
+		CountDownLatch received = new CountDownLatch(3);
+		BaseSubscriber<EmployeeDTO> subscription = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription upstream) {
+				upstream.request(3);
+			}
+
+			@Override
+			protected void hookOnNext(EmployeeDTO employee) {
+				received.countDown();
+			}
+		};
+		streamingService.streamAllEmployees().subscribe(subscription);
+		try {
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			verify(repository, after(200).times(3)).findPageAfter(anyString(), anyInt());
+		} finally {
+			subscription.dispose();
+		}
+	}
+
+	private static EmployeeRecord employee(int number) {
+		return new EmployeeRecord("e" + number + "@ibm.com", "First", "Last", "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101", 0L);
+	}
+}
@@ -0,0 +1,108 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.routing.ReadYourWrites;
+import com.ibm.fscc.employeeservice.routing.ReplicaDataSources;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import com.ibm.fscc.employeeservice.util.BlockingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.util.context.Context;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the service on two embedded databases standing in for a primary, holding the sample employees, and its
+ * replica, which never replicates, so that every read shows where it was routed.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:routingprimary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"employee.datasource.replicas[0].url=jdbc:h2:mem:routingreplica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"employee.datasource.replicas[0].username=sa",
+		"employee.datasource.read-your-writes=500ms"})
+class ReplicaRoutingTests {
+
+	private static final String REPLICA_ONLY = "replica.only@ibm.com";
+	private static final String WRITTEN = "written.on.primary@ibm.com";
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private BlockingExecutor blockingExecutor;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	@Qualifier("dataSource")
+	private DataSource primaryDataSource;
+
+	@Autowired
+	private ReplicaDataSources replicaDataSources;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void createReplica() {
+		replica = new JdbcTemplate(replicaDataSources.getDataSources().get(0));
+
+		// The replica starts with the schema of the primary, and one employee the primary does not have
+		for (String statement : new JdbcTemplate(primaryDataSource).queryForList("SCRIPT NODATA", String.class))
+			if (!statement.startsWith("CREATE USER"))
+				replica.execute(statement);
+		replica.update("INSERT INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+				+ "VALUES (?, 'Replica', 'Only', '1 Lag Street', 'NY', '10001', '212-555-0100', NULL, 0)", REPLICA_ONLY);
+	}
+
+	@AfterEach
+	void dropReplica() {
+		employeeService.deleteEmployee(WRITTEN);
+		replica.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void routesReadOnlyTransactionsToTheReplicaExceptAfterTheCallersWrites() throws Exception {
+		double replicaConnections = meterRegistry.get("employee.datasource.connections").tag("target", "replica").counter().count();
+
+		assertEquals(List.of(REPLICA_ONLY), emails(employeeService.findAllEmployees(null, 100)));
+		assertTrue(meterRegistry.get("employee.datasource.connections").tag("target", "replica").counter().count() > replicaConnections);
+
+		// Cached lookups are loaded from the primary, whatever the replica holds
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail(REPLICA_ONLY).getStatusCode());
+
+		EmployeeDTO employee = new EmployeeDTO(WRITTEN, "Ada", "Lovelace", "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101");
+		assertEquals(HttpStatus.CREATED, ReadYourWrites.withCaller("ada", () -> employeeService.createEmployee(employee)).getStatusCode());
+
+		// The writer reads its write, through the blocking executor as a request would, while others read the replica
+		ResponseEntity<?> afterWrite = blockingExecutor.respond(() -> employeeService.findAllEmployees(null, 100))
+				.contextWrite(Context.of(ReadYourWrites.CALLER, "ada")).block(Duration.ofSeconds(10));
+		assertTrue(emails(afterWrite).contains(WRITTEN));
+		assertFalse(emails(afterWrite).contains(REPLICA_ONLY));
+		assertEquals(List.of(REPLICA_ONLY), emails(ReadYourWrites.withCaller("grace", () -> employeeService.findAllEmployees(null, 100))));
+
+		// Once the window closed, the writer reads the replica again
+		Thread.sleep(600);
+		assertEquals(List.of(REPLICA_ONLY), emails(ReadYourWrites.withCaller("ada", () -> employeeService.findAllEmployees(null, 100))));
+	}
+
+	private static List<String> emails(ResponseEntity<?> page) {
+		assertEquals(HttpStatus.OK, page.getStatusCode());
+		return ((EmployeePageDTO) page.getBody()).getEmployees().stream().map(employee -> ((EmployeeDTO) employee).getEmail()).toList();
+	}
+}
@@ -0,0 +1,208 @@
+package com.ibm.fscc.employeeservice;
+
+import com.ibm.fscc.employeeservice.dto.BulkResponseDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeePageDTO;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchCriteria;
+import com.ibm.fscc.employeeservice.dto.EmployeeSearchResultDTO;
+import com.ibm.fscc.employeeservice.model.Employee;
+import com.ibm.fscc.employeeservice.repository.EmployeeExportRepository;
+import com.ibm.fscc.employeeservice.service.EmployeeBulkService;
+import com.ibm.fscc.employeeservice.service.EmployeeService;
+import com.ibm.fscc.employeeservice.shard.Collation;
+import com.ibm.fscc.employeeservice.shard.EmployeeShards;
+import com.ibm.fscc.employeeservice.shard.ShardDataSources;
+import com.ibm.fscc.employeeservice.shard.ShardRebalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the service on three embedded databases standing in for three shards, and checks where employees are stored,
+ * how reads over the whole store are merged and how the rebalancer moves employees stored on a former shard.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+		"employee.datasource.shards[0].url=jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+		"employee.datasource.shards[0].username=sa",
+		"employee.datasource.shards[1].url=jdbc:h2:mem:shard2;MODE=MySQL;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+		"employee.datasource.shards[1].username=sa",
+		"employee.datasource.rebalance.batch-size=7"})
+class ShardingTests {
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	@Autowired
+	private EmployeeBulkService employeeBulkService;
+
+	@Autowired
+	private EmployeeExportRepository employeeExportRepository;
+
+	@Autowired
+	private EmployeeShards employeeShards;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	@Autowired
+	private ShardDataSources shardDataSources;
+
+	private final List<JdbcTemplate> shards = new ArrayList<>();
+
+	@BeforeEach
+	void connectShards() {
+		shardDataSources.getDataSources().forEach(dataSource -> shards.add(new JdbcTemplate(dataSource)));
+	}
+
+	@AfterEach
+	void deleteEmployees() {
+		shards.forEach(shard -> shard.update("DELETE FROM Employee WHERE email LIKE 'sharded.%'"));
+	}
+
+	@Test
+	void storesEveryEmployeeOnTheShardOfItsEmailOnly() {
+		for (int i = 0; i < 30; i++)
+			assertEquals(HttpStatus.CREATED, employeeService.createEmployee(employee(i, "Sharded")).getStatusCode());
+
+		int[] perShard = new int[shards.size()];
+		for (int i = 0; i < 30; i++) {
+			int owner = employeeShards.ownerOf(email(i));
+			perShard[owner]++;
+			for (int shard = 0; shard < shards.size(); shard++)
+				assertEquals(shard == owner ? 1 : 0, countOf(shard, email(i)));
+		}
+		for (int count : perShard)
+			assertTrue(count > 0);
+
+		// Calls naming an employee find it on its shard
+		assertEquals(HttpStatus.OK, employeeService.updateEmployee(employee(3, "Updated")).getStatusCode());
+		assertEquals("Updated", shards.get(employeeShards.ownerOf(email(3)))
+				.queryForObject("SELECT lastName FROM Employee WHERE email = ?", String.class, email(3)));
+		assertEquals(HttpStatus.OK, employeeService.deleteEmployee(email(4)).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, employeeService.findEmployeeByEmail(email(4)).getStatusCode());
+		assertEquals(HttpStatus.CONFLICT, employeeService.createEmployee(employee(5, "Sharded")).getStatusCode());
+	}
+
+	@Test
+	void mergesPagesSearchesAndExportsOfEveryShard() {
+		// Emails and names in mixed case, which the shards order ignoring case
+		List<EmployeeDTO> employees = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			EmployeeDTO employee = employee(i, i % 2 == 0 ? "Shardeven" : "SHARDODD");
+			if (i % 3 == 0)
+				employee.setEmail(employee.getEmail().toUpperCase());
+			employees.add(employee);
+			employeeService.createEmployee(employee);
+		}
+		Comparator<String> collation = Collation.IGNORE_CASE.comparator();
+
+		List<String> stored = new ArrayList<>();
+		shards.forEach(shard -> stored.addAll(shard.queryForList("SELECT email FROM Employee", String.class)));
+		stored.sort(collation);
+
+		// Keyset pages walk the whole store in email order
+		List<String> paged = new ArrayList<>();
+		String after = null;
+		do {
+			EmployeePageDTO page = (EmployeePageDTO) employeeService.findAllEmployees(after, 7).getBody();
+			page.getEmployees().forEach(employee -> paged.add(((EmployeeDTO) employee).getEmail()));
+			after = page.getNextCursor();
+		} while (after != null);
+		assertEquals(stored, paged);
+
+		// The second page of a search sorted by last name then email, descending
+		ResponseEntity<?> response = employeeService.searchEmployees(new EmployeeSearchCriteria("Shard", null, null, null),
+				List.of("lastName,desc", "email,desc"), 1, 5);
+		EmployeeSearchResultDTO result = (EmployeeSearchResultDTO) response.getBody();
+		List<String> expected = employees.stream()
+				.sorted(Comparator.comparing(EmployeeDTO::getLastName, collation).thenComparing(EmployeeDTO::getEmail, collation).reversed())
+				.map(employee -> employee.getLastName() + " " + employee.getEmail())
+				.toList();
+		assertEquals(expected.subList(5, 10), result.getEmployees().stream().map(employee -> employee.getLastName() + " " + employee.getEmail()).toList());
+		assertTrue(result.isHasNext());
+
+		try (Stream<Employee> exported = employeeExportRepository.streamAll()) {
+			assertEquals(stored, exported.map(Employee::getEmail).toList());
+		}
+	}
+
+	@Test
+	void splitsBulkWritesByShard() {
+		List<EmployeeDTO> employees = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+			employees.add(employee(i, "Sharded"));
+		employees.add(employee(0, "Sharded"));
+
+		BulkResponseDTO created = (BulkResponseDTO) employeeBulkService.createEmployees(employees).getBody();
+		assertEquals(20, created.getSucceeded());
+		assertEquals(HttpStatus.CONFLICT.value(), created.getResults().get(20).getStatus());
+		for (int i = 0; i < 20; i++)
+			assertEquals(1, countOf(employeeShards.ownerOf(email(i)), email(i)));
+
+		BulkResponseDTO deleted = (BulkResponseDTO) employeeBulkService.deleteEmployees(List.of(email(1), email(2), email(3))).getBody();
+		assertEquals(3, deleted.getSucceeded());
+		assertEquals(0, countOf(employeeShards.ownerOf(email(2)), email(2)));
+	}
+
+	@Test
+	void rebalancingMovesEmployeesOntoTheirShardWhileTheyAreUsed() throws Exception {
+		// Employees stored on the first shard before the other shards were added
+		for (int i = 0; i < 40; i++)
+			shards.get(0).update("INSERT INTO Employee (email, firstName, lastName, address, state, zip, cellPhone, homePhone, version) "
+					+ "VALUES (?, 'Ada', 'Former', '1 Main Street', 'NY', '10001', '212-555-0100', '212-555-0101', 3)", email(i));
+		int misplaced = (int) IntStream.range(0, 40).filter(i -> employeeShards.ownerOf(email(i)) != 0).count();
+		assertTrue(misplaced > 0);
+
+		assertTrue(shardRebalancer.start());
+
+		// Writes during the pass land on the owner and survive it
+		ResponseEntity<?> updated = employeeService.updateEmployee(employee(7, "Moved"));
+		assertEquals(HttpStatus.OK, updated.getStatusCode());
+		assertEquals("\"4\"", updated.getHeaders().getETag());
+
+		for (int wait = 0; shardRebalancer.isRunning() && wait < 100; wait++)
+			Thread.sleep(100);
+		assertFalse(shardRebalancer.isRunning());
+		assertNull(shardRebalancer.describe().get("failure"));
+		assertTrue((Long) shardRebalancer.describe().get("moved") >= misplaced - 1);
+
+		for (int i = 0; i < 40; i++) {
+			int owner = employeeShards.ownerOf(email(i));
+			for (int shard = 0; shard < shards.size(); shard++)
+				assertEquals(shard == owner ? 1 : 0, countOf(shard, email(i)));
+		}
+		assertEquals("Moved", shards.get(employeeShards.ownerOf(email(7)))
+				.queryForObject("SELECT lastName FROM Employee WHERE email = ?", String.class, email(7)));
+		assertEquals(3L, shards.get(employeeShards.ownerOf(email(8)))
+				.queryForObject("SELECT version FROM Employee WHERE email = ?", Long.class, email(8)));
+	}
+
+	private int countOf(int shard, String email) {
+		return shards.get(shard).queryForObject("SELECT COUNT(*) FROM Employee WHERE email = ?", Integer.class, email);
+	}
+
+	private static String email(int i) {
+		return "sharded." + i + "@ibm.com";
+	}
+
+	private static EmployeeDTO employee(int i, String lastName) {
+		return new EmployeeDTO(email(i), "Ada", lastName, "1 Main Street", "NY", "10001", "212-555-0100", "212-555-0101");
+	}
+}
@@ -4,7 +4,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.ibm.fscc.loginservice.dto.LoginRequest;
 import com.ibm.fscc.loginservice.exception.InvalidDataException;
@@ -21,7 +21,7 @@ import lombok.AllArgsConstructor;
 public class LoginServiceApplication implements CommandLineRunner{
 
 	private final LoginService loginService;
-	private final BCryptPasswordEncoder bCryptPasswordEncoder;
+	private final PasswordEncoder passwordEncoder;
 	
 	/**
 	 * Main method to start the Login Service application.
@@ -40,7 +40,7 @@ public class LoginServiceApplication implements CommandLineRunner{
 	public void run(String... args) throws Exception {
 		LoginRequest loginRequest = new LoginRequest();
 		loginRequest.setEmail("test12345@test.com");
-		loginRequest.setPassword(bCryptPasswordEncoder.encode("test1234"));
+		loginRequest.setPassword(passwordEncoder.encode("test1234"));
 		
 		try {
 			loginService.saveLoginInformation(loginRequest);
@@ -0,0 +1,33 @@
+package com.ibm.fscc.loginservice.configuration;
+
+import com.ibm.fscc.loginservice.pool.ConnectionPoolMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration class for the JDBC {@link DataSource}, declared here from the usual {@code spring.datasource}
+ * properties so that its pool is instrumented, and sized, by the {@link ConnectionPoolMonitor} before it starts.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfiguration {
+
+	/**
+     * Creates the pooled {@link DataSource} bean.
+     *
+     * @param dataSourceProperties  the {@code spring.datasource} properties
+     * @param connectionPoolMonitor the {@link ConnectionPoolMonitor} instrumenting and sizing the pool
+     * @return the {@link HikariDataSource} bean, further configured by the {@code spring.datasource.hikari} properties
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties, ConnectionPoolMonitor connectionPoolMonitor) {
+        return connectionPoolMonitor.monitor(dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+    }
+}
@@ -3,8 +3,12 @@ package com.ibm.fscc.loginservice.configuration;
 import com.ibm.fscc.loginservice.exception.UserNotFoundException;
 import com.ibm.fscc.loginservice.model.Login;
 import com.ibm.fscc.loginservice.repository.LoginRepository;
-import lombok.RequiredArgsConstructor;
+import com.ibm.fscc.loginservice.service.RegisteredEmails;
+import com.ibm.fscc.loginservice.util.BlockingExecutor;
+import com.ibm.fscc.loginservice.util.PasswordHashingExecutor;
+import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,57 +20,149 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Authentication provider for handling login authentication.
  * It implements the {@link AuthenticationProvider} interface provided by Spring Security.
+ * The login is looked up on the {@link BlockingExecutor}, and the password then checked on the
+ * {@link PasswordHashingExecutor} without holding the blocking thread, which is free for other lookups meanwhile.
+ * Passwords are hashed again once checked if their stored hash was made with other parameters than those the
+ * {@link PasswordEncoder} is configured with.
+ * Emails the {@link RegisteredEmails} know are not registered are refused without querying the database; with
+ * {@code login.email-filter.equalize-timing}, the password of an unknown email is still checked against a dummy hash,
+ * so that the time to answer does not tell whether an account exists.
  */
+@Slf4j
 @Service
 @Primary
-@RequiredArgsConstructor
 public class LoginAuthentication implements AuthenticationProvider{
 	
 	private final LoginRepository loginRepository;
 	private final PasswordEncoder passwordEncoder;
+	private final BlockingExecutor blockingExecutor;
+	private final PasswordHashingExecutor passwordHashingExecutor;
+	private final RegisteredEmails registeredEmails;
+	private final String dummyHash;
+
+	/**
+	 * Constructs the provider, hashing a random password once when timing is equalized.
+	 *
+	 * @param loginRepository         the {@link LoginRepository} to find the logins in
+	 * @param passwordEncoder         the {@link PasswordEncoder} checking the passwords
+	 * @param blockingExecutor        the {@link BlockingExecutor} to query the logins on
+	 * @param passwordHashingExecutor the {@link PasswordHashingExecutor} to check the passwords on
+	 * @param registeredEmails        the {@link RegisteredEmails} telling which emails are certainly unknown
+	 * @param equalizeTiming          whether the passwords of unknown emails are checked against a dummy hash
+	 */
+	public LoginAuthentication(LoginRepository loginRepository, PasswordEncoder passwordEncoder,
+			BlockingExecutor blockingExecutor, PasswordHashingExecutor passwordHashingExecutor,
+			RegisteredEmails registeredEmails, @Value("${login.email-filter.equalize-timing}") boolean equalizeTiming) {
+		this.loginRepository = loginRepository;
+		this.passwordEncoder = passwordEncoder;
+		this.blockingExecutor = blockingExecutor;
+		this.passwordHashingExecutor = passwordHashingExecutor;
+		this.registeredEmails = registeredEmails;
+		this.dummyHash = equalizeTiming ? passwordEncoder.encode(UUID.randomUUID().toString()) : null;
+	}
 	
 	/**
-     * Authenticates the provided credentials.
+     * Authenticates the provided credentials, blocking until they are checked. Request handlers use
+     * {@link #authenticate(String, String)} instead.
      *
      * @param authentication the {@link Authentication} object containing user credentials
      * @return the authenticated {@link Authentication} object
      * @throws AuthenticationException if authentication fails
+     * @throws java.util.concurrent.RejectedExecutionException if too many lookups or passwords are waiting
      */
     @Override
 	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
-    	// Extract email and password from the authentication object
-        String email = authentication.getName();
-        String password = authentication.getCredentials().toString();
+        return authenticate(authentication.getName(), authentication.getCredentials().toString()).block();
+	}
 
-        // Find the admin with the provided email
-        Optional<Login> login = loginRepository.findByEmail(email);
+	/**
+	 * Authenticates the provided credentials.
+	 *
+	 * @param email    the email
+	 * @param password the password
+	 * @return a {@link Mono} emitting the authenticated {@link Authentication} object, or failing with an
+	 *         {@link AuthenticationException} if authentication fails, or with a
+	 *         {@link java.util.concurrent.RejectedExecutionException} if too many lookups or passwords are waiting
+	 */
+	public Mono<Authentication> authenticate(String email, String password) {
+        // Refuse emails certainly not registered without querying the database
+        Mono<Optional<Login>> login = registeredEmails.mightExist(email)
+                ? blockingExecutor.call(() -> loginRepository.findByEmail(email))
+                : Mono.just(Optional.empty());
 
-        // Check if the admin exists
-        if (login.isEmpty())
-            throw new UserNotFoundException("Admin not found with email: " + email);
+        return login.flatMap(found -> {
+            // Check if the admin exists
+            if (found.isEmpty())
+                return notFound(email, password);
 
-        Login user = login.get();
+            Login user = found.get();
 
-        // Compare the provided password with the stored password
-        if (!passwordEncoder.matches(password, user.getPassword()))
-            throw new BadCredentialsException("Invalid email or password");
+            // Compare the provided password with the stored password, on the hashing threads
+            return passwordHashingExecutor.hash(() -> passwordEncoder.matches(password, user.getPassword()))
+                    .flatMap(matches -> {
+                        if (!matches)
+                            return Mono.error(new BadCredentialsException("Invalid email or password"));
 
-        List<GrantedAuthority> authorities = new ArrayList<>();
+                        List<GrantedAuthority> authorities = new ArrayList<>();
 
-        // Create a UserDetails object representing the authenticated user
-        UserDetails userDetails = new User(email, password, authorities);
+                        // Create a UserDetails object representing the authenticated user
+                        UserDetails userDetails = new User(email, password, authorities);
 
-        return new UsernamePasswordAuthenticationToken(userDetails, password, authorities);
+                        return rehash(user, password)
+                                .thenReturn(new UsernamePasswordAuthenticationToken(userDetails, password, authorities));
+                    });
+        });
 	}
 
+    /**
+     * Refuses an unknown email, with an exception without a stack trace since unknown emails are common and the
+     * exception only becomes a 401, once the password was checked against the dummy hash if timing is equalized.
+     *
+     * @param email    the unknown email
+     * @param password the password given for it
+     * @return a {@link Mono} failing with a {@link UserNotFoundException}
+     */
+    private <T> Mono<T> notFound(String email, String password) {
+        UserNotFoundException notFound = new UserNotFoundException("Admin not found with email: " + email, false);
+        if (dummyHash == null)
+            return Mono.error(notFound);
+
+        return passwordHashingExecutor.hash(() -> passwordEncoder.matches(password, dummyHash)).then(Mono.error(notFound));
+    }
+
+    /**
+     * Replaces the stored hash of a checked password if it was made with other parameters than the configured ones,
+     * hashing on the hashing threads and updating on the blocking ones.
+     * The login succeeds even if the hash cannot be replaced, as when the hashing threads are saturated; the next
+     * login tries again.
+     *
+     * @param user     the login whose password was checked
+     * @param password the checked password
+     * @return a {@link Mono} completing once the hash is replaced or given up
+     */
+    private Mono<Void> rehash(Login user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword()))
+            return Mono.empty();
+
+        return passwordHashingExecutor.hash(() -> passwordEncoder.encode(password))
+                .flatMap(hash -> blockingExecutor.call(() -> loginRepository.updatePassword(user.getEmail(), user.getPassword(), hash)))
+                .then()
+                .onErrorResume(RuntimeException.class, e -> {
+                    log.warn("Could not rehash the password of {}: {}", user.getEmail(), e.toString());
+                    return Mono.empty();
+                });
+    }
+
     /**
      * Checks if this authentication provider supports the provided authentication type.
      *
@@ -20,13 +20,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
 import org.springframework.security.web.server.authorization.AuthorizationContext;
 import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
+import com.ibm.fscc.loginservice.util.ConfigurablePasswordEncoder;
 import reactor.core.publisher.Mono;
 
 import java.security.interfaces.RSAPrivateKey;
@@ -108,11 +108,14 @@ public class SecurityConfiguration {
     /**
      * Configures the {@link PasswordEncoder} bean for password encoding.
      *
-     * @return the {@link PasswordEncoder} bean
+     * @param algorithm  the algorithm of new hashes, from {@code login.password.algorithm}
+     * @param workFactor the work factor of new hashes, from {@code login.password.work-factor}
+     * @return the {@link PasswordEncoder} bean, a {@link ConfigurablePasswordEncoder}
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${login.password.algorithm}") String algorithm,
+            @Value("${login.password.work-factor}") int workFactor) {
+        return new ConfigurablePasswordEncoder(algorithm, workFactor);
     }
 
     /**
@@ -2,15 +2,25 @@ package com.ibm.fscc.loginservice.controller;
 
 import com.ibm.fscc.loginservice.dto.LoginRequest;
 import com.ibm.fscc.loginservice.dto.RefreshTokenRequest;
+import com.ibm.fscc.loginservice.ratelimit.ClientAddressResolver;
+import com.ibm.fscc.loginservice.ratelimit.LoginRateLimiter;
 import com.ibm.fscc.loginservice.service.LoginService;
+import com.ibm.fscc.loginservice.util.BlockingExecutor;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 /**
- * Controller class for handling login-related operations.
+ * Controller class for handling login-related operations. The login calls block on JPA, so they run on the
+ * {@link BlockingExecutor} rather than on the event loops, once the {@link LoginRateLimiter} admitted them; logins
+ * only take a blocking thread for their lookup, and check their password on the hashing threads.
  */
 @RestController
 @AllArgsConstructor
@@ -18,17 +28,39 @@ import org.springframework.web.bind.annotation.*;
 public class LoginController {
 
 	private final LoginService loginService;
+	private final BlockingExecutor blockingExecutor;
+	private final LoginRateLimiter loginRateLimiter;
+	private final ClientAddressResolver clientAddressResolver;
 
 	/**
 	 * Handles the login request.
 	 *
 	 * @param loginRequest the login request containing email and password.
+	 * @param request the request, whose client address, as the {@link ClientAddressResolver} finds it, the attempt is
+	 * limited by.
 	 * @return the {@link ResponseEntity} with a success response containing the {@link LoginResponse} object
-	 * if login is successful, or an error response with an error message if login fails.
+	 * if login is successful, an error response with an error message if login fails, or a 429 status with a
+	 * {@code Retry-After} header if the email or the client address made too many attempts.
 	 */
 	@PostMapping
-	public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
-		return loginService.login(loginRequest);
+	public Mono<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest, ServerHttpRequest request) {
+		String email = loginRequest.getEmail();
+		String address = clientAddressResolver.resolve(request);
+
+		// Rejected attempts never reach the database nor the password hashing
+		Duration wait = loginRateLimiter.admit(email, address);
+		if (!wait.isZero())
+			return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (wait.toMillis() + 999) / 1000)))
+					.build());
+
+		return loginService.login(loginRequest)
+				.doOnNext(response -> {
+					if (response.getStatusCode() == HttpStatus.UNAUTHORIZED)
+						loginRateLimiter.failed(email, address);
+					else if (response.getStatusCode().is2xxSuccessful())
+						loginRateLimiter.succeeded(email);
+				});
 	}
 	
 	/**
@@ -41,8 +73,8 @@ public class LoginController {
 	 *         it returns a message with status code 409 (Conflict) and an error message in the response body.
 	 */
 	@PostMapping("/save")
-	public ResponseEntity<String> saveLogin(@RequestBody LoginRequest loginRequest) {
-		return loginService.saveLoginInformation(loginRequest);
+	public Mono<ResponseEntity<?>> saveLogin(@RequestBody LoginRequest loginRequest) {
+		return blockingExecutor.respond(() -> loginService.saveLoginInformation(loginRequest));
 	}
 	
 }
@@ -0,0 +1,114 @@
+package com.ibm.fscc.loginservice.diagnostics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Configuration class wiring the {@link BlockingCallDetector} into the service when
+ * {@code diagnostics.blocking.enabled} is set: JDBC connections are checked as they are taken, password hashes as
+ * they are computed, and requests mark the thread serving them so that reports name their endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(name = "diagnostics.blocking.enabled", havingValue = "true")
+public class BlockingDiagnosticsConfiguration {
+
+	/**
+     * Creates the {@link BeanPostProcessor} checking the threads taking JDBC connections.
+     *
+     * @param detector the {@link BlockingCallDetector}, looked up once the data source is used
+     * @return the {@link BeanPostProcessor} wrapping the {@link DataSource} beans
+     */
+    @Bean
+    public static BeanPostProcessor blockingDataSourcePostProcessor(ObjectProvider<BlockingCallDetector> detector) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource))
+                    return bean;
+
+                return new DelegatingDataSource(dataSource) {
+                    @Override
+                    public Connection getConnection() throws SQLException {
+                        detector.getObject().check("jdbc");
+                        return super.getConnection();
+                    }
+
+                    @Override
+                    public Connection getConnection(String username, String password) throws SQLException {
+                        detector.getObject().check("jdbc");
+                        return super.getConnection(username, password);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Creates the {@link BeanPostProcessor} checking the threads hashing passwords, which takes BCrypt tens of
+     * milliseconds.
+     *
+     * @param detector the {@link BlockingCallDetector}, looked up once the encoder is used
+     * @return the {@link BeanPostProcessor} wrapping the {@link PasswordEncoder} beans
+     */
+    @Bean
+    public static BeanPostProcessor blockingPasswordEncoderPostProcessor(ObjectProvider<BlockingCallDetector> detector) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof PasswordEncoder passwordEncoder))
+                    return bean;
+
+                return new PasswordEncoder() {
+                    @Override
+                    public String encode(CharSequence rawPassword) {
+                        detector.getObject().check("password-encoder");
+                        return passwordEncoder.encode(rawPassword);
+                    }
+
+                    @Override
+                    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                        detector.getObject().check("password-encoder");
+                        return passwordEncoder.matches(rawPassword, encodedPassword);
+                    }
+
+                    @Override
+                    public boolean upgradeEncoding(String encodedPassword) {
+                        return passwordEncoder.upgradeEncoding(encodedPassword);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Creates the {@link WebFilter} marking the thread serving a request while the request is handled on it.
+     *
+     * @param detector the {@link BlockingCallDetector}
+     * @return the {@link WebFilter}, run before any other
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public WebFilter blockingCallEndpointFilter(BlockingCallDetector detector) {
+        return (exchange, chain) -> Mono.defer(() -> {
+            detector.enter(exchange);
+            try {
+                return chain.filter(exchange);
+            } finally {
+                detector.leave();
+            }
+        });
+    }
+}
@@ -23,4 +23,15 @@ public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(String eMessage) {
         super(eMessage);
     }
+
+    /**
+     * Constructs a new {@link UserNotFoundException} with the specified error message, optionally without filling in
+     * its stack trace, for the unknown logins answered in bulk.
+     *
+     * @param eMessage       the error message
+     * @param withStackTrace whether the stack trace is filled in
+     */
+    public UserNotFoundException(String eMessage, boolean withStackTrace) {
+        super(eMessage, null, false, withStackTrace);
+    }
 }
@@ -0,0 +1,68 @@
+package com.ibm.fscc.loginservice.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Finds the client address a login attempt is limited by.
+ * <p>
+ * Requests from the proxies listed in {@code login.rate-limit.trusted-proxies}, addresses or CIDR ranges such as the
+ * api-gateway's, are attributed to the last {@code X-Forwarded-For} entry: the address the proxy itself saw and
+ * appended. Earlier entries are written by the client and never trusted, so a client cannot pass for a new address on
+ * every attempt. Requests from any other peer are attributed to the peer, whatever headers they carry.
+ */
+@Component
+public class ClientAddressResolver {
+
+	static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+	private final List<IpAddressMatcher> trustedProxies;
+
+	/**
+	 * Constructs the resolver.
+	 *
+	 * @param trustedProxies the addresses or CIDR ranges of the proxies whose {@code X-Forwarded-For} is trusted
+	 */
+	public ClientAddressResolver(@Value("${login.rate-limit.trusted-proxies}") List<String> trustedProxies) {
+		this.trustedProxies = trustedProxies.stream().map(String::strip).filter(proxy -> !proxy.isEmpty())
+				.map(IpAddressMatcher::new).toList();
+	}
+
+	/**
+	 * Returns the client address of a request.
+	 *
+	 * @param request the request
+	 * @return the address the last trusted proxy saw, or the peer address; {@code null} if the peer is unknown
+	 */
+	public String resolve(ServerHttpRequest request) {
+		InetSocketAddress remoteAddress = request.getRemoteAddress();
+		if (remoteAddress == null)
+			return null;
+
+		String peer = remoteAddress.getAddress() == null ? remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress();
+		if (!isTrusted(peer))
+			return peer;
+
+		List<String> forwarded = request.getHeaders().get(X_FORWARDED_FOR);
+		if (forwarded == null || forwarded.isEmpty())
+			return peer;
+
+		// The proxy appends to the last header, so its entry is the last of the last header
+		String last = forwarded.get(forwarded.size() - 1);
+		String client = last.substring(last.lastIndexOf(',') + 1).strip();
+		return client.isEmpty() ? peer : client;
+	}
+
+	private boolean isTrusted(String address) {
+		for (IpAddressMatcher proxy : trustedProxies) {
+			if (proxy.matches(address))
+				return true;
+		}
+		return false;
+	}
+}
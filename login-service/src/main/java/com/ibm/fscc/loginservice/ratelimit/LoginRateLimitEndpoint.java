@@ -0,0 +1,30 @@
+package com.ibm.fscc.loginservice.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint, {@code /actuator/ratelimit}, summarising the login rate limiter: the buckets it holds, the keys
+ * backing off and the attempts it rejected, per email and per client address.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+@RequiredArgsConstructor
+public class LoginRateLimitEndpoint {
+
+	private final LoginRateLimiter loginRateLimiter;
+
+	/**
+	 * Serves the summary.
+	 *
+	 * @return the summary
+	 */
+	@ReadOperation
+	public Map<String, Object> rateLimit() {
+		return loginRateLimiter.describe();
+	}
+}
@@ -0,0 +1,323 @@
+package com.ibm.fscc.loginservice.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limits login attempts per email and per client address, before the attempt takes a connection or hashes a password.
+ * <p>
+ * Every email and every client address has a token bucket: an attempt takes a token, buckets hold at most
+ * {@code capacity} tokens and regain one every {@code refill-period}. Failed attempts, beyond
+ * {@code login.rate-limit.free-failures} in a row, also block the email and the address for a back-off that starts at
+ * {@code base-backoff} and doubles with every further failure up to {@code max-backoff}; a successful login clears
+ * the failures of its email, those of an address are forgotten once it has not failed for {@code max-backoff}.
+ * <p>
+ * Buckets are spread over {@code login.rate-limit.stripes} stripes by key, each locked on its own and holding at most
+ * its share of {@code login.rate-limit.max-entries} buckets per kind of key, the least recently used being evicted.
+ * An evicted bucket starts full again, so the limit holds for the keys in use, which a distributed attack cannot
+ * crowd out without being limited per address itself.
+ * <p>
+ * Published metrics, tagged {@code key=email} or {@code key=ip}: {@code login.rate-limit.rejected} (attempts
+ * rejected, further tagged {@code reason=rate} or {@code reason=backoff}), {@code login.rate-limit.failures}
+ * (failed attempts), {@code login.rate-limit.entries} (buckets held) and {@code login.rate-limit.evicted} (buckets
+ * evicted).
+ */
+@Component
+public class LoginRateLimiter {
+
+	private final boolean enabled;
+	private final Buckets emails;
+	private final Buckets addresses;
+
+	/**
+	 * Constructs the limiter and registers its metrics.
+	 *
+	 * @param meterRegistry     the {@link MeterRegistry} to publish the limiter metrics to
+	 * @param enabled           whether attempts are limited
+	 * @param emailCapacity     the number of attempts an email may make at once
+	 * @param emailRefillPeriod the time an email regains an attempt in
+	 * @param ipCapacity        the number of attempts a client address may make at once
+	 * @param ipRefillPeriod    the time a client address regains an attempt in
+	 * @param freeFailures      the number of failures in a row before a key is blocked
+	 * @param baseBackoff       the first back-off
+	 * @param maxBackoff        the longest back-off
+	 * @param maxEntries        the maximum number of buckets per kind of key
+	 * @param stripes           the number of independently locked stripes per kind of key
+	 */
+	public LoginRateLimiter(MeterRegistry meterRegistry,
+			@Value("${login.rate-limit.enabled}") boolean enabled,
+			@Value("${login.rate-limit.email.capacity}") int emailCapacity,
+			@Value("${login.rate-limit.email.refill-period}") Duration emailRefillPeriod,
+			@Value("${login.rate-limit.ip.capacity}") int ipCapacity,
+			@Value("${login.rate-limit.ip.refill-period}") Duration ipRefillPeriod,
+			@Value("${login.rate-limit.free-failures}") int freeFailures,
+			@Value("${login.rate-limit.base-backoff}") Duration baseBackoff,
+			@Value("${login.rate-limit.max-backoff}") Duration maxBackoff,
+			@Value("${login.rate-limit.max-entries}") int maxEntries,
+			@Value("${login.rate-limit.stripes}") int stripes) {
+		this.enabled = enabled;
+		this.emails = new Buckets("email", meterRegistry, emailCapacity, emailRefillPeriod, freeFailures, baseBackoff, maxBackoff, maxEntries, stripes);
+		this.addresses = new Buckets("ip", meterRegistry, ipCapacity, ipRefillPeriod, freeFailures, baseBackoff, maxBackoff, maxEntries, stripes);
+	}
+
+	/**
+	 * Admits a login attempt if neither its client address nor its email is out of tokens or backing off. The address
+	 * is checked first, and keeps its token spent even if the email is then rejected.
+	 *
+	 * @param email   the email of the attempt, or {@code null}
+	 * @param address the client address of the attempt, or {@code null} if unknown
+	 * @return {@link Duration#ZERO} if the attempt is admitted, otherwise the time to wait before trying again
+	 */
+	public Duration admit(String email, String address) {
+		if (!enabled)
+			return Duration.ZERO;
+
+		long now = System.nanoTime();
+		long wait = address == null ? 0 : addresses.take(address, now);
+		if (wait == 0 && email != null)
+			wait = emails.take(normalize(email), now);
+		return Duration.ofNanos(wait);
+	}
+
+	/**
+	 * Records a failed login attempt against its email and client address.
+	 *
+	 * @param email   the email of the attempt, or {@code null}
+	 * @param address the client address of the attempt, or {@code null} if unknown
+	 */
+	public void failed(String email, String address) {
+		if (!enabled)
+			return;
+
+		long now = System.nanoTime();
+		if (address != null)
+			addresses.fail(address, now);
+		if (email != null)
+			emails.fail(normalize(email), now);
+	}
+
+	/**
+	 * Records a successful login, clearing the failures of its email.
+	 *
+	 * @param email the email of the attempt
+	 */
+	public void succeeded(String email) {
+		if (enabled && email != null)
+			emails.clear(normalize(email), System.nanoTime());
+	}
+
+	/**
+	 * Describes the limiter.
+	 *
+	 * @return whether it is enabled and, per kind of key, the number of buckets held and of keys backing off, and the
+	 *         counts of rejections, failures and evictions
+	 */
+	public Map<String, Object> describe() {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("enabled", enabled);
+		description.put("email", emails.describe());
+		description.put("ip", addresses.describe());
+		return description;
+	}
+
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * The buckets of one kind of key.
+	 */
+	private static final class Buckets {
+
+		private final int capacity;
+		private final long refillNanos;
+		private final int freeFailures;
+		private final long baseBackoffNanos;
+		private final long maxBackoffNanos;
+		private final Stripe[] stripes;
+
+		private final Counter rejectedByRate;
+		private final Counter rejectedByBackoff;
+		private final Counter failures;
+		private final Counter evicted;
+
+		Buckets(String key, MeterRegistry meterRegistry, int capacity, Duration refillPeriod, int freeFailures,
+				Duration baseBackoff, Duration maxBackoff, int maxEntries, int stripes) {
+			this.capacity = capacity;
+			this.refillNanos = refillPeriod.toNanos();
+			this.freeFailures = freeFailures;
+			this.baseBackoffNanos = baseBackoff.toNanos();
+			this.maxBackoffNanos = maxBackoff.toNanos();
+			this.stripes = new Stripe[stripes];
+			for (int i = 0; i < stripes; i++)
+				this.stripes[i] = new Stripe(Math.max(1, maxEntries / stripes));
+
+			this.rejectedByRate = Counter.builder("login.rate-limit.rejected").tag("key", key).tag("reason", "rate").register(meterRegistry);
+			this.rejectedByBackoff = Counter.builder("login.rate-limit.rejected").tag("key", key).tag("reason", "backoff").register(meterRegistry);
+			this.failures = Counter.builder("login.rate-limit.failures").tag("key", key).register(meterRegistry);
+			this.evicted = Counter.builder("login.rate-limit.evicted").tag("key", key).register(meterRegistry);
+			Gauge.builder("login.rate-limit.entries", this, Buckets::size).tag("key", key).register(meterRegistry);
+		}
+
+		/**
+		 * Takes a token from the bucket of a key, unless the key is backing off or out of tokens.
+		 *
+		 * @return 0 if a token was taken, otherwise the nanoseconds until the key may try again
+		 */
+		long take(String key, long now) {
+			Stripe stripe = stripeOf(key);
+			synchronized (stripe) {
+				Bucket bucket = stripe.get(key, now);
+
+				if (now - bucket.blockedUntil < 0) {
+					rejectedByBackoff.increment();
+					return bucket.blockedUntil - now;
+				}
+
+				refill(bucket, now);
+				if (bucket.tokens < 1) {
+					rejectedByRate.increment();
+					return (long) ((1 - bucket.tokens) * refillNanos);
+				}
+
+				bucket.tokens--;
+				return 0;
+			}
+		}
+
+		/**
+		 * Counts a failure of a key, and blocks it beyond the free failures.
+		 */
+		void fail(String key, long now) {
+			failures.increment();
+
+			Stripe stripe = stripeOf(key);
+			synchronized (stripe) {
+				Bucket bucket = stripe.get(key, now);
+
+				if (now - bucket.failedAt > maxBackoffNanos)
+					bucket.failures = 0;
+				bucket.failures++;
+				bucket.failedAt = now;
+
+				int excess = bucket.failures - freeFailures;
+				if (excess > 0) {
+					// The back-off doubles per failure, capped before the shift could overflow
+					long backoff = excess > 30 ? maxBackoffNanos : Math.min(maxBackoffNanos, baseBackoffNanos << (excess - 1));
+					bucket.blockedUntil = now + backoff;
+				}
+			}
+		}
+
+		/**
+		 * Clears the failures of a key.
+		 */
+		void clear(String key, long now) {
+			Stripe stripe = stripeOf(key);
+			synchronized (stripe) {
+				Bucket bucket = stripe.get(key);
+				if (bucket != null) {
+					bucket.failures = 0;
+					bucket.blockedUntil = now;
+				}
+			}
+		}
+
+		Map<String, Object> describe() {
+			long now = System.nanoTime();
+			int entries = 0;
+			int backingOff = 0;
+
+			for (Stripe stripe : stripes) {
+				synchronized (stripe) {
+					entries += stripe.size();
+					for (Bucket bucket : stripe.values())
+						if (now - bucket.blockedUntil < 0)
+							backingOff++;
+				}
+			}
+
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("entries", entries);
+			description.put("backingOff", backingOff);
+			description.put("rejectedByRate", (long) rejectedByRate.count());
+			description.put("rejectedByBackoff", (long) rejectedByBackoff.count());
+			description.put("failures", (long) failures.count());
+			description.put("evicted", (long) evicted.count());
+			return description;
+		}
+
+		private int size() {
+			int size = 0;
+			for (Stripe stripe : stripes) {
+				synchronized (stripe) {
+					size += stripe.size();
+				}
+			}
+			return size;
+		}
+
+		private void refill(Bucket bucket, long now) {
+			bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) / (double) refillNanos);
+			bucket.refilledAt = now;
+		}
+
+		private Stripe stripeOf(String key) {
+			int hash = key.hashCode();
+			return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+		}
+
+		/**
+		 * The buckets of a stripe, in access order, evicting the least recently used beyond its share of buckets.
+		 */
+		private final class Stripe extends LinkedHashMap<String, Bucket> {
+
+			private final int maxEntries;
+
+			Stripe(int maxEntries) {
+				super(16, 0.75f, true);
+				this.maxEntries = maxEntries;
+			}
+
+			Bucket get(String key, long now) {
+				return computeIfAbsent(key, k -> new Bucket(capacity, now));
+			}
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+				if (size() <= maxEntries)
+					return false;
+
+				evicted.increment();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * The token bucket and failures of a key; guarded by the lock of its stripe.
+	 */
+	private static final class Bucket {
+
+		private double tokens;
+		private long refilledAt;
+		private int failures;
+		private long failedAt;
+		private long blockedUntil;
+
+		Bucket(int capacity, long now) {
+			this.tokens = capacity;
+			this.refilledAt = now;
+			this.failedAt = now;
+			this.blockedUntil = now;
+		}
+	}
+}
@@ -1,11 +1,14 @@
 package com.ibm.fscc.loginservice.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ibm.fscc.loginservice.model.Login;
 
@@ -22,4 +25,25 @@ public interface LoginRepository extends CrudRepository<Login, String>{
 	 */
 	@Query(value = "SELECT * FROM Login WHERE email = :email", nativeQuery = true)
 	Optional<Login> findByEmail(@Param("email") String email);
+
+	/**
+	 * Retrieves a batch of emails in email order, for reading every email without holding a cursor.
+	 * @param after the email the batch starts after, or an empty string for the first batch
+	 * @param limit the maximum number of emails to return
+	 * @return the emails after {@code after}, in email order
+	 */
+	@Query(value = "SELECT email FROM Login WHERE email > :after ORDER BY email LIMIT :limit", nativeQuery = true)
+	List<String> findEmailsAfter(@Param("after") String after, @Param("limit") int limit);
+
+	/**
+	 * Replaces the password hash of a login, unless it changed since it was read.
+	 * @param email the email of the login
+	 * @param previous the hash the new one replaces
+	 * @param password the new hash
+	 * @return 1 if the hash was replaced, 0 otherwise
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query(value = "UPDATE Login SET password = :password WHERE email = :email AND password = :previous", nativeQuery = true)
+	int updatePassword(@Param("email") String email, @Param("previous") String previous, @Param("password") String password);
 }
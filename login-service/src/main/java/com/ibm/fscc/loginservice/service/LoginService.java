@@ -12,16 +12,18 @@ import com.ibm.fscc.loginservice.util.JwtProvider;
 import lombok.AllArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.*;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service class for managing login operations.
@@ -34,46 +36,78 @@ public class LoginService {
 	private final RefreshTokenService refreshTokenService;
 	private final LoginAuthentication loginAuthentication;
 	private final LoginRepository loginRepository;
+	private final RegisteredEmails registeredEmails;
 	
 	/**
-	 * Performs the login operation for the given login request and returns the login response.
+	 * Performs the login operation for the given login request and returns the login response. The login is looked
+	 * up on the blocking threads and the password checked on the hashing threads, neither waiting for the other.
+	 * <p>
+	 * A request missing its email or password is answered with 400 before any lookup or hashing. The registration
+	 * rules of {@link LoginRequest} are not applied, so accounts saved before or without them can still log in.
 	 *
 	 * @param loginRequest the {@link LoginRequest} containing the email and password for login
-	 * @return the {@link LoginResponse} with the authentication token, refresh token, expiration time,
-	 *         and admin information if available
+	 * @return a {@link Mono} emitting the {@link LoginResponse} with the authentication token, refresh token, expiration
+	 *         time, and admin information if available, a 400 status and an error response body if the request is
+	 *         malformed, or a 503 status with a {@code Retry-After} header if too many lookups or passwords are waiting
 	 */
-	public ResponseEntity<?> login(LoginRequest loginRequest) {
-		try {
-			Authentication authentication = loginAuthentication.authenticate(
-					new UsernamePasswordAuthenticationToken(
-							loginRequest.getEmail(),
-							loginRequest.getPassword()
-					)
-			);
+	public Mono<ResponseEntity<?>> login(LoginRequest loginRequest) {
+		// Reject incomplete requests before any database lookup or password hashing
+		Map<String, String> errors = missingCredentials(loginRequest);
+		if (!errors.isEmpty())
+			return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors));
+
+		return loginAuthentication.authenticate(loginRequest.getEmail(), loginRequest.getPassword())
+				.<ResponseEntity<?>>map(authentication -> {
+					// The SecurityContextHolder is where Spring Security stores the details of who is authenticated.
+					// getContext() - obtains the current SecurityContext.
+					// setAuthentication(Authentication authentication) - changes the currently authenticated principal,
+					// or removes the authentication information.
+					SecurityContextHolder.getContext().setAuthentication(authentication);
 
-			// The SecurityContextHolder is where Spring Security stores the details of who is authenticated.
-			// getContext() - obtains the current SecurityContext.
-			// setAuthentication(Authentication authentication) - changes the currently authenticated principal,
-			// or removes the authentication information.
-			SecurityContextHolder.getContext().setAuthentication(authentication);
+					HttpHeaders httpHeaders = new HttpHeaders();
+					httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+					httpHeaders.add("X-Service-Id", "login-service");
 
-			HttpHeaders httpHeaders = new HttpHeaders();
-			httpHeaders.setContentType(MediaType.APPLICATION_JSON);
-			httpHeaders.add("X-Service-Id", "login-service");
+					MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+					queryParams.add("email", loginRequest.getEmail());
+
+					return ResponseEntity.status(HttpStatus.OK).body(
+							LoginResponse.builder()
+								.authenticationToken(jwtProvider.generateToken(authentication))
+								.expiresAt(Instant.now().plusMillis(jwtProvider.getJwtExpirationInMillis()))
+								.build());
+				})
+				.onErrorResume(e -> Mono.just(loginError(e)));
+	}
 
-			MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
-			queryParams.add("email", loginRequest.getEmail());
+	/**
+	 * Lists the credentials missing from a login request, with the messages of {@link LoginRequest}.
+	 *
+	 * @param loginRequest the {@link LoginRequest} to check
+	 * @return the {@link Map} of missing properties to error messages, empty if both are present
+	 */
+	private static Map<String, String> missingCredentials(LoginRequest loginRequest) {
+		Map<String, String> errors = new LinkedHashMap<>();
+		if (loginRequest.getEmail() == null || loginRequest.getEmail().isBlank())
+			errors.put("email", "Email is required.");
+		if (loginRequest.getPassword() == null || loginRequest.getPassword().isBlank())
+			errors.put("password", "Password is required.");
+		return errors;
+	}
 
-			return ResponseEntity.status(HttpStatus.OK).body(
-					LoginResponse.builder()
-						.authenticationToken(jwtProvider.generateToken(authentication))
-						.expiresAt(Instant.now().plusMillis(jwtProvider.getJwtExpirationInMillis()))
-						.build());
-		} catch (UserNotFoundException | AuthenticationException e) {
+	/**
+	 * Maps a failed login to its response.
+	 *
+	 * @param e the {@link Throwable} the login failed with
+	 * @return a 401 status if the credentials are wrong, a 503 status with a {@code Retry-After} header if the login
+	 *         was rejected by a saturated executor, or a 500 status otherwise
+	 */
+	private static ResponseEntity<?> loginError(Throwable e) {
+		if (e instanceof UserNotFoundException || e instanceof AuthenticationException)
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid email or password");
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal server error.");
-		}
+		if (e instanceof RejectedExecutionException)
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal server error.");
 	}
 	
 	/**
@@ -96,6 +130,7 @@ public class LoginService {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch(UserNotFoundException e) {
 			loginRepository.save(LoginMapper.loginRequestToLogin(loginRequest));
+			registeredEmails.add(loginRequest.getEmail());
 			return ResponseEntity.status(HttpStatus.OK).body("Login information saved successfully.");
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal server error.");
@@ -0,0 +1,187 @@
+package com.ibm.fscc.loginservice.service;
+
+import com.ibm.fscc.loginservice.repository.LoginRepository;
+import com.ibm.fscc.loginservice.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Knows which emails are registered, so that logins for unknown emails are answered without querying the database.
+ * <p>
+ * The emails of the {@code Login} table are read into a {@link BloomFilter} once the application is ready, in
+ * keyset batches of {@code login.email-filter.batch-size}, and again every {@code login.email-filter.refresh-interval}
+ * into a filter sized for twice the emails then registered, at least {@code expected-insertions}. Emails saved by
+ * this instance are added as soon as they are saved, to the filter in use and to the one being read. Registrations
+ * made on another instance are only known from the next refresh, until which their logins are answered as unknown:
+ * the filter is therefore off by default, and only suits a single instance or deployments accepting that delay.
+ * <p>
+ * Until the first filter is read, and when {@code login.email-filter.enabled} is off, every email might exist.
+ * Emails are compared trimmed and in lower case, as the database collation compares them.
+ * <p>
+ * Published metrics: {@code login.email-filter.lookups}, tagged {@code result=absent} or {@code result=present}, and
+ * {@code login.email-filter.false-positive-probability}, the estimated share of unknown emails still queried.
+ */
+@Slf4j
+@Component
+public class RegisteredEmails {
+
+	private final LoginRepository loginRepository;
+	private final boolean enabled;
+	private final long expectedInsertions;
+	private final double falsePositiveRate;
+	private final int batchSize;
+	private final Duration refreshInterval;
+
+	private final Counter absent;
+	private final Counter present;
+
+	private volatile BloomFilter filter;
+	private BloomFilter building;
+	private ScheduledExecutorService refresher;
+
+	/**
+	 * Constructs the registry and registers its metrics.
+	 *
+	 * @param loginRepository    the {@link LoginRepository} to read the emails from
+	 * @param meterRegistry      the {@link MeterRegistry} to publish the lookups to
+	 * @param enabled            whether lookups use the filter
+	 * @param expectedInsertions the smallest number of emails a filter is sized for
+	 * @param falsePositiveRate  the share of unknown emails the filter lets through once full
+	 * @param batchSize          the number of emails read per query
+	 * @param refreshInterval    the interval between two reads of the emails
+	 */
+	public RegisteredEmails(LoginRepository loginRepository, MeterRegistry meterRegistry,
+			@Value("${login.email-filter.enabled}") boolean enabled,
+			@Value("${login.email-filter.expected-insertions}") long expectedInsertions,
+			@Value("${login.email-filter.false-positive-rate}") double falsePositiveRate,
+			@Value("${login.email-filter.batch-size}") int batchSize,
+			@Value("${login.email-filter.refresh-interval}") Duration refreshInterval) {
+		this.loginRepository = loginRepository;
+		this.enabled = enabled;
+		this.expectedInsertions = expectedInsertions;
+		this.falsePositiveRate = falsePositiveRate;
+		this.batchSize = batchSize;
+		this.refreshInterval = refreshInterval;
+
+		this.absent = Counter.builder("login.email-filter.lookups").tag("result", "absent").register(meterRegistry);
+		this.present = Counter.builder("login.email-filter.lookups").tag("result", "present").register(meterRegistry);
+		Gauge.builder("login.email-filter.false-positive-probability", this,
+				registeredEmails -> registeredEmails.filter == null ? 1 : registeredEmails.filter.falsePositiveProbability())
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Starts reading the emails in the background, now and every refresh interval.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled)
+			return;
+
+		refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "email-filter-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresher.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Tells whether an email might be registered.
+	 *
+	 * @param email the email
+	 * @return {@code false} only if the email is certainly not registered
+	 */
+	public boolean mightExist(String email) {
+		BloomFilter current = filter;
+		if (current == null || email == null)
+			return true;
+
+		boolean found = current.mightContain(normalize(email));
+		(found ? present : absent).increment();
+		return found;
+	}
+
+	/**
+	 * Adds an email that was just saved. Must be called once the email is committed, so that a filter being read
+	 * either finds it in the table or is given it here.
+	 *
+	 * @param email the email
+	 */
+	public synchronized void add(String email) {
+		if (!enabled || email == null)
+			return;
+
+		String normalized = normalize(email);
+		if (filter != null)
+			filter.put(normalized);
+		if (building != null)
+			building.put(normalized);
+	}
+
+	/**
+	 * Stops the refreshes.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (refresher != null)
+			refresher.shutdownNow();
+	}
+
+	/**
+	 * Reads every email into a new filter and puts it in use. A failed read keeps the filter in use.
+	 */
+	private void refresh() {
+		long start = System.nanoTime();
+
+		try {
+			BloomFilter next = new BloomFilter(Math.max(expectedInsertions, 2 * loginRepository.count()), falsePositiveRate);
+			synchronized (this) {
+				building = next;
+			}
+
+			long emails = 0;
+			String after = "";
+			List<String> batch;
+
+			do {
+				batch = loginRepository.findEmailsAfter(after, batchSize);
+				for (String email : batch)
+					next.put(normalize(email));
+				emails += batch.size();
+				if (!batch.isEmpty())
+					after = batch.get(batch.size() - 1);
+			} while (batch.size() == batchSize);
+
+			synchronized (this) {
+				filter = next;
+			}
+			log.info("Read {} registered emails into a filter of {} bits in {} ms", emails, next.bitSize(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (RuntimeException e) {
+			log.warn("Could not read the registered emails; {}", filter == null ? "every email is looked up" : "keeping the previous filter", e);
+		} finally {
+			synchronized (this) {
+				building = null;
+			}
+		}
+	}
+
+	private static String normalize(String email) {
+		return email.strip().toLowerCase(Locale.ROOT);
+	}
+}
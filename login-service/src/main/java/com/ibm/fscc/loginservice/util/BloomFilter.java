@@ -0,0 +1,115 @@
+package com.ibm.fscc.loginservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings: {@link #mightContain(String)} is always {@code true} for a string {@link #put(String) put}
+ * in the filter, and {@code false} for others but with the configured probability.
+ * <p>
+ * The filter is sized for an expected number of strings, {@code -n ln p / ln² 2} bits and {@code ln 2 m / n} hashes,
+ * derived from two 64-bit hashes of the UTF-8 bytes of the string. Bits are set atomically, so strings may be put
+ * and looked up concurrently without locking.
+ */
+public final class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+
+	/**
+	 * Constructs an empty filter.
+	 *
+	 * @param expectedInsertions the number of strings expected to be put
+	 * @param falsePositiveRate  the probability that a string never put is reported, once the expected number is put
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions < 1)
+			throw new IllegalArgumentException("The expected number of insertions must be positive.");
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+			throw new IllegalArgumentException("The false positive rate must be between 0 and 1 exclusive.");
+
+		long size = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int wordCount = Math.toIntExact(Math.max(1, (size + 63) / 64));
+
+		this.words = new AtomicLongArray(wordCount);
+		this.bits = wordCount * 64L;
+		this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+	}
+
+	/**
+	 * Adds a string.
+	 *
+	 * @param value the string
+	 */
+	public void put(String value) {
+		long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+		// Odd, so that the probes of a string cannot all fall on even bits of the filter
+		long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bits);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+
+			long current;
+			while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask))
+				;
+		}
+	}
+
+	/**
+	 * Tells whether a string might have been added.
+	 *
+	 * @param value the string
+	 * @return {@code false} if the string was certainly never added
+	 */
+	public boolean mightContain(String value) {
+		long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+		long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bits);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bits of the filter.
+	 */
+	public long bitSize() {
+		return bits;
+	}
+
+	/**
+	 * Estimates the current false positive probability from the share of bits set.
+	 *
+	 * @return the probability that a string never added is reported
+	 */
+	public double falsePositiveProbability() {
+		long set = 0;
+		for (int i = 0; i < words.length(); i++)
+			set += Long.bitCount(words.get(i));
+		return Math.pow((double) set / bits, hashes);
+	}
+
+	/**
+	 * Hashes the UTF-8 bytes of a string with FNV-1a from a seed, followed by the MurmurHash3 finalizer.
+	 */
+	private static long hash(String value, long seed) {
+		long hash = 0xCBF29CE484222325L ^ seed;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
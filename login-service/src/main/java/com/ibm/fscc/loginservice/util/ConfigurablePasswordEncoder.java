@@ -0,0 +1,112 @@
+package com.ibm.fscc.loginservice.util;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PasswordEncoder} hashing with a configured algorithm and work factor, and checking hashes of any supported
+ * algorithm and work factor.
+ * <p>
+ * Hashes are prefixed with the id of their algorithm, as {@link DelegatingPasswordEncoder} does, and hashes without
+ * one are read as BCrypt, which the service used before. Every supported algorithm records its parameters in the hash,
+ * so changing the work factor does not invalidate stored hashes; {@link #upgradeEncoding(String)} tells which stored
+ * hashes were made with other parameters than the configured ones, higher or lower, so that they are rehashed.
+ * <p>
+ * The work factor is, by algorithm:
+ * <ul>
+ *     <li>{@code bcrypt}: the log2 of the number of rounds, from 4 to 31</li>
+ *     <li>{@code scrypt}: the log2 of the CPU cost, with a block size of 8 and no parallelism</li>
+ *     <li>{@code argon2}: the number of iterations of Argon2id, over 16 MiB and one lane</li>
+ * </ul>
+ * PBKDF2 is not supported since its hashes do not record their number of iterations.
+ */
+public class ConfigurablePasswordEncoder implements PasswordEncoder {
+
+	/**
+	 * The supported algorithms.
+	 */
+	public static final String BCRYPT = "bcrypt", SCRYPT = "scrypt", ARGON2 = "argon2";
+
+	private final DelegatingPasswordEncoder delegate;
+	private final String parameters;
+
+	/**
+	 * Constructs the encoder, hashing once to find the parameters of the configured hashes.
+	 *
+	 * @param algorithm  the algorithm of new hashes: {@code bcrypt}, {@code scrypt} or {@code argon2}
+	 * @param workFactor the work factor of new hashes
+	 * @throws IllegalArgumentException if the algorithm is unknown or the work factor out of its range
+	 */
+	public ConfigurablePasswordEncoder(String algorithm, int workFactor) {
+		Map<String, PasswordEncoder> encoders = new HashMap<>();
+		encoders.put(BCRYPT, new BCryptPasswordEncoder());
+		encoders.put(SCRYPT, SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
+		encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+		encoders.put(algorithm, encoderOf(algorithm, workFactor));
+
+		this.delegate = new DelegatingPasswordEncoder(algorithm, encoders);
+		this.delegate.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+		this.parameters = parametersOf(delegate.encode(""));
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return delegate.encode(rawPassword);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return delegate.matches(rawPassword, encodedPassword);
+	}
+
+	/**
+	 * Tells whether a hash was made with another algorithm or other parameters than the configured ones.
+	 *
+	 * @param encodedPassword the stored hash
+	 * @return {@code true} if the password should be hashed again
+	 */
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return encodedPassword != null && !parameters.equals(parametersOf(encodedPassword));
+	}
+
+	private static PasswordEncoder encoderOf(String algorithm, int workFactor) {
+		return switch (algorithm) {
+			case BCRYPT -> new BCryptPasswordEncoder(workFactor);
+			case SCRYPT -> {
+				if (workFactor < 1 || workFactor > 30)
+					throw new IllegalArgumentException("The scrypt work factor must be between 1 and 30.");
+				yield new SCryptPasswordEncoder(1 << workFactor, 8, 1, 32, 16);
+			}
+			case ARGON2 -> {
+				if (workFactor < 1)
+					throw new IllegalArgumentException("The argon2 work factor must be at least 1.");
+				yield new Argon2PasswordEncoder(16, 32, 1, 1 << 14, workFactor);
+			}
+			default -> throw new IllegalArgumentException("Unknown password hashing algorithm: " + algorithm
+					+ "; expected " + BCRYPT + ", " + SCRYPT + " or " + ARGON2 + ".");
+		};
+	}
+
+	/**
+	 * Strips the salt and the hash off an encoded password, leaving its algorithm id and parameters: BCrypt writes its
+	 * salt and hash as one {@code $} separated segment, SCrypt and Argon2 as two.
+	 *
+	 * @return the id and parameters, or {@code null} for a hash without id
+	 */
+	private static String parametersOf(String encodedPassword) {
+		if (!encodedPassword.startsWith("{"))
+			return null;
+
+		int end = encodedPassword.lastIndexOf('$');
+		if (end > 0 && !encodedPassword.startsWith("{" + BCRYPT + "}"))
+			end = encodedPassword.lastIndexOf('$', end - 1);
+		return end < 0 ? encodedPassword : encodedPassword.substring(0, end + 1);
+	}
+}
@@ -0,0 +1,103 @@
+package com.ibm.fscc.loginservice.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashes, which take BCrypt tens of milliseconds of CPU each, on a pool of their own, so that a burst of
+ * logins queues for the cores instead of taking every thread of the {@link BlockingExecutor}. Nothing waits for a hash:
+ * the caller is handed a {@link Mono} completing on a hashing thread, so the blocking thread that looked the login up
+ * is free again while the password is checked. The pool has {@code login.hashing.thread-cap} threads, one per core
+ * when it is 0, and at most {@code login.hashing.queue-cap} hashes wait for a thread; hashes beyond that are rejected
+ * at once, so that logins are answered 503 rather than waiting longer than a client would.
+ * <p>
+ * Published metrics, tagged {@code executor=hashing}:
+ * {@code hashing.queue.depth} (hashes waiting for a thread), {@code hashing.active} (hashes running),
+ * {@code hashing.wait} (time from submission to start), {@code hashing.execution} (time hashing) and
+ * {@code hashing.rejected} (hashes rejected because the queue was full).
+ */
+@Component
+public class PasswordHashingExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final Scheduler scheduler;
+	private final Timer waitTimer;
+	private final Timer executionTimer;
+	private final Counter rejected;
+
+	/**
+	 * Constructs the executor and registers its metrics.
+	 *
+	 * @param meterRegistry the {@link MeterRegistry} to publish the executor metrics to
+	 * @param threadCap     the number of threads hashing passwords, or 0 for one per core
+	 * @param queueCap      the maximum number of hashes waiting for a thread
+	 */
+	public PasswordHashingExecutor(MeterRegistry meterRegistry,
+			@Value("${login.hashing.thread-cap}") int threadCap,
+			@Value("${login.hashing.queue-cap}") int queueCap) {
+		int threads = threadCap > 0 ? threadCap : Runtime.getRuntime().availableProcessors();
+		AtomicInteger count = new AtomicInteger();
+
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCap), task -> {
+			Thread thread = new Thread(task, "hashing-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+		this.scheduler = Schedulers.fromExecutorService(executor, "hashing");
+
+		Gauge.builder("hashing.queue.depth", executor, pool -> pool.getQueue().size()).tag("executor", "hashing").register(meterRegistry);
+		Gauge.builder("hashing.active", executor, ThreadPoolExecutor::getActiveCount).tag("executor", "hashing").register(meterRegistry);
+		this.waitTimer = Timer.builder("hashing.wait").tag("executor", "hashing").publishPercentiles(0.5, 0.99).register(meterRegistry);
+		this.executionTimer = Timer.builder("hashing.execution").tag("executor", "hashing").publishPercentiles(0.5, 0.99).register(meterRegistry);
+		this.rejected = Counter.builder("hashing.rejected").tag("executor", "hashing").register(meterRegistry);
+	}
+
+	/**
+	 * Runs a hash on the hashing pool.
+	 *
+	 * @param hash the call computing or checking the hash
+	 * @param <T>  the type of the result
+	 * @return a {@link Mono} emitting the result of the call on a hashing thread, or failing with a
+	 *         {@link RejectedExecutionException} if too many hashes are waiting
+	 */
+	public <T> Mono<T> hash(Callable<T> hash) {
+		return Mono.defer(() -> {
+			long submitted = System.nanoTime();
+
+			return Mono.fromCallable(() -> {
+						long start = System.nanoTime();
+						waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+						try {
+							return hash.call();
+						} finally {
+							executionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+						}
+					})
+					.subscribeOn(scheduler)
+					.doOnError(RejectedExecutionException.class, e -> rejected.increment());
+		});
+	}
+
+	/**
+	 * Stops the hashing threads.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		scheduler.dispose();
+	}
+}
@@ -0,0 +1,54 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.diagnostics.BlockingCallDetector;
+import com.ibm.fscc.loginservice.diagnostics.BlockingDiagnosticsConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the password hashes the {@link BlockingDiagnosticsConfiguration} wires into the
+ * {@link BlockingCallDetector} are reported when computed on non-blocking threads. The detector itself, and the JDBC
+ * connections, are checked by the employee service, which carries the same detector.
+ */
+class BlockingCallDetectorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final BlockingCallDetector detector = new BlockingCallDetector(meterRegistry, Duration.ofMillis(5), 10, 20);
+
+	@Test
+	void reportsPasswordHashesOnNonBlockingThreads() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("blockingCallDetector", detector);
+		PasswordEncoder passwordEncoder = (PasswordEncoder) BlockingDiagnosticsConfiguration
+				.blockingPasswordEncoderPostProcessor(beanFactory.getBeanProvider(BlockingCallDetector.class))
+				.postProcessAfterInitialization(new BCryptPasswordEncoder(4), "passwordEncoder");
+		String hash = new BCryptPasswordEncoder(4).encode("password1");
+
+		// Hashing on the threads meant for it, or only reading the cost of a hash, is not reported
+		Mono.fromCallable(() -> passwordEncoder.matches("password1", hash)).subscribeOn(Schedulers.boundedElastic()).block(Duration.ofSeconds(10));
+		Mono.fromCallable(() -> passwordEncoder.upgradeEncoding(hash)).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+		assertTrue(detector.getReports().isEmpty());
+
+		// Right and wrong passwords take as long to check
+		for (String password : List.of("password1", "password2"))
+			Mono.fromCallable(() -> passwordEncoder.matches(password, hash)).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(10));
+
+		List<BlockingCallDetector.Report> reports = detector.getReports();
+		assertEquals(1, reports.size());
+		assertEquals("password-encoder", reports.get(0).getOperation());
+		assertEquals(2, reports.get(0).getCount());
+		assertTrue(reports.get(0).getOrigin().startsWith(BlockingCallDetectorTests.class.getName()));
+		assertEquals(2.0, meterRegistry.get("diagnostics.blocking.calls").tag("operation", "password-encoder").counter().count());
+	}
+}
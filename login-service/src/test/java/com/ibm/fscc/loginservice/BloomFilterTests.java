@@ -0,0 +1,36 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link BloomFilter} of registered emails never misses an email it holds, and lets through about
+ * the configured share of the others.
+ */
+class BloomFilterTests {
+
+	@Test
+	void holdsEveryEmailPutAndFewOthers() {
+		BloomFilter filter = new BloomFilter(20_000, 0.01);
+		IntStream.range(0, 20_000).parallel().forEach(i -> filter.put("user" + i + "@ibm.com"));
+
+		for (int i = 0; i < 20_000; i++)
+			assertTrue(filter.mightContain("user" + i + "@ibm.com"));
+
+		long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("stranger" + i + "@ibm.com")).count();
+		assertTrue(falsePositives < 2_000, () -> falsePositives + " false positives out of 100000 unknown emails");
+		assertEquals(0.01, filter.falsePositiveProbability(), 0.005);
+	}
+
+	@Test
+	void refusesImpossibleSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+	}
+}
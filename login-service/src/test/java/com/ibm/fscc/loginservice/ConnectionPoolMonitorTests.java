@@ -0,0 +1,59 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.configuration.DataSourceConfiguration;
+import com.ibm.fscc.loginservice.pool.ConnectionPoolMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the {@link ConnectionPoolMonitor} instruments and sizes the single pool of the service, as the
+ * {@code login.pool.adaptive} and {@code spring.datasource} properties configure it. The sizing decisions are checked
+ * by the employee service, which carries the same monitor.
+ */
+class ConnectionPoolMonitorTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			// Converts the durations as the application does
+			.withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+			.withUserConfiguration(DataSourceConfiguration.class, ConnectionPoolMonitor.class)
+			.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+			.withPropertyValues(
+					"spring.datasource.url=jdbc:h2:mem:loginpool;DB_CLOSE_DELAY=-1",
+					"spring.datasource.hikari.pool-name=login",
+					"spring.datasource.hikari.maximum-pool-size=3",
+					"login.pool.adaptive.enabled=true",
+					"login.pool.adaptive.min-size=1",
+					"login.pool.adaptive.max-size=3",
+					"login.pool.adaptive.interval=1h",
+					"login.pool.adaptive.acquire-target=5ms",
+					"login.pool.adaptive.response-tolerance=1.5");
+
+	@Test
+	void monitorsThePoolOfTheLoginDataSource() {
+		contextRunner.run(context -> {
+			HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+			try (Connection connection = dataSource.getConnection()) {
+				assertTrue(connection.isValid(1));
+			}
+
+			MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+			assertTrue(meterRegistry.get("hikaricp.connections.acquire").tag("pool", "login").timer().count() > 0);
+			assertEquals(3.0, meterRegistry.get("hikaricp.connections.max").tag("pool", "login").gauge().value());
+
+			Map<String, Map<String, Object>> description = context.getBean(ConnectionPoolMonitor.class).describe();
+			assertEquals(1, description.size());
+			assertEquals(3, description.get("login").get("maximumPoolSize"));
+			assertEquals(true, description.get("login").get("adaptive"));
+		});
+	}
+}
@@ -0,0 +1,80 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.controller.LoginController;
+import com.ibm.fscc.loginservice.dto.LoginRequest;
+import com.ibm.fscc.loginservice.ratelimit.ClientAddressResolver;
+import com.ibm.fscc.loginservice.ratelimit.LoginRateLimiter;
+import com.ibm.fscc.loginservice.service.LoginService;
+import com.ibm.fscc.loginservice.util.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks which client address the {@link LoginController} limits login attempts by, against clients forging their
+ * {@code X-Forwarded-For} header. Every attempt uses another email, so that only the address bucket of capacity 3 can
+ * refuse them.
+ */
+class LoginControllerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LoginService loginService = mock(LoginService.class);
+	private final BlockingExecutor blockingExecutor = new BlockingExecutor(meterRegistry, 2, 10);
+	private final LoginRateLimiter loginRateLimiter = new LoginRateLimiter(meterRegistry, true, 100, Duration.ofHours(1),
+			3, Duration.ofHours(1), 100, Duration.ofHours(1), Duration.ofDays(1), 100, 4);
+	private final LoginController controller = new LoginController(loginService, blockingExecutor, loginRateLimiter,
+			new ClientAddressResolver(List.of("10.0.0.0/24", "::1")));
+
+	private int attempts;
+
+	@AfterEach
+	void disposeExecutor() {
+		blockingExecutor.dispose();
+	}
+
+	@Test
+	void limitsTheAddressTheGatewaySawWhateverTheClientForwards() {
+		doReturn(Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build())).when(loginService).login(any());
+
+		// The gateway appends the address it saw to the entries the client made up
+		for (int i = 0; i < 3; i++)
+			assertEquals(HttpStatus.UNAUTHORIZED, attempt("10.0.0.5", "203.0.113." + i + ", 198.51.100.7"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, attempt("10.0.0.5", "203.0.113.9, 198.51.100.7"));
+
+		// Another client behind the same gateway has a bucket of its own
+		assertEquals(HttpStatus.UNAUTHORIZED, attempt("10.0.0.5", "198.51.100.8"));
+	}
+
+	@Test
+	void ignoresForwardedAddressesFromUntrustedPeers() {
+		doReturn(Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build())).when(loginService).login(any());
+
+		for (int i = 0; i < 3; i++)
+			assertEquals(HttpStatus.UNAUTHORIZED, attempt("192.0.2.1", "198.51.100." + i));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, attempt("192.0.2.1", "198.51.100.99"));
+	}
+
+	private HttpStatusCode attempt(String peer, String forwardedFor) {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/api/login")
+				.remoteAddress(new InetSocketAddress(peer, 40000))
+				.header("X-Forwarded-For", forwardedFor)
+				.build();
+		LoginRequest loginRequest = new LoginRequest("user" + attempts++ + "@ibm.com", "password1");
+
+		return controller.login(loginRequest, request).block().getStatusCode();
+	}
+}
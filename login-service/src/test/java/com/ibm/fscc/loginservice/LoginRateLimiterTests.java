@@ -0,0 +1,90 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.ratelimit.LoginRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the token buckets, back-off and eviction of the {@link LoginRateLimiter}, with refill periods and back-offs
+ * long enough not to elapse during a test.
+ */
+class LoginRateLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void limitsAttemptsPerEmailAndPerAddress() {
+		LoginRateLimiter limiter = limiter(3, 5, 100, 64);
+
+		for (int i = 0; i < 3; i++)
+			assertTrue(limiter.admit("Ada@ibm.com", "10.0.0.1").isZero());
+		// Emails are limited whatever their case, and a refill is an hour away
+		Duration wait = limiter.admit("ada@IBM.com", "10.0.0.1");
+		assertTrue(wait.compareTo(Duration.ofMinutes(59)) > 0);
+
+		// The address spent a token on the rejected attempt too, and is limited over every email
+		assertTrue(limiter.admit("grace@ibm.com", "10.0.0.1").isZero());
+		assertTrue(!limiter.admit("alan@ibm.com", "10.0.0.1").isZero());
+		assertTrue(limiter.admit("alan@ibm.com", "10.0.0.2").isZero());
+
+		assertEquals(1.0, meterRegistry.counter("login.rate-limit.rejected", "key", "email", "reason", "rate").count());
+		assertEquals(1.0, meterRegistry.counter("login.rate-limit.rejected", "key", "ip", "reason", "rate").count());
+	}
+
+	@Test
+	void backsOffExponentiallyAfterRepeatedFailures() {
+		LoginRateLimiter limiter = limiter(100, 100, 100, 64);
+
+		// Two failures are free
+		limiter.failed("ada@ibm.com", null);
+		limiter.failed("ada@ibm.com", null);
+		assertTrue(limiter.admit("ada@ibm.com", null).isZero());
+
+		limiter.failed("ada@ibm.com", null);
+		Duration first = limiter.admit("ada@ibm.com", null);
+		limiter.failed("ada@ibm.com", null);
+		Duration second = limiter.admit("ada@ibm.com", null);
+		limiter.failed("ada@ibm.com", null);
+		Duration third = limiter.admit("ada@ibm.com", null);
+
+		assertTrue(first.compareTo(Duration.ofMinutes(59)) > 0 && first.compareTo(Duration.ofHours(1)) <= 0);
+		assertTrue(second.compareTo(Duration.ofMinutes(119)) > 0 && second.compareTo(Duration.ofHours(2)) <= 0);
+		assertTrue(third.compareTo(Duration.ofMinutes(239)) > 0 && third.compareTo(Duration.ofHours(4)) <= 0);
+		assertEquals(3.0, meterRegistry.counter("login.rate-limit.rejected", "key", "email", "reason", "backoff").count());
+
+		// A successful login clears the failures of the email
+		limiter.succeeded("ADA@ibm.com");
+		assertTrue(limiter.admit("ada@ibm.com", null).isZero());
+		limiter.failed("ada@ibm.com", null);
+		assertTrue(limiter.admit("ada@ibm.com", null).isZero());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void evictsTheLeastRecentlyUsedBuckets() {
+		LoginRateLimiter limiter = limiter(1, 100, 8, 2);
+
+		for (int i = 0; i < 50; i++)
+			limiter.admit("user" + i + "@ibm.com", null);
+
+		Map<String, Object> emails = (Map<String, Object>) limiter.describe().get("email");
+		assertEquals(8, emails.get("entries"));
+		assertEquals(42L, emails.get("evicted"));
+		assertEquals(8.0, meterRegistry.get("login.rate-limit.entries").tag("key", "email").gauge().value());
+
+		// The most recent email is still out of tokens, an evicted one starts full again
+		assertTrue(!limiter.admit("user49@ibm.com", null).isZero());
+		assertTrue(limiter.admit("user0@ibm.com", null).isZero());
+	}
+
+	private LoginRateLimiter limiter(int emailCapacity, int ipCapacity, int maxEntries, int stripes) {
+		return new LoginRateLimiter(meterRegistry, true, emailCapacity, Duration.ofHours(1), ipCapacity, Duration.ofHours(1),
+				2, Duration.ofHours(1), Duration.ofDays(1), maxEntries, stripes);
+	}
+}
@@ -0,0 +1,152 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.configuration.LoginAuthentication;
+import com.ibm.fscc.loginservice.dto.LoginRequest;
+import com.ibm.fscc.loginservice.model.Login;
+import com.ibm.fscc.loginservice.repository.LoginRepository;
+import com.ibm.fscc.loginservice.service.LoginService;
+import com.ibm.fscc.loginservice.service.RegisteredEmails;
+import com.ibm.fscc.loginservice.util.BlockingExecutor;
+import com.ibm.fscc.loginservice.util.ConfigurablePasswordEncoder;
+import com.ibm.fscc.loginservice.util.JwtProvider;
+import com.ibm.fscc.loginservice.util.PasswordHashingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the {@link LoginService} spreads a login over the blocking and the hashing threads, with one thread each
+ * and room for two waiting hashes, and a repository knowing every email.
+ */
+class LoginServiceTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LoginRepository loginRepository = mock(LoginRepository.class);
+	private final ConfigurablePasswordEncoder passwordEncoder = new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.BCRYPT, 4);
+	private final BlockingExecutor blockingExecutor = new BlockingExecutor(meterRegistry, 1, 10);
+	private final PasswordHashingExecutor passwordHashingExecutor = new PasswordHashingExecutor(meterRegistry, 1, 2);
+	private final RegisteredEmails registeredEmails = new RegisteredEmails(loginRepository, meterRegistry, false, 100, 0.01, 100, Duration.ofMinutes(1));
+	private final LoginService loginService = new LoginService(mock(JwtProvider.class), null,
+			new LoginAuthentication(loginRepository, passwordEncoder, blockingExecutor, passwordHashingExecutor, registeredEmails, false),
+			loginRepository, registeredEmails);
+
+	@AfterEach
+	void disposeExecutors() {
+		blockingExecutor.dispose();
+		passwordHashingExecutor.shutdown();
+	}
+
+	@Test
+	void answersServiceUnavailableOnceTheHashingQueueIsFull() throws Exception {
+		String hash = passwordEncoder.encode("password1");
+		when(loginRepository.findByEmail(anyString())).thenAnswer(invocation -> Optional.of(new Login(invocation.getArgument(0), hash)));
+
+		// Hold the only hashing thread
+		CountDownLatch release = new CountDownLatch(1);
+		passwordHashingExecutor.hash(() -> release.await(10, TimeUnit.SECONDS)).subscribe();
+		await(() -> meterRegistry.get("hashing.active").gauge().value() == 1);
+
+		// Both logins are looked up by the only blocking thread, which does not wait for their hashes
+		CompletableFuture<ResponseEntity<?>> first = loginService.login(new LoginRequest("ada@ibm.com", "wrongpass1")).toFuture();
+		CompletableFuture<ResponseEntity<?>> second = loginService.login(new LoginRequest("grace@ibm.com", "wrongpass2")).toFuture();
+		verify(loginRepository, timeout(5_000).times(2)).findByEmail(anyString());
+		await(() -> meterRegistry.get("hashing.queue.depth").gauge().value() == 2);
+
+		ResponseEntity<?> rejected = loginService.login(new LoginRequest("alan@ibm.com", "password1")).block();
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+		assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(1.0, meterRegistry.get("hashing.rejected").counter().count());
+
+		// The queued logins are answered once the hashing thread is free
+		release.countDown();
+		assertEquals(HttpStatus.UNAUTHORIZED, first.get(10, TimeUnit.SECONDS).getStatusCode());
+		assertEquals(HttpStatus.UNAUTHORIZED, second.get(10, TimeUnit.SECONDS).getStatusCode());
+	}
+
+	@Test
+	void refusesMissingCredentialsBeforeAnyLookup() {
+		ResponseEntity<?> refused = loginService.login(new LoginRequest(" ", null)).block();
+		assertEquals(HttpStatus.BAD_REQUEST, refused.getStatusCode());
+		assertEquals(Map.of("email", "Email is required.", "password", "Password is required."), refused.getBody());
+		verify(loginRepository, never()).findByEmail(anyString());
+	}
+
+	@Test
+	void logsInWithCredentialsOutsideTheRegistrationRules() {
+		// Saved without validation: an email the registration pattern refuses and a password over 20 characters
+		String password = "p".repeat(30);
+		when(loginRepository.findByEmail("ada lovelace@ibm")).thenReturn(Optional.of(
+				new Login("ada lovelace@ibm", passwordEncoder.encode(password))));
+
+		ResponseEntity<?> response = loginService.login(new LoginRequest("ada lovelace@ibm", password)).block();
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+	}
+
+	@Test
+	void rehashesPasswordsHashedWithOtherParameters() {
+		String legacy = new BCryptPasswordEncoder(4).encode("password1");
+		when(loginRepository.findByEmail("ada@ibm.com")).thenReturn(Optional.of(new Login("ada@ibm.com", legacy)));
+		when(loginRepository.updatePassword(anyString(), anyString(), anyString())).thenReturn(1);
+
+		assertEquals(HttpStatus.OK, loginService.login(new LoginRequest("ada@ibm.com", "password1")).block().getStatusCode());
+
+		// The new hash is made with the configured parameters, and only replaces the hash that was checked
+		ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+		verify(loginRepository).updatePassword(eq("ada@ibm.com"), eq(legacy), hash.capture());
+		assertTrue(passwordEncoder.matches("password1", hash.getValue()));
+		assertFalse(passwordEncoder.upgradeEncoding(hash.getValue()));
+	}
+
+	@Test
+	void keepsPasswordsHashedWithTheConfiguredParameters() {
+		when(loginRepository.findByEmail("ada@ibm.com")).thenReturn(Optional.of(new Login("ada@ibm.com", passwordEncoder.encode("password1"))));
+
+		assertEquals(HttpStatus.OK, loginService.login(new LoginRequest("ada@ibm.com", "password1")).block().getStatusCode());
+		// A wrong password is not rehashed either
+		when(loginRepository.findByEmail("grace@ibm.com")).thenReturn(Optional.of(new Login("grace@ibm.com", new BCryptPasswordEncoder(4).encode("password1"))));
+		assertEquals(HttpStatus.UNAUTHORIZED, loginService.login(new LoginRequest("grace@ibm.com", "password2")).block().getStatusCode());
+
+		verify(loginRepository, never()).updatePassword(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void logsInEvenIfTheRehashFails() {
+		when(loginRepository.findByEmail("ada@ibm.com")).thenReturn(Optional.of(new Login("ada@ibm.com", new BCryptPasswordEncoder(4).encode("password1"))));
+		when(loginRepository.updatePassword(anyString(), anyString(), anyString())).thenThrow(new IllegalStateException("Database unavailable"));
+
+		assertEquals(HttpStatus.OK, loginService.login(new LoginRequest("ada@ibm.com", "password1")).block().getStatusCode());
+		verify(loginRepository).updatePassword(eq("ada@ibm.com"), anyString(), anyString());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+			Thread.sleep(10);
+		assertTrue(condition.getAsBoolean());
+	}
+}
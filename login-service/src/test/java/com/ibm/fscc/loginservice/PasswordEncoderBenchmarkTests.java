@@ -0,0 +1,129 @@
+package com.ibm.fscc.loginservice;
+
+import com.ibm.fscc.loginservice.util.ConfigurablePasswordEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the password checks per second and per core of every algorithm at several work factors, to pick
+ * {@code login.password.work-factor} against the login latency target, and checks which stored hashes are rehashed.
+ * The measurement takes seconds and depends on the machine, so it only runs with {@code mvn test -Pbenchmark}; the
+ * other checks run with every build.
+ */
+class PasswordEncoderBenchmarkTests {
+
+	private static final long MEASURE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+	@Test
+	@Tag("benchmark")
+	void measuresHashesPerSecondPerCore() throws Exception {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.printf("Password checks on %d cores:%n", cores);
+
+		for (String algorithm : List.of(ConfigurablePasswordEncoder.BCRYPT, ConfigurablePasswordEncoder.SCRYPT, ConfigurablePasswordEncoder.ARGON2)) {
+			int[] workFactors = switch (algorithm) {
+				case ConfigurablePasswordEncoder.BCRYPT -> new int[] {8, 10, 12};
+				case ConfigurablePasswordEncoder.SCRYPT -> new int[] {12, 14, 16};
+				default -> new int[] {1, 2, 3};
+			};
+
+			double[] perCore = new double[workFactors.length];
+			for (int i = 0; i < workFactors.length; i++) {
+				perCore[i] = checksPerSecond(new ConfigurablePasswordEncoder(algorithm, workFactors[i]), cores) / cores;
+				System.out.printf("  %-6s work factor %2d: %8.1f checks/s per core, %7.2f ms per check%n",
+						algorithm, workFactors[i], perCore[i], 1_000 / perCore[i]);
+			}
+
+			// Neighbouring settings may be within the noise of a short run, the ends of the range are not
+			assertTrue(perCore[0] > perCore[perCore.length - 1]);
+		}
+	}
+
+	@Test
+	void rehashesHashesMadeWithOtherParameters() {
+		ConfigurablePasswordEncoder encoder = new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.BCRYPT, 6);
+
+		String current = encoder.encode("test1234");
+		assertTrue(current.startsWith("{bcrypt}$2a$06$"));
+		assertTrue(encoder.matches("test1234", current));
+		assertFalse(encoder.upgradeEncoding(current));
+
+		// Stored hashes of the former encoder carry no id, and are rehashed whatever their cost
+		String legacy = new BCryptPasswordEncoder(6).encode("test1234");
+		assertTrue(encoder.matches("test1234", legacy));
+		assertTrue(encoder.upgradeEncoding(legacy));
+
+		// Higher and lower costs are both rehashed, and are still checked until then
+		String costlier = new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.BCRYPT, 7).encode("test1234");
+		assertTrue(encoder.matches("test1234", costlier));
+		assertTrue(encoder.upgradeEncoding(costlier));
+		assertTrue(encoder.upgradeEncoding(new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.BCRYPT, 5).encode("test1234")));
+
+		// So are hashes of another algorithm
+		ConfigurablePasswordEncoder argon2 = new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.ARGON2, 1);
+		String other = argon2.encode("test1234");
+		assertTrue(encoder.matches("test1234", other));
+		assertTrue(encoder.upgradeEncoding(other));
+		assertFalse(argon2.upgradeEncoding(argon2.encode("other")));
+		assertTrue(new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.ARGON2, 2).upgradeEncoding(other));
+
+		ConfigurablePasswordEncoder scrypt = new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.SCRYPT, 10);
+		assertFalse(scrypt.upgradeEncoding(scrypt.encode("test1234")));
+		assertTrue(new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.SCRYPT, 11).upgradeEncoding(scrypt.encode("test1234")));
+	}
+
+	@Test
+	void refusesUnknownSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new ConfigurablePasswordEncoder("pbkdf2", 10));
+		assertThrows(IllegalArgumentException.class, () -> new ConfigurablePasswordEncoder(ConfigurablePasswordEncoder.BCRYPT, 3));
+	}
+
+	/**
+	 * Checks a password on every core at once, warming up for as long as it measures, and counts the checks done in
+	 * {@link #MEASURE_NANOS}.
+	 */
+	private static double checksPerSecond(ConfigurablePasswordEncoder encoder, int threads) throws Exception {
+		String hash = encoder.encode("test1234");
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			checks(executor, threads, encoder, hash);
+
+			long start = System.nanoTime();
+			return checks(executor, threads, encoder, hash) * 1e9 / (System.nanoTime() - start);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int checks(ExecutorService executor, int threads, ConfigurablePasswordEncoder encoder, String hash) throws Exception {
+		long start = System.nanoTime();
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++)
+			futures.add(executor.submit(() -> {
+				int checks = 0;
+				do {
+					encoder.matches("test1234", hash);
+					checks++;
+				} while (System.nanoTime() - start < MEASURE_NANOS);
+				return checks;
+			}));
+
+		int checks = 0;
+		for (Future<Integer> future : futures)
+			checks += future.get();
+		return checks;
+	}
+}